@@ -11,6 +11,11 @@ public class MutablePropertyValues implements PropertyValues{
 
     private final List<PropertyValue> propertyValueList;
 
+    /**
+     * 所有属性值是否都已经做过类型转换
+     */
+    private volatile boolean converted;
+
     public MutablePropertyValues() {
         this.propertyValueList = new ArrayList<>(0);
     }
@@ -27,6 +32,7 @@ public class MutablePropertyValues implements PropertyValues{
     }
 
     public MutablePropertyValues addPropertyValue(PropertyValue pv) {
+        this.converted = false;
 
         // 检查新添加新来的 pv 是否已存在，存在则覆盖
         for (int i = 0; i < this.propertyValueList.size(); i++) {
@@ -48,6 +54,42 @@ public class MutablePropertyValues implements PropertyValues{
     }
 
 
+    /**
+     * 直接返回内部的 pv 列表，注入属性时遍历它可以避免每次都拷贝出一个数组
+     * @return pv list (live)
+     */
+    public List<PropertyValue> getPropertyValueList() {
+        return this.propertyValueList;
+    }
+
+    /**
+     * 是否所有属性值都已经做过类型转换
+     * @return bool
+     */
+    public boolean isConverted() {
+        return this.converted;
+    }
+
+    /**
+     * 标记所有属性值都已经做过类型转换
+     */
+    public void setConverted() {
+        this.converted = true;
+    }
+
+    /**
+     * 丢弃所有转换后的值，比如 bean class 变了，属性的类型可能也跟着变了
+     */
+    public void clearConverted() {
+        this.converted = false;
+        for (int i = 0; i < this.propertyValueList.size(); i++) {
+            PropertyValue pv = this.propertyValueList.get(i);
+            if (pv.isConverted()) {
+                this.propertyValueList.set(i, new PropertyValue(pv.getName(), pv.getValue()));
+            }
+        }
+    }
+
     @Override
     public PropertyValue[] getPropertyValues() {
         // toArray函数会利用copy函数自动扩充数组的长度
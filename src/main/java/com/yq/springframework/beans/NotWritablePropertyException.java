@@ -0,0 +1,12 @@
+package com.yq.springframework.beans;
+
+/**
+ * 属性不可写：既没有对应的 setter，也没有对应的字段
+ */
+public class NotWritablePropertyException extends BeansException {
+
+    public NotWritablePropertyException(Class<?> beanClass, String propertyName) {
+        super("Invalid property '" + propertyName + "' of bean class [" + beanClass.getName() +
+                "]: Bean property '" + propertyName + "' is not writable or has an invalid setter method");
+    }
+}
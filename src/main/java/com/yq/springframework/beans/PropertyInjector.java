@@ -0,0 +1,52 @@
+package com.yq.springframework.beans;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+/**
+ * 单个属性的注入器：解析好的 setter (或字段) 对应的 MethodHandle
+ *
+ * spring 源码中属性注入是 BeanWrapper 做的，每个 class 的属性描述符缓存在 CachedIntrospectionResults 中
+ * 这里简化成：每个 (class, 属性名) 只解析一次，之后注入就是一次 MethodHandle 调用
+ */
+public final class PropertyInjector {
+
+    private static final MethodType INJECT_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final String propertyName;
+
+    /**
+     * 属性类型 (setter 参数类型 / 字段类型)
+     */
+    private final Class<?> propertyType;
+
+    /**
+     * (Object bean, Object value) -> void
+     */
+    private final MethodHandle setter;
+
+    PropertyInjector(String propertyName, Class<?> propertyType, MethodHandle setter) {
+        this.propertyName = propertyName;
+        this.propertyType = propertyType;
+        this.setter = setter.asType(INJECT_TYPE);
+    }
+
+    public String getPropertyName() {
+        return this.propertyName;
+    }
+
+    public Class<?> getPropertyType() {
+        return this.propertyType;
+    }
+
+    /**
+     * 将 value 注入到 bean 中
+     * 注入器本身不做类型转换，value 需要已经是属性类型 (或其包装类型) 的对象
+     * @param bean 目标 bean
+     * @param value 属性值
+     * @throws Throwable setter 抛出的异常
+     */
+    public void inject(Object bean, Object value) throws Throwable {
+        this.setter.invokeExact(bean, value);
+    }
+}
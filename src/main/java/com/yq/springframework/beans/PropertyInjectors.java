@@ -0,0 +1,122 @@
+package com.yq.springframework.beans;
+
+import cn.hutool.core.util.StrUtil;
+import com.yq.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 属性注入器的缓存：class ==> (属性名 ==> 注入器)
+ *
+ * 以前每注入一个属性都调用一次 hutool 的 BeanUtil.setProperty，每次都要按名字做一遍反射内省
+ * 现在每个 (class, 属性名) 只解析一次：
+ * - 优先使用 public 的 setXxx(单参数) 方法
+ * - 没有 setter 则使用同名字段 (包括父类中声明的字段)
+ *
+ * cglib 生成的子类按其父类(用户定义的类)来解析，同一个用户类的所有子类共用一份缓存
+ */
+public class PropertyInjectors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Map<Class<?>, Map<String, PropertyInjector>> injectorCache = new ConcurrentHashMap<>(64);
+
+    /**
+     * 获取属性注入器
+     * @param beanClass bean 的实际类型 (可以是 cglib 子类)
+     * @param propertyName 属性名
+     * @return 注入器
+     * @throws NotWritablePropertyException 属性不可写
+     */
+    public PropertyInjector getInjector(Class<?> beanClass, String propertyName) throws NotWritablePropertyException {
+        Class<?> userClass = ClassUtils.getUserClass(beanClass);
+        Map<String, PropertyInjector> injectors = this.injectorCache.get(userClass);
+        if (injectors == null) {
+            injectors = this.injectorCache.computeIfAbsent(userClass, key -> new ConcurrentHashMap<>(16));
+        }
+        PropertyInjector injector = injectors.get(propertyName);
+        if (injector == null) {
+            injector = injectors.computeIfAbsent(propertyName, name -> resolveInjector(userClass, name));
+        }
+        return injector;
+    }
+
+    private static PropertyInjector resolveInjector(Class<?> beanClass, String propertyName) {
+        try {
+            Method setter = findSetter(beanClass, propertyName);
+            if (setter != null) {
+                return new PropertyInjector(propertyName, setter.getParameterTypes()[0], LOOKUP.unreflect(setter));
+            }
+            Field field = findField(beanClass, propertyName);
+            if (field != null) {
+                field.setAccessible(true);
+                return new PropertyInjector(propertyName, field.getType(), LOOKUP.unreflectSetter(field));
+            }
+        } catch (IllegalAccessException e) {
+            throw new NotWritablePropertyException(beanClass, propertyName);
+        }
+        throw new NotWritablePropertyException(beanClass, propertyName);
+    }
+
+    /**
+     * 查找 setXxx 方法
+     * 存在重载时，优先选择参数类型和 getXxx 返回值类型一致的那个
+     */
+    private static Method findSetter(Class<?> beanClass, String propertyName) {
+        String setterName = "set" + StrUtil.upperFirst(propertyName);
+        Class<?> getterType = findGetterType(beanClass, propertyName);
+        Method candidate = null;
+        for (Method method : beanClass.getMethods()) {
+            if (method.getName().equals(setterName) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                if (getterType == null || method.getParameterTypes()[0] == getterType) {
+                    return makeAccessible(method);
+                }
+                if (candidate == null) {
+                    candidate = method;
+                }
+            }
+        }
+        return (candidate != null ? makeAccessible(candidate) : null);
+    }
+
+    private static Class<?> findGetterType(Class<?> beanClass, String propertyName) {
+        String capitalized = StrUtil.upperFirst(propertyName);
+        for (String getterName : new String[] {"get" + capitalized, "is" + capitalized}) {
+            try {
+                return beanClass.getMethod(getterName).getReturnType();
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * public 方法声明在非 public 类中时，MethodHandle 同样需要 setAccessible
+     */
+    private static Method makeAccessible(Method method) {
+        if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            method.setAccessible(true);
+        }
+        return method;
+    }
+
+    private static Field findField(Class<?> beanClass, String propertyName) {
+        for (Class<?> current = beanClass; current != null && current != Object.class; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(propertyName);
+                if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                    return field;
+                }
+            } catch (NoSuchFieldException ignored) {
+            }
+        }
+        return null;
+    }
+}
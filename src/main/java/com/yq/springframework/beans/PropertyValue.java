@@ -8,6 +8,16 @@ public class PropertyValue {
     private final String name;
     private final Object value;
 
+    /**
+     * 是否已经转换为属性的实际类型
+     */
+    private volatile boolean converted;
+
+    /**
+     * 转换后的值，converted 为 true 时才有意义
+     */
+    private Object convertedValue;
+
     public PropertyValue(String name, Object value) {
         assert name != null : "Name must not be null";
         this.name = name;
@@ -22,5 +32,31 @@ public class PropertyValue {
         return value;
     }
 
+    /**
+     * 是否已经有转换后的值
+     * @return bool
+     */
+    public boolean isConverted() {
+        return this.converted;
+    }
+
+    /**
+     * 获取转换后的值
+     * @return 转换后的值
+     */
+    public Object getConvertedValue() {
+        return this.convertedValue;
+    }
+
+    /**
+     * 设置转换后的值，之后创建 bean 时直接使用它，不再重复做类型转换
+     * @param value 转换后的值
+     */
+    public void setConvertedValue(Object value) {
+        // 先写值，再写 volatile 的标记，其他线程看到 converted 时一定能看到 convertedValue
+        this.convertedValue = value;
+        this.converted = true;
+    }
+
 
 }
@@ -0,0 +1,28 @@
+package com.yq.springframework.beans.factory;
+
+import com.yq.springframework.beans.BeansException;
+
+/**
+ * 创建 bean 失败时抛出的异常
+ */
+public class BeanCreationException extends BeansException {
+
+    /**
+     * 创建失败的 bean 名称
+     */
+    private final String beanName;
+
+    public BeanCreationException(String beanName, String msg) {
+        super("Error creating bean with name '" + beanName + "': " + msg);
+        this.beanName = beanName;
+    }
+
+    public BeanCreationException(String beanName, String msg, Throwable cause) {
+        super("Error creating bean with name '" + beanName + "': " + msg, cause);
+        this.beanName = beanName;
+    }
+
+    public String getBeanName() {
+        return this.beanName;
+    }
+}
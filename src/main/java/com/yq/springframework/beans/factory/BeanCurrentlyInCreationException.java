@@ -0,0 +1,29 @@
+package com.yq.springframework.beans.factory;
+
+import com.yq.springframework.beans.BeansException;
+
+/**
+ * bean 正在创建中，却又被要求创建时抛出的异常
+ *
+ * 一般说明出现了无法解决的循环依赖：比如 bean 还没实例化完成(拿不到提前暴露的引用)，就又被依赖方 getBean 了
+ */
+public class BeanCurrentlyInCreationException extends BeansException {
+
+    /**
+     * 正在创建中的 bean 名称
+     */
+    private final String beanName;
+
+    public BeanCurrentlyInCreationException(String beanName) {
+        this(beanName, "Requested bean is currently in creation: Is there an unresolvable circular reference?");
+    }
+
+    public BeanCurrentlyInCreationException(String beanName, String msg) {
+        super("Error creating bean with name '" + beanName + "': " + msg);
+        this.beanName = beanName;
+    }
+
+    public String getBeanName() {
+        return this.beanName;
+    }
+}
@@ -0,0 +1,71 @@
+package com.yq.springframework.beans.factory;
+
+import com.yq.springframework.beans.BeansException;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BD 中的 class 名称无法加载成 Class 时抛出的异常
+ *
+ * 批量解析 (DefaultListableBeanFactory#resolveBeanClasses) 时，所有加载失败的 bean 汇总成一个异常抛出，
+ * 每个 bean 的失败原因通过 getFailures 获取
+ */
+public class CannotLoadBeanClassException extends BeansException {
+
+    /**
+     * 加载失败的 bean 名称，批量时为第一个
+     */
+    private final String beanName;
+
+    /**
+     * 加载失败的 class 名称，批量时为第一个
+     */
+    private final String beanClassName;
+
+    private final List<CannotLoadBeanClassException> failures;
+
+    public CannotLoadBeanClassException(String beanName, String beanClassName, Throwable cause) {
+        super("Cannot find class [" + beanClassName + "] for bean with name '" + beanName + "'", cause);
+        this.beanName = beanName;
+        this.beanClassName = beanClassName;
+        this.failures = Collections.singletonList(this);
+    }
+
+    /**
+     * 批量解析时，汇总所有加载失败的 bean
+     * @param failures 每个 bean 的异常，按注册顺序排列，不能为空
+     */
+    public CannotLoadBeanClassException(List<CannotLoadBeanClassException> failures) {
+        super(describe(failures), failures.get(0));
+        this.beanName = failures.get(0).getBeanName();
+        this.beanClassName = failures.get(0).getBeanClassName();
+        this.failures = Collections.unmodifiableList(failures);
+        for (int i = 1; i < failures.size(); i++) {
+            addSuppressed(failures.get(i));
+        }
+    }
+
+    private static String describe(List<CannotLoadBeanClassException> failures) {
+        StringBuilder msg = new StringBuilder("Cannot find classes for ").append(failures.size()).append(" bean(s):");
+        for (CannotLoadBeanClassException failure : failures) {
+            msg.append(" '").append(failure.getBeanName()).append("' [").append(failure.getBeanClassName()).append("]");
+        }
+        return msg.toString();
+    }
+
+    public String getBeanName() {
+        return this.beanName;
+    }
+
+    public String getBeanClassName() {
+        return this.beanClassName;
+    }
+
+    /**
+     * @return 每个加载失败的 bean 的异常
+     */
+    public List<CannotLoadBeanClassException> getFailures() {
+        return this.failures;
+    }
+}
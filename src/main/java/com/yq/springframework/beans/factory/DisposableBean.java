@@ -0,0 +1,19 @@
+package com.yq.springframework.beans.factory;
+
+/**
+ * 需要在容器关闭时释放资源的 bean 可以实现该接口
+ *
+ * 容器关闭 (ApplicationContext#close 或者 JVM 关闭钩子) 时，单例按依赖关系的逆序销毁：
+ * 依赖该 bean 的 bean 都销毁之后，才会调用它的 destroy
+ *
+ * 不想依赖 spring 接口的 bean，也可以在 xml 中配置 destroy-method，效果相同
+ */
+public interface DisposableBean {
+
+    /**
+     * 容器关闭时调用
+     * 抛出的异常只会被记录下来，不会影响其他 bean 的销毁
+     * @throws Exception 销毁失败
+     */
+    void destroy() throws Exception;
+}
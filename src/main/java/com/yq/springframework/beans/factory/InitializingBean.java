@@ -0,0 +1,17 @@
+package com.yq.springframework.beans.factory;
+
+/**
+ * 需要在属性注入完成之后做初始化的 bean 可以实现该接口
+ *
+ * 调用时机：属性注入 -> BeanPostProcessor 初始化前处理 -> afterPropertiesSet -> init-method -> BeanPostProcessor 初始化后处理
+ *
+ * 不想依赖 spring 接口的 bean，也可以在 xml 中配置 init-method，效果相同
+ */
+public interface InitializingBean {
+
+    /**
+     * 所有属性注入完成之后调用
+     * @throws Exception 初始化失败，bean 创建失败
+     */
+    void afterPropertiesSet() throws Exception;
+}
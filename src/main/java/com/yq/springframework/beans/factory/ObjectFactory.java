@@ -0,0 +1,22 @@
+package com.yq.springframework.beans.factory;
+
+import com.yq.springframework.beans.BeansException;
+
+/**
+ * 对象工厂，调用时才去真正获取(创建)对象
+ *
+ * 在 spring 源码中，getSingleton(beanName, singletonFactory) 就是通过一个 lambda 形式的 ObjectFactory
+ * 把 createBean 的行为延迟到【拿到该 bean 的创建锁之后】再执行
+ *
+ * @param <T> 对象类型
+ */
+@FunctionalInterface
+public interface ObjectFactory<T> {
+
+    /**
+     * 获取对象
+     * @return 对象实例
+     * @throws BeansException 创建失败
+     */
+    T getObject() throws BeansException;
+}
@@ -0,0 +1,134 @@
+package com.yq.springframework.beans.factory.annotation;
+
+import com.yq.springframework.util.ClassUtils;
+import com.yq.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * 构建时生成的组件索引，存在时 <component-scan> 直接查索引，不再遍历 classpath
+ *
+ * 索引文件：classpath 下的 META-INF/yq-spring.components，UTF-8 properties 格式，每行 类名=beanName；
+ * 每个 jar / classes 目录各有一份，加载时全部合并
+ *
+ * 和 spring 的 META-INF/spring.components 一样：只要 classpath 上有任何一份索引，扫描就只看索引，
+ * 没有生成索引的 jar 中的组件不会被发现，所以要么都生成，要么都不生成
+ *
+ * 生成索引：编译完成后执行 CandidateComponentsIndex &lt;classesDir&gt;
+ */
+public final class CandidateComponentsIndex {
+
+    public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/yq-spring.components";
+
+    private static final String HEADER = "# yq-spring candidate components index";
+
+    /**
+     * 类名 ==> beanName，按类名排序
+     */
+    private final TreeMap<String, String> components;
+
+    CandidateComponentsIndex(Map<String, String> components) {
+        this.components = new TreeMap<>(components);
+    }
+
+    /**
+     * 加载 classpath 上的所有索引文件
+     * @param classLoader 类加载器
+     * @return 合并后的索引，classpath 上没有索引文件时为 null
+     * @throws IOException 读取失败
+     */
+    public static CandidateComponentsIndex load(ClassLoader classLoader) throws IOException {
+        Enumeration<URL> urls = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
+        if (!urls.hasMoreElements()) {
+            return null;
+        }
+        Properties merged = new Properties();
+        while (urls.hasMoreElements()) {
+            try (Reader reader = new InputStreamReader(urls.nextElement().openStream(), StandardCharsets.UTF_8)) {
+                merged.load(reader);
+            }
+        }
+        Map<String, String> components = new TreeMap<>();
+        for (String className : merged.stringPropertyNames()) {
+            components.put(className, merged.getProperty(className));
+        }
+        return new CandidateComponentsIndex(components);
+    }
+
+    /**
+     * 查找某个包 (包括子包) 下的组件
+     * @param basePackage 包名
+     * @return 类名 ==> beanName，按类名排序
+     */
+    public Map<String, String> getCandidateComponents(String basePackage) {
+        String prefix = basePackage + ".";
+        return Collections.unmodifiableMap(this.components.subMap(prefix, prefix + Character.MAX_VALUE));
+    }
+
+    /**
+     * @return 索引中的全部组件，类名 ==> beanName
+     */
+    public Map<String, String> getComponents() {
+        return Collections.unmodifiableMap(this.components);
+    }
+
+    /**
+     * 扫描编译输出目录中的所有组件，把索引写到该目录下的 META-INF/yq-spring.components
+     * 先写临时文件再替换，不会留下写了一半的索引
+     * @param classesDir 编译输出目录
+     * @return 索引中的组件个数
+     * @throws IOException 读写失败
+     */
+    public static int generate(Path classesDir) throws IOException {
+        // 解析元注解时，注解类可能在该目录中，也可能在依赖的 jar 中
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{classesDir.toUri().toURL()},
+                ClassUtils.getDefaultClassLoader());
+        try {
+            ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider();
+            provider.setClassLoader(classLoader);
+            provider.setUseComponentIndex(false);
+            Map<String, String> components = new TreeMap<>();
+            provider.scanDirectory(classesDir, components);
+            write(classesDir.resolve(COMPONENTS_RESOURCE_LOCATION), components);
+            return components.size();
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    private static void write(Path target, Map<String, String> components) throws IOException {
+        List<String> lines = new ArrayList<>(components.size() + 1);
+        lines.add(HEADER);
+        for (Map.Entry<String, String> entry : components.entrySet()) {
+            lines.add(entry.getKey() + "=" + entry.getValue());
+        }
+        FileSystemUtils.writeAtomically(target, lines);
+    }
+
+    /**
+     * 构建时生成组件索引
+     * 用法：CandidateComponentsIndex &lt;classesDir&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: CandidateComponentsIndex <classesDir>");
+            System.exit(1);
+        }
+        int count = generate(Paths.get(args[0]));
+        System.out.println("Indexed " + count + " components");
+    }
+}
@@ -0,0 +1,44 @@
+package com.yq.springframework.beans.factory.annotation;
+
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.support.BeanDefinitionRegistry;
+
+import java.util.Map;
+
+/**
+ * 组件扫描：把找到的组件注册成 BD
+ *
+ * 在 spring 源码中，它位于 context 模块 (org.springframework.context.annotation)；
+ * 这里 <component-scan> 是由 beans 模块中的 XmlBeanDefinitionReader 解析的，为了不让 beans 反过来依赖 context，放在 beans 中
+ *
+ * 注册的 BD 只记录类名，类由 BF 在第一次使用时加载，或者通过 DefaultListableBeanFactory#resolveBeanClasses 批量加载
+ */
+public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateComponentProvider {
+
+    private final BeanDefinitionRegistry registry;
+
+    public ClassPathBeanDefinitionScanner(BeanDefinitionRegistry registry) {
+        this.registry = registry;
+    }
+
+    public BeanDefinitionRegistry getRegistry() {
+        return this.registry;
+    }
+
+    /**
+     * 扫描这些包 (包括子包)，把找到的组件注册到 registry
+     * @param basePackages 包名
+     * @return 注册的 BD 个数
+     * @throws BeanDefinitionStoreException 扫描失败，或者 bean 名称重复
+     */
+    public int scan(String... basePackages) {
+        Map<String, BeanDefinition> candidates = findCandidateComponents(basePackages);
+        for (Map.Entry<String, BeanDefinition> entry : candidates.entrySet()) {
+            if (this.registry.containsBeanDefinition(entry.getKey()))
+                throw new BeanDefinitionStoreException("已存在该名称[" + entry.getKey() +"]的 bean 元信息! bean 名称不允许重复!");
+            this.registry.registerBeanDefinition(entry.getKey(), entry.getValue());
+        }
+        return candidates.size();
+    }
+}
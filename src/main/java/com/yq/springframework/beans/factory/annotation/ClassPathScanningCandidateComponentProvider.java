@@ -0,0 +1,413 @@
+package com.yq.springframework.beans.factory.annotation;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.core.type.classreading.ClassMetadata;
+import com.yq.springframework.core.type.classreading.ClassMetadataReader;
+import com.yq.springframework.stereotype.Component;
+import com.yq.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+/**
+ * 在 classpath 中查找标注了 @Component (或者以 @Component 为元注解的注解) 的类
+ *
+ * 不加载任何候选类：直接读取目录和 jar 中的 class 文件，用 ClassMetadataReader 解析字节码中的访问标志和注解；
+ * 只有判断元注解时才会读取注解类自己的 class 文件，结果按注解类型缓存，每种注解只读一次
+ *
+ * classpath 上存在组件索引 (META-INF/yq-spring.components) 时直接查索引，完全不遍历 classpath
+ *
+ * @see CandidateComponentsIndex
+ * @see ClassPathBeanDefinitionScanner
+ */
+public class ClassPathScanningCandidateComponentProvider {
+
+    private static final Log log = LogFactory.get();
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private static final String PACKAGE_INFO_CLASS = "package-info.class";
+
+    private static final String MODULE_INFO_CLASS = "module-info.class";
+
+    private static final String COMPONENT_ANNOTATION = Component.class.getName();
+
+    private static final String VALUE_ATTRIBUTE = "value";
+
+    private ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+
+    /**
+     * 是否使用组件索引
+     */
+    private boolean useComponentIndex = true;
+
+    private volatile boolean componentIndexLoaded = false;
+
+    private CandidateComponentsIndex componentIndex;
+
+    /**
+     * 注解类型名 ==> 是否是 @Component 或者以 @Component 为元注解
+     */
+    private final Map<String, Boolean> componentAnnotationCache = new ConcurrentHashMap<>();
+
+
+    public void setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        this.componentIndexLoaded = false;
+        this.componentAnnotationCache.clear();
+    }
+
+    public ClassLoader getClassLoader() {
+        return this.classLoader;
+    }
+
+    /**
+     * 设置是否使用组件索引，关闭后总是遍历 classpath
+     * @param useComponentIndex 是否使用
+     */
+    public void setUseComponentIndex(boolean useComponentIndex) {
+        this.useComponentIndex = useComponentIndex;
+    }
+
+    public boolean isUseComponentIndex() {
+        return this.useComponentIndex;
+    }
+
+
+    /**
+     * 查找这些包 (包括子包) 中的组件，BD 中只记录类名，由 BF 在需要时加载
+     * @param basePackages 包名
+     * @return beanName ==> BD，同一个包内按类名排序，多个包按参数顺序
+     * @throws BeanDefinitionStoreException 扫描失败，或者两个组件的 bean 名称相同
+     */
+    public Map<String, BeanDefinition> findCandidateComponents(String... basePackages) {
+        // 包可能有重叠 (a 和 a.b)，同一个类只取一次
+        Map<String, String> candidates = new LinkedHashMap<>();
+        for (String basePackage : basePackages) {
+            if (StrUtil.isBlank(basePackage)) {
+                throw new BeanDefinitionStoreException("组件扫描的包名不能为空!");
+            }
+            for (Map.Entry<String, String> entry : findCandidateComponentNames(basePackage.trim()).entrySet()) {
+                candidates.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+        Map<String, String> classNamesByBeanName = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : candidates.entrySet()) {
+            String className = entry.getKey();
+            String beanName = entry.getValue();
+            String existing = classNamesByBeanName.putIfAbsent(beanName, className);
+            if (existing != null) {
+                throw new BeanDefinitionStoreException("组件 " + existing + " 和 " + className
+                        + " 的 bean 名称[" + beanName + "]重复! bean 名称不允许重复!");
+            }
+            BeanDefinition bd = new BeanDefinition();
+            bd.setBeanClassName(className);
+            beanDefinitions.put(beanName, bd);
+        }
+        return beanDefinitions;
+    }
+
+    /**
+     * 查找一个包 (包括子包) 中的组件，有索引时查索引，否则遍历 classpath
+     * @param basePackage 包名
+     * @return 类名 ==> beanName，按类名排序
+     */
+    protected Map<String, String> findCandidateComponentNames(String basePackage) {
+        CandidateComponentsIndex index = getComponentIndex();
+        if (index != null) {
+            return index.getCandidateComponents(basePackage);
+        }
+        Map<String, String> candidates = new TreeMap<>();
+        visitClassFiles(basePackage, (location, classFile) -> processClassFile(location, classFile, candidates));
+        return candidates;
+    }
+
+    /**
+     * 计算这些包中组件扫描结果的指纹，BD 快照用它判断扫描出来的组件有没有变化
+     * 有组件索引时是索引中这些包的 类名、beanName 的 crc32；
+     * 否则是包中所有 class 文件的位置和内容的 crc32，新增、删除、修改任何一个类，指纹都会变
+     * 只读取文件内容，不解析字节码
+     * @param basePackages 包名
+     * @return 指纹
+     * @throws BeanDefinitionStoreException 扫描失败
+     */
+    public long computeFingerprint(String... basePackages) {
+        CandidateComponentsIndex index = getComponentIndex();
+        CRC32 crc = new CRC32();
+        for (String basePackage : basePackages) {
+            if (StrUtil.isBlank(basePackage)) {
+                throw new BeanDefinitionStoreException("组件扫描的包名不能为空!");
+            }
+            // 目录遍历的顺序不固定，按位置排序后再计算
+            Map<String, Long> entries = new TreeMap<>();
+            if (index != null) {
+                for (Map.Entry<String, String> entry : index.getCandidateComponents(basePackage.trim()).entrySet()) {
+                    entries.put(entry.getKey() + "=" + entry.getValue(), 0L);
+                }
+            } else {
+                visitClassFiles(basePackage.trim(), (location, classFile) -> entries.put(location, checksum(classFile)));
+            }
+            for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                crc.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                long value = entry.getValue();
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    crc.update((int) (value >>> shift));
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * 遍历 classpath 上一个包 (包括子包) 中的所有 class 文件
+     * @param basePackage 包名
+     * @param visitor 处理每个 class 文件
+     * @throws BeanDefinitionStoreException 扫描失败
+     */
+    private void visitClassFiles(String basePackage, ClassFileVisitor visitor) {
+        String packagePath = basePackage.replace('.', '/');
+        try {
+            Enumeration<URL> urls = this.classLoader.getResources(packagePath);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                if ("file".equals(url.getProtocol())) {
+                    visitDirectory(Paths.get(url.toURI()), visitor);
+                } else if ("jar".equals(url.getProtocol())) {
+                    visitJar(url, visitor);
+                } else {
+                    log.warn("不支持扫描该位置: {}", url);
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new BeanDefinitionStoreException("扫描 base-package(" + basePackage + ") 失败: " + e.getMessage(), e);
+        }
+    }
+
+    private CandidateComponentsIndex getComponentIndex() {
+        if (!this.useComponentIndex) {
+            return null;
+        }
+        if (!this.componentIndexLoaded) {
+            synchronized (this) {
+                if (!this.componentIndexLoaded) {
+                    try {
+                        this.componentIndex = CandidateComponentsIndex.load(this.classLoader);
+                    } catch (IOException e) {
+                        throw new BeanDefinitionStoreException("读取组件索引失败: " + e.getMessage(), e);
+                    }
+                    this.componentIndexLoaded = true;
+                }
+            }
+        }
+        return this.componentIndex;
+    }
+
+    /**
+     * 扫描目录 (包括子目录) 中的 class 文件
+     * @param directory 目录
+     * @param candidates 找到的组件放入其中，类名 ==> beanName
+     * @throws IOException 读取失败
+     */
+    void scanDirectory(Path directory, Map<String, String> candidates) throws IOException {
+        visitDirectory(directory, (location, classFile) -> processClassFile(location, classFile, candidates));
+    }
+
+    private static void visitDirectory(Path directory, ClassFileVisitor visitor) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (isClassFile(file.getFileName().toString())) {
+                    visitor.visit(file.toString(), Files.newInputStream(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void visitJar(URL url, ClassFileVisitor visitor) throws IOException {
+        URLConnection connection = url.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            log.warn("不支持扫描该位置: {}", url);
+            return;
+        }
+        JarURLConnection jarConnection = (JarURLConnection) connection;
+        // 不用 JarURLConnection 的缓存，扫描完关闭 jar
+        jarConnection.setUseCaches(false);
+        String prefix = jarConnection.getEntryName() + "/";
+        try (JarFile jarFile = jarConnection.getJarFile()) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String entryName = entry.getName();
+                if (entryName.startsWith(prefix) && isClassFile(entryName)) {
+                    visitor.visit(url + "!/" + entryName, jarFile.getInputStream(entry));
+                }
+            }
+        }
+    }
+
+    private static boolean isClassFile(String fileName) {
+        return fileName.endsWith(CLASS_FILE_SUFFIX)
+                && !fileName.endsWith(PACKAGE_INFO_CLASS) && !fileName.endsWith(MODULE_INFO_CLASS);
+    }
+
+    /**
+     * 解析一个 class 文件，是组件时放入 candidates
+     * @param location class 文件位置，用于报错
+     * @param classFile class 文件内容，读完后关闭
+     * @param candidates 类名 ==> beanName
+     */
+    private void processClassFile(String location, InputStream classFile, Map<String, String> candidates)
+            throws IOException {
+        ClassMetadata metadata;
+        try {
+            metadata = ClassMetadataReader.read(classFile);
+        } catch (IllegalArgumentException e) {
+            throw new BeanDefinitionStoreException("解析 class 文件(" + location + ")失败: " + e.getMessage(), e);
+        }
+        if (!isCandidateComponent(metadata)) {
+            return;
+        }
+        String beanName = determineBeanName(metadata);
+        if (beanName != null) {
+            candidates.putIfAbsent(metadata.getClassName(), beanName);
+        }
+    }
+
+    /**
+     * 只有能单独实例化的具体类才能成为组件：接口、抽象类、注解、非静态内部类都不行
+     * @param metadata 类元信息
+     * @return 是否可以作为组件
+     */
+    protected boolean isCandidateComponent(ClassMetadata metadata) {
+        return metadata.isConcrete() && metadata.isIndependent();
+    }
+
+    /**
+     * 确定组件的 bean 名称：组件注解的 value 属性，没有配置时类名首字母小写
+     * @param metadata 类元信息
+     * @return bean 名称，不是组件时为 null
+     */
+    protected String determineBeanName(ClassMetadata metadata) {
+        boolean component = false;
+        for (String annotationType : metadata.getAnnotationTypes()) {
+            if (!isComponentAnnotation(annotationType, new HashSet<>())) {
+                continue;
+            }
+            component = true;
+            String value = metadata.getAnnotationAttributes(annotationType).get(VALUE_ATTRIBUTE);
+            if (StrUtil.isNotBlank(value)) {
+                return value.trim();
+            }
+        }
+        return component ? StrUtil.lowerFirst(ClassUtils.getShortName(metadata.getClassName())) : null;
+    }
+
+    /**
+     * 判断注解是否是 @Component，或者 (多层) 以 @Component 为元注解
+     * @param annotationType 注解类型名
+     * @param visiting 正在判断的注解，注解之间可以互相标注，避免死循环
+     */
+    private boolean isComponentAnnotation(String annotationType, Set<String> visiting) {
+        if (COMPONENT_ANNOTATION.equals(annotationType)) {
+            return true;
+        }
+        // JDK 的注解 (@Documented、@Retention 等) 不会是组件注解，不用读
+        if (annotationType.startsWith("java.") || annotationType.startsWith("javax.")) {
+            return false;
+        }
+        Boolean cached = this.componentAnnotationCache.get(annotationType);
+        if (cached != null) {
+            return cached;
+        }
+        boolean topLevel = visiting.isEmpty();
+        if (!visiting.add(annotationType)) {
+            return false;
+        }
+        boolean result = false;
+        ClassMetadata metadata = readAnnotationMetadata(annotationType);
+        if (metadata != null && metadata.isAnnotation()) {
+            for (String metaAnnotationType : metadata.getAnnotationTypes()) {
+                if (isComponentAnnotation(metaAnnotationType, visiting)) {
+                    result = true;
+                    break;
+                }
+            }
+        }
+        // 中间层的 false 可能是因为遇到了正在判断的注解被提前截断，不一定是最终结果：
+        // 例如 @A 标注了 @B 和 @Component，@B 标注了 @A，从 @A 开始判断时 @B 得到的是 false。
+        // 所以 true 总是缓存，false 只在最外层调用时才缓存
+        if (result || topLevel) {
+            this.componentAnnotationCache.put(annotationType, result);
+        }
+        return result;
+    }
+
+    /**
+     * 计算 class 文件内容的 crc32，读完后关闭输入流
+     */
+    private static long checksum(InputStream classFile) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[4096];
+        try (InputStream in = classFile) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private ClassMetadata readAnnotationMetadata(String annotationType) {
+        InputStream is = this.classLoader.getResourceAsStream(annotationType.replace('.', '/') + CLASS_FILE_SUFFIX);
+        if (is == null) {
+            // 注解类不在 classpath 上，运行时也不可见，不可能是组件注解
+            return null;
+        }
+        try {
+            return ClassMetadataReader.read(is);
+        } catch (IOException e) {
+            throw new BeanDefinitionStoreException("读取注解类(" + annotationType + ")失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 处理遍历到的 class 文件
+     */
+    @FunctionalInterface
+    private interface ClassFileVisitor {
+
+        /**
+         * @param location class 文件位置
+         * @param classFile class 文件内容，处理完后关闭
+         */
+        void visit(String location, InputStream classFile) throws IOException;
+    }
+}
@@ -0,0 +1,21 @@
+package com.yq.springframework.beans.factory.aot;
+
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+/**
+ * BF 的初始化器：直接把 BD 注册进 BF，代替 BD Reader 在运行时读取、解析配置文件
+ *
+ * 一般由 BeanFactoryInitializerGenerator 在构建时根据 XML 配置生成，
+ * 生成的 BD 带有 InstanceSupplier、PropertiesPopulator，运行时直接 new 出 bean、直接调用 setter
+ *
+ * spring 源码中对应的是 AOT 生成的 ApplicationContextInitializer
+ */
+@FunctionalInterface
+public interface BeanFactoryInitializer {
+
+    /**
+     * 注册 BD
+     * @param beanFactory BD 注册到该 BF
+     */
+    void initialize(DefaultListableBeanFactory beanFactory);
+}
@@ -0,0 +1,556 @@
+package com.yq.springframework.beans.factory.aot;
+
+import cn.hutool.core.util.StrUtil;
+import com.yq.springframework.beans.PropertyValue;
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.config.BeanReference;
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.beans.factory.support.LookupOverride;
+import com.yq.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import com.yq.springframework.core.convert.ConversionService;
+import com.yq.springframework.core.convert.support.DefaultConversionService;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 构建时根据 BD 生成 BeanFactoryInitializer 的 java 源码
+ *
+ * 生成的代码为每个 bean 注册一个 BD，并设置：
+ * - InstanceSupplier：直接 new 出 bean；有 lookup-method 时生成一个匿名子类重写对应方法，代替 cglib
+ * - PropertiesPopulator：直接调用 setter；String、基本类型、枚举的属性值在构建时就转换好，生成为字面量
+ * 运行时不再需要 XML 解析、Class.forName、构造器解析、setter 查找和 cglib，适合封闭世界的部署方式 (比如 native image)
+ *
+ * 生成代码只能访问 public 的类和方法，做不到直接调用的 bean (比如非 public 的类、没有 public setter 的属性)，
+ * 生成的 BD 和 XML 解析出来的一样，运行时仍然通过反射创建，生成的代码中会注释原因
+ *
+ * 构建时可以通过 exec-maven-plugin 调用 main 方法，把生成的源码目录加入编译：
+ * <pre>
+ *     java ... BeanFactoryInitializerGenerator target/generated-sources/aot com.example.AppBeanFactoryInitializer classpath:app.xml
+ * </pre>
+ *
+ * @see BeanFactoryInitializer
+ */
+public class BeanFactoryInitializerGenerator {
+
+    private static final String INDENT = "    ";
+
+    private static final String OWNER = "aotOwner";
+
+    private final String packageName;
+
+    private final String simpleClassName;
+
+    /**
+     * 构建时转换属性值用的类型转换服务，和 BF 默认的一致
+     */
+    private final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    /**
+     * @param className 生成的类的全限定名
+     */
+    public BeanFactoryInitializerGenerator(String className) {
+        if (StrUtil.isBlank(className)) {
+            throw new IllegalArgumentException("Class name must not be empty");
+        }
+        int lastDot = className.lastIndexOf('.');
+        this.packageName = (lastDot > 0 ? className.substring(0, lastDot) : null);
+        this.simpleClassName = className.substring(lastDot + 1);
+    }
+
+    /**
+     * 生成源码，写入源码目录下对应的包路径中
+     * @param sourceRoot 源码根目录
+     * @param beanFactory BD 所在的 BF
+     * @param sources BD 来自哪些配置文件，只用于生成注释
+     * @return 生成的源文件
+     * @throws IOException 写文件失败
+     */
+    public Path writeTo(Path sourceRoot, DefaultListableBeanFactory beanFactory, String... sources) throws IOException {
+        Path directory = (this.packageName != null ?
+                sourceRoot.resolve(this.packageName.replace('.', '/')) : sourceRoot);
+        Files.createDirectories(directory);
+        Path sourceFile = directory.resolve(this.simpleClassName + ".java");
+        Files.write(sourceFile, generate(beanFactory, sources).getBytes(StandardCharsets.UTF_8));
+        return sourceFile;
+    }
+
+    /**
+     * 生成源码
+     * 生成的源码只包含 ASCII 字符，不依赖编译时的源文件编码
+     * @param beanFactory BD 所在的 BF，按注册顺序生成
+     * @param sources BD 来自哪些配置文件，只用于生成注释
+     * @return java 源码
+     * @throws BeanDefinitionStoreException 存在无法用代码表达的 BD
+     */
+    public String generate(DefaultListableBeanFactory beanFactory, String... sources) {
+        StringBuilder code = new StringBuilder(4096);
+        if (this.packageName != null) {
+            code.append("package ").append(this.packageName).append(";\n\n");
+        }
+        code.append("import com.yq.springframework.beans.factory.aot.BeanFactoryInitializer;\n");
+        code.append("import com.yq.springframework.beans.factory.config.BeanDefinition;\n");
+        code.append("import com.yq.springframework.beans.factory.config.BeanReference;\n");
+        code.append("import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;\n");
+        code.append("import com.yq.springframework.beans.factory.support.LookupOverride;\n\n");
+        code.append("/**\n");
+        code.append(" * Generated by ").append(getClass().getSimpleName()).append(", do not edit.\n");
+        if (sources != null && sources.length > 0) {
+            code.append(" * Sources: ").append(comment(String.join(", ", sources))).append('\n');
+        }
+        code.append(" */\n");
+        code.append("public final class ").append(this.simpleClassName).append(" implements BeanFactoryInitializer {\n\n");
+
+        String[] beanNames = beanFactory.getBeanDefinitionNames();
+        StringBuilder methods = new StringBuilder(4096);
+        boolean needsClassLoading = false;
+        code.append(INDENT).append("@Override\n");
+        code.append(INDENT).append("public void initialize(DefaultListableBeanFactory beanFactory) {\n");
+        for (int i = 0; i < beanNames.length; i++) {
+            code.append(INDENT).append(INDENT).append("registerBean").append(i).append("(beanFactory);\n");
+            needsClassLoading |= generateRegisterMethod(methods, i, beanNames[i], beanFactory.getBeanDefinition(beanNames[i]));
+        }
+        code.append(INDENT).append("}\n");
+        code.append(methods);
+
+        if (needsClassLoading) {
+            code.append('\n');
+            code.append(INDENT).append("private static Class<?> loadClass(String className) {\n");
+            code.append(INDENT).append(INDENT).append("try {\n");
+            code.append(INDENT).append(INDENT).append(INDENT).append("return Class.forName(className, false, ")
+                    .append("com.yq.springframework.util.ClassUtils.getDefaultClassLoader());\n");
+            code.append(INDENT).append(INDENT).append("} catch (ClassNotFoundException e) {\n");
+            code.append(INDENT).append(INDENT).append(INDENT).append("throw new com.yq.springframework.beans.factory.")
+                    .append("BeanDefinitionStoreException(\"Cannot load bean class \" + className, e);\n");
+            code.append(INDENT).append(INDENT).append("}\n");
+            code.append(INDENT).append("}\n");
+        }
+        code.append("}\n");
+        return code.toString();
+    }
+
+    /**
+     * 生成单个 bean 的注册方法
+     * @return 是否需要运行时按类名加载 bean class
+     */
+    private boolean generateRegisterMethod(StringBuilder code, int index, String beanName, BeanDefinition bd) {
+        Class<?> beanClass = bd.getBeanClass();
+        if (beanClass == null) {
+            throw new BeanDefinitionStoreException("BeanDefinition(" + beanName + ") 没有 bean class, 无法生成代码");
+        }
+        String body = INDENT + INDENT;
+        code.append('\n');
+        code.append(INDENT).append("/**\n");
+        code.append(INDENT).append(" * Bean '").append(comment(beanName)).append("'\n");
+        code.append(INDENT).append(" */\n");
+        code.append(INDENT).append("private static void registerBean").append(index)
+                .append("(DefaultListableBeanFactory beanFactory) {\n");
+
+        boolean accessible = isAccessible(beanClass);
+        code.append(body).append("BeanDefinition bd = new BeanDefinition(")
+                .append(accessible ? typeName(beanClass) + ".class" : "loadClass(" + literal(beanClass.getName()) + ")")
+                .append(");\n");
+        if (bd.isLazyInit()) {
+            code.append(body).append("bd.setLazyInit(true);\n");
+        }
+        if (bd.getInitMethodName() != null) {
+            code.append(body).append("bd.setInitMethodName(").append(literal(bd.getInitMethodName())).append(");\n");
+        }
+        if (bd.getDestroyMethodName() != null) {
+            code.append(body).append("bd.setDestroyMethodName(").append(literal(bd.getDestroyMethodName())).append(");\n");
+        }
+
+        List<Method> lookupMethods = new ArrayList<>();
+        List<String> setterCalls = new ArrayList<>();
+        String reason = (accessible ? resolveDirectCalls(beanClass, bd, lookupMethods, setterCalls) :
+                "class is not public");
+        if (reason == null) {
+            generateInstanceSupplier(code, body, beanClass, bd, lookupMethods);
+            if (!setterCalls.isEmpty()) {
+                code.append(body).append("bd.setPropertiesPopulator((bean, resolver) -> {\n");
+                code.append(body).append(INDENT).append(typeName(beanClass)).append(" target = (")
+                        .append(typeName(beanClass)).append(") bean;\n");
+                for (String setterCall : setterCalls) {
+                    code.append(body).append(INDENT).append(setterCall).append('\n');
+                }
+                code.append(body).append("});\n");
+            }
+        } else {
+            // 生成和 XML 解析结果一样的 BD，运行时走反射
+            code.append(body).append("// Instantiated reflectively at runtime: ").append(comment(reason)).append('\n');
+            if (bd.hasPropertyValues()) {
+                for (PropertyValue pv : bd.getPropertyValues().getPropertyValueList()) {
+                    code.append(body).append("bd.getPropertyValues().addPropertyValue(").append(literal(pv.getName()))
+                            .append(", ").append(reflectiveValue(beanName, pv)).append(");\n");
+                }
+            }
+            for (LookupOverride override : bd.getMethodOverrides().getOverrides()) {
+                code.append(body).append("bd.getMethodOverrides().addOverride(new LookupOverride(")
+                        .append(literal(override.getMethodName())).append(", ")
+                        .append(literal(override.getBeanName())).append("));\n");
+            }
+        }
+        code.append(body).append("beanFactory.registerBeanDefinition(").append(literal(beanName)).append(", bd);\n");
+        code.append(INDENT).append("}\n");
+        return !accessible;
+    }
+
+    /**
+     * 解析出直接调用需要的 lookup 方法和 setter 调用语句
+     * @return 无法直接调用的原因，可以直接调用时返回 null
+     */
+    private String resolveDirectCalls(Class<?> beanClass, BeanDefinition bd,
+                                      List<Method> lookupMethods, List<String> setterCalls) {
+        if (beanClass.isInterface() || beanClass.isArray() || beanClass.isPrimitive() || beanClass.isEnum()) {
+            return "class cannot be instantiated";
+        }
+        boolean subclass = bd.hasMethodOverrides();
+        Constructor<?> ctor;
+        try {
+            ctor = beanClass.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return "no no-arg constructor";
+        }
+        if (!Modifier.isPublic(ctor.getModifiers()) && !(subclass && Modifier.isProtected(ctor.getModifiers()))) {
+            return "no-arg constructor is not public";
+        }
+
+        if (subclass) {
+            String reason = resolveLookupMethods(beanClass, bd, lookupMethods);
+            if (reason != null) {
+                return reason;
+            }
+        } else if (Modifier.isAbstract(beanClass.getModifiers())) {
+            return "class is abstract";
+        }
+
+        if (bd.hasPropertyValues()) {
+            for (PropertyValue pv : bd.getPropertyValues().getPropertyValueList()) {
+                Method setter = findSetter(beanClass, pv.getName());
+                if (setter == null) {
+                    return "property '" + pv.getName() + "' has no public setter";
+                }
+                Class<?> propertyType = setter.getParameterTypes()[0];
+                if (!isAccessible(propertyType)) {
+                    return "type of property '" + pv.getName() + "' is not public";
+                }
+                String value = valueExpression(pv.getValue(), propertyType);
+                if (value == null) {
+                    return "value of property '" + pv.getName() + "' cannot be expressed in code";
+                }
+                setterCalls.add("target." + setter.getName() + "(" + value + ");");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * lookup-method 和 cglib 的实现一样按方法名匹配，同名的重载方法都要重写
+     */
+    private static String resolveLookupMethods(Class<?> beanClass, BeanDefinition bd, List<Method> lookupMethods) {
+        if (Modifier.isFinal(beanClass.getModifiers())) {
+            return "class with lookup methods is final";
+        }
+        for (Method method : collectMethods(beanClass)) {
+            LookupOverride override = bd.getMethodOverrides().getOverride(method);
+            if (override == null) {
+                if (Modifier.isAbstract(method.getModifiers())) {
+                    return "abstract method '" + method.getName() + "' has no lookup-method";
+                }
+                continue;
+            }
+            int modifiers = method.getModifiers();
+            if (Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers)
+                    || !(Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers))) {
+                return "lookup method '" + method.getName() + "' cannot be overridden";
+            }
+            if (!isAccessible(method.getReturnType())) {
+                return "return type of lookup method '" + method.getName() + "' is not public";
+            }
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                if (!isAccessible(parameterType)) {
+                    return "parameter type of lookup method '" + method.getName() + "' is not public";
+                }
+            }
+            lookupMethods.add(method);
+        }
+        return null;
+    }
+
+    /**
+     * 收集 class 及其父类、接口中所有的实例方法，子类中声明的优先
+     */
+    private static List<Method> collectMethods(Class<?> beanClass) {
+        Map<String, Method> methods = new LinkedHashMap<>();
+        for (Class<?> clazz = beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                addMethod(methods, method);
+            }
+        }
+        for (Method method : beanClass.getMethods()) {
+            addMethod(methods, method);
+        }
+        return new ArrayList<>(methods.values());
+    }
+
+    private static void addMethod(Map<String, Method> methods, Method method) {
+        if (method.isBridge() || method.isSynthetic() || Modifier.isStatic(method.getModifiers())
+                || method.getDeclaringClass() == Object.class) {
+            return;
+        }
+        methods.putIfAbsent(method.getName() + Arrays.toString(method.getParameterTypes()), method);
+    }
+
+    private static void generateInstanceSupplier(StringBuilder code, String indent, Class<?> beanClass,
+                                                 BeanDefinition bd, List<Method> lookupMethods) {
+        if (lookupMethods.isEmpty()) {
+            code.append(indent).append("bd.setInstanceSupplier(").append(OWNER).append(" -> new ")
+                    .append(typeName(beanClass)).append("());\n");
+            return;
+        }
+        String member = indent + INDENT + INDENT;
+        code.append(indent).append("bd.setInstanceSupplier(").append(OWNER).append(" -> new ")
+                .append(typeName(beanClass)).append("() {\n");
+        for (Method method : lookupMethods) {
+            LookupOverride override = bd.getMethodOverrides().getOverride(method);
+            Class<?> returnType = method.getReturnType();
+            code.append(indent).append(INDENT).append("@Override\n");
+            code.append(indent).append(INDENT).append(Modifier.isPublic(method.getModifiers()) ? "public " : "protected ")
+                    .append(typeName(returnType)).append(' ').append(method.getName()).append('(');
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                code.append(i > 0 ? ", " : "").append(typeName(parameterTypes[i])).append(" p").append(i);
+            }
+            code.append(") {\n");
+            String lookup = OWNER + ".getBean(" + literal(override.getBeanName()) + ")";
+            if (returnType == void.class) {
+                code.append(member).append(lookup).append(";\n");
+            } else {
+                code.append(member).append("return (").append(typeName(returnType)).append(") ").append(lookup).append(";\n");
+            }
+            code.append(indent).append(INDENT).append("}\n");
+        }
+        code.append(indent).append("});\n");
+    }
+
+    /**
+     * 生成属性值的表达式
+     * @return 表达式，无法用代码表达时返回 null
+     */
+    private String valueExpression(Object value, Class<?> propertyType) {
+        String type = typeName(propertyType);
+        if (value instanceof BeanReference) {
+            return "(" + type + ") resolver.resolveReference(" + literal(((BeanReference) value).getBeanName()) +
+                    ", " + type + ".class)";
+        }
+        if (!(value == null || value instanceof String)) {
+            return null;
+        }
+        if (value == null && !propertyType.isPrimitive()) {
+            return "(" + type + ") null";
+        }
+        if (value != null) {
+            String constant = constantExpression(value, propertyType);
+            if (constant != null) {
+                return constant;
+            }
+        }
+        // 构建时转换不了 (比如自定义转换器才能转换的类型)，留到运行时用 BF 的类型转换服务转换
+        return "(" + type + ") resolver.convert(" + (value != null ? literal((String) value) : "null") + ", " +
+                type + ".class)";
+    }
+
+    /**
+     * 构建时转换属性值，能表达为字面量时返回对应的表达式
+     */
+    private String constantExpression(Object value, Class<?> propertyType) {
+        Object converted;
+        try {
+            converted = this.conversionService.convert(value, propertyType);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (converted instanceof String) {
+            return literal((String) converted);
+        }
+        if (converted instanceof Enum) {
+            Class<?> enumType = ((Enum<?>) converted).getDeclaringClass();
+            return (isAccessible(enumType) ? typeName(enumType) + "." + ((Enum<?>) converted).name() : null);
+        }
+        String primitive = primitiveLiteral(converted);
+        if (primitive == null) {
+            return null;
+        }
+        // 包装类型显式装箱，避免 setter 重载时选中基本类型的那个
+        return (propertyType.isPrimitive() ? primitive : typeName(propertyType) + ".valueOf(" + primitive + ")");
+    }
+
+    private static String primitiveLiteral(Object value) {
+        if (value instanceof Integer || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Long) {
+            return value + "L";
+        }
+        if (value instanceof Short) {
+            return "(short) " + value;
+        }
+        if (value instanceof Byte) {
+            return "(byte) " + value;
+        }
+        if (value instanceof Character) {
+            // 不用 '\\uXXXX'：unicode 转义在词法分析之前就会被替换，'\\u0027' 这样的字符会生成非法代码
+            return "(char) " + (int) (Character) value;
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return (Double.isNaN(d) ? "Double.NaN" : Double.isInfinite(d) ?
+                    (d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY") : d + "D");
+        }
+        if (value instanceof Float) {
+            float f = (Float) value;
+            return (Float.isNaN(f) ? "Float.NaN" : Float.isInfinite(f) ?
+                    (f > 0 ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY") : f + "F");
+        }
+        return null;
+    }
+
+    /**
+     * 反射创建的 bean，属性值原样保留为 String / BeanReference
+     */
+    private static String reflectiveValue(String beanName, PropertyValue pv) {
+        Object value = pv.getValue();
+        if (value instanceof BeanReference) {
+            return "new BeanReference(" + literal(((BeanReference) value).getBeanName()) + ")";
+        }
+        if (value == null) {
+            return "(Object) null";
+        }
+        if (value instanceof String) {
+            return literal((String) value);
+        }
+        throw new BeanDefinitionStoreException("BeanDefinition(" + beanName + ") 的属性 '" + pv.getName() +
+                "' 的值类型 [" + value.getClass().getName() + "] 无法生成代码, 只支持字符串和 bean 引用");
+    }
+
+    /**
+     * 和 PropertyInjectors 一样查找 public 的 setXxx 方法，存在重载时优先选择参数类型和 getXxx 返回值类型一致的那个
+     */
+    private static Method findSetter(Class<?> beanClass, String propertyName) {
+        String setterName = "set" + StrUtil.upperFirst(propertyName);
+        Class<?> getterType = null;
+        String capitalized = StrUtil.upperFirst(propertyName);
+        for (String getterName : new String[] {"get" + capitalized, "is" + capitalized}) {
+            try {
+                getterType = beanClass.getMethod(getterName).getReturnType();
+                break;
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        Method candidate = null;
+        for (Method method : beanClass.getMethods()) {
+            if (method.getName().equals(setterName) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                if (getterType == null || method.getParameterTypes()[0] == getterType) {
+                    return method;
+                }
+                if (candidate == null) {
+                    candidate = method;
+                }
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * 生成的代码能否直接引用该类型：public 的顶层类或者 public static 的嵌套类
+     */
+    private static boolean isAccessible(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        if (type.getCanonicalName() == null) {
+            return false;
+        }
+        for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())
+                    || (current.isMemberClass() && !Modifier.isStatic(current.getModifiers()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String typeName(Class<?> type) {
+        return type.getCanonicalName();
+    }
+
+    /**
+     * java 字符串字面量，非 ASCII 字符转义为 unicode
+     */
+    private static String literal(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * 放进注释的文本：注释中的 unicode 转义同样会被编译器替换，所以非 ASCII 字符直接替换为 '?'，并且不能提前结束注释
+     */
+    private static String comment(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            sb.append(c < 0x20 || c > 0x7e || c == '\\' ? '?' : c);
+        }
+        return sb.toString().replace("*/", "*?");
+    }
+
+
+    /**
+     * 构建时生成代码
+     * @param args 源码输出目录, 生成的类的全限定名, 配置文件地址...
+     * @throws IOException 写文件失败
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: BeanFactoryInitializerGenerator <source dir> <class name> <config location>...");
+            System.exit(1);
+        }
+        String[] locations = Arrays.copyOfRange(args, 2, args.length);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        new XmlBeanDefinitionReader(beanFactory).loadBeanDefinitions(locations);
+        Path sourceFile = new BeanFactoryInitializerGenerator(args[1]).writeTo(Paths.get(args[0]), beanFactory, locations);
+        System.out.println("Generated " + beanFactory.getBeanDefinitionCount() + " bean definitions into " + sourceFile);
+    }
+}
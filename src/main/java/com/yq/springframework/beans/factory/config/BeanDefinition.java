@@ -3,6 +3,16 @@ package com.yq.springframework.beans.factory.config;
 
 import com.yq.springframework.beans.MutablePropertyValues;
 import com.yq.springframework.beans.PropertyValues;
+import com.yq.springframework.beans.factory.support.InstanceSupplier;
+import com.yq.springframework.beans.factory.support.MethodOverrides;
+import com.yq.springframework.beans.factory.support.PropertiesPopulator;
+import com.yq.springframework.util.ClassUtils;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Bean 的定义元信息
@@ -14,14 +24,58 @@ public class BeanDefinition {
 
     /**
      * 后面主要用来反射创建bean
+     * 只设置了 beanClassName 时为 null，第一次使用时才加载
+     */
+    private volatile Class<?> beanClass;
+
+    /**
+     * bean 的类名，设置了 beanClass 时为 null
+     * spring 源码中 AbstractBeanDefinition#beanClass 是 Object 类型，Class 或者类名都放在这一个字段里
      */
-    private Class<?> beanClass;
+    private String beanClassName;
 
     /**
      * 存储该 bean 的属性和属性值信息
      */
     private MutablePropertyValues propertyValues;
 
+    /**
+     * 方法注入 (lookup-method)，存在方法注入时才需要 cglib 生成子类来实例化 bean
+     */
+    private MethodOverrides methodOverrides = new MethodOverrides();
+
+    /**
+     * 是否延迟初始化：为 true 时预实例化单例阶段跳过该 bean，第一次 getBean 时才创建
+     */
+    private boolean lazyInit = false;
+
+    /**
+     * 初始化方法名，属性注入完成之后调用，为 null 时不调用
+     */
+    private String initMethodName;
+
+    /**
+     * 销毁方法名，容器关闭时调用，为 null 时不调用
+     */
+    private String destroyMethodName;
+
+    /**
+     * 直接创建 bean 实例的逻辑 (构建时生成的代码)，为 null 时使用实例化策略
+     */
+    private InstanceSupplier instanceSupplier;
+
+    /**
+     * 直接注入属性的逻辑 (构建时生成的代码)，为 null 时按 PropertyValues 注入
+     */
+    private PropertiesPopulator propertiesPopulator;
+
+    /**
+     * 已解析的构造器缓存：构造器参数的实际类型列表 ==> 匹配上的构造器
+     * spring 源码中对应 RootBeanDefinition#resolvedConstructorOrFactoryMethod，只缓存一个；
+     * 这里 getBean(name, args) 传入的参数类型可能每次不同，所以按参数类型列表分别缓存
+     */
+    private final Map<List<Class<?>>, Constructor<?>> resolvedConstructorCache = new ConcurrentHashMap<>(4);
+
     public BeanDefinition(){
         this(null,null);
     }
@@ -35,12 +89,99 @@ public class BeanDefinition {
         this.propertyValues = pvs;
     }
 
+    /**
+     * 获取 bean class，只设置了类名时用默认类加载器加载
+     * BF 创建 bean 之前会先用自己的类加载器解析 {@link #resolveBeanClass}，这里的加载只是兜底
+     * @return bean class，没有设置 class 和类名时为 null
+     * @throws IllegalStateException 类名无法加载
+     */
     public Class<?> getBeanClass() {
-        return beanClass;
+        Class<?> resolved = this.beanClass;
+        if (resolved != null || this.beanClassName == null) {
+            return resolved;
+        }
+        try {
+            return resolveBeanClass(ClassUtils.getDefaultClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Bean class name [" + this.beanClassName + "] cannot be resolved", e);
+        }
     }
 
     public void setBeanClass(Class<?> beanClass) {
         this.beanClass = beanClass;
+        this.beanClassName = null;
+        // class 变了，之前解析出来的构造器、转换好的属性值都作废
+        this.resolvedConstructorCache.clear();
+        if (this.propertyValues != null) {
+            this.propertyValues.clearConverted();
+        }
+    }
+
+    /**
+     * 获取 bean 的类名，不会触发类加载
+     * @return 类名，没有设置 class 和类名时为 null
+     */
+    public String getBeanClassName() {
+        Class<?> resolved = this.beanClass;
+        return (resolved != null ? resolved.getName() : this.beanClassName);
+    }
+
+    /**
+     * 只设置类名，class 推迟到第一次使用 (或者 BF 批量解析) 时再加载
+     * 解析 BD 时不再同步加载、初始化类，适合有大量 bean 的配置
+     * @param beanClassName 类名
+     */
+    public void setBeanClassName(String beanClassName) {
+        setBeanClass(null);
+        this.beanClassName = beanClassName;
+    }
+
+    /**
+     * class 是否已经加载
+     * @return 设置了 class 或者类名已经解析过时为 true
+     */
+    public boolean hasBeanClass() {
+        return this.beanClass != null;
+    }
+
+    /**
+     * 用指定的类加载器加载类名，结果缓存在 BD 中
+     * 只加载不初始化，类的静态初始化推迟到第一次创建 bean 时，避免并行解析时多个类互相等待对方初始化
+     * @param classLoader 类加载器
+     * @return bean class，没有设置类名时为 null
+     * @throws ClassNotFoundException 类名无法加载
+     */
+    public Class<?> resolveBeanClass(ClassLoader classLoader) throws ClassNotFoundException {
+        Class<?> resolved = this.beanClass;
+        if (resolved != null) {
+            return resolved;
+        }
+        String className = this.beanClassName;
+        if (className == null) {
+            return null;
+        }
+        // 并发解析同一个 BD 时，多加载一次的结果是同一个 Class，不需要加锁
+        resolved = Class.forName(className, false, classLoader);
+        this.beanClass = resolved;
+        return resolved;
+    }
+
+    /**
+     * 获取之前按这组参数类型解析出来的构造器
+     * @param argTypes 构造器参数的实际类型
+     * @return 缓存的构造器，没有解析过则返回 null
+     */
+    public Constructor<?> getResolvedConstructor(Class<?>[] argTypes) {
+        return this.resolvedConstructorCache.get(Arrays.asList(argTypes));
+    }
+
+    /**
+     * 缓存按这组参数类型解析出来的构造器，后续同样类型的参数创建 bean 时直接复用
+     * @param argTypes 构造器参数的实际类型
+     * @param constructor 解析出来的构造器
+     */
+    public void cacheResolvedConstructor(Class<?>[] argTypes, Constructor<?> constructor) {
+        this.resolvedConstructorCache.put(Arrays.asList(argTypes.clone()), constructor);
     }
 
 
@@ -63,6 +204,86 @@ public class BeanDefinition {
         return this.propertyValues;
     }
 
+    /**
+     * 获取方法注入信息
+     * @return method overrides
+     */
+    public MethodOverrides getMethodOverrides() {
+        return this.methodOverrides;
+    }
+
+    public void setMethodOverrides(MethodOverrides methodOverrides) {
+        this.methodOverrides = (methodOverrides != null ? methodOverrides : new MethodOverrides());
+    }
+
+    /**
+     * 是否有方法注入
+     * @return bool
+     */
+    public boolean hasMethodOverrides() {
+        return !this.methodOverrides.isEmpty();
+    }
+
+    /**
+     * 是否延迟初始化
+     * @return bool
+     */
+    public boolean isLazyInit() {
+        return this.lazyInit;
+    }
+
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
+    /**
+     * 初始化方法名
+     * @return 方法名，没有配置时为 null
+     */
+    public String getInitMethodName() {
+        return this.initMethodName;
+    }
+
+    public void setInitMethodName(String initMethodName) {
+        this.initMethodName = initMethodName;
+    }
+
+    /**
+     * 销毁方法名
+     * @return 方法名，没有配置时为 null
+     */
+    public String getDestroyMethodName() {
+        return this.destroyMethodName;
+    }
+
+    public void setDestroyMethodName(String destroyMethodName) {
+        this.destroyMethodName = destroyMethodName;
+    }
+
+    /**
+     * 实例提供者
+     * @return 没有设置时为 null
+     */
+    public InstanceSupplier getInstanceSupplier() {
+        return this.instanceSupplier;
+    }
+
+    public void setInstanceSupplier(InstanceSupplier instanceSupplier) {
+        this.instanceSupplier = instanceSupplier;
+    }
+
+    /**
+     * 属性注入逻辑
+     * @return 没有设置时为 null
+     */
+    public PropertiesPopulator getPropertiesPopulator() {
+        return this.propertiesPopulator;
+    }
+
+    public void setPropertiesPopulator(PropertiesPopulator propertiesPopulator) {
+        this.propertiesPopulator = propertiesPopulator;
+    }
+
     /**
      * 是否具有属性
      * @return bool
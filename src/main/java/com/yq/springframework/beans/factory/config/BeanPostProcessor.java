@@ -20,6 +20,21 @@ import com.yq.springframework.beans.BeansException;
  */
 public interface BeanPostProcessor {
 
+    /**
+     * 该处理器是否需要处理这个类型的 bean
+     * BF 会按 bean 的类型预先过滤出需要执行的处理器链并缓存起来，返回 false 的处理器，该类型的 bean 创建时完全不会被调用
+     *
+     * 只关心某一类 bean 的处理器 (比如只处理实现了某个接口的 bean) 应该覆盖这个方法，
+     * 而不是在 postProcessXxx 中判断类型后原样返回：容器里有大量 bean 时，这种空调用的开销是 bean 个数 x 处理器个数
+     *
+     * 注意结果按类型缓存，同一个类型必须始终返回相同的结果
+     * @param beanType bean 的类型 (cglib 子类会还原为用户定义的类)
+     * @return 是否需要处理，默认处理所有 bean
+     */
+    default boolean supportsBeanType(Class<?> beanType) {
+        return true;
+    }
+
     /**
      * 初始化前处理
      * 处理过程中，可以人为修饰、甚至是替换被处理的 bean
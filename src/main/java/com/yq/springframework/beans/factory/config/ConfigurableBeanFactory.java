@@ -1,6 +1,10 @@
 package com.yq.springframework.beans.factory.config;
 
 import com.yq.springframework.beans.factory.HierarchicalBeanFactory;
+import com.yq.springframework.core.convert.ConversionService;
+import com.yq.springframework.core.metrics.ApplicationStartup;
+
+import java.util.Collection;
 
 /**
  * 可配置化 beanFactory
@@ -17,4 +21,60 @@ public interface ConfigurableBeanFactory extends HierarchicalBeanFactory, Single
      * @param beanPostProcessor bean 处理器
      */
     void addBeanPostProcessor(BeanPostProcessor beanPostProcessor);
+
+    /**
+     * 批量添加 bean 处理器
+     * @param beanPostProcessors bean 处理器
+     */
+    void addBeanPostProcessors(Collection<? extends BeanPostProcessor> beanPostProcessors);
+
+    /**
+     * 移除 bean 处理器
+     * @param beanPostProcessor bean 处理器
+     * @return 是否移除了
+     */
+    boolean removeBeanPostProcessor(BeanPostProcessor beanPostProcessor);
+
+    /**
+     * 批量移除 bean 处理器
+     * @param beanPostProcessors bean 处理器
+     * @return 是否移除了至少一个
+     */
+    boolean removeBeanPostProcessors(Collection<? extends BeanPostProcessor> beanPostProcessors);
+
+    /**
+     * 当前注册的 bean 处理器个数
+     * @return 个数
+     */
+    int getBeanPostProcessorCount();
+
+    /**
+     * 设置属性值的类型转换服务
+     * @param conversionService 类型转换服务
+     */
+    void setConversionService(ConversionService conversionService);
+
+    /**
+     * 获取属性值的类型转换服务
+     * @return 类型转换服务
+     */
+    ConversionService getConversionService();
+
+    /**
+     * 设置启动过程的埋点，bean 创建的各个步骤会记录在其中
+     * @param applicationStartup 启动埋点
+     */
+    void setApplicationStartup(ApplicationStartup applicationStartup);
+
+    /**
+     * 获取启动过程的埋点
+     * @return 启动埋点
+     */
+    ApplicationStartup getApplicationStartup();
+
+    /**
+     * 销毁所有单例：调用 DisposableBean#destroy 以及 destroy-method，然后清空单例池
+     * 一般在容器关闭时调用
+     */
+    void destroySingletons();
 }
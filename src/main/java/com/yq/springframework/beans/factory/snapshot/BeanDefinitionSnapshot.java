@@ -0,0 +1,131 @@
+package com.yq.springframework.beans.factory.snapshot;
+
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.annotation.ClassPathScanningCandidateComponentProvider;
+import com.yq.springframework.core.io.Resource;
+import com.yq.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * BD 快照：把加载好的 BD 序列化成紧凑的二进制文件，下次启动时直接读取，跳过 XML 解析
+ *
+ * 文件格式 (大端序)：
+ * <pre>
+ *     int    magic          固定为 "YQBD"
+ *     int    version
+ *     int    sourceCount    生成快照时的配置文件，按加载顺序排列
+ *       {string location; long crc32}
+ *     int    stringCount    字符串常量池，BD 中所有的字符串都以下标引用，类名、beanName 只存一份
+ *       {string}
+ *     int    beanDefinitionCount   按注册顺序排列
+ *       {int beanName; int className; byte flags; int initMethod; int destroyMethod;
+ *        int pvCount {int name; byte kind; int value};
+ *        int lookupCount {int methodName; int beanName}}
+ * </pre>
+ * string 为 {int byteLength; byte[] utf8}，字符串下标为 -1 表示 null
+ * sources 中的 location 直接写在头部，不进常量池，校验快照是否过期时只需要读头部
+ *
+ * 配置文件的内容变了 (crc32 不一致)，或者配置文件列表变了，快照就作废，需要重新解析 XML 并重新生成快照
+ *
+ * XML 中有 <component-scan> 时，sources 的最后还有一项 "component-scan:包名,包名"，值是扫描结果的指纹：
+ * XML 没变，但是扫描的包中新增、删除、修改了类，快照同样作废
+ */
+public final class BeanDefinitionSnapshot {
+
+    /**
+     * "YQBD"
+     */
+    static final int MAGIC = 0x59514244;
+
+    static final int VERSION = 1;
+
+    static final int NULL_INDEX = -1;
+
+    static final byte FLAG_LAZY_INIT = 0x01;
+
+    /**
+     * 属性值是普通值 (字符串)
+     */
+    static final byte VALUE_KIND_PLAIN = 0;
+
+    /**
+     * 属性值是对其他 bean 的引用
+     */
+    static final byte VALUE_KIND_REFERENCE = 1;
+
+    /**
+     * sources 中记录组件扫描结果的 location 前缀
+     */
+    static final String COMPONENT_SCAN_SOURCE_PREFIX = "component-scan:";
+
+    private BeanDefinitionSnapshot() {
+    }
+
+    /**
+     * 计算配置文件的校验和，用来判断快照是否过期
+     * @param resourceLoader 资源加载器
+     * @param locations 配置文件地址，按加载顺序排列
+     * @return location ==> crc32，保持 locations 的顺序
+     * @throws BeanDefinitionStoreException 配置文件读取失败
+     */
+    public static Map<String, Long> computeSourceChecksums(ResourceLoader resourceLoader, String... locations) {
+        Map<String, Long> checksums = new LinkedHashMap<>(locations.length * 2);
+        for (String location : locations) {
+            Resource resource = resourceLoader.getResource(location);
+            try {
+                checksums.put(location, checksum(resource));
+            } catch (IOException e) {
+                throw new BeanDefinitionStoreException(location, "计算配置文件的校验和失败: " + e.getMessage(), e);
+            }
+        }
+        return checksums;
+    }
+
+    /**
+     * 计算资源内容的 crc32
+     * 大文件是内存映射的 buffer，直接对映射的内存计算，不经过堆
+     * @param resource 资源
+     * @return crc32
+     * @throws IOException 读取失败
+     */
+    public static long checksum(Resource resource) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(resource.getByteBuffer());
+        return crc.getValue();
+    }
+
+    /**
+     * 把组件扫描结果的指纹加到校验和的最后，生成快照之前调用
+     * @param sourceChecksums 配置文件的校验和
+     * @param basePackages 加载配置文件时 <component-scan> 扫描过的包，为空时什么都不做
+     * @throws BeanDefinitionStoreException 扫描失败
+     */
+    public static void addComponentScanChecksum(Map<String, Long> sourceChecksums, Collection<String> basePackages) {
+        if (basePackages.isEmpty()) {
+            return;
+        }
+        String source = COMPONENT_SCAN_SOURCE_PREFIX + String.join(",", new TreeSet<>(basePackages));
+        sourceChecksums.put(source, computeComponentScanChecksum(source));
+    }
+
+    static boolean isComponentScanSource(String location) {
+        return location.startsWith(COMPONENT_SCAN_SOURCE_PREFIX);
+    }
+
+    /**
+     * 重新扫描 location 中记录的包，计算当前的指纹
+     * @param location component-scan:包名,包名
+     * @return 指纹
+     * @throws BeanDefinitionStoreException 扫描失败
+     */
+    static long computeComponentScanChecksum(String location) {
+        String[] basePackages = location.substring(COMPONENT_SCAN_SOURCE_PREFIX.length()).split(",");
+        return new ClassPathScanningCandidateComponentProvider().computeFingerprint(basePackages);
+    }
+}
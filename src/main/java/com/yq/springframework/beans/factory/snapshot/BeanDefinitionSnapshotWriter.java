@@ -0,0 +1,177 @@
+package com.yq.springframework.beans.factory.snapshot;
+
+import com.yq.springframework.beans.PropertyValue;
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.config.BeanReference;
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.beans.factory.support.LookupOverride;
+import com.yq.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import com.yq.springframework.core.io.DefaultResourceLoader;
+import com.yq.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BD 快照的生成工具
+ *
+ * 既可以在运行时使用 (上下文解析完 XML 之后顺手生成)，也可以在构建时通过 main 方法提前生成：
+ * <pre>
+ *     java ... BeanDefinitionSnapshotWriter target/beans.snapshot classpath:spring-context.xml
+ * </pre>
+ *
+ * 只支持 XML 能表达的 BD：属性值是字符串 (或 null) 和 BeanReference，方法注入是 lookup-method
+ * 属性值是其他类型的对象时无法序列化，直接报错，不会生成一个内容不完整的快照
+ *
+ * 写入过程中维护了字符串常量池，不是线程安全的，每次生成快照用一个新的实例
+ *
+ * @see BeanDefinitionSnapshot
+ */
+public class BeanDefinitionSnapshotWriter {
+
+    /**
+     * 字符串常量池：字符串 ==> 下标
+     */
+    private final Map<String, Integer> strings = new LinkedHashMap<>(256);
+
+    /**
+     * 把 BF 中的 BD 按注册顺序写入快照文件
+     * 先写到同目录下的临时文件，再整体替换，读快照的一方不会读到写了一半的文件
+     * @param target 快照文件
+     * @param beanFactory BD 所在的 BF
+     * @param sourceChecksums 生成这些 BD 的配置文件 location ==> crc32
+     * @throws IOException 写文件失败
+     * @throws BeanDefinitionStoreException 存在无法序列化的 BD
+     */
+    public void write(Path target, DefaultListableBeanFactory beanFactory, Map<String, Long> sourceChecksums)
+            throws IOException {
+        FileSystemUtils.writeAtomically(target, serialize(beanFactory, sourceChecksums));
+    }
+
+    /**
+     * 序列化成快照文件的内容
+     */
+    byte[] serialize(DefaultListableBeanFactory beanFactory, Map<String, Long> sourceChecksums) throws IOException {
+        this.strings.clear();
+
+        // BD 部分引用的字符串要先收集到常量池里，所以先单独序列化 BD，最后再拼起来
+        ByteArrayOutputStream definitionBytes = new ByteArrayOutputStream(4096);
+        DataOutputStream definitions = new DataOutputStream(definitionBytes);
+        String[] beanNames = beanFactory.getBeanDefinitionNames();
+        definitions.writeInt(beanNames.length);
+        for (String beanName : beanNames) {
+            writeBeanDefinition(definitions, beanName, beanFactory.getBeanDefinition(beanName));
+        }
+        definitions.flush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(definitionBytes.size() + 4096);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(BeanDefinitionSnapshot.MAGIC);
+        data.writeInt(BeanDefinitionSnapshot.VERSION);
+        data.writeInt(sourceChecksums.size());
+        for (Map.Entry<String, Long> source : sourceChecksums.entrySet()) {
+            writeString(data, source.getKey());
+            data.writeLong(source.getValue());
+        }
+        data.writeInt(this.strings.size());
+        for (String string : this.strings.keySet()) {
+            writeString(data, string);
+        }
+        definitionBytes.writeTo(data);
+        data.flush();
+        return out.toByteArray();
+    }
+
+    private void writeBeanDefinition(DataOutputStream out, String beanName, BeanDefinition bd) throws IOException {
+        if (bd.getBeanClassName() == null) {
+            throw new BeanDefinitionStoreException("BeanDefinition(" + beanName + ") 没有 bean class, 无法写入快照");
+        }
+        out.writeInt(indexOf(beanName));
+        out.writeInt(indexOf(bd.getBeanClassName()));
+        out.writeByte(bd.isLazyInit() ? BeanDefinitionSnapshot.FLAG_LAZY_INIT : 0);
+        out.writeInt(indexOf(bd.getInitMethodName()));
+        out.writeInt(indexOf(bd.getDestroyMethodName()));
+
+        List<PropertyValue> pvs = (bd.hasPropertyValues() ?
+                bd.getPropertyValues().getPropertyValueList() : Collections.<PropertyValue>emptyList());
+        out.writeInt(pvs.size());
+        for (PropertyValue pv : pvs) {
+            Object value = pv.getValue();
+            out.writeInt(indexOf(pv.getName()));
+            if (value instanceof BeanReference) {
+                out.writeByte(BeanDefinitionSnapshot.VALUE_KIND_REFERENCE);
+                out.writeInt(indexOf(((BeanReference) value).getBeanName()));
+            } else if (value == null || value instanceof String) {
+                out.writeByte(BeanDefinitionSnapshot.VALUE_KIND_PLAIN);
+                out.writeInt(indexOf((String) value));
+            } else {
+                throw new BeanDefinitionStoreException("BeanDefinition(" + beanName + ") 的属性 '" + pv.getName() +
+                        "' 的值类型 [" + value.getClass().getName() + "] 无法写入快照, 只支持字符串和 bean 引用");
+            }
+        }
+
+        out.writeInt(bd.getMethodOverrides().getOverrides().size());
+        for (LookupOverride override : bd.getMethodOverrides().getOverrides()) {
+            out.writeInt(indexOf(override.getMethodName()));
+            out.writeInt(indexOf(override.getBeanName()));
+        }
+    }
+
+    private int indexOf(String string) {
+        if (string == null) {
+            return BeanDefinitionSnapshot.NULL_INDEX;
+        }
+        return this.strings.computeIfAbsent(string, key -> this.strings.size());
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        // 不用 writeUTF：它是 modified UTF-8，并且限制长度 64K
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    /**
+     * 解析配置文件并生成快照，和运行时 AbstractXmlApplicationContext 生成的快照一致：
+     * 配置文件中有 <component-scan> 时，同样记录扫描结果的指纹
+     * @param snapshot 快照文件
+     * @param locations 配置文件地址，按加载顺序排列
+     * @return 快照中的 BD 个数
+     * @throws IOException 写文件失败
+     * @throws BeanDefinitionStoreException 配置文件解析、扫描失败，或者存在无法序列化的 BD
+     */
+    public static int generate(Path snapshot, String... locations) throws IOException {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(beanFactory);
+        reader.loadBeanDefinitions(locations);
+        Map<String, Long> checksums = BeanDefinitionSnapshot.computeSourceChecksums(new DefaultResourceLoader(), locations);
+        BeanDefinitionSnapshot.addComponentScanChecksum(checksums, reader.getScannedBasePackages());
+        new BeanDefinitionSnapshotWriter().write(snapshot, beanFactory, checksums);
+        return beanFactory.getBeanDefinitionCount();
+    }
+
+    /**
+     * 构建时生成快照
+     * @param args 快照文件路径, 配置文件地址...
+     * @throws IOException 写文件失败
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BeanDefinitionSnapshotWriter <snapshot file> <config location>...");
+            System.exit(1);
+        }
+        int count = generate(Paths.get(args[0]), Arrays.copyOfRange(args, 1, args.length));
+        System.out.println("Wrote " + count + " bean definitions to " + args[0]);
+    }
+}
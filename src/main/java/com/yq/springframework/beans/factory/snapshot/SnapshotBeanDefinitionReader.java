@@ -0,0 +1,249 @@
+package com.yq.springframework.beans.factory.snapshot;
+
+import com.yq.springframework.beans.MutablePropertyValues;
+import com.yq.springframework.beans.PropertyValue;
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.config.BeanReference;
+import com.yq.springframework.beans.factory.support.AbstractBeanDefinitionReader;
+import com.yq.springframework.beans.factory.support.BeanDefinitionRegistry;
+import com.yq.springframework.beans.factory.support.LookupOverride;
+import com.yq.springframework.core.io.Resource;
+import com.yq.springframework.util.ClassUtils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BD Reader
+ * 专用于读取 BeanDefinitionSnapshotWriter 生成的二进制快照，完全跳过 XML 的解析
+ *
+ * 通过 Resource#getByteBuffer 直接解析 buffer：快照在文件系统上且较大时是内存映射，不需要把整个文件拷贝到堆里
+ *
+ * 快照中的 BD 先全部解析出来，再统一注册：快照损坏、类加载失败时 registry 不会留下注册了一半的 BD，
+ * 调用方可以放心地退回到解析 XML
+ *
+ * @see BeanDefinitionSnapshot
+ */
+public class SnapshotBeanDefinitionReader extends AbstractBeanDefinitionReader {
+
+    /**
+     * 头部中 location 的最大字节数
+     */
+    private static final int MAX_HEADER_STRING_LENGTH = 64 * 1024;
+
+    private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
+
+    public SnapshotBeanDefinitionReader(BeanDefinitionRegistry registry) {
+        super(registry);
+    }
+
+    public void setBeanClassLoader(ClassLoader beanClassLoader) {
+        this.beanClassLoader = beanClassLoader;
+    }
+
+    /**
+     * 快照是否还能用：快照存在、格式版本一致，并且生成快照时的配置文件和现在的一模一样 (顺序、内容都一样)
+     * 头部记录了 <component-scan> 时，还要重新计算扫描结果的指纹，组件变了快照同样作废；
+     * 配置文件都没变时才计算指纹
+     *
+     * 只用输入流读取头部，返回前关闭，不映射整个文件：快照过期时调用方要替换这个文件，
+     * 而 Windows 不允许替换仍被映射的文件
+     * @param snapshot 快照文件
+     * @param sourceChecksums 当前配置文件 location ==> crc32，按加载顺序排列
+     * @return 快照可用返回 true
+     */
+    public boolean isUpToDate(Resource snapshot, Map<String, Long> sourceChecksums) {
+        List<Map.Entry<String, Long>> componentScans = new ArrayList<>();
+        try (DataInputStream header = new DataInputStream(new BufferedInputStream(snapshot.getInputStream()))) {
+            if (header.readInt() != BeanDefinitionSnapshot.MAGIC || header.readInt() != BeanDefinitionSnapshot.VERSION) {
+                return false;
+            }
+            int sourceCount = header.readInt();
+            Iterator<Map.Entry<String, Long>> expected = sourceChecksums.entrySet().iterator();
+            for (int i = 0; i < sourceCount; i++) {
+                String location = readHeaderString(header);
+                long checksum = header.readLong();
+                if (BeanDefinitionSnapshot.isComponentScanSource(location)) {
+                    componentScans.add(new AbstractMap.SimpleImmutableEntry<>(location, checksum));
+                } else if (!expected.hasNext()) {
+                    return false;
+                } else {
+                    Map.Entry<String, Long> source = expected.next();
+                    if (!source.getKey().equals(location) || source.getValue() != checksum) {
+                        return false;
+                    }
+                }
+            }
+            if (expected.hasNext()) {
+                return false;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // 快照不存在、读不了或者被截断了，都当作过期处理
+            return false;
+        }
+        try {
+            for (Map.Entry<String, Long> componentScan : componentScans) {
+                if (BeanDefinitionSnapshot.computeComponentScanChecksum(componentScan.getKey()) != componentScan.getValue()) {
+                    return false;
+                }
+            }
+        } catch (BeanDefinitionStoreException e) {
+            // 扫描失败时退回到解析 XML，由解析 XML 报错
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 加载快照中的全部 BD，不校验快照是否过期，需要校验时先调用 isUpToDate
+     * @param resource 快照文件
+     * @return 读取的 BD 个数
+     * @throws BeanDefinitionStoreException 快照读取失败、损坏，或者 bean class 加载失败
+     */
+    @Override
+    public int loadBeanDefinitions(Resource resource) throws BeanDefinitionStoreException {
+        ByteBuffer buffer;
+        try {
+            buffer = resource.getByteBuffer();
+        } catch (IOException e) {
+            throw new BeanDefinitionStoreException("读取 BeanDefinition 快照失败: " + e.getMessage(), e);
+        }
+
+        Map<String, BeanDefinition> beanDefinitions;
+        try {
+            beanDefinitions = parseBeanDefinitions(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new BeanDefinitionStoreException("BeanDefinition 快照已损坏: " + e, e);
+        }
+
+        BeanDefinitionRegistry registry = getRegistry();
+        for (String beanName : beanDefinitions.keySet()) {
+            if (registry.containsBeanDefinition(beanName))
+                throw new BeanDefinitionStoreException("已存在该名称[" + beanName +"]的 bean 元信息! bean 名称不允许重复!");
+        }
+        for (Map.Entry<String, BeanDefinition> entry : beanDefinitions.entrySet()) {
+            registry.registerBeanDefinition(entry.getKey(), entry.getValue());
+        }
+        return beanDefinitions.size();
+    }
+
+    /**
+     * 解析快照中的 BD
+     * @param buffer 快照内容
+     * @return beanName ==> BD，按注册顺序排列
+     */
+    private Map<String, BeanDefinition> parseBeanDefinitions(ByteBuffer buffer) {
+        if (buffer.getInt() != BeanDefinitionSnapshot.MAGIC) {
+            throw new BeanDefinitionStoreException("不是 BeanDefinition 快照文件");
+        }
+        int version = buffer.getInt();
+        if (version != BeanDefinitionSnapshot.VERSION) {
+            throw new BeanDefinitionStoreException("不支持的 BeanDefinition 快照版本: " + version);
+        }
+        int sourceCount = buffer.getInt();
+        for (int i = 0; i < sourceCount; i++) {
+            readString(buffer);
+            buffer.getLong();
+        }
+
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(buffer);
+        }
+
+        int count = buffer.getInt();
+        Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>(count * 2);
+        // 同一个类的多个 bean 只加载一次 class
+        Map<String, Class<?>> classes = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            String beanName = string(strings, buffer.getInt());
+            String className = string(strings, buffer.getInt());
+            Class<?> beanClass = classes.get(className);
+            if (beanClass == null) {
+                beanClass = loadClass(beanName, className);
+                classes.put(className, beanClass);
+            }
+
+            BeanDefinition bd = new BeanDefinition(beanClass);
+            byte flags = buffer.get();
+            bd.setLazyInit((flags & BeanDefinitionSnapshot.FLAG_LAZY_INIT) != 0);
+            bd.setInitMethodName(string(strings, buffer.getInt()));
+            bd.setDestroyMethodName(string(strings, buffer.getInt()));
+
+            int pvCount = buffer.getInt();
+            if (pvCount > 0) {
+                MutablePropertyValues pvs = new MutablePropertyValues();
+                for (int j = 0; j < pvCount; j++) {
+                    String pvName = string(strings, buffer.getInt());
+                    byte kind = buffer.get();
+                    String value = string(strings, buffer.getInt());
+                    if (kind == BeanDefinitionSnapshot.VALUE_KIND_REFERENCE) {
+                        pvs.addPropertyValue(new PropertyValue(pvName, new BeanReference(value)));
+                    } else {
+                        pvs.addPropertyValue(new PropertyValue(pvName, value));
+                    }
+                }
+                bd.setPropertyValues(pvs);
+            }
+
+            int lookupCount = buffer.getInt();
+            for (int j = 0; j < lookupCount; j++) {
+                String methodName = string(strings, buffer.getInt());
+                String lookupBeanName = string(strings, buffer.getInt());
+                bd.getMethodOverrides().addOverride(new LookupOverride(methodName, lookupBeanName));
+            }
+            beanDefinitions.put(beanName, bd);
+        }
+        return beanDefinitions;
+    }
+
+    private Class<?> loadClass(String beanName, String className) {
+        try {
+            // 不触发类的初始化，推迟到真正实例化 bean 的时候
+            return Class.forName(className, false, this.beanClassLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new BeanDefinitionStoreException(
+                    "解析 BeanDefinition 快照(name=" + beanName + ") 时, 加载 class(" + className + ") 失败: "
+                            + e.getMessage(), e);
+        }
+    }
+
+    private static String string(String[] strings, int index) {
+        return (index == BeanDefinitionSnapshot.NULL_INDEX ? null : strings[index]);
+    }
+
+    /**
+     * 读取头部中的字符串，长度超过上限说明文件已损坏，避免按损坏的长度分配内存
+     */
+    private static String readHeaderString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_HEADER_STRING_LENGTH) {
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,16 +1,26 @@
 package com.yq.springframework.beans.factory.support;
 
-import cn.hutool.core.bean.BeanUtil;
 import com.yq.springframework.beans.BeanInstantiationException;
 import com.yq.springframework.beans.BeansException;
 import com.yq.springframework.beans.MutablePropertyValues;
+import com.yq.springframework.beans.PropertyInjector;
+import com.yq.springframework.beans.PropertyInjectors;
 import com.yq.springframework.beans.PropertyValue;
+import com.yq.springframework.beans.factory.BeanCreationException;
+import com.yq.springframework.beans.factory.BeanCurrentlyInCreationException;
 import com.yq.springframework.beans.factory.BeanFactory;
 import com.yq.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import com.yq.springframework.beans.factory.BeanInitializationException;
+import com.yq.springframework.beans.factory.InitializingBean;
+import com.yq.springframework.beans.factory.NoSuchBeanDefinitionException;
 import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.config.BeanPostProcessor;
 import com.yq.springframework.beans.factory.config.BeanReference;
+import com.yq.springframework.core.convert.ConversionFailedException;
+import com.yq.springframework.core.metrics.StartupStep;
+import com.yq.springframework.util.ClassUtils;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.util.Arrays;
 
@@ -29,7 +39,33 @@ public abstract class AbstractAutowireCapableBeanFactory
         extends AbstractBeanFactory
         implements AutowireCapableBeanFactory {
 
-    private final InstantiationStrategy instantiationStrategy = new CglibSubclassingInstantiationStrategy();
+    private static final String AFTER_PROPERTIES_SET_METHOD_NAME = "afterPropertiesSet";
+
+    /**
+     * 实例化策略，默认 cglib 策略 (没有方法注入时直接反射调用构造器)
+     * 可以替换为 {@link MethodHandleInstantiationStrategy}
+     */
+    private InstantiationStrategy instantiationStrategy = new CglibSubclassingInstantiationStrategy();
+
+    /**
+     * 属性注入器缓存
+     */
+    private final PropertyInjectors propertyInjectors = new PropertyInjectors();
+
+    /**
+     * 生命周期方法 (init-method / destroy-method) 缓存
+     */
+    private final LifecycleMethodHandles lifecycleMethodHandles = new LifecycleMethodHandles();
+
+    /**
+     * 引用尚未创建的 lazy-init bean 时，是否注入一个延迟解析的代理，而不是直接 getBean
+     */
+    private boolean lazyResolutionProxies = false;
+
+    /**
+     * 每个 bean 创建过程的内存分配、CPU 时间统计，为 null 时不统计
+     */
+    private volatile BeanCreationMetrics beanCreationMetrics;
 
 
     public AbstractAutowireCapableBeanFactory() {
@@ -43,10 +79,47 @@ public abstract class AbstractAutowireCapableBeanFactory
         setParentBeanFactory(parentBeanFactory);
     }
 
+    /**
+     * 设置实例化策略
+     * @param instantiationStrategy 实例化策略
+     */
+    public void setInstantiationStrategy(InstantiationStrategy instantiationStrategy) {
+        this.instantiationStrategy = instantiationStrategy;
+    }
+
     protected InstantiationStrategy getInstantiationStrategy() {
         return this.instantiationStrategy;
     }
 
+    /**
+     * 设置引用 lazy-init bean 时，是否注入延迟解析的代理
+     * 开启后，非 lazy-init 的 bean 依赖 lazy-init 的 bean 时，启动阶段不会把 lazy-init 的 bean 提前创建出来；
+     * 注入的是代理对象，第一次调用其方法时才会创建真正的 bean
+     *
+     * @param lazyResolutionProxies 是否开启
+     */
+    public void setLazyResolutionProxies(boolean lazyResolutionProxies) {
+        this.lazyResolutionProxies = lazyResolutionProxies;
+    }
+
+    public boolean isLazyResolutionProxies() {
+        return this.lazyResolutionProxies;
+    }
+
+    /**
+     * 设置 bean 创建过程的内存分配、CPU 时间统计，设置为 null 时关闭统计
+     * 统计结果在 refresh 之后通过 {@link #getBeanCreationMetrics()} 查询
+     *
+     * @param beanCreationMetrics 统计器
+     */
+    public void setBeanCreationMetrics(BeanCreationMetrics beanCreationMetrics) {
+        this.beanCreationMetrics = beanCreationMetrics;
+    }
+
+    public BeanCreationMetrics getBeanCreationMetrics() {
+        return this.beanCreationMetrics;
+    }
+
     /**
      * 对默认 AbstractBF 的增强，增加了可以自动注入的功能
      * 在 spring 源码中，该方法是本类的核心方法，提供了：
@@ -61,9 +134,41 @@ public abstract class AbstractAutowireCapableBeanFactory
      */
     @Override
     protected Object createBean(String beanName, BeanDefinition beanDefinition, Object[] args) throws BeansException {
+        StartupStep createStep = getApplicationStartup().start("spring.beans.create")
+                .tag("beanName", beanName)
+                .tag("beanClass", () -> String.valueOf(beanDefinition.getBeanClass()));
+        BeanCreationMetrics metrics = this.beanCreationMetrics;
+        BeanCreationMetrics.Frame metricsFrame = (metrics != null ? metrics.start(beanName) : null);
+        try {
+            return doCreateBean(beanName, beanDefinition, args);
+        } finally {
+            if (metricsFrame != null) {
+                metrics.end(metricsFrame);
+            }
+            createStep.end();
+        }
+    }
+
+    /**
+     * 真正创建 bean 的方法：实例化 -> 提前暴露引用 -> 属性注入 -> 初始化 (BeanPostProcessor) -> 注册销毁逻辑
+     * 每个阶段都作为 "spring.beans.create" 的子步骤记录在 ApplicationStartup 中
+     *
+     * @param beanName       创建后的 bean 名称
+     * @param beanDefinition bean创建依据
+     * @param args           构造器参数
+     * @return bean
+     * @throws BeansException bean 创建异常
+     */
+    protected Object doCreateBean(String beanName, BeanDefinition beanDefinition, Object[] args) throws BeansException {
         Object bean = null;
 
-        // spring 源码中，此处会进行 bean class 的解析和加载
+        // bean class 的解析和加载，只设置了类名的 BD 在这里才加载 class
+        resolveBeanClass(beanName, beanDefinition);
+
+        // (0) 属性值的类型转换
+        // spring 源码中 BD 在使用前会先合并为 RootBeanDefinition，这里没有 BD 合并，放在第一次创建 bean 时做，每个 BD 只做一次
+        // 之后原型 bean 的每次创建都直接使用转换好的值
+        convertPropertyValuesIfNecessary(beanName, beanDefinition);
 
         // 此外，真正的实例创建需要先委托 createBeanInstance()  方法
         // createBean() -> doCreateBean() -> createBeanInstance() -> instantiateBean() -> instantiationStrategy.instantiate()
@@ -76,22 +181,82 @@ public abstract class AbstractAutowireCapableBeanFactory
         // 在源码中此处是 BeanWrapper
         // 至于为什么需要 BeanWrapper 这个包装后的东西，个人理解还是减少代码冗余
         // BeanWrapper目的是对 bean 进行切实的操作，将对pv的操作划到对象本身的行为中，而不是书写大量面向过程的通用处理代码
-        bean = createBeanInstance(beanName, beanDefinition, args);
+        StartupStep instantiateStep = getApplicationStartup().start("spring.beans.instantiate").tag("beanName", beanName);
+        try {
+            bean = createBeanInstance(beanName, beanDefinition, args);
+        } finally {
+            instantiateStep.end();
+        }
+
+        // 提前暴露 bean 的引用 (放入三级缓存)，用来解决循环依赖
+        // 只有通过 getSingleton(beanName, singletonFactory) 走进来的单例创建才需要暴露
+        if (isSingletonCurrentlyInCreation(beanName)) {
+            final Object earlyBean = bean;
+            addSingletonFactory(beanName, () -> getEarlyBeanReference(beanName, beanDefinition, earlyBean));
+        }
 
         // (2) 属性注入
-        populateBean(beanName, beanDefinition, bean);
+        StartupStep populateStep = getApplicationStartup().start("spring.beans.populate").tag("beanName", beanName);
+        try {
+            populateBean(beanName, beanDefinition, bean);
+        } finally {
+            populateStep.end();
+        }
 
+        // (3) 初始化：BeanPostProcessor 初始化前处理 -> 初始化方法 -> BeanPostProcessor 初始化后处理
+        // BeanPostProcessor 可能会把 bean 替换掉 (比如 AOP 代理)，最终放入单例池的是处理后的对象
+        Object exposedObject;
+        StartupStep postProcessStep = getApplicationStartup().start("spring.beans.post-process").tag("beanName", beanName);
+        try {
+            exposedObject = initializeBean(beanName, bean, beanDefinition);
+        } finally {
+            postProcessStep.end();
+        }
+
+        // 循环依赖时，别的 bean 已经注入了提前暴露的原始引用
+        // 如果 BeanPostProcessor 把 bean 替换成了别的对象，那些 bean 持有的就是一个 "过期" 的原始对象，只能失败
+        if (isSingletonCurrentlyInCreation(beanName)) {
+            Object earlySingletonReference = getSingleton(beanName, false);
+            if (earlySingletonReference != null) {
+                if (exposedObject == bean) {
+                    exposedObject = earlySingletonReference;
+                } else {
+                    throw new BeanCurrentlyInCreationException(beanName,
+                            "Bean has been injected into other beans in its raw version as part of a circular reference, " +
+                            "but has eventually been wrapped by a BeanPostProcessor. " +
+                            "This means that said other beans do not use the final version of the bean.");
+                }
+            }
+        }
 
-        // 创建 bean 完成后，将 bean 放入单例池
-        // 该方法由祖先 SingletonBeanRegistry 提供
-        registerSingleton(beanName, bean);
+        // (4) 单例注册销毁逻辑，容器关闭时调用
+        if (isSingletonCurrentlyInCreation(beanName)) {
+            registerDisposableBeanIfNecessary(beanName, bean, beanDefinition);
+        }
+
+        // 注意这里不再直接放入单例池，放入单例池的动作由 DefaultSingletonBeanRegistry#getSingleton(beanName, singletonFactory) 完成
+        // 这样 "创建 + 发布" 都处在该 bean 的创建锁之内
 
+        return exposedObject;
+    }
+
+    /**
+     * 获取提前暴露的 bean 引用
+     * spring 源码中，这里会交给 SmartInstantiationAwareBeanPostProcessor 处理(比如 AOP 提前创建代理)，这里直接返回原始 bean
+     *
+     * @param beanName bean name
+     * @param bd       bean definition
+     * @param bean     刚实例化、还未属性注入的 bean
+     * @return 提前暴露的引用
+     */
+    protected Object getEarlyBeanReference(String beanName, BeanDefinition bd, Object bean) {
         return bean;
     }
 
     /**
      * (1)实例化 bean
-     * 解析出该 bean 的构造器，然后将实例化任务委托给 实例化策略类 （这里直接是Cglibsubclassing策略）
+     * 解析出该 bean 的构造器，然后将实例化任务委托给 实例化策略类
+     * （这里是Cglibsubclassing策略，没有方法注入时由其父类 Simple 策略直接反射调用构造器）
      *
      * FIXME TODO 目前有个问题！就是如果这个类只有带参构造器，那么getBean的时候必须传入参数，
      *  当这个类没有无参构造器时，getBean时不传入构造器参数则会报错！
@@ -112,73 +277,40 @@ public abstract class AbstractAutowireCapableBeanFactory
         // spring 源码会分析出构造器和工厂方法，然后去执行，这里只考虑构造器创建 bean 的场景，而args也单纯的只是构造器参数
 
 
-        // 根据 args 分析出要使用的构造器
-        Class<?>[] providedTypes;
-        if (args != null && args.length != 0){
-            providedTypes = new Class<?>[args.length];
-            for (int i = 0; i < args.length; i++) {
-                providedTypes[i] = args[i].getClass();
+        // 构建时生成的代码直接 new 出 bean，不需要解析构造器，也不需要反射和 cglib
+        InstanceSupplier instanceSupplier = bd.getInstanceSupplier();
+        if (instanceSupplier != null && (args == null || args.length == 0)) {
+            try {
+                return instanceSupplier.get(this);
+            } catch (BeansException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new BeanInstantiationException(bd, "InstanceSupplier 创建 bean 失败: " + e.getMessage(), e);
             }
-        }else {
-            providedTypes = new Class<?>[0];
         }
 
-
+        // 根据 args 分析出要使用的构造器
+        // args 为空 --> 直接将查询的构造器结果置为null，使用无参构造器
+        Constructor<?> targetCtor = null;
         try {
-            Constructor<?> targetCtor = null;
-            // args 为空数组 --> 直接将查询的构造器结果置为null
-            if (providedTypes.length == 0)
-                targetCtor = null;
-            // args 非空 --> 跟 beanClass 中现有的构造方法进行比对，选择出适配 args 的构造方法
-            // 这里有个有趣的问题需要解决：
-            //     args数组 是 Object[]，存在自动装箱的情况下，即原本构造方法参数类型是(int.class, long.class, String.class)
-            //     通过 args.forEach(Object::getClass) 获取出来的结果会是(Intger.class, Long.class, String.class)
-            //     这里就需要解决这个匹配问题
-            else {
-                Constructor<?>[] ctors = beanClass.getDeclaredConstructors();
-                for (Constructor<?> ctor : ctors) {
-                    Class<?>[] potentialTypes = ctor.getParameterTypes();
-                    if (potentialTypes.length == 0)
-                        continue;
-                    else if (Arrays.equals(providedTypes, potentialTypes)) {
-                        targetCtor = ctor;
-                        break;
-                    } else {
-                        // tempTypes 是避免污染 beanClass 本身其他的构造器参数列表
-                        Class<?>[] tempTypes = Arrays.copyOf(potentialTypes, potentialTypes.length);
-                        for (int i = 0; i < tempTypes.length; i++) {
-                            if (tempTypes[i] == boolean.class)
-                                tempTypes[i] = Boolean.class;
-                            else if (tempTypes[i] == byte.class)
-                                tempTypes[i] = Byte.class;
-                            else if (tempTypes[i] == char.class)
-                                tempTypes[i] = Character.class;
-                            else if (tempTypes[i] == short.class)
-                                tempTypes[i] = Short.class;
-                            else if (tempTypes[i] == int.class)
-                                tempTypes[i] = Integer.class;
-                            else if (tempTypes[i] == long.class)
-                                tempTypes[i] = Long.class;
-                            else if (tempTypes[i] == float.class)
-                                tempTypes[i] = Float.class;
-                            else if (tempTypes[i] == double.class)
-                                tempTypes[i] = Double.class;
-                        }
-
-                        if (Arrays.equals(providedTypes, tempTypes)) {
-                            targetCtor = ctor;
-                            break;
-                        }
-                    }
+            if (args != null && args.length != 0) {
+                Class<?>[] providedTypes = new Class<?>[args.length];
+                for (int i = 0; i < args.length; i++) {
+                    providedTypes[i] = args[i].getClass();
                 }
 
+                // 先查 BD 上缓存的解析结果，同一组参数类型只解析一次构造器
+                targetCtor = bd.getResolvedConstructor(providedTypes);
                 if (targetCtor == null) {
-                    throw new BeanInstantiationException(bd.getBeanClass(), "无法根据提供的参数找到合适的构造器");
+                    targetCtor = resolveConstructor(beanClass, providedTypes);
+                    if (targetCtor == null) {
+                        throw new BeanInstantiationException(bd.getBeanClass(), "无法根据提供的参数找到合适的构造器");
+                    }
+                    bd.cacheResolvedConstructor(providedTypes, targetCtor);
                 }
             }
 
-
-            return getInstantiationStrategy().instantiate(bd, beanName, targetCtor, args);
+            return getInstantiationStrategy().instantiate(bd, beanName, this, targetCtor, args);
         } catch (Exception e) {
             throw new BeanInstantiationException(bd, "无法根据提供的参数找到合适的构造器", e);
         }
@@ -186,6 +318,44 @@ public abstract class AbstractAutowireCapableBeanFactory
 
     }
 
+    /**
+     * 跟 beanClass 中现有的构造方法进行比对，选择出适配 args 的构造方法
+     * 这里有个有趣的问题需要解决：
+     *     args数组 是 Object[]，存在自动装箱的情况下，即原本构造方法参数类型是(int.class, long.class, String.class)
+     *     通过 args.forEach(Object::getClass) 获取出来的结果会是(Intger.class, Long.class, String.class)
+     *     所以先精确匹配，匹配不上再把构造器的基本类型参数按包装类型来比较
+     *
+     * @param beanClass bean 类型
+     * @param providedTypes args 的实际类型
+     * @return 匹配的构造器，找不到则返回 null
+     */
+    private Constructor<?> resolveConstructor(Class<?> beanClass, Class<?>[] providedTypes) {
+        Constructor<?>[] ctors = beanClass.getDeclaredConstructors();
+        for (Constructor<?> ctor : ctors) {
+            if (Arrays.equals(providedTypes, ctor.getParameterTypes())) {
+                return ctor;
+            }
+        }
+        for (Constructor<?> ctor : ctors) {
+            if (matchesBoxed(providedTypes, ctor.getParameterTypes())) {
+                return ctor;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matchesBoxed(Class<?>[] providedTypes, Class<?>[] parameterTypes) {
+        if (providedTypes.length != parameterTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (providedTypes[i] != ClassUtils.resolvePrimitiveIfNecessary(parameterTypes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * (2)初始化 bean
      * populate 从宏观上，可以认为是 spring 属性注入的关键方法，但是实际上这个类本身的行为主要是：
@@ -201,9 +371,44 @@ public abstract class AbstractAutowireCapableBeanFactory
         // post process bean's propertyValues
         // got the final propertyValues
 
+        PropertiesPopulator populator = bd.getPropertiesPopulator();
+        if (populator != null) {
+            applyPropertiesPopulator(beanName, populator, bean);
+            return;
+        }
         applyPropertyValues(beanName, bd, bean);
     }
 
+    /**
+     * 由构建时生成的代码直接调用 setter 注入属性
+     * 对其他 bean 的引用和 applyPropertyValues 一样交给 resolveBeanReference 解析，并记录依赖关系
+     *
+     * @param beanName  bean name
+     * @param populator 属性注入逻辑
+     * @param bean      待属性注入的 bean
+     */
+    private void applyPropertiesPopulator(String beanName, PropertiesPopulator populator, Object bean) {
+        try {
+            populator.populate(bean, new PropertiesPopulator.ValueResolver() {
+                @Override
+                public Object resolveReference(String reliedBeanName, Class<?> requiredType) {
+                    Object reference = resolveBeanReference(new BeanReference(reliedBeanName), requiredType);
+                    registerDependentBean(reliedBeanName, beanName);
+                    return reference;
+                }
+
+                @Override
+                public Object convert(Object value, Class<?> targetType) {
+                    return getConversionService().convert(value, targetType);
+                }
+            });
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BeanInitializationException("bean[" + beanName + "]属性注入时出现异常: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 真正属性注入的方法
      * 在 spring 源码中，applyPropertyValues 方法还考虑到了深拷贝、浅拷贝的问题
@@ -214,34 +419,182 @@ public abstract class AbstractAutowireCapableBeanFactory
      * @param bean     待属性注入的 bean
      */
     protected void applyPropertyValues(String beanName, BeanDefinition bd, Object bean) {
+        if (!bd.hasPropertyValues()) {
+            return;
+        }
 
         try {
-            MutablePropertyValues pvs = bd.getPropertyValues();
-            for (PropertyValue pv : pvs) {
-                String p = pv.getName();
-                Object v = pv.getValue();     //  这个地方没有对 value 做类型转换(传入的概率都是 String，应该做转换的), 使用不当会有问题
-
-                // 判断待注入的属性，是否是 spring 中其他的 bean
-                // 目前没考虑循环依赖
-                if (v instanceof BeanReference) {
-                    String reliedBeanName = ((BeanReference) v).getBeanName();
-                    v = getBean(reliedBeanName);
+            // 直接遍历内部的 pv 列表，避免每个 bean 都拷贝一次数组
+            for (PropertyValue pv : bd.getPropertyValues().getPropertyValueList()) {
+                // 每个 (class, 属性名) 的 setter 只解析一次，缓存为 MethodHandle；cglib 子类按其父类解析
+                // 以前这里是 hutool 的 BeanUtil.setProperty，每次注入都要按名字反射内省一遍
+                PropertyInjector injector = this.propertyInjectors.getInjector(bean.getClass(), pv.getName());
+
+                Object v;
+                if (pv.isConverted()) {
+                    v = pv.getConvertedValue();
+                } else {
+                    v = pv.getValue();
+                    // 判断待注入的属性，是否是 spring 中其他的 bean
+                    // 循环依赖时，这里 getBean 拿到的是对方提前暴露的引用 (三级缓存)
+                    if (v instanceof BeanReference) {
+                        BeanReference reference = (BeanReference) v;
+                        v = resolveBeanReference(reference, injector.getPropertyType());
+                        // 记录依赖关系，销毁时当前 bean 要先于被引用的 bean 销毁
+                        registerDependentBean(reference.getBeanName(), beanName);
+                    }
+                    v = convertForProperty(v, injector);
                 }
 
-                // 反射设置属性值
-                // 由于 bean 实际上是 cglib 创建出来的，直接通过java的反射获取不到field
-                /*Field field = bean.getClass().getField(p);
-                field.setAccessible(true);
-                field.set(p,v);*/
-                BeanUtil.setProperty(bean,p,v);
+                // 设置属性值
+                injector.inject(bean, v);
+            }
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BeanInitializationException("bean[" + beanName + "]属性注入时出现异常: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解析属性值中对其他 bean 的引用
+     * 引用的是尚未创建的 lazy-init bean，并且开启了延迟解析代理时，返回代理对象，否则直接 getBean
+     *
+     * @param reference    bean 引用
+     * @param propertyType 属性类型
+     * @return 被引用的 bean (或其代理)
+     */
+    protected Object resolveBeanReference(BeanReference reference, Class<?> propertyType) {
+        String reliedBeanName = reference.getBeanName();
+        if (this.lazyResolutionProxies && !containsSingleton(reliedBeanName) && isLazyInitBean(reliedBeanName)) {
+            Object proxy = LazyResolutionProxies.createProxy(this, reliedBeanName, propertyType);
+            if (proxy != null) {
+                return proxy;
             }
-        } catch (Exception e) {
-            throw new BeanInitializationException("bean[" + beanName + "]属性注入时出现异常: " + e.getMessage());
+        }
+        return getBean(reliedBeanName);
+    }
+
+    /**
+     * 该 bean 是否定义为 lazy-init，没有该 bean 的定义时返回 false
+     */
+    private boolean isLazyInitBean(String beanName) {
+        try {
+            BeanDefinition bd = getBeanDefinition(beanName);
+            return (bd != null && bd.isLazyInit());
+        } catch (NoSuchBeanDefinitionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 将 BD 中的属性值转换为属性的实际类型，转换结果缓存在 PropertyValue 中
+     * xml 中配置的 value 都是 String，以前每次注入都要转换一遍，现在每个 BD 只转换一次
+     * 引用其他 bean 的属性值 (BeanReference) 只能在创建 bean 时解析，这里跳过
+     *
+     * @param beanName bean name
+     * @param bd       beanDefinition
+     */
+    protected void convertPropertyValuesIfNecessary(String beanName, BeanDefinition bd) {
+        if (!bd.hasPropertyValues() || bd.getBeanClass() == null || bd.getPropertiesPopulator() != null) {
+            return;
+        }
+        MutablePropertyValues mpvs = bd.getPropertyValues();
+        if (mpvs.isConverted()) {
+            return;
+        }
+        try {
+            for (PropertyValue pv : mpvs.getPropertyValueList()) {
+                if (!pv.isConverted() && !(pv.getValue() instanceof BeanReference)) {
+                    PropertyInjector injector = this.propertyInjectors.getInjector(bd.getBeanClass(), pv.getName());
+                    pv.setConvertedValue(convertForProperty(pv.getValue(), injector));
+                }
+            }
+        } catch (BeansException | ConversionFailedException e) {
+            throw new BeanInitializationException("bean[" + beanName + "]属性值类型转换时出现异常: " + e.getMessage(), e);
+        }
+        mpvs.setConverted();
+    }
+
+    /**
+     * 将属性值转换为属性的类型
+     */
+    private Object convertForProperty(Object value, PropertyInjector injector) {
+        return getConversionService().convert(value, injector.getPropertyType());
+    }
+
+    /**
+     * 实现了 DisposableBean 或者配置了 destroy-method 的 bean，注册其销毁逻辑
+     * 注册的是原始 bean：BeanPostProcessor 返回的代理对象不一定有销毁方法
+     *
+     * @param beanName bean name
+     * @param bean     原始 bean (BeanPostProcessor 处理之前的)
+     * @param bd       beanDefinition
+     */
+    protected void registerDisposableBeanIfNecessary(String beanName, Object bean, BeanDefinition bd) {
+        DisposableBeanAdapter adapter = DisposableBeanAdapter.forBean(bean, beanName, bd, this.lifecycleMethodHandles);
+        if (adapter != null) {
+            registerDisposableBean(beanName, adapter);
+        }
+    }
+
+    /**
+     * (3)初始化 bean
+     * 初始化前处理 -> 初始化方法 -> 初始化后处理
+     * spring 源码中，初始化之前还会回调 Aware 接口
+     *
+     * @param beanName bean name
+     * @param bean     完成属性注入的 bean
+     * @param bd       beanDefinition
+     * @return 处理后的 bean，可能不是原来的对象
+     */
+    protected Object initializeBean(String beanName, Object bean, BeanDefinition bd) {
+        try {
+            Object wrappedBean = applyBeanPostProcessorsBeforeInitialization(bean, beanName);
+            invokeInitMethods(beanName, wrappedBean, bd);
+            return applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+        } catch (BeansException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new BeanCreationException(beanName, "BeanPostProcessor failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 调用初始化方法：先 InitializingBean#afterPropertiesSet，再 init-method (和前者是同一个方法时只调用一次)
+     * init-method 每个 class 只查找一次，缓存为 MethodHandle
+     *
+     * @param beanName bean name
+     * @param bean     经过初始化前处理的 bean
+     * @param bd       beanDefinition
+     * @throws BeanCreationException 初始化方法不存在或者执行失败
+     */
+    protected void invokeInitMethods(String beanName, Object bean, BeanDefinition bd) {
+        boolean isInitializingBean = (bean instanceof InitializingBean);
+        String initMethodName = bd.getInitMethodName();
+        try {
+            if (isInitializingBean) {
+                ((InitializingBean) bean).afterPropertiesSet();
+            }
+            if (initMethodName != null && !(isInitializingBean && AFTER_PROPERTIES_SET_METHOD_NAME.equals(initMethodName))) {
+                MethodHandle initMethod = this.lifecycleMethodHandles.getMethodHandle(bean.getClass(), initMethodName);
+                if (initMethod == null) {
+                    throw new BeanCreationException(beanName, "Could not find a no-arg init method named '" +
+                            initMethodName + "' on bean class [" + bean.getClass().getName() + "]");
+                }
+                initMethod.invokeExact(bean);
+            }
+        } catch (BeansException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BeanCreationException(beanName, "Invocation of init method failed: " + e.getMessage(), e);
         }
     }
 
     /**
      * 初始化【前】处理
+     * 只调用需要处理该类型 bean 的处理器 {@link #getBeanPostProcessorChain}
+     * 某个处理器返回 null 时，不再调用后面的处理器，返回上一个结果
      *
      * @param existingBean 现有的待处理的 bean
      * @param beanName     bean 名称
@@ -250,11 +603,21 @@ public abstract class AbstractAutowireCapableBeanFactory
      */
     @Override
     public Object applyBeanPostProcessorsBeforeInitialization(Object existingBean, String beanName) throws BeansException {
-        return null;
+        Object result = existingBean;
+        for (BeanPostProcessor processor : getBeanPostProcessorChain(existingBean.getClass())) {
+            Object current = processor.postProcessBeforeInitialization(result, beanName);
+            if (current == null) {
+                return result;
+            }
+            result = current;
+        }
+        return result;
     }
 
     /**
      * 初始化【后】处理
+     * 只调用需要处理该类型 bean 的处理器 {@link #getBeanPostProcessorChain}
+     * 某个处理器返回 null 时，不再调用后面的处理器，返回上一个结果
      *
      * @param existingBean 现有的待处理的 bean
      * @param beanName     bean 名称
@@ -263,6 +626,14 @@ public abstract class AbstractAutowireCapableBeanFactory
      */
     @Override
     public Object applyBeanPostProcessorsAfterInitialization(Object existingBean, String beanName) throws BeansException {
-        return null;
+        Object result = existingBean;
+        for (BeanPostProcessor processor : getBeanPostProcessorChain(existingBean.getClass())) {
+            Object current = processor.postProcessAfterInitialization(result, beanName);
+            if (current == null) {
+                return result;
+            }
+            result = current;
+        }
+        return result;
     }
 }
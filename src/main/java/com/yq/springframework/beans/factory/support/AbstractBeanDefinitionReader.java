@@ -2,6 +2,7 @@ package com.yq.springframework.beans.factory.support;
 
 import cn.hutool.core.lang.Assert;
 import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
 import com.yq.springframework.core.io.DefaultResourceLoader;
 import com.yq.springframework.core.io.Resource;
 import com.yq.springframework.core.io.ResourceLoader;
@@ -26,6 +27,11 @@ public abstract class AbstractBeanDefinitionReader implements BeanDefinitionRead
      */
     private ResourceLoader resourceLoader;
 
+    /**
+     * 加载多个 resource 时的并行度，小于等于 1 时逐个串行加载
+     */
+    private int loadingParallelism = 1;
+
     public AbstractBeanDefinitionReader(BeanDefinitionRegistry registry) {
         Assert.notNull(registry, "BeanDefinitionRegistry must not be null");
         this.registry = registry;
@@ -52,6 +58,44 @@ public abstract class AbstractBeanDefinitionReader implements BeanDefinitionRead
         return this.resourceLoader;
     }
 
+    /**
+     * 设置加载多个 resource 时的并行度
+     * 大于 1 时并发读取、解析各个 resource，再按声明顺序合并到 registry，合并的结果和串行加载完全一致
+     * 需要子类实现 createStagingReader，否则仍然串行加载
+     * @param loadingParallelism 并行度
+     */
+    public void setLoadingParallelism(int loadingParallelism) {
+        this.loadingParallelism = loadingParallelism;
+    }
+
+    public int getLoadingParallelism() {
+        return this.loadingParallelism;
+    }
+
+    /**
+     * 并行加载时，为单个 resource 创建一个同类型的 reader，把 BD 加载到暂存 registry 中
+     * 新 reader 在工作线程中使用，用完即弃，不能和当前 reader 共享可变状态
+     * @param stagingRegistry 暂存 registry
+     * @return reader，不支持并行加载时返回 null
+     */
+    protected AbstractBeanDefinitionReader createStagingReader(BeanDefinitionRegistry stagingRegistry) {
+        return null;
+    }
+
+    /**
+     * 并行加载时，按声明顺序把暂存的 BD 注册到 registry，子类可以在这里做和串行加载时一样的重复检测
+     * @param beanName beanName
+     * @param beanDefinition BD
+     */
+    protected void registerStagedBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+        getRegistry().registerBeanDefinition(beanName, beanDefinition);
+    }
+
+    private boolean isParallelLoading(int resourceCount) {
+        return this.loadingParallelism > 1 && resourceCount > 1
+                && createStagingReader(new SimpleBeanDefinitionRegistry()) != null;
+    }
+
 
     @Override
     public int loadBeanDefinitions(String location) throws BeanDefinitionStoreException {
@@ -75,6 +119,9 @@ public abstract class AbstractBeanDefinitionReader implements BeanDefinitionRead
         // 这个地方有待商榷，源码中是直接 int count = 0;
         // 但是这个 loadBeanDefinitions 确实还有有可能反复调用的
         int count = getRegistry().getBeanDefinitionCount();
+        if (isParallelLoading(resources.length)) {
+            return count + new ParallelBeanDefinitionLoader(this, this.loadingParallelism).loadBeanDefinitions(resources);
+        }
         for (Resource resource : resources) {
             count += loadBeanDefinitions(resource);
         }
@@ -89,6 +136,14 @@ public abstract class AbstractBeanDefinitionReader implements BeanDefinitionRead
         Assert.notNull(locations, "Location array must not be null");
 
         int count = getRegistry().getBeanDefinitionCount();
+        if (isParallelLoading(locations.length)) {
+            // 只在调用线程中解析出 resource，真正的读取 (可能是远程的) 和解析交给工作线程
+            Resource[] resources = new Resource[locations.length];
+            for (int i = 0; i < locations.length; i++) {
+                resources[i] = getResourceLoader().getResource(locations[i]);
+            }
+            return count + new ParallelBeanDefinitionLoader(this, this.loadingParallelism).loadBeanDefinitions(resources);
+        }
         for (String location : locations) {
             count += loadBeanDefinitions(location);
         }
@@ -3,13 +3,24 @@ package com.yq.springframework.beans.factory.support;
 import cn.hutool.core.lang.Assert;
 import com.yq.springframework.beans.BeansException;
 import com.yq.springframework.beans.factory.BeanFactory;
+import com.yq.springframework.beans.factory.CannotLoadBeanClassException;
 import com.yq.springframework.beans.factory.config.BeanDefinition;
 import com.yq.springframework.beans.factory.config.BeanPostProcessor;
 import com.yq.springframework.beans.factory.config.ConfigurableBeanFactory;
+import com.yq.springframework.core.convert.ConversionService;
+import com.yq.springframework.core.convert.support.DefaultConversionService;
+import com.yq.springframework.core.metrics.ApplicationStartup;
+import com.yq.springframework.util.ClassUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * BF 的直接实现，是个抽象类
@@ -35,9 +46,31 @@ public abstract class AbstractBeanFactory extends DefaultSingletonBeanRegistry i
     /**
      * bean post processors
      *
-     * spring 源码此处是 CopyOnWriteList
+     * spring 源码此处是 CopyOnWriteList，这里是不可变数组的快照：
+     * - 注册/移除处理器时，在锁内复制出一个新数组，连同空的处理器链缓存一起整体发布
+     * - 创建 bean 时直接遍历当前快照，不加锁、不创建迭代器，并发注册也不会读到修改了一半的列表
      */
-    private final List<BeanPostProcessor> beanPostProcessors = new ArrayList<>();
+    private volatile BeanPostProcessorCache beanPostProcessorCache = new BeanPostProcessorCache(new BeanPostProcessor[0]);
+
+    /**
+     * 修改处理器列表时使用的锁，读取不需要加锁
+     */
+    private final Object beanPostProcessorMonitor = new Object();
+
+    /**
+     * 属性值的类型转换服务
+     */
+    private ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    /**
+     * 启动过程的埋点，默认什么都不记录
+     */
+    private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+    /**
+     * 加载 BD 中类名的类加载器
+     */
+    private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
 
 
     public AbstractBeanFactory() {
@@ -47,6 +80,55 @@ public abstract class AbstractBeanFactory extends DefaultSingletonBeanRegistry i
         this.parentBeanFactory = parentBeanFactory;
     }
 
+    @Override
+    public void setConversionService(ConversionService conversionService) {
+        Assert.notNull(conversionService, "ConversionService must not be null");
+        this.conversionService = conversionService;
+    }
+
+    @Override
+    public ConversionService getConversionService() {
+        return this.conversionService;
+    }
+
+    @Override
+    public void setApplicationStartup(ApplicationStartup applicationStartup) {
+        Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    public ApplicationStartup getApplicationStartup() {
+        return this.applicationStartup;
+    }
+
+    /**
+     * 设置加载 BD 中类名 (BeanDefinition#setBeanClassName) 的类加载器
+     * @param beanClassLoader 为 null 时使用默认类加载器
+     */
+    public void setBeanClassLoader(ClassLoader beanClassLoader) {
+        this.beanClassLoader = (beanClassLoader != null ? beanClassLoader : ClassUtils.getDefaultClassLoader());
+    }
+
+    public ClassLoader getBeanClassLoader() {
+        return this.beanClassLoader;
+    }
+
+    /**
+     * 解析 BD 中的 bean class，只设置了类名的 BD 在这里用 BF 的类加载器加载
+     * @param beanName bean 名称
+     * @param bd BD
+     * @return bean class
+     * @throws CannotLoadBeanClassException 类名无法加载
+     */
+    protected Class<?> resolveBeanClass(String beanName, BeanDefinition bd) throws CannotLoadBeanClassException {
+        try {
+            return bd.resolveBeanClass(this.beanClassLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new CannotLoadBeanClassException(beanName, bd.getBeanClassName(), e);
+        }
+    }
+
     public void setParentBeanFactory(BeanFactory parentBeanFactory) {
         if (this.parentBeanFactory != null && this.parentBeanFactory != parentBeanFactory) {
             throw new IllegalStateException("Already associated with parent BeanFactory: " + this.parentBeanFactory);
@@ -80,7 +162,9 @@ public abstract class AbstractBeanFactory extends DefaultSingletonBeanRegistry i
 
         BeanDefinition beanDefinition = getBeanDefinition(beanName);
 
-        return createBean(beanName,beanDefinition,args);
+        // 单例池中没有，则拿着该 bean 的创建锁去创建，保证并发 getBean 时同一个 bean 只会被创建一次
+        // 创建完成后由 getSingleton 负责放入单例池
+        return getSingleton(beanName, () -> createBean(beanName, beanDefinition, args));
     }
 
     /**
@@ -113,21 +197,146 @@ public abstract class AbstractBeanFactory extends DefaultSingletonBeanRegistry i
 
     /**
      * 给 BF 添加 bean 处理器
+     * 已经添加过的处理器会先被移除，再添加到末尾
      *
      * @param beanPostProcessor bean 处理器
      */
     @Override
     public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
         Assert.notNull(beanPostProcessor, "BeanPostProcessor must not be null");
-        this.beanPostProcessors.add(beanPostProcessor);
+        addBeanPostProcessors(Collections.singletonList(beanPostProcessor));
+    }
+
+    /**
+     * 批量添加 bean 处理器，整批只复制一次数组
+     * 已经添加过的处理器会先被移除，再按给定的顺序添加到末尾
+     *
+     * @param beanPostProcessors bean 处理器
+     */
+    @Override
+    public void addBeanPostProcessors(Collection<? extends BeanPostProcessor> beanPostProcessors) {
+        if (beanPostProcessors.isEmpty()) {
+            return;
+        }
+        Set<BeanPostProcessor> added = Collections.newSetFromMap(new IdentityHashMap<>(beanPostProcessors.size() * 2));
+        for (BeanPostProcessor processor : beanPostProcessors) {
+            Assert.notNull(processor, "BeanPostProcessor must not be null");
+            added.add(processor);
+        }
+        synchronized (this.beanPostProcessorMonitor) {
+            BeanPostProcessor[] current = this.beanPostProcessorCache.processors;
+            List<BeanPostProcessor> result = new ArrayList<>(current.length + added.size());
+            for (BeanPostProcessor processor : current) {
+                if (!added.contains(processor)) {
+                    result.add(processor);
+                }
+            }
+            for (BeanPostProcessor processor : beanPostProcessors) {
+                // 同一批中重复出现的处理器只保留第一次
+                if (added.remove(processor)) {
+                    result.add(processor);
+                }
+            }
+            this.beanPostProcessorCache = new BeanPostProcessorCache(result.toArray(new BeanPostProcessor[0]));
+        }
+    }
+
+    /**
+     * 移除 bean 处理器
+     *
+     * @param beanPostProcessor bean 处理器
+     * @return 是否移除了
+     */
+    @Override
+    public boolean removeBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+        return removeBeanPostProcessors(Collections.singletonList(beanPostProcessor));
+    }
+
+    /**
+     * 批量移除 bean 处理器，整批只复制一次数组
+     *
+     * @param beanPostProcessors bean 处理器
+     * @return 是否移除了至少一个
+     */
+    @Override
+    public boolean removeBeanPostProcessors(Collection<? extends BeanPostProcessor> beanPostProcessors) {
+        if (beanPostProcessors.isEmpty()) {
+            return false;
+        }
+        Set<BeanPostProcessor> removed = Collections.newSetFromMap(new IdentityHashMap<>(beanPostProcessors.size() * 2));
+        removed.addAll(beanPostProcessors);
+        synchronized (this.beanPostProcessorMonitor) {
+            BeanPostProcessor[] current = this.beanPostProcessorCache.processors;
+            List<BeanPostProcessor> result = new ArrayList<>(current.length);
+            for (BeanPostProcessor processor : current) {
+                if (!removed.contains(processor)) {
+                    result.add(processor);
+                }
+            }
+            if (result.size() == current.length) {
+                return false;
+            }
+            this.beanPostProcessorCache = new BeanPostProcessorCache(result.toArray(new BeanPostProcessor[0]));
+            return true;
+        }
+    }
+
+    @Override
+    public int getBeanPostProcessorCount() {
+        return this.beanPostProcessorCache.processors.length;
     }
 
     /**
      * 获取当前 BF 中持有的 BeanPostProcessors
+     * 返回的是当前快照的只读视图，之后注册的处理器不会反映到这个列表中
      * @return beanPostProcessors
      */
     public List<BeanPostProcessor> getBeanPostProcessors() {
-        return this.beanPostProcessors;
+        return Collections.unmodifiableList(Arrays.asList(this.beanPostProcessorCache.processors));
     }
 
+    /**
+     * 获取需要处理该类型 bean 的 BeanPostProcessor 链
+     * 按 {@link BeanPostProcessor#supportsBeanType} 过滤，每个类型只过滤一次；
+     * 容器中有 N 个处理器、M 个 bean 时，创建 bean 不再需要 N x M 次调用，而只调用真正关心该 bean 的处理器
+     *
+     * @param beanType bean 的类型，cglib 子类按其父类处理
+     * @return 处理器链，不要修改
+     */
+    protected BeanPostProcessor[] getBeanPostProcessorChain(Class<?> beanType) {
+        // 处理器数组和链缓存来自同一个快照，不会出现用旧的处理器列表算出的链被放进新缓存的情况
+        BeanPostProcessorCache cache = this.beanPostProcessorCache;
+        BeanPostProcessor[] chain = cache.chains.get(beanType);
+        if (chain == null) {
+            Class<?> userClass = ClassUtils.getUserClass(beanType);
+            List<BeanPostProcessor> filtered = new ArrayList<>(cache.processors.length);
+            for (BeanPostProcessor processor : cache.processors) {
+                if (processor.supportsBeanType(userClass)) {
+                    filtered.add(processor);
+                }
+            }
+            chain = (filtered.size() == cache.processors.length ? cache.processors
+                    : filtered.toArray(new BeanPostProcessor[0]));
+            cache.chains.put(beanType, chain);
+        }
+        return chain;
+    }
+
+
+    /**
+     * 处理器列表的一个快照，以及基于该快照算出来的按类型过滤的处理器链
+     */
+    private static final class BeanPostProcessorCache {
+
+        private final BeanPostProcessor[] processors;
+
+        /**
+         * bean 类型 ==> 需要处理该类型的 BeanPostProcessor 链 (按注册顺序)
+         */
+        private final Map<Class<?>, BeanPostProcessor[]> chains = new ConcurrentHashMap<>(64);
+
+        BeanPostProcessorCache(BeanPostProcessor[] processors) {
+            this.processors = processors;
+        }
+    }
 }
@@ -0,0 +1,266 @@
+package com.yq.springframework.beans.factory.support;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每个 bean 创建过程 (实例化 + 属性注入) 的内存分配、CPU 时间统计
+ *
+ * 通过 ThreadMXBean 在 createBean 前后采样当前线程的已分配字节数、CPU 时间，差值就是创建该 bean 的开销
+ * 统计的是【独占】开销：属性注入时 getBean 触发的其他 bean 的创建，其开销算在那个 bean 头上，会从当前 bean 中扣除
+ * 同时也记录包含嵌套创建在内的总开销
+ *
+ * 采样本身有一定开销，默认不开启，通过 {@link AbstractAutowireCapableBeanFactory#setBeanCreationMetrics} 开启
+ * JVM 不支持的指标 (比如非 HotSpot 的 JVM 不支持线程内存分配统计) 记为 -1
+ */
+public class BeanCreationMetrics {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final boolean allocationSupported;
+
+    private final boolean cpuTimeSupported;
+
+    /**
+     * beanName ==> 统计结果
+     */
+    private final Map<String, BeanMetrics> metrics = new ConcurrentHashMap<>(64);
+
+    /**
+     * 每个线程正在创建中的 bean
+     */
+    private final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+
+
+    public BeanCreationMetrics() {
+        this.allocationSupported = isAllocationSupported(THREAD_MX_BEAN);
+        this.cpuTimeSupported = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+    }
+
+    private static boolean isAllocationSupported(ThreadMXBean threadMXBean) {
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean hotSpotBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        return hotSpotBean.isThreadAllocatedMemorySupported() && hotSpotBean.isThreadAllocatedMemoryEnabled();
+    }
+
+    public boolean isAllocationSupported() {
+        return this.allocationSupported;
+    }
+
+    public boolean isCpuTimeSupported() {
+        return this.cpuTimeSupported;
+    }
+
+    /**
+     * 开始统计一个 bean 的创建
+     * @param beanName bean 名称
+     * @return 需要传给 {@link #end} 的栈帧
+     */
+    Frame start(String beanName) {
+        Frame frame = new Frame(beanName, currentAllocatedBytes(), currentCpuNanos());
+        this.frames.get().push(frame);
+        return frame;
+    }
+
+    /**
+     * 结束统计一个 bean 的创建 (无论成功还是失败)
+     * @param frame {@link #start} 返回的栈帧
+     */
+    void end(Frame frame) {
+        long allocated = delta(frame.startAllocatedBytes, currentAllocatedBytes());
+        long cpu = delta(frame.startCpuNanos, currentCpuNanos());
+
+        Deque<Frame> stack = this.frames.get();
+        stack.remove(frame);
+        Frame parent = stack.peek();
+        if (parent != null) {
+            parent.nestedAllocatedBytes += allocated;
+            parent.nestedCpuNanos += cpu;
+        } else {
+            this.frames.remove();
+        }
+
+        this.metrics.computeIfAbsent(frame.beanName, BeanMetrics::new).add(
+                exclusive(allocated, frame.nestedAllocatedBytes), exclusive(cpu, frame.nestedCpuNanos), allocated, cpu);
+    }
+
+    private long currentAllocatedBytes() {
+        if (!this.allocationSupported) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private long currentCpuNanos() {
+        return (this.cpuTimeSupported ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1);
+    }
+
+    private static long delta(long start, long end) {
+        return (start < 0 || end < 0 ? -1 : end - start);
+    }
+
+    private static long exclusive(long total, long nested) {
+        return (total < 0 ? -1 : Math.max(0, total - nested));
+    }
+
+    /**
+     * 获取某个 bean 的统计结果
+     * @param beanName bean 名称
+     * @return 统计结果，没有创建过该 bean 时返回 null
+     */
+    public BeanMetrics getBeanMetrics(String beanName) {
+        return this.metrics.get(beanName);
+    }
+
+    /**
+     * 获取所有 bean 的统计结果，按独占的内存分配从大到小排列
+     * @return 统计结果
+     */
+    public List<BeanMetrics> getAllBeanMetrics() {
+        List<BeanMetrics> result = new ArrayList<>(this.metrics.values());
+        result.sort(Comparator.comparingLong(BeanMetrics::getAllocatedBytes).reversed()
+                .thenComparing(BeanMetrics::getBeanName));
+        return result;
+    }
+
+    /**
+     * 清空统计结果
+     */
+    public void clear() {
+        this.metrics.clear();
+    }
+
+    /**
+     * 按独占内存分配从大到小排列的报告，每行一个 bean
+     * @return 报告
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%14s  %12s  %14s  %12s  %5s  %s%n",
+                "alloc(bytes)", "cpu(ms)", "total alloc", "total cpu", "count", "bean"));
+        for (BeanMetrics m : getAllBeanMetrics()) {
+            sb.append(String.format(Locale.ROOT, "%14d  %12.3f  %14d  %12.3f  %5d  %s%n",
+                    m.getAllocatedBytes(), m.getCpuNanos() / 1_000_000.0,
+                    m.getTotalAllocatedBytes(), m.getTotalCpuNanos() / 1_000_000.0,
+                    m.getCreationCount(), m.getBeanName()));
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * 正在创建中的 bean
+     */
+    static final class Frame {
+
+        private final String beanName;
+
+        private final long startAllocatedBytes;
+
+        private final long startCpuNanos;
+
+        /**
+         * 嵌套创建的 bean 的开销
+         */
+        private long nestedAllocatedBytes;
+
+        private long nestedCpuNanos;
+
+        Frame(String beanName, long startAllocatedBytes, long startCpuNanos) {
+            this.beanName = beanName;
+            this.startAllocatedBytes = startAllocatedBytes;
+            this.startCpuNanos = startCpuNanos;
+        }
+    }
+
+
+    /**
+     * 一个 bean 的统计结果，同名 bean 创建多次 (比如创建失败后重试) 时累加
+     */
+    public static final class BeanMetrics {
+
+        private final String beanName;
+
+        private int creationCount;
+
+        private long allocatedBytes;
+
+        private long cpuNanos;
+
+        private long totalAllocatedBytes;
+
+        private long totalCpuNanos;
+
+        BeanMetrics(String beanName) {
+            this.beanName = beanName;
+        }
+
+        synchronized void add(long allocatedBytes, long cpuNanos, long totalAllocatedBytes, long totalCpuNanos) {
+            this.creationCount++;
+            this.allocatedBytes = sum(this.allocatedBytes, allocatedBytes);
+            this.cpuNanos = sum(this.cpuNanos, cpuNanos);
+            this.totalAllocatedBytes = sum(this.totalAllocatedBytes, totalAllocatedBytes);
+            this.totalCpuNanos = sum(this.totalCpuNanos, totalCpuNanos);
+        }
+
+        private static long sum(long current, long value) {
+            return (current < 0 || value < 0 ? -1 : current + value);
+        }
+
+        public String getBeanName() {
+            return this.beanName;
+        }
+
+        public synchronized int getCreationCount() {
+            return this.creationCount;
+        }
+
+        /**
+         * 独占的内存分配
+         * @return bytes，不支持时为 -1
+         */
+        public synchronized long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+        /**
+         * 独占的 CPU 时间
+         * @return nanos，不支持时为 -1
+         */
+        public synchronized long getCpuNanos() {
+            return this.cpuNanos;
+        }
+
+        /**
+         * 包含嵌套创建的 bean 在内的内存分配
+         * @return bytes，不支持时为 -1
+         */
+        public synchronized long getTotalAllocatedBytes() {
+            return this.totalAllocatedBytes;
+        }
+
+        /**
+         * 包含嵌套创建的 bean 在内的 CPU 时间
+         * @return nanos，不支持时为 -1
+         */
+        public synchronized long getTotalCpuNanos() {
+            return this.totalCpuNanos;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return this.beanName + "[count=" + this.creationCount + ", allocatedBytes=" + this.allocatedBytes +
+                    ", cpuNanos=" + this.cpuNanos + "]";
+        }
+    }
+}
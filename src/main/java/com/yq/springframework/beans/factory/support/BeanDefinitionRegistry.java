@@ -1,5 +1,6 @@
 package com.yq.springframework.beans.factory.support;
 
+import com.yq.springframework.beans.factory.NoSuchBeanDefinitionException;
 import com.yq.springframework.beans.factory.config.BeanDefinition;
 
 /**
@@ -22,6 +23,14 @@ public interface BeanDefinitionRegistry {
      */
     int getBeanDefinitionCount();
 
+    /**
+     * 获取 beanName 对应的 BeanDefinition
+     * @param beanName beanName
+     * @return BD
+     * @throws NoSuchBeanDefinitionException 不存在该 BD
+     */
+    BeanDefinition getBeanDefinition(String beanName) throws NoSuchBeanDefinitionException;
+
     /**
      * 是否含有 beanName 的 BeanDefinition
      * @param beanName beanName
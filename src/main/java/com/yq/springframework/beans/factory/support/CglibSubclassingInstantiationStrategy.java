@@ -1,29 +1,180 @@
 package com.yq.springframework.beans.factory.support;
 
-import com.yq.springframework.beans.BeansException;
+import com.yq.springframework.beans.BeanInstantiationException;
+import com.yq.springframework.beans.factory.BeanFactory;
 import com.yq.springframework.beans.factory.config.BeanDefinition;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.CallbackFilter;
 import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
 import net.sf.cglib.proxy.NoOp;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * cglib 方式的实例化策略
+ *
+ * 只有存在方法注入(lookup-method)的 bean 才会走到这里生成子类，其余 bean 由父类直接反射调用构造器
+ * 以前每个 bean 都 new 一个 Enhancer 生成一个子类，生成的 class 会一直占着 metaspace
+ *
+ * 生成的子类按 (bean class, 被重写的方法名) 缓存，同类型的 bean 复用同一个子类，
+ * 每个实例通过 {@link Factory#setCallbacks} 设置自己的回调，回调里持有各自的 BD 和 BF
  */
-public class CglibSubclassingInstantiationStrategy implements InstantiationStrategy{
+public class CglibSubclassingInstantiationStrategy extends SimpleInstantiationStrategy {
+
+    /**
+     * callback 下标，和 {@link MethodOverrideCallbackFilter} 的返回值对应
+     */
+    private static final int PASSTHROUGH = 0;
+    private static final int LOOKUP_OVERRIDE = 1;
+
+    private static final Class<?>[] CALLBACK_TYPES = new Class<?>[] {NoOp.class, LookupOverrideMethodInterceptor.class};
+
+    /**
+     * JVM 内所有实例化策略一共生成了多少个 cglib 子类，用于观察 metaspace
+     */
+    private static final AtomicLong totalGeneratedClassCount = new AtomicLong();
+
+    /**
+     * (bean class, 被重写的方法名) ==> 生成的子类
+     */
+    private final Map<List<Object>, Class<?>> enhancedSubclassCache = new ConcurrentHashMap<>(16);
+
+    /**
+     * 使用已生成子类的次数
+     */
+    private final AtomicLong enhancedSubclassCacheHits = new AtomicLong();
+
+
     @Override
-    public Object instantiate(BeanDefinition bd, String beanName, Constructor<?> ctor, Object[] args) throws BeansException {
+    protected Object instantiateWithMethodInjection(
+            BeanDefinition bd, String beanName, BeanFactory owner, Constructor<?> ctor, Object[] args) {
+
+        Class<?> subclass = getEnhancedSubclass(bd);
+        Constructor<?> subclassCtor;
+        try {
+            subclassCtor = (ctor != null ?
+                    subclass.getDeclaredConstructor(ctor.getParameterTypes()) : subclass.getDeclaredConstructor());
+        } catch (NoSuchMethodException e) {
+            throw new BeanInstantiationException(bd, "No matching constructor found on the generated subclass", e);
+        }
+
+        Object instance = instantiateClass(bd, subclassCtor, (ctor != null ? args : null));
+        Callback[] callbacks = new Callback[CALLBACK_TYPES.length];
+        callbacks[PASSTHROUGH] = NoOp.INSTANCE;
+        callbacks[LOOKUP_OVERRIDE] = new LookupOverrideMethodInterceptor(bd, owner);
+        ((Factory) instance).setCallbacks(callbacks);
+        return instance;
+    }
+
+    /**
+     * 获取(必要时生成)该 BD 对应的 cglib 子类
+     */
+    private Class<?> getEnhancedSubclass(BeanDefinition bd) {
+        Set<String> overriddenMethodNames = bd.getMethodOverrides().getOverriddenMethodNames();
+        List<Object> cacheKey = Arrays.asList(bd.getBeanClass(), overriddenMethodNames);
+
+        Class<?> subclass = this.enhancedSubclassCache.get(cacheKey);
+        if (subclass != null) {
+            this.enhancedSubclassCacheHits.incrementAndGet();
+            return subclass;
+        }
+        return this.enhancedSubclassCache.computeIfAbsent(cacheKey, key -> createEnhancedSubclass(bd.getBeanClass(), overriddenMethodNames));
+    }
+
+    private Class<?> createEnhancedSubclass(Class<?> beanClass, Set<String> overriddenMethodNames) {
         Enhancer enhancer = new Enhancer();
-        enhancer.setSuperclass(bd.getBeanClass());
-        // NoOp: 使用此Enhancer回调的方法将直接委托给基类中的默认实现, 个人理解就是无需方法代理增强
-        enhancer.setCallback(new NoOp() {
-            @Override
-            public int hashCode() {
-                return super.hashCode();
+        enhancer.setSuperclass(beanClass);
+        enhancer.setCallbackFilter(new MethodOverrideCallbackFilter(overriddenMethodNames));
+        enhancer.setCallbackTypes(CALLBACK_TYPES);
+        // 缓存由本类自己维护，这样生成计数才准确
+        enhancer.setUseCache(false);
+        Class<?> subclass = enhancer.createClass();
+        totalGeneratedClassCount.incrementAndGet();
+        return subclass;
+    }
+
+    /**
+     * 本策略当前缓存的 cglib 子类个数
+     */
+    public int getEnhancedSubclassCount() {
+        return this.enhancedSubclassCache.size();
+    }
+
+    /**
+     * 本策略复用已生成子类的次数
+     */
+    public long getEnhancedSubclassCacheHits() {
+        return this.enhancedSubclassCacheHits.get();
+    }
+
+    /**
+     * JVM 内所有 CglibSubclassingInstantiationStrategy 一共生成过多少个 cglib 子类
+     */
+    public static long getTotalGeneratedClassCount() {
+        return totalGeneratedClassCount.get();
+    }
+
+
+    /**
+     * 被重写的方法交给 LookupOverrideMethodInterceptor，其余方法直接调用父类
+     */
+    private static class MethodOverrideCallbackFilter implements CallbackFilter {
+
+        private final Set<String> overriddenMethodNames;
+
+        MethodOverrideCallbackFilter(Set<String> overriddenMethodNames) {
+            this.overriddenMethodNames = overriddenMethodNames;
+        }
+
+        @Override
+        public int accept(Method method) {
+            return (this.overriddenMethodNames.contains(method.getName()) ? LOOKUP_OVERRIDE : PASSTHROUGH);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return (other instanceof MethodOverrideCallbackFilter &&
+                    this.overriddenMethodNames.equals(((MethodOverrideCallbackFilter) other).overriddenMethodNames));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.overriddenMethodNames.hashCode();
+        }
+    }
+
+
+    /**
+     * lookup-method 的实现：调用被重写的方法时，直接从 BF 中 getBean 返回
+     */
+    private static class LookupOverrideMethodInterceptor implements MethodInterceptor {
+
+        private final BeanDefinition beanDefinition;
+
+        private final BeanFactory owner;
+
+        LookupOverrideMethodInterceptor(BeanDefinition beanDefinition, BeanFactory owner) {
+            this.beanDefinition = beanDefinition;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object intercept(Object obj, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+            LookupOverride override = this.beanDefinition.getMethodOverrides().getOverride(method);
+            if (override == null) {
+                return methodProxy.invokeSuper(obj, args);
             }
-        });
-        if (ctor == null)
-            return enhancer.create();
-        return enhancer.create(ctor.getParameterTypes(),args);
+            return this.owner.getBean(override.getBeanName());
+        }
     }
 }
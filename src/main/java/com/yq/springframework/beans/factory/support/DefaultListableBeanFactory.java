@@ -3,17 +3,25 @@ package com.yq.springframework.beans.factory.support;
 import cn.hutool.core.util.StrUtil;
 import com.yq.springframework.beans.BeansException;
 import com.yq.springframework.beans.factory.BeanFactory;
+import com.yq.springframework.beans.factory.CannotLoadBeanClassException;
 import com.yq.springframework.beans.factory.NoSuchBeanDefinitionException;
 import com.yq.springframework.beans.factory.config.BeanDefinition;
 import com.yq.springframework.beans.factory.config.BeanPostProcessor;
 import com.yq.springframework.beans.factory.config.ConfigurableBeanFactory;
 import com.yq.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import com.yq.springframework.util.ClassUtils;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * 永远的主角！
@@ -29,6 +37,42 @@ public class DefaultListableBeanFactory
 
     private final Map<String, BeanDefinition> beanDefinitionMap = new ConcurrentHashMap<>(256);
 
+    /**
+     * 按注册顺序排列的 beanNames
+     * beanDefinitionMap 是 ConcurrentHashMap，遍历顺序和注册顺序无关，预实例化需要按注册顺序进行
+     * 和 spring 源码一样，每次注册时整体替换 (copy-on-write)，遍历时不需要加锁
+     */
+    private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
+
+    /**
+     * 预实例化单例时的并行度，小于等于 1 时串行创建
+     */
+    private int preInstantiationParallelism = 1;
+
+    /**
+     * 类型索引：bean class 自身、所有父类和接口 ==> 该类型下的 beanNames (按注册顺序)
+     * 在 registerBeanDefinition 时增量维护，读写都在 beanDefinitionMap 的锁内
+     */
+    private final Map<Class<?>, Set<String>> beanNamesByAssignableType = new HashMap<>(256);
+
+    /**
+     * getBeanNamesForType 的结果缓存，按查询的类型缓存
+     * 注册 BD 时，只清掉新 bean class 可以赋值给的那些类型的缓存
+     */
+    private final Map<Class<?>, String[]> beanNamesByTypeCache = new ConcurrentHashMap<>(64);
+
+    /**
+     * 是否注册过还没加载 class 的 BD (只设置了类名)
+     * 这些 BD 注册时无法加入类型索引，下次按类型查询时先批量加载 class，再按注册顺序重建索引
+     * 读写都在 beanDefinitionMap 的锁内
+     */
+    private boolean typeIndexStale = false;
+
+    /**
+     * 批量加载 BD class 时的并行度，小于等于 1 时串行加载
+     */
+    private int beanClassResolutionParallelism = 1;
+
 
     public DefaultListableBeanFactory() {
     }
@@ -49,7 +93,7 @@ public class DefaultListableBeanFactory
      * @throws NoSuchBeanDefinitionException bean不存在
      */
     @Override
-    protected BeanDefinition getBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+    public BeanDefinition getBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
         BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
         if (beanDefinition == null) {
             throw new NoSuchBeanDefinitionException(beanName);
@@ -64,7 +108,82 @@ public class DefaultListableBeanFactory
      */
     @Override
     public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) {
-        beanDefinitionMap.put(beanName,beanDefinition);
+        synchronized (this.beanDefinitionMap) {
+            BeanDefinition existingDefinition = this.beanDefinitionMap.put(beanName, beanDefinition);
+            // 同名 BD 被覆盖时，旧的 class 可能和新的不一样，需要先把旧的索引去掉
+            // 旧 BD 的 class 还没加载说明它不在索引中，重建索引时自然会去掉
+            if (existingDefinition != null) {
+                if (existingDefinition.hasBeanClass()) {
+                    removeFromTypeIndex(beanName, existingDefinition.getBeanClass());
+                }
+            } else {
+                List<String> updatedDefinitions = new ArrayList<>(this.beanDefinitionNames.size() + 1);
+                updatedDefinitions.addAll(this.beanDefinitionNames);
+                updatedDefinitions.add(beanName);
+                this.beanDefinitionNames = updatedDefinitions;
+            }
+            if (beanDefinition.hasBeanClass() || beanDefinition.getBeanClassName() == null) {
+                addToTypeIndex(beanName, beanDefinition.getBeanClass());
+            } else {
+                // 不知道它会影响哪些类型的查询结果，清掉全部缓存
+                this.typeIndexStale = true;
+                this.beanNamesByTypeCache.clear();
+            }
+        }
+    }
+
+    /**
+     * 将 beanName 加入其 class 所有可赋值类型的索引中，并清理这些类型的查询缓存
+     * 注意：BD 注册之后再修改 beanClass 不会更新索引，需要重新 registerBeanDefinition
+     */
+    private void addToTypeIndex(String beanName, Class<?> beanClass) {
+        if (beanClass == null) {
+            return;
+        }
+        for (Class<?> type : ClassUtils.getAllAssignableTypes(beanClass)) {
+            this.beanNamesByAssignableType.computeIfAbsent(type, key -> new LinkedHashSet<>()).add(beanName);
+            this.beanNamesByTypeCache.remove(type);
+        }
+    }
+
+    /**
+     * 有 class 还没加载的 BD 时，先批量加载，再按注册顺序重建类型索引
+     * @throws CannotLoadBeanClassException 汇总所有加载失败的 bean
+     */
+    private void refreshTypeIndexIfNecessary() throws CannotLoadBeanClassException {
+        synchronized (this.beanDefinitionMap) {
+            if (!this.typeIndexStale) {
+                return;
+            }
+        }
+        // 类加载比较慢，放在锁外面做
+        resolveBeanClasses();
+        synchronized (this.beanDefinitionMap) {
+            if (!this.typeIndexStale) {
+                return;
+            }
+            this.beanNamesByAssignableType.clear();
+            this.beanNamesByTypeCache.clear();
+            for (String beanName : this.beanDefinitionNames) {
+                BeanDefinition bd = this.beanDefinitionMap.get(beanName);
+                // 加载之后又注册的 BD，在这里用 BF 的类加载器同步加载
+                addToTypeIndex(beanName, resolveBeanClass(beanName, bd));
+            }
+            this.typeIndexStale = false;
+        }
+    }
+
+    private void removeFromTypeIndex(String beanName, Class<?> beanClass) {
+        if (beanClass == null) {
+            return;
+        }
+        for (Class<?> type : ClassUtils.getAllAssignableTypes(beanClass)) {
+            Set<String> beanNames = this.beanNamesByAssignableType.get(type);
+            if (beanNames != null) {
+                beanNames.remove(beanName);
+            }
+            this.beanNamesByTypeCache.remove(type);
+        }
     }
 
     /**
@@ -96,10 +215,11 @@ public class DefaultListableBeanFactory
     @Override
     @SuppressWarnings("unchecked")
     public <T> Map<String, T> getBeansOfType(Class<T> type) throws BeansException {
-        Map<String, T> result = new HashMap<>();
-
         String[] beanNames = getBeanNamesForType(type);
 
+        // 按注册顺序返回，比如 BeanPostProcessor 就按这个顺序注册
+        Map<String, T> result = new LinkedHashMap<>(beanNames.length * 2);
+
         for (String beanName : beanNames) {
             Object beanInstance = getBean(beanName);
             result.put(beanName,(T)beanInstance);
@@ -109,13 +229,93 @@ public class DefaultListableBeanFactory
     }
 
     /**
-     * 返回定义的所有 bean 的名称
+     * 返回定义的所有 bean 的名称，按注册顺序排列
      *
      * @return 所有 bean 的名称
      */
     @Override
     public String[] getBeanDefinitionNames() {
-        return this.beanDefinitionMap.keySet().toArray(new String[0]);
+        return this.beanDefinitionNames.toArray(new String[0]);
+    }
+
+    /**
+     * 设置预实例化单例时的并行度
+     * 大于 1 时，按 bean 之间的依赖关系 (BeanReference 属性值) 并行创建互不依赖的单例，
+     * 适合有大量互相独立、初始化又比较慢的 bean (比如连接池、缓存加载) 的场景
+     *
+     * @param parallelism 并行度，小于等于 1 时串行创建
+     */
+    public void setPreInstantiationParallelism(int parallelism) {
+        this.preInstantiationParallelism = parallelism;
+    }
+
+    public int getPreInstantiationParallelism() {
+        return this.preInstantiationParallelism;
+    }
+
+    /**
+     * 设置批量加载 BD class 时的并行度
+     * 大于 1 时在多个线程中并发加载只设置了类名的 BD 的 class (应用类加载器本身支持并行加载)
+     *
+     * @param parallelism 并行度，小于等于 1 时串行加载
+     */
+    public void setBeanClassResolutionParallelism(int parallelism) {
+        this.beanClassResolutionParallelism = parallelism;
+    }
+
+    public int getBeanClassResolutionParallelism() {
+        return this.beanClassResolutionParallelism;
+    }
+
+    /**
+     * 批量加载所有只设置了类名的 BD 的 class，已经加载过的 BD 跳过
+     * 一般在 BD 全部注册完之后调用，提前把类加载的开销并行做掉；不调用的话，按类型查询或者创建 bean 时也会加载
+     *
+     * 加载失败的 bean 不会中断其他 bean 的加载，全部加载完之后汇总抛出
+     * @throws CannotLoadBeanClassException 汇总所有加载失败的 bean，按注册顺序排列
+     */
+    public void resolveBeanClasses() throws CannotLoadBeanClassException {
+        List<String> beanNames = new ArrayList<>();
+        for (String beanName : this.beanDefinitionNames) {
+            if (!this.beanDefinitionMap.get(beanName).hasBeanClass()) {
+                beanNames.add(beanName);
+            }
+        }
+        if (beanNames.isEmpty()) {
+            return;
+        }
+
+        CannotLoadBeanClassException[] failures = new CannotLoadBeanClassException[beanNames.size()];
+        IntConsumer resolve = i -> {
+            String beanName = beanNames.get(i);
+            try {
+                resolveBeanClass(beanName, this.beanDefinitionMap.get(beanName));
+            } catch (CannotLoadBeanClassException ex) {
+                failures[i] = ex;
+            }
+        };
+        if (this.beanClassResolutionParallelism > 1 && beanNames.size() > 1) {
+            ForkJoinPool pool = new ForkJoinPool(this.beanClassResolutionParallelism);
+            try {
+                pool.submit(() -> IntStream.range(0, beanNames.size()).parallel().forEach(resolve)).join();
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int i = 0; i < beanNames.size(); i++) {
+                resolve.accept(i);
+            }
+        }
+
+        List<CannotLoadBeanClassException> failed = new ArrayList<>();
+        for (CannotLoadBeanClassException failure : failures) {
+            if (failure != null) {
+                failed.add(failure);
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new CannotLoadBeanClassException(failed);
+        }
     }
 
 
@@ -123,34 +323,58 @@ public class DefaultListableBeanFactory
      * 按照类型 tyoe 来查找 bean
      *
      * 本方法在 spring 上下文的 refresh 方法里的 invokeBFPP 这一步中会经常调用！
+     * 所以这里不再每次遍历全部 BD 做 isAssignableFrom，而是直接查类型索引，结果按查询类型缓存
+     * (spring 源码中对应的是 allBeanNamesByType 缓存，注册 BD 时整体清空，这里只清受影响的类型)
+     *
+     * 返回的 beanNames 按注册顺序排列
      * @param type bean 类型
      * @return bean names
      */
     @Override
     public String[] getBeanNamesForType(Class<?> type) {
+        String[] cached = this.beanNamesByTypeCache.get(type);
+        if (cached != null) {
+            return cached.clone();
+        }
 
-        ArrayList<String> beanNames = new ArrayList<>();
-
-        this.beanDefinitionMap.forEach((beanName,bd)->{
-            // spring 源码此处使用了 isTypeMatch() 方法，考虑了更多情况
-            // 这里的 isAssignableFrom() 方法对于子类和接口实现类皆可使用
-            if (type.isAssignableFrom(bd.getBeanClass())) {
-                beanNames.add(beanName);
+        while (true) {
+            refreshTypeIndexIfNecessary();
+            // 查询和缓存放在同一把锁内，避免并发注册 BD 时，把注册之前算出来的旧结果放进缓存
+            synchronized (this.beanDefinitionMap) {
+                // 重建索引之后又注册了没加载 class 的 BD，再来一次
+                if (this.typeIndexStale) {
+                    continue;
+                }
+                Set<String> beanNames = this.beanNamesByAssignableType.get(type);
+                String[] result = (beanNames != null ? beanNames.toArray(new String[0]) : new String[0]);
+                this.beanNamesByTypeCache.put(type, result);
+                return result.clone();
             }
-        });
-        return beanNames.toArray(new String[0]);
+        }
     }
 
 
     /**
      * 加载所有非惰性加载(non lazy-init)的 bean
+     * 被它们引用的 lazy-init bean 仍然会在属性注入时被创建，除非开启了延迟解析代理 {@link #setLazyResolutionProxies}
      *
      * @throws BeansException ex
      */
     @Override
     public void preInstantiateSingletons() throws BeansException {
-        List<String> beanNames = new ArrayList<>();
-        this.beanDefinitionMap.forEach((beanName, bd) -> beanNames.add(beanName));
+        // 按注册顺序创建；拿一份快照，创建过程中注册的 BD 不在本次预实例化的范围内
+        // lazy-init 的 bean 跳过，第一次 getBean 时才创建
+        List<String> beanNames = new ArrayList<>(this.beanDefinitionNames.size());
+        for (String beanName : this.beanDefinitionNames) {
+            if (!getBeanDefinition(beanName).isLazyInit()) {
+                beanNames.add(beanName);
+            }
+        }
+
+        if (this.preInstantiationParallelism > 1 && beanNames.size() > 1) {
+            new ParallelSingletonInstantiator(this, beanNames, this.preInstantiationParallelism).preInstantiateSingletons();
+            return;
+        }
 
         for (String beanName : beanNames) {
             // TODO 对 factoryBean 的处理
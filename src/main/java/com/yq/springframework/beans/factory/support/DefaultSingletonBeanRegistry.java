@@ -1,9 +1,26 @@
 package com.yq.springframework.beans.factory.support;
 
+import cn.hutool.core.lang.Assert;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.yq.springframework.beans.factory.BeanCreationException;
+import com.yq.springframework.beans.factory.BeanCurrentlyInCreationException;
+import com.yq.springframework.beans.factory.DisposableBean;
+import com.yq.springframework.beans.factory.ObjectFactory;
 import com.yq.springframework.beans.factory.config.SingletonBeanRegistry;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -14,23 +31,421 @@ import java.util.Map;
  *
  *
  * bean 底层的三级缓存就在位于这个地方！！！
+ * - 一级缓存 singletonObjects: 完整的单例
+ * - 二级缓存 earlySingletonObjects: 提前暴露出去的、尚未完成属性注入的单例
+ * - 三级缓存 singletonFactories: 获取提前暴露引用的工厂，实例化完成后放入，被依赖方第一次拿到时升级到二级缓存
+ * 循环依赖 A->B->A 时，B 注入 A 拿到的就是 A 提前暴露出来的引用，不再无限递归 getBean
  *
  * 注意需要和 BeanDefinitionRegistry 区分, 因为个人理解：
  * - DefaultSingletonBeanRegistry 就是封装了单例池的维护能力，是 IoC 容器的直接实现
  * - BeanDefinitionRegistry 是单纯的 BD 注册中心
+ *
+ * 并发模型：
+ * - 读：单例池是 ConcurrentHashMap，已经创建好的单例直接无锁读取
+ * - 写：每个 beanName 一把创建锁，同一个 bean 只会有一个线程去创建，其他线程等待后直接拿结果
+ * spring 源码中这里是对 singletonObjects 整体加 synchronized，所有 bean 的创建是串行的，
+ * 这里改成按 beanName 加锁，互不相关的 bean 可以并发创建
+ *
+ * 按 beanName 加锁带来的问题是：两个线程分别创建 A、B，而 A、B 又互相依赖，就会互相等锁。
+ * 所以等锁时会检查 "等待链" 是否绕回了自己，绕回了就说明出现了跨线程的循环依赖，直接拿对方提前暴露的引用
+ *
+ * 销毁：容器关闭时按依赖关系的逆序销毁单例，见 {@link #destroySingletons()}
  */
 public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
 
-    private final Map<String, Object> singletonObjects = new HashMap<>();
+    /**
+     * 等待创建锁时，每隔多久检查一次是否出现了跨线程的循环依赖
+     */
+    private static final long CREATION_DEADLOCK_CHECK_INTERVAL_MILLIS = 10;
+
+    private static final Log log = LogFactory.get();
+
+    /**
+     * 一级缓存 —— 单例池
+     */
+    private final Map<String, Object> singletonObjects = new ConcurrentHashMap<>(256);
+
+    /**
+     * 二级缓存 —— 提前暴露的单例引用
+     */
+    private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
+
+    /**
+     * 三级缓存 —— 单例工厂，用来获取提前暴露的单例引用
+     */
+    private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>(16);
+
+    /**
+     * 正在创建中的单例，beanName ==> 正在创建它的线程
+     * spring 源码中这里是个 Set，这里额外记录了线程，提前暴露的引用只对创建它的线程可见
+     */
+    private final Map<String, Thread> singletonsCurrentlyInCreation = new ConcurrentHashMap<>(16);
+
+    /**
+     * 每个 bean 的创建锁
+     * 单例创建成功并放入单例池之后，对应的锁就没用了，会被移除
+     */
+    private final Map<String, ReentrantLock> singletonCreationLocks = new ConcurrentHashMap<>(16);
+
+    /**
+     * 正在等待创建锁的线程 ==> 在等哪个 bean
+     */
+    private final Map<Thread, String> threadsWaitingForCreation = new ConcurrentHashMap<>(16);
+
+    /**
+     * 需要销毁的单例，beanName ==> 销毁适配器，按注册顺序排列
+     */
+    private final Map<String, DisposableBean> disposableBeans = new LinkedHashMap<>();
+
+    /**
+     * beanName ==> 依赖它的 beanNames (属性中注入了它的 bean)
+     * 销毁时要先销毁依赖方
+     */
+    private final Map<String, Set<String>> dependentBeanMap = new ConcurrentHashMap<>(64);
+
+    /**
+     * 是否正在销毁单例，销毁过程中不允许再创建单例
+     */
+    private volatile boolean singletonsCurrentlyInDestruction = false;
+
+    /**
+     * 销毁单例时的并行度，默认串行
+     */
+    private int destructionParallelism = 1;
+
+    /**
+     * 销毁所有单例最多等待多久，超时后剩下的 bean 不再等待
+     */
+    private Duration destructionTimeout = Duration.ofSeconds(30);
 
 
     @Override
     public void registerSingleton(String beanName, Object singleton) {
-        singletonObjects.put(beanName, singleton);
+        addSingleton(beanName, singleton);
     }
 
+    /**
+     * 从单例池中获取单例
+     * 如果当前线程正在创建该 bean (循环依赖)，允许拿到提前暴露的引用
+     */
     @Override
     public Object getSingleton(String beanName) {
-        return singletonObjects.get(beanName);
+        return getSingleton(beanName, true);
+    }
+
+    /**
+     * 按 一级 -> 二级 -> 三级 缓存的顺序获取单例
+     *
+     * 只有当前线程正在创建该 bean 时，才会去查二、三级缓存：
+     * 其他线程拿到一个属性还没注入完的 bean 是不安全的，应该等创建锁
+     *
+     * @param beanName bean 名称
+     * @param allowEarlyReference 是否允许通过三级缓存创建提前暴露的引用
+     * @return 单例对象，不存在则返回 null
+     */
+    protected Object getSingleton(String beanName, boolean allowEarlyReference) {
+        Object singletonObject = this.singletonObjects.get(beanName);
+        if (singletonObject == null && this.singletonsCurrentlyInCreation.get(beanName) == Thread.currentThread()) {
+            singletonObject = getEarlySingleton(beanName, allowEarlyReference);
+        }
+        return singletonObject;
+    }
+
+    /**
+     * 获取提前暴露的单例引用，必要时将三级缓存升级到二级缓存
+     */
+    private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+        Object singletonObject = this.earlySingletonObjects.get(beanName);
+        if (singletonObject == null && allowEarlyReference) {
+            synchronized (this.singletonFactories) {
+                singletonObject = this.earlySingletonObjects.get(beanName);
+                if (singletonObject == null) {
+                    ObjectFactory<?> singletonFactory = this.singletonFactories.remove(beanName);
+                    if (singletonFactory != null) {
+                        singletonObject = singletonFactory.getObject();
+                        this.earlySingletonObjects.put(beanName, singletonObject);
+                    }
+                }
+            }
+        }
+        return singletonObject;
+    }
+
+    /**
+     * 获取单例，单例池中没有的话，使用 singletonFactory 创建一个并放入单例池
+     *
+     * 先无锁查一次单例池，查不到再拿该 bean 的创建锁，拿到锁之后再查一次(double check)：
+     * 其他线程可能在我们等锁的时候已经把这个 bean 创建好了
+     *
+     * 注意：创建锁是可重入的，同一线程在创建过程中再次进入这里，会被 beforeSingletonCreation 识别为无法解决的循环依赖
+     *
+     * @param beanName bean 名称
+     * @param singletonFactory 真正创建 bean 的逻辑，一般就是 createBean
+     * @return 单例对象
+     */
+    public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+        Object singletonObject = this.singletonObjects.get(beanName);
+        if (singletonObject != null) {
+            return singletonObject;
+        }
+
+        ReentrantLock creationLock = this.singletonCreationLocks.computeIfAbsent(beanName, name -> new ReentrantLock());
+        if (!acquireCreationLock(beanName, creationLock)) {
+            // 跨线程循环依赖：持有该 bean 创建锁的线程，正在(间接地)等待当前线程
+            // 对方一定已经完成了实例化，处于属性注入阶段，直接拿它提前暴露的引用，和单线程的循环依赖处理方式一致
+            singletonObject = getEarlySingleton(beanName, true);
+            if (singletonObject == null) {
+                throw new BeanCurrentlyInCreationException(beanName,
+                        "Circular reference between beans created by different threads cannot be resolved");
+            }
+            return singletonObject;
+        }
+        try {
+            singletonObject = this.singletonObjects.get(beanName);
+            if (singletonObject == null) {
+                if (this.singletonsCurrentlyInDestruction) {
+                    throw new BeanCreationException(beanName,
+                            "Singleton bean creation not allowed while singletons of this factory are in destruction");
+                }
+                beforeSingletonCreation(beanName);
+                boolean created = false;
+                try {
+                    singletonObject = singletonFactory.getObject();
+                    created = true;
+                } finally {
+                    if (!created) {
+                        this.earlySingletonObjects.remove(beanName);
+                        this.singletonFactories.remove(beanName);
+                    }
+                    afterSingletonCreation(beanName);
+                }
+                addSingleton(beanName, singletonObject);
+                // 单例已经发布，后续读取都走无锁路径，锁可以丢掉了
+                // 创建失败时不能移除：等待中的线程还持有这把锁，移除后新来的线程会拿到另一把锁，造成并发创建
+                this.singletonCreationLocks.remove(beanName, creationLock);
+            }
+            return singletonObject;
+        } finally {
+            creationLock.unlock();
+        }
+    }
+
+    /**
+     * 获取 bean 的创建锁
+     * 拿不到锁时定期检查等待链，出现跨线程的循环等待时放弃拿锁
+     *
+     * @return true 拿到了锁; false 出现了跨线程循环依赖，没有拿锁
+     */
+    private boolean acquireCreationLock(String beanName, ReentrantLock creationLock) {
+        if (creationLock.tryLock()) {
+            return true;
+        }
+        Thread currentThread = Thread.currentThread();
+        this.threadsWaitingForCreation.put(currentThread, beanName);
+        try {
+            while (!isWaitingOnItself(beanName, currentThread)) {
+                if (creationLock.tryLock(CREATION_DEADLOCK_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BeanCurrentlyInCreationException(beanName, "Interrupted while waiting for the bean to be created");
+        } finally {
+            this.threadsWaitingForCreation.remove(currentThread);
+        }
+    }
+
+    /**
+     * 沿着 "bean 的创建线程 -> 该线程在等的 bean -> 那个 bean 的创建线程..." 这条链往下找，看是否会回到当前线程
+     */
+    private boolean isWaitingOnItself(String beanName, Thread currentThread) {
+        Set<Thread> visited = new HashSet<>();
+        Thread owner = this.singletonsCurrentlyInCreation.get(beanName);
+        while (owner != null && visited.add(owner)) {
+            if (owner == currentThread) {
+                return true;
+            }
+            String awaitedBeanName = this.threadsWaitingForCreation.get(owner);
+            if (awaitedBeanName == null) {
+                return false;
+            }
+            owner = this.singletonsCurrentlyInCreation.get(awaitedBeanName);
+        }
+        return false;
+    }
+
+    /**
+     * 标记 bean 正在创建
+     * 已经在创建中了，说明出现了拿不到提前暴露引用的循环依赖，直接失败，不要等到栈溢出
+     */
+    protected void beforeSingletonCreation(String beanName) {
+        if (this.singletonsCurrentlyInCreation.putIfAbsent(beanName, Thread.currentThread()) != null) {
+            throw new BeanCurrentlyInCreationException(beanName);
+        }
+    }
+
+    /**
+     * 移除 bean 正在创建的标记
+     */
+    protected void afterSingletonCreation(String beanName) {
+        this.singletonsCurrentlyInCreation.remove(beanName);
+    }
+
+    /**
+     * 该 bean 是否正在创建中
+     * @param beanName bean 名称
+     * @return 是否在创建中
+     */
+    public boolean isSingletonCurrentlyInCreation(String beanName) {
+        return this.singletonsCurrentlyInCreation.containsKey(beanName);
+    }
+
+    /**
+     * 将完整的单例放入单例池，同时清理二、三级缓存
+     * @param beanName bean 名称
+     * @param singletonObject 单例对象
+     */
+    protected void addSingleton(String beanName, Object singletonObject) {
+        this.singletonObjects.put(beanName, singletonObject);
+        this.singletonFactories.remove(beanName);
+        this.earlySingletonObjects.remove(beanName);
+    }
+
+    /**
+     * 将获取提前暴露引用的工厂放入三级缓存
+     * bean 实例化之后、属性注入之前调用，这样属性注入时产生的循环依赖，可以拿到这个还没注入完的 bean
+     *
+     * @param beanName bean 名称
+     * @param singletonFactory 提前暴露引用的工厂
+     */
+    protected void addSingletonFactory(String beanName, ObjectFactory<?> singletonFactory) {
+        if (!this.singletonObjects.containsKey(beanName)) {
+            this.singletonFactories.put(beanName, singletonFactory);
+            this.earlySingletonObjects.remove(beanName);
+        }
+    }
+
+    /**
+     * 单例池中是否已经存在该 bean
+     * @param beanName bean 名称
+     * @return 是否存在
+     */
+    public boolean containsSingleton(String beanName) {
+        return this.singletonObjects.containsKey(beanName);
+    }
+
+    /**
+     * 设置销毁单例时的并行度，大于 1 时互不依赖的 bean 并行销毁
+     * @param destructionParallelism 并行度
+     */
+    public void setDestructionParallelism(int destructionParallelism) {
+        if (destructionParallelism < 1) {
+            throw new IllegalArgumentException("Destruction parallelism must be positive");
+        }
+        this.destructionParallelism = destructionParallelism;
+    }
+
+    public int getDestructionParallelism() {
+        return this.destructionParallelism;
+    }
+
+    /**
+     * 设置销毁所有单例的超时时间，一般设置得比部署平台的优雅停机时间短一些
+     * @param destructionTimeout 超时时间
+     */
+    public void setDestructionTimeout(Duration destructionTimeout) {
+        Assert.notNull(destructionTimeout, "Destruction timeout must not be null");
+        if (destructionTimeout.isNegative() || destructionTimeout.isZero()) {
+            throw new IllegalArgumentException("Destruction timeout must be positive");
+        }
+        this.destructionTimeout = destructionTimeout;
+    }
+
+    public Duration getDestructionTimeout() {
+        return this.destructionTimeout;
+    }
+
+    /**
+     * 注册需要在容器关闭时销毁的单例
+     * @param beanName bean 名称
+     * @param bean 销毁逻辑
+     */
+    public void registerDisposableBean(String beanName, DisposableBean bean) {
+        synchronized (this.disposableBeans) {
+            this.disposableBeans.put(beanName, bean);
+        }
+    }
+
+    /**
+     * 记录依赖关系：dependentBeanName 依赖了 beanName，销毁时 dependentBeanName 要先于 beanName 销毁
+     * @param beanName 被依赖的 bean
+     * @param dependentBeanName 依赖方
+     */
+    public void registerDependentBean(String beanName, String dependentBeanName) {
+        this.dependentBeanMap.computeIfAbsent(beanName, name -> ConcurrentHashMap.newKeySet()).add(dependentBeanName);
+    }
+
+    /**
+     * 获取依赖了该 bean 的 beanNames
+     * @param beanName bean 名称
+     * @return 依赖方，没有时返回空数组
+     */
+    public String[] getDependentBeans(String beanName) {
+        Set<String> dependents = this.dependentBeanMap.get(beanName);
+        return (dependents != null ? dependents.toArray(new String[0]) : new String[0]);
+    }
+
+    /**
+     * 销毁所有单例，并清空所有缓存
+     *
+     * 依赖方先于被依赖方销毁，互不依赖的分支按 {@link #setDestructionParallelism} 并行销毁；
+     * 超过 {@link #setDestructionTimeout} 还没销毁完的 bean 不再等待，只记录日志
+     * 单个 bean 销毁失败同样只记录日志，不影响其他 bean
+     */
+    public void destroySingletons() {
+        this.singletonsCurrentlyInDestruction = true;
+        try {
+            Map<String, DisposableBean> disposables;
+            // 参与排序的 bean：需要销毁的 bean，以及依赖关系中出现的 bean (即使它本身不需要销毁，也要用来传递依赖关系)
+            Set<String> beanNames;
+            synchronized (this.disposableBeans) {
+                disposables = new HashMap<>(this.disposableBeans);
+                beanNames = new LinkedHashSet<>(this.disposableBeans.keySet());
+            }
+            for (Map.Entry<String, Set<String>> entry : this.dependentBeanMap.entrySet()) {
+                beanNames.add(entry.getKey());
+                beanNames.addAll(entry.getValue());
+            }
+            if (!disposables.isEmpty()) {
+                ParallelSingletonDestroyer destroyer = new ParallelSingletonDestroyer(new ArrayList<>(beanNames),
+                        disposables, this.dependentBeanMap, this.destructionParallelism);
+                List<String> remaining = destroyer.destroySingletons(this.destructionTimeout.toNanos());
+                destroyer.getFailures().forEach((beanName, ex) ->
+                        log.warn(ex, "Destroy method on bean with name '{}' threw an exception", beanName));
+                remaining.retainAll(disposables.keySet());
+                if (!remaining.isEmpty()) {
+                    log.warn("Singleton destruction did not finish within {}, giving up on beans: {}",
+                            this.destructionTimeout, remaining);
+                }
+            }
+            clearSingletonCache();
+        } finally {
+            this.singletonsCurrentlyInDestruction = false;
+        }
+    }
+
+    /**
+     * 清空单例相关的所有缓存
+     */
+    protected void clearSingletonCache() {
+        synchronized (this.disposableBeans) {
+            this.disposableBeans.clear();
+        }
+        this.dependentBeanMap.clear();
+        this.singletonObjects.clear();
+        this.earlySingletonObjects.clear();
+        this.singletonFactories.clear();
     }
 }
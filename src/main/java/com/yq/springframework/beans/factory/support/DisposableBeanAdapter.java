@@ -0,0 +1,84 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.factory.BeanCreationException;
+import com.yq.springframework.beans.factory.DisposableBean;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * 把 bean 的各种销毁方式统一适配为 DisposableBean：
+ * - bean 实现了 DisposableBean，调用 destroy()
+ * - BD 中配置了 destroy-method，调用该方法 (和 DisposableBean#destroy 是同一个方法时只调用一次)
+ *
+ * 销毁方法在 bean 创建完成、注册该适配器时就解析好，配置错了在启动时就能发现，而不是等到关闭时才报错
+ */
+class DisposableBeanAdapter implements DisposableBean {
+
+    private static final String DESTROY_METHOD_NAME = "destroy";
+
+    private final Object bean;
+
+    private final String beanName;
+
+    private final boolean invokeDisposableBean;
+
+    /**
+     * (Object bean) -> void
+     */
+    private final MethodHandle destroyMethod;
+
+    private DisposableBeanAdapter(Object bean, String beanName, boolean invokeDisposableBean, MethodHandle destroyMethod) {
+        this.bean = bean;
+        this.beanName = beanName;
+        this.invokeDisposableBean = invokeDisposableBean;
+        this.destroyMethod = destroyMethod;
+    }
+
+    /**
+     * 为 bean 创建销毁适配器
+     * @param bean 创建好的 bean
+     * @param beanName bean 名称
+     * @param bd bean definition
+     * @param lifecycleMethods 生命周期方法缓存
+     * @return 适配器，该 bean 不需要销毁时返回 null
+     * @throws BeanCreationException 配置的 destroy-method 不存在
+     */
+    static DisposableBeanAdapter forBean(Object bean, String beanName, BeanDefinition bd,
+                                         LifecycleMethodHandles lifecycleMethods) {
+        boolean invokeDisposableBean = (bean instanceof DisposableBean);
+        String destroyMethodName = bd.getDestroyMethodName();
+        MethodHandle destroyMethod = null;
+        if (destroyMethodName != null && !(invokeDisposableBean && DESTROY_METHOD_NAME.equals(destroyMethodName))) {
+            destroyMethod = lifecycleMethods.getMethodHandle(bean.getClass(), destroyMethodName);
+            if (destroyMethod == null) {
+                throw new BeanCreationException(beanName, "Could not find a no-arg destroy method named '" +
+                        destroyMethodName + "' on bean class [" + bean.getClass().getName() + "]");
+            }
+        }
+        if (!invokeDisposableBean && destroyMethod == null) {
+            return null;
+        }
+        return new DisposableBeanAdapter(bean, beanName, invokeDisposableBean, destroyMethod);
+    }
+
+    public String getBeanName() {
+        return this.beanName;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (this.invokeDisposableBean) {
+            ((DisposableBean) this.bean).destroy();
+        }
+        if (this.destroyMethod != null) {
+            try {
+                this.destroyMethod.invokeExact(this.bean);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.factory.BeanFactory;
+
+/**
+ * bean 实例的提供者，直接 new 出 bean，代替 实例化策略 (反射调用构造器 / cglib 生成子类)
+ *
+ * spring 源码中对应 AbstractBeanDefinition#setInstanceSupplier，AOT 生成的代码就是通过它来实例化 bean 的
+ * 这里主要用于 BeanFactoryInitializerGenerator 在构建时生成的代码
+ *
+ * 只在 getBean 没有传入构造器参数时使用；传入了参数时仍然走实例化策略按参数匹配构造器
+ */
+@FunctionalInterface
+public interface InstanceSupplier {
+
+    /**
+     * 创建 bean 实例 (还没有属性注入)
+     * @param owner 创建该 bean 的 BF，方法注入(lookup-method)时需要通过它去 getBean
+     * @return bean 实例
+     * @throws Exception 构造器抛出的异常
+     */
+    Object get(BeanFactory owner) throws Exception;
+}
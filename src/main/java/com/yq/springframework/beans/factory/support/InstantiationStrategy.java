@@ -1,6 +1,7 @@
 package com.yq.springframework.beans.factory.support;
 
 import com.yq.springframework.beans.BeansException;
+import com.yq.springframework.beans.factory.BeanFactory;
 import com.yq.springframework.beans.factory.config.BeanDefinition;
 
 import java.lang.reflect.Constructor;
@@ -9,7 +10,9 @@ import java.lang.reflect.Constructor;
  * 实例化策略 顶层接口
  * AbstractAutowiredCapableBF 会依赖该接口的实现类，因为前者具备实例化 bean 的能力。正因如此，也需要
  * 一个实例化的顶级接口。
+ *
+ * owner 参数是创建该 bean 的 BF，方法注入(lookup-method)时需要通过它去 getBean
  */
 public interface InstantiationStrategy {
-    Object instantiate(BeanDefinition bd, String beanName, Constructor<?> ctor,Object[] args) throws BeansException;
+    Object instantiate(BeanDefinition bd, String beanName, BeanFactory owner, Constructor<?> ctor, Object[] args) throws BeansException;
 }
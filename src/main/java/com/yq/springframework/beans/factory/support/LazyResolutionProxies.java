@@ -0,0 +1,99 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.factory.BeanFactory;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.LazyLoader;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+
+/**
+ * 延迟解析代理：注入给依赖方的是一个代理，第一次调用代理的方法时才真正 getBean
+ *
+ * 这样非 lazy-init 的 bean 依赖 lazy-init 的 bean 时，启动阶段不会因为属性注入而把 lazy-init 的 bean 提前创建出来
+ * spring 源码中对应的是 @Lazy 注入点，由 ContextAnnotationAutowireCandidateResolver#buildLazyResolutionProxy 生成代理
+ *
+ * - 属性类型是接口：JDK 动态代理
+ * - 属性类型是类：cglib 子类 + LazyLoader，要求类不是 final 的，并且有非 private 的无参构造器
+ *   (代理对象创建时会调用一次该构造器)
+ * 其他情况无法代理，由调用方直接 getBean
+ */
+final class LazyResolutionProxies {
+
+    private LazyResolutionProxies() {
+    }
+
+    /**
+     * 创建延迟解析代理
+     * @param beanFactory 真正获取 bean 的 BF
+     * @param beanName 被引用的 bean 名称
+     * @param type 注入点的类型
+     * @return 代理对象，无法为该类型创建代理时返回 null
+     */
+    static Object createProxy(BeanFactory beanFactory, String beanName, Class<?> type) {
+        if (type.isInterface()) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                    new LazyResolutionInvocationHandler(beanFactory, beanName));
+        }
+        if (!isSubclassable(type)) {
+            return null;
+        }
+        Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(type);
+        enhancer.setClassLoader(type.getClassLoader());
+        enhancer.setCallback((LazyLoader) () -> beanFactory.getBean(beanName));
+        return enhancer.create();
+    }
+
+    private static boolean isSubclassable(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type == Object.class || Modifier.isFinal(type.getModifiers())) {
+            return false;
+        }
+        try {
+            Constructor<?> ctor = type.getDeclaredConstructor();
+            return !Modifier.isPrivate(ctor.getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * JDK 代理的处理器，所有方法都转发给第一次调用时获取到的 bean
+     */
+    private static final class LazyResolutionInvocationHandler implements InvocationHandler {
+
+        private final BeanFactory beanFactory;
+
+        private final String beanName;
+
+        private volatile Object target;
+
+        LazyResolutionInvocationHandler(BeanFactory beanFactory, String beanName) {
+            this.beanFactory = beanFactory;
+            this.beanName = beanName;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object target = this.target;
+            if (target == null) {
+                // 单例 bean 重复 getBean 拿到的是同一个对象，这里不需要加锁
+                target = this.beanFactory.getBean(this.beanName);
+                this.target = target;
+            }
+            try {
+                if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                    method.setAccessible(true);
+                }
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
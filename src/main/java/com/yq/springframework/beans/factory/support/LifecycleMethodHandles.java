@@ -0,0 +1,85 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 生命周期方法 (init-method / destroy-method) 的缓存：class ==> (方法名 ==> MethodHandle)
+ *
+ * 每个 (class, 方法名) 只查找一次，之后每个实例调用初始化、销毁方法都是一次 MethodHandle 调用，
+ * 不需要再按名字反射查找方法，原型 bean 大量创建时尤其明显
+ *
+ * 方法要求无参，可以是任意访问级别，可以声明在父类中
+ * cglib 生成的子类按其父类(用户定义的类)来解析，同一个用户类的所有子类共用一份缓存
+ */
+final class LifecycleMethodHandles {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(void.class, Object.class);
+
+    /**
+     * 找不到方法的结果也缓存起来 (Optional.empty())，避免配置错误时每次都查找一遍
+     */
+    private final Map<Class<?>, Map<String, Optional<MethodHandle>>> methodCache = new ConcurrentHashMap<>(64);
+
+    /**
+     * 获取生命周期方法
+     * @param beanClass bean 的实际类型 (可以是 cglib 子类)
+     * @param methodName 方法名
+     * @return (Object bean) -> void 的 MethodHandle，找不到无参方法时返回 null
+     */
+    MethodHandle getMethodHandle(Class<?> beanClass, String methodName) {
+        Class<?> userClass = ClassUtils.getUserClass(beanClass);
+        Map<String, Optional<MethodHandle>> methods = this.methodCache.get(userClass);
+        if (methods == null) {
+            methods = this.methodCache.computeIfAbsent(userClass, key -> new ConcurrentHashMap<>(4));
+        }
+        Optional<MethodHandle> handle = methods.get(methodName);
+        if (handle == null) {
+            handle = methods.computeIfAbsent(methodName, name -> Optional.ofNullable(resolveMethodHandle(userClass, name)));
+        }
+        return handle.orElse(null);
+    }
+
+    private static MethodHandle resolveMethodHandle(Class<?> beanClass, String methodName) {
+        Method method = findMethod(beanClass, methodName);
+        if (method == null) {
+            return null;
+        }
+        try {
+            return LOOKUP.unreflect(method).asType(INVOKE_TYPE);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 沿着继承链查找无参的实例方法
+     */
+    private static Method findMethod(Class<?> beanClass, String methodName) {
+        for (Class<?> clazz = beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            try {
+                Method method = clazz.getDeclaredMethod(methodName);
+                if (Modifier.isStatic(method.getModifiers())) {
+                    return null;
+                }
+                if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(clazz.getModifiers())) {
+                    method.setAccessible(true);
+                }
+                return method;
+            } catch (NoSuchMethodException e) {
+                // 继续查父类
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.yq.springframework.beans.factory.support;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+/**
+ * lookup-method 方法注入的描述
+ *
+ * 例如 {@code <lookup-method name="createCommand" bean="command"/>}，
+ * 表示调用 bean 的 createCommand() 方法时，直接返回容器中名为 command 的 bean
+ * 这种情况下 bean 必须使用 cglib 生成子类来实例化，由子类去重写该方法
+ */
+public class LookupOverride {
+
+    /**
+     * 被重写的方法名
+     */
+    private final String methodName;
+
+    /**
+     * 方法返回的 bean 的名称
+     */
+    private final String beanName;
+
+    public LookupOverride(String methodName, String beanName) {
+        if (methodName == null || beanName == null) {
+            throw new IllegalArgumentException("Method name and bean name must not be null");
+        }
+        this.methodName = methodName;
+        this.beanName = beanName;
+    }
+
+    public String getMethodName() {
+        return this.methodName;
+    }
+
+    public String getBeanName() {
+        return this.beanName;
+    }
+
+    /**
+     * 该方法是否被本 override 重写
+     * 和 spring 源码一样按方法名匹配
+     */
+    public boolean matches(Method method) {
+        return this.methodName.equals(method.getName());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof LookupOverride)) {
+            return false;
+        }
+        LookupOverride that = (LookupOverride) other;
+        return this.methodName.equals(that.methodName) && this.beanName.equals(that.beanName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.methodName, this.beanName);
+    }
+
+    @Override
+    public String toString() {
+        return "LookupOverride for method '" + this.methodName + "' -> bean '" + this.beanName + "'";
+    }
+}
@@ -0,0 +1,129 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.BeanInstantiationException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 基于 MethodHandle / LambdaMetafactory 的实例化策略
+ *
+ * 反射 Constructor#newInstance 每次调用都要做参数校验、访问检查，而且 JIT 很难内联
+ * 本策略把每个构造器只解析一次，转成一个调用器缓存起来，之后的创建就是一次普通的方法调用：
+ * - 无参构造器：用 LambdaMetafactory 生成一个 {@code Supplier}，等价于手写的 {@code () -> new Foo()}
+ * - 有参构造器 / 无法生成 lambda 的构造器(非 public、类加载器不可见)：使用 MethodHandle
+ *
+ * 继承自 Cglib 策略，方法注入时生成的子类同样通过缓存的调用器来实例化
+ */
+public class MethodHandleInstantiationStrategy extends CglibSubclassingInstantiationStrategy {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType SUPPLIER_FACTORY_TYPE = MethodType.methodType(Supplier.class);
+
+    private static final MethodType SPREAD_INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * 构造器 ==> 调用器
+     */
+    private final Map<Constructor<?>, ConstructorInvoker> invokerCache = new ConcurrentHashMap<>(64);
+
+
+    @Override
+    protected Object instantiateClass(BeanDefinition bd, Constructor<?> ctor, Object[] args) {
+        ConstructorInvoker invoker = this.invokerCache.get(ctor);
+        if (invoker == null) {
+            invoker = this.invokerCache.computeIfAbsent(ctor, key -> createInvoker(bd, key));
+        }
+        try {
+            return invoker.newInstance(args);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // 和反射调用时的 InvocationTargetException 处理一致，构造器抛出的异常统一包装
+            throw new BeanInstantiationException(bd, "invoke constructor failed", e);
+        }
+    }
+
+    /**
+     * 当前缓存的构造器调用器个数
+     */
+    public int getInvokerCount() {
+        return this.invokerCache.size();
+    }
+
+    private ConstructorInvoker createInvoker(BeanDefinition bd, Constructor<?> ctor) {
+        try {
+            if (ctor.getParameterCount() == 0 && isLambdaCompatible(ctor)) {
+                return createSupplierInvoker(ctor);
+            }
+            if (!Modifier.isPublic(ctor.getModifiers()) || !Modifier.isPublic(ctor.getDeclaringClass().getModifiers())) {
+                ctor.setAccessible(true);
+            }
+            MethodHandle handle = LOOKUP.unreflectConstructor(ctor);
+            if (ctor.getParameterCount() == 0) {
+                MethodHandle noArgHandle = handle.asType(MethodType.methodType(Object.class));
+                return args -> noArgHandle.invokeExact();
+            }
+            // (Object[]) -> Object, 参数数组展开后按构造器参数类型做转换(包括拆箱)
+            MethodHandle spreadHandle = handle
+                    .asSpreader(Object[].class, ctor.getParameterCount())
+                    .asType(SPREAD_INVOKER_TYPE);
+            return args -> spreadHandle.invokeExact(args);
+        } catch (Throwable e) {
+            throw new BeanInstantiationException(bd, "Cannot create invoker for constructor " + ctor, e);
+        }
+    }
+
+    /**
+     * 生成等价于 {@code () -> new Foo()} 的 Supplier
+     */
+    private static ConstructorInvoker createSupplierInvoker(Constructor<?> ctor) throws Throwable {
+        Class<?> beanClass = ctor.getDeclaringClass();
+        MethodHandle handle = LOOKUP.unreflectConstructor(ctor);
+        CallSite callSite = LambdaMetafactory.metafactory(
+                LOOKUP,
+                "get",
+                SUPPLIER_FACTORY_TYPE,
+                MethodType.methodType(Object.class),
+                handle,
+                MethodType.methodType(beanClass));
+        @SuppressWarnings("unchecked")
+        Supplier<Object> supplier = (Supplier<Object>) callSite.getTarget().invokeExact();
+        return args -> supplier.get();
+    }
+
+    /**
+     * 生成的 lambda 类定义在本类所在的类加载器中，必须能直接访问构造器，也必须能看到 bean class
+     */
+    private static boolean isLambdaCompatible(Constructor<?> ctor) {
+        Class<?> beanClass = ctor.getDeclaringClass();
+        if (!Modifier.isPublic(ctor.getModifiers()) || !Modifier.isPublic(beanClass.getModifiers())
+                || Modifier.isAbstract(beanClass.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(beanClass.getName(), false, MethodHandleInstantiationStrategy.class.getClassLoader()) == beanClass;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * 解析好的构造器调用器
+     */
+    @FunctionalInterface
+    private interface ConstructorInvoker {
+        Object newInstance(Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,55 @@
+package com.yq.springframework.beans.factory.support;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * 一个 bean 上所有方法注入(method override)的集合
+ *
+ * spring 源码中还有 replaced-method (ReplaceOverride)，这里只支持 lookup-method
+ */
+public class MethodOverrides {
+
+    private final Set<LookupOverride> overrides = new CopyOnWriteArraySet<>();
+
+    public void addOverride(LookupOverride override) {
+        this.overrides.add(override);
+    }
+
+    public Set<LookupOverride> getOverrides() {
+        return Collections.unmodifiableSet(this.overrides);
+    }
+
+    public boolean isEmpty() {
+        return this.overrides.isEmpty();
+    }
+
+    /**
+     * 查找重写了该方法的 override
+     * @param method 方法
+     * @return 对应的 override，没有被重写则返回 null
+     */
+    public LookupOverride getOverride(Method method) {
+        for (LookupOverride override : this.overrides) {
+            if (override.matches(method)) {
+                return override;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 被重写的方法名
+     * cglib 生成的子类只和 "哪些方法被重写" 有关，和方法返回哪个 bean 无关
+     */
+    public Set<String> getOverriddenMethodNames() {
+        Set<String> methodNames = new LinkedHashSet<>();
+        for (LookupOverride override : this.overrides) {
+            methodNames.add(override.getMethodName());
+        }
+        return methodNames;
+    }
+}
@@ -0,0 +1,100 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.BeansException;
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.core.io.Resource;
+import com.yq.springframework.util.NamedDaemonThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 并行加载多个 resource 中的 BD
+ *
+ * 每个 resource 由一个新的 reader 在工作线程中读取、解析，BD 先放进该 resource 自己的暂存 registry；
+ * 调用线程按 resource 的声明顺序，逐个把暂存的 BD 合并到真正的 registry：
+ * - 合并顺序和串行加载时的注册顺序完全一致，重复检测、覆盖行为都是确定的
+ * - 某个 resource 加载失败时，它之前的 resource 照常合并，然后抛出它的异常，和串行加载时的结果一致
+ *
+ * 适合配置文件很多、或者有些 resource 需要远程获取的场景，读取和解析的耗时可以重叠起来
+ */
+class ParallelBeanDefinitionLoader {
+
+    private final AbstractBeanDefinitionReader reader;
+
+    private final int parallelism;
+
+    /**
+     * @param reader 发起加载的 reader，用它创建每个 resource 的 reader，并由它把 BD 合并到 registry
+     * @param parallelism 并行度
+     */
+    ParallelBeanDefinitionLoader(AbstractBeanDefinitionReader reader, int parallelism) {
+        this.reader = reader;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 加载所有 resource
+     * @param resources 按声明顺序排列
+     * @return 加载的 BD 个数
+     * @throws BeanDefinitionStoreException 声明顺序最靠前的那个加载失败的 resource 的异常
+     */
+    int loadBeanDefinitions(Resource[] resources) throws BeansException {
+        int threads = Math.min(this.parallelism, resources.length);
+        // 守护线程，卡住的远程 resource 不会阻止 JVM 退出
+        ExecutorService executor = NamedDaemonThreadFactory.newFixedThreadPool(threads, "bean-definition-loader");
+        try {
+            List<Future<SimpleBeanDefinitionRegistry>> stagedRegistries = new ArrayList<>(resources.length);
+            for (Resource resource : resources) {
+                stagedRegistries.add(executor.submit(() -> stage(resource)));
+            }
+
+            int count = 0;
+            for (int i = 0; i < resources.length; i++) {
+                Map<String, BeanDefinition> staged = await(stagedRegistries.get(i), resources[i]).getBeanDefinitions();
+                for (Map.Entry<String, BeanDefinition> entry : staged.entrySet()) {
+                    this.reader.registerStagedBeanDefinition(entry.getKey(), entry.getValue());
+                }
+                count += staged.size();
+            }
+            return count;
+        } finally {
+            // 失败时后面的 resource 不再需要，直接中断
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 在工作线程中把一个 resource 加载到暂存 registry
+     */
+    private SimpleBeanDefinitionRegistry stage(Resource resource) {
+        SimpleBeanDefinitionRegistry stagingRegistry = new SimpleBeanDefinitionRegistry();
+        AbstractBeanDefinitionReader stagingReader = this.reader.createStagingReader(stagingRegistry);
+        stagingReader.setResourceLoader(this.reader.getResourceLoader());
+        stagingReader.loadBeanDefinitions(resource);
+        return stagingRegistry;
+    }
+
+    private static SimpleBeanDefinitionRegistry await(Future<SimpleBeanDefinitionRegistry> future, Resource resource) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BeanDefinitionStoreException("加载 resource(" + resource + ") 中的 BD 时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BeansException) {
+                throw (BeansException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BeanDefinitionStoreException("加载 resource(" + resource + ") 中的 BD 失败: " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.factory.DisposableBean;
+import com.yq.springframework.util.NamedDaemonThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按依赖关系的逆序并行销毁单例
+ *
+ * 依赖关系来自属性注入时记录的 dependentBeanMap：A 注入了 B，则 A 必须在 B 之前销毁
+ * - 一个 bean 只有在依赖它的 bean 都销毁之后才会销毁，它在销毁时仍然可以正常使用自己依赖的 bean
+ * - 同一时刻可以销毁的 bean，按注册顺序的逆序 (后创建的先销毁) 提交，互不依赖的分支并行销毁
+ * - 处于循环依赖中的 bean 无法排出顺序，等其他 bean 都销毁之后，按注册顺序的逆序串行销毁
+ * - 某个 bean 销毁失败只记录异常，不影响其他 bean (包括它依赖的 bean) 的销毁
+ *
+ * 整个过程有一个截止时间：到时间还没销毁完，不再等待，直接返回还没销毁的 bean
+ * 工作线程是守护线程，卡住的销毁方法不会阻止 JVM 退出
+ */
+class ParallelSingletonDestroyer {
+
+    /**
+     * 按注册顺序排列的 beanNames，节点编号就是其下标
+     */
+    private final List<String> beanNames;
+
+    private final Map<String, DisposableBean> disposableBeans;
+
+    private final int parallelism;
+
+    /**
+     * 节点 ==> 它依赖的节点 (它销毁后，这些节点少了一个依赖方)
+     */
+    private final List<List<Integer>> dependencies = new ArrayList<>();
+
+    /**
+     * 节点还没销毁的依赖方个数，减到 0 就可以销毁
+     */
+    private final AtomicInteger[] pendingDependents;
+
+    /**
+     * 每个节点是否已经销毁 (无论成功失败)
+     */
+    private final boolean[] destroyed;
+
+    /**
+     * 销毁失败的 bean ==> 异常
+     */
+    private final Map<String, Throwable> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private final Object monitor = new Object();
+
+    /**
+     * 已经提交、还没结束的任务个数
+     */
+    private int inFlight;
+
+    /**
+     * @param beanNames 参与销毁的 bean，按注册顺序排列
+     * @param disposableBeans 需要执行销毁逻辑的 bean，不在其中的 bean 只用来传递依赖关系
+     * @param dependentBeanMap beanName ==> 依赖它的 beanNames
+     * @param parallelism 并行度
+     */
+    ParallelSingletonDestroyer(List<String> beanNames, Map<String, DisposableBean> disposableBeans,
+                               Map<String, Set<String>> dependentBeanMap, int parallelism) {
+        this.beanNames = beanNames;
+        this.disposableBeans = disposableBeans;
+        this.parallelism = Math.max(1, parallelism);
+        this.pendingDependents = new AtomicInteger[beanNames.size()];
+        this.destroyed = new boolean[beanNames.size()];
+        buildDependencyGraph(dependentBeanMap);
+    }
+
+    private void buildDependencyGraph(Map<String, Set<String>> dependentBeanMap) {
+        Map<String, Integer> indexes = new HashMap<>(this.beanNames.size() * 2);
+        for (int i = 0; i < this.beanNames.size(); i++) {
+            indexes.put(this.beanNames.get(i), i);
+            this.dependencies.add(new ArrayList<>(2));
+        }
+        for (int i = 0; i < this.beanNames.size(); i++) {
+            int dependentCount = 0;
+            Set<String> dependents = dependentBeanMap.get(this.beanNames.get(i));
+            if (dependents != null) {
+                for (String dependentName : dependents) {
+                    Integer dependent = indexes.get(dependentName);
+                    if (dependent != null && dependent != i) {
+                        this.dependencies.get(dependent).add(i);
+                        dependentCount++;
+                    }
+                }
+            }
+            this.pendingDependents[i] = new AtomicInteger(dependentCount);
+        }
+    }
+
+    /**
+     * 销毁所有 bean
+     * @param timeoutNanos 整个过程最多等待多久
+     * @return 到截止时间还没销毁的 bean，全部销毁完时为空
+     */
+    List<String> destroySingletons(long timeoutNanos) {
+        if (this.beanNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        ExecutorService executor = NamedDaemonThreadFactory.newFixedThreadPool(this.parallelism, "singleton-destruction");
+        try {
+            List<Integer> roots = new ArrayList<>();
+            for (int i = this.beanNames.size() - 1; i >= 0; i--) {
+                if (this.pendingDependents[i].get() == 0) {
+                    roots.add(i);
+                }
+            }
+            submit(executor, roots);
+            if (awaitCompletion(deadline)) {
+                // 剩下的都是循环依赖中的 bean，不再考虑顺序，串行销毁
+                List<Integer> cyclic = new ArrayList<>();
+                for (int i = this.beanNames.size() - 1; i >= 0; i--) {
+                    if (!isDestroyed(i)) {
+                        cyclic.add(i);
+                    }
+                }
+                if (!cyclic.isEmpty()) {
+                    synchronized (this.monitor) {
+                        this.inFlight++;
+                    }
+                    executor.execute(() -> {
+                        try {
+                            for (int node : cyclic) {
+                                destroy(node);
+                            }
+                        } finally {
+                            taskFinished();
+                        }
+                    });
+                    awaitCompletion(deadline);
+                }
+            }
+        } finally {
+            // 超时的话，正在执行的销毁方法会收到中断
+            executor.shutdownNow();
+        }
+
+        List<String> remaining = new ArrayList<>();
+        for (int i = 0; i < this.beanNames.size(); i++) {
+            if (!isDestroyed(i)) {
+                remaining.add(this.beanNames.get(i));
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * 销毁失败的 bean 及其异常，按失败的先后顺序排列
+     * @return beanName ==> 异常
+     */
+    Map<String, Throwable> getFailures() {
+        synchronized (this.failures) {
+            return new LinkedHashMap<>(this.failures);
+        }
+    }
+
+    private void submit(ExecutorService executor, List<Integer> nodes) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        synchronized (this.monitor) {
+            this.inFlight += nodes.size();
+        }
+        for (int node : nodes) {
+            executor.execute(() -> {
+                try {
+                    destroy(node);
+                    submit(executor, releaseDependencies(node));
+                } finally {
+                    taskFinished();
+                }
+            });
+        }
+    }
+
+    private void destroy(int node) {
+        String beanName = this.beanNames.get(node);
+        DisposableBean disposableBean = this.disposableBeans.get(beanName);
+        try {
+            if (disposableBean != null) {
+                disposableBean.destroy();
+            }
+        } catch (Throwable ex) {
+            this.failures.put(beanName, ex);
+        } finally {
+            synchronized (this.monitor) {
+                this.destroyed[node] = true;
+            }
+        }
+    }
+
+    /**
+     * 当前节点已经销毁，返回因此可以销毁的节点 (按注册顺序的逆序)
+     */
+    private List<Integer> releaseDependencies(int node) {
+        List<Integer> ready = null;
+        for (int dependency : this.dependencies.get(node)) {
+            if (this.pendingDependents[dependency].decrementAndGet() == 0) {
+                if (ready == null) {
+                    ready = new ArrayList<>(2);
+                }
+                ready.add(dependency);
+            }
+        }
+        if (ready == null) {
+            return Collections.emptyList();
+        }
+        ready.sort(Collections.reverseOrder());
+        return ready;
+    }
+
+    private void taskFinished() {
+        synchronized (this.monitor) {
+            if (--this.inFlight == 0) {
+                this.monitor.notifyAll();
+            }
+        }
+    }
+
+    private boolean isDestroyed(int node) {
+        synchronized (this.monitor) {
+            return this.destroyed[node];
+        }
+    }
+
+    /**
+     * 等待已经提交的任务全部结束
+     * @return true 全部结束; false 到了截止时间 (或者被中断) 还没结束
+     */
+    private boolean awaitCompletion(long deadline) {
+        synchronized (this.monitor) {
+            while (this.inFlight > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this.monitor, remaining);
+                } catch (InterruptedException e) {
+                    // 关闭过程被打断，不再等待，保留中断标记
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.BeansException;
+import com.yq.springframework.beans.PropertyValue;
+import com.yq.springframework.beans.factory.BeanCreationException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.config.BeanReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 并行预实例化单例
+ *
+ * 根据 BD 中的 BeanReference 属性值构建依赖图 (DAG)，没有依赖关系的分支在 ForkJoinPool 上并行创建：
+ * - 一个 bean 只有在它依赖的 bean 都【完整创建好】之后才会开始创建，注入进去的永远是完整的 bean
+ * - 同一时刻可以开始创建的 bean，按注册顺序提交
+ * - 出现异常后不再提交新的 bean，等已经在创建中的 bean 结束后，抛出【注册顺序最靠前】的那个 bean 的异常
+ *
+ * 处于循环依赖中的 bean (以及依赖它们的 bean) 无法按拓扑序排出来，
+ * 它们留到并行阶段结束之后，在调用线程中按注册顺序串行创建，由三级缓存来解决循环依赖
+ */
+class ParallelSingletonInstantiator {
+
+    private final DefaultListableBeanFactory beanFactory;
+
+    private final int parallelism;
+
+    /**
+     * 按注册顺序排列的 beanNames，节点编号就是其下标
+     */
+    private final List<String> beanNames;
+
+    /**
+     * 节点 ==> 依赖它的节点
+     */
+    private final List<List<Integer>> dependents;
+
+    /**
+     * 节点还没创建好的依赖个数，减到 0 就可以开始创建
+     */
+    private final AtomicInteger[] pendingDependencies;
+
+    /**
+     * 每个节点创建时抛出的异常
+     */
+    private final AtomicReferenceArray<Throwable> failures;
+
+    private final Object monitor = new Object();
+
+    /**
+     * 已经提交、还没结束的任务个数
+     */
+    private int inFlight;
+
+    private volatile boolean failed;
+
+    ParallelSingletonInstantiator(DefaultListableBeanFactory beanFactory, List<String> beanNames, int parallelism) {
+        this.beanFactory = beanFactory;
+        this.parallelism = parallelism;
+        this.beanNames = beanNames;
+        this.dependents = new ArrayList<>(beanNames.size());
+        this.pendingDependencies = new AtomicInteger[beanNames.size()];
+        this.failures = new AtomicReferenceArray<>(beanNames.size());
+        buildDependencyGraph();
+    }
+
+    /**
+     * 依赖图的边：A 的属性值引用了 B，则 B -> A
+     * 引用的 bean 不在本次预实例化的范围内 (比如没有定义、lazy-init)，不算依赖，交给 getBean 去处理
+     */
+    private void buildDependencyGraph() {
+        Map<String, Integer> indexes = new HashMap<>(this.beanNames.size() * 2);
+        for (int i = 0; i < this.beanNames.size(); i++) {
+            indexes.put(this.beanNames.get(i), i);
+            this.dependents.add(new ArrayList<>(2));
+        }
+        for (int i = 0; i < this.beanNames.size(); i++) {
+            int dependencyCount = 0;
+            BeanDefinition bd = this.beanFactory.getBeanDefinition(this.beanNames.get(i));
+            if (bd.hasPropertyValues()) {
+                for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+                    if (pv.getValue() instanceof BeanReference) {
+                        Integer dependency = indexes.get(((BeanReference) pv.getValue()).getBeanName());
+                        if (dependency != null && dependency != i) {
+                            this.dependents.get(dependency).add(i);
+                            dependencyCount++;
+                        }
+                    }
+                }
+            }
+            this.pendingDependencies[i] = new AtomicInteger(dependencyCount);
+        }
+    }
+
+    /**
+     * 创建所有单例
+     * @throws BeansException 第一个(按注册顺序)创建失败的 bean 的异常
+     */
+    void preInstantiateSingletons() throws BeansException {
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism, new WorkerThreadFactory(), null, false);
+        try {
+            List<Integer> roots = new ArrayList<>();
+            for (int i = 0; i < this.beanNames.size(); i++) {
+                if (this.pendingDependencies[i].get() == 0) {
+                    roots.add(i);
+                }
+            }
+            submit(pool, roots);
+            awaitCompletion();
+        } finally {
+            pool.shutdown();
+        }
+        rethrowFirstFailure();
+
+        // 并行阶段结束后还没创建的，都是循环依赖相关的 bean
+        for (int i = 0; i < this.beanNames.size(); i++) {
+            if (this.pendingDependencies[i].get() > 0) {
+                this.beanFactory.getBean(this.beanNames.get(i));
+            }
+        }
+    }
+
+    private void submit(ForkJoinPool pool, List<Integer> nodes) {
+        if (nodes.isEmpty() || this.failed) {
+            return;
+        }
+        synchronized (this.monitor) {
+            this.inFlight += nodes.size();
+        }
+        for (int node : nodes) {
+            pool.execute(() -> instantiate(pool, node));
+        }
+    }
+
+    private void instantiate(ForkJoinPool pool, int node) {
+        try {
+            if (!this.failed) {
+                this.beanFactory.getBean(this.beanNames.get(node));
+                submit(pool, releaseDependents(node));
+            }
+        } catch (Throwable ex) {
+            this.failures.set(node, ex);
+            this.failed = true;
+        } finally {
+            synchronized (this.monitor) {
+                if (--this.inFlight == 0) {
+                    this.monitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前节点创建完成，返回因此可以开始创建的节点 (按注册顺序)
+     */
+    private List<Integer> releaseDependents(int node) {
+        List<Integer> ready = null;
+        for (int dependent : this.dependents.get(node)) {
+            if (this.pendingDependencies[dependent].decrementAndGet() == 0) {
+                if (ready == null) {
+                    ready = new ArrayList<>(2);
+                }
+                ready.add(dependent);
+            }
+        }
+        if (ready == null) {
+            return Collections.emptyList();
+        }
+        Collections.sort(ready);
+        return ready;
+    }
+
+    private void awaitCompletion() {
+        synchronized (this.monitor) {
+            boolean interrupted = false;
+            while (this.inFlight > 0) {
+                try {
+                    this.monitor.wait();
+                } catch (InterruptedException e) {
+                    // 已经提交的 bean 还在创建中，这里不能提前返回，等它们结束后再恢复中断标记
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void rethrowFirstFailure() {
+        BeansException first = null;
+        for (int i = 0; i < this.beanNames.size(); i++) {
+            Throwable ex = this.failures.get(i);
+            if (ex == null) {
+                continue;
+            }
+            if (ex instanceof Error) {
+                throw (Error) ex;
+            }
+            if (first == null) {
+                first = (ex instanceof BeansException ? (BeansException) ex
+                        : new BeanCreationException(this.beanNames.get(i), "Parallel pre-instantiation failed", ex));
+            } else {
+                first.addSuppressed(ex);
+            }
+        }
+        if (first != null) {
+            throw first;
+        }
+    }
+
+
+    /**
+     * 工作线程按编号命名，方便排查问题时在线程栈中找到
+     */
+    private static final class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("singleton-preinstantiation-" + this.threadCount.incrementAndGet());
+            return thread;
+        }
+    }
+}
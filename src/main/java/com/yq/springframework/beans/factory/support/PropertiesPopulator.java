@@ -0,0 +1,44 @@
+package com.yq.springframework.beans.factory.support;
+
+/**
+ * bean 属性的注入逻辑，直接调用 setter，代替按 PropertyValues 逐个查找注入器、反射注入
+ *
+ * 设置了 populator 的 BD，属性注入阶段只调用它，不再处理 BD 中的 PropertyValues
+ * 对其他 bean 的引用仍然要交给 BF 去解析 (循环依赖的提前引用、lazy-init 代理、销毁顺序的依赖关系都在 BF 中处理)
+ *
+ * @see com.yq.springframework.beans.factory.aot.BeanFactoryInitializerGenerator
+ */
+@FunctionalInterface
+public interface PropertiesPopulator {
+
+    /**
+     * 给刚实例化出来的 bean 注入属性
+     * @param bean 待属性注入的 bean
+     * @param resolver 由 BF 提供的引用解析、类型转换能力
+     * @throws Exception setter 抛出的异常
+     */
+    void populate(Object bean, ValueResolver resolver) throws Exception;
+
+
+    /**
+     * 属性值的解析，由 BF 实现
+     */
+    interface ValueResolver {
+
+        /**
+         * 解析对其他 bean 的引用，并记录依赖关系
+         * @param beanName 被引用的 bean
+         * @param requiredType 属性类型
+         * @return 被引用的 bean (或其延迟解析代理)
+         */
+        Object resolveReference(String beanName, Class<?> requiredType);
+
+        /**
+         * 用 BF 的类型转换服务转换属性值
+         * @param value 原始值
+         * @param targetType 属性类型
+         * @return 转换后的值
+         */
+        Object convert(Object value, Class<?> targetType);
+    }
+}
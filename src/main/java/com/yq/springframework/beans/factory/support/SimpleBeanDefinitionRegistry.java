@@ -0,0 +1,51 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.factory.NoSuchBeanDefinitionException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 只保存 BD 的简单 BD registry，按注册顺序保存
+ *
+ * 并行加载配置时，每个 resource 先加载到自己的 registry 中暂存，再按声明顺序合并到真正的 registry
+ * 只在单个加载线程中使用，不需要加锁
+ *
+ * @see ParallelBeanDefinitionLoader
+ */
+class SimpleBeanDefinitionRegistry implements BeanDefinitionRegistry {
+
+    private final Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+
+    @Override
+    public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+        this.beanDefinitionMap.put(beanName, beanDefinition);
+    }
+
+    @Override
+    public int getBeanDefinitionCount() {
+        return this.beanDefinitionMap.size();
+    }
+
+    @Override
+    public BeanDefinition getBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+        BeanDefinition bd = this.beanDefinitionMap.get(beanName);
+        if (bd == null) {
+            throw new NoSuchBeanDefinitionException(beanName);
+        }
+        return bd;
+    }
+
+    @Override
+    public boolean containsBeanDefinition(String beanName) {
+        return this.beanDefinitionMap.containsKey(beanName);
+    }
+
+    /**
+     * @return 按注册顺序排列的 beanName ==> BD
+     */
+    Map<String, BeanDefinition> getBeanDefinitions() {
+        return this.beanDefinitionMap;
+    }
+}
@@ -2,10 +2,12 @@ package com.yq.springframework.beans.factory.support;
 
 import com.yq.springframework.beans.BeanInstantiationException;
 import com.yq.springframework.beans.BeansException;
+import com.yq.springframework.beans.factory.BeanFactory;
 import com.yq.springframework.beans.factory.config.BeanDefinition;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 
 
 /**
@@ -13,38 +15,73 @@ import java.lang.reflect.InvocationTargetException;
  * 如果发生了方法注入，则就交给子类 Cglib 实例化策略来解决
  * 方法注入可以参考：https://www.jianshu.com/p/619104e43a93
  *
- * 这里为了简单化，没有实现方法注入，此外也没有给 Cglib 和 Simple 两种实例化策略加上父子关系
+ * 和 spring 源码一样，Cglib 实例化策略是本类的子类：没有方法注入的 bean 直接反射调用构造器，不生成任何子类
  */
 public class SimpleInstantiationStrategy implements InstantiationStrategy{
 
+    private static final Class<?>[] NO_ARG_TYPES = new Class<?>[0];
+
     /**
      * 使用已知构造方法创建bean的实例
-     * @param bd
-     * @param beanName
-     * @param ctor 构造方法，注意这个构造方法需要上下文传入，即能事先解析得出
-     * @param args
-     * @return
-     * @throws BeansException
+     * @param bd bean definition
+     * @param beanName bean name
+     * @param owner 创建该 bean 的 BF
+     * @param ctor 构造方法，注意这个构造方法需要上下文传入，即能事先解析得出; 为 null 则使用无参构造器
+     * @param args 构造器参数
+     * @return bean 实例
+     * @throws BeansException 实例化失败
      */
     @Override
-    public Object instantiate(BeanDefinition bd, String beanName, Constructor<?> ctor, Object[] args) throws BeansException {
-        Class<?> clazz  = bd.getClass();
+    public Object instantiate(BeanDefinition bd, String beanName, BeanFactory owner, Constructor<?> ctor, Object[] args) throws BeansException {
+        if (bd.hasMethodOverrides()) {
+            return instantiateWithMethodInjection(bd, beanName, owner, ctor, args);
+        }
+        Constructor<?> constructorToUse = (ctor != null ? ctor : getDefaultConstructor(bd));
+        return instantiateClass(bd, constructorToUse, (ctor != null ? args : null));
+    }
+
+    /**
+     * 有方法注入时的实例化，需要子类来实现
+     */
+    protected Object instantiateWithMethodInjection(
+            BeanDefinition bd, String beanName, BeanFactory owner, Constructor<?> ctor, Object[] args) {
+        throw new UnsupportedOperationException("Method Injection not supported in SimpleInstantiationStrategy");
+    }
+
+    /**
+     * 获取无参构造器，解析结果同样缓存在 BD 上 (参数类型列表为空)
+     */
+    protected Constructor<?> getDefaultConstructor(BeanDefinition bd) {
+        Constructor<?> ctor = bd.getResolvedConstructor(NO_ARG_TYPES);
+        if (ctor == null) {
+            try {
+                ctor = bd.getBeanClass().getDeclaredConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new BeanInstantiationException(bd, "No default constructor found", e);
+            }
+            bd.cacheResolvedConstructor(NO_ARG_TYPES, ctor);
+        }
+        return ctor;
+    }
+
+    /**
+     * 反射调用构造器
+     * 对应 spring 源码中的 BeanUtils#instantiateClass
+     */
+    protected Object instantiateClass(BeanDefinition bd, Constructor<?> ctor, Object[] args) {
         try {
-            if (ctor != null){
-                // 根据传入的构造器的所需的参数列表，找到声明的构造器，然后创建实例
-                return clazz.getDeclaredConstructor(ctor.getParameterTypes()).newInstance(args);
-            }else{
-                // 传入的构造器为null，则默认使用无参构造器
-                return clazz.getDeclaredConstructor().newInstance();
+            if (!Modifier.isPublic(ctor.getModifiers()) || !Modifier.isPublic(ctor.getDeclaringClass().getModifiers())) {
+                ctor.setAccessible(true);
             }
-        } catch (NoSuchMethodException e) {
-            throw new BeanInstantiationException(bd,"No such constructor found",e);
+            return (args != null ? ctor.newInstance(args) : ctor.newInstance());
         } catch (InvocationTargetException e) {
-            throw new BeanInstantiationException(bd,"invoke constructor failed",e);
+            throw new BeanInstantiationException(bd,"invoke constructor failed",e.getTargetException());
         } catch (InstantiationException e) {
             throw new BeanInstantiationException(bd,"instantiate class failed",e);
         } catch (IllegalAccessException e) {
             throw new BeanInstantiationException(bd,"this constructor cannot access",e);
+        } catch (IllegalArgumentException e) {
+            throw new BeanInstantiationException(bd,"illegal arguments for constructor",e);
         }
     }
 }
@@ -0,0 +1,181 @@
+package com.yq.springframework.beans.factory.xml;
+
+import com.yq.springframework.beans.MutablePropertyValues;
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.support.AbstractBeanDefinitionReader;
+import com.yq.springframework.beans.factory.support.BeanDefinitionRegistry;
+import com.yq.springframework.core.io.Resource;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 流式的 XML BD Reader，基于 StAX (javax.xml.stream)
+ *
+ * XmlBeanDefinitionReader 要先用 dom4j 把整个文件读成 Document 再注册，DOM 占用的堆内存是文件大小的好几倍；
+ * 这里边读边注册，每读完一个 <bean> 就立刻注册它的 BD，任何时候只持有当前这一个 <bean> 的解析状态，
+ * 内存占用和文件大小无关，适合包含大量 <bean> 的生成配置
+ *
+ * 命名规则、重复检测、各个属性的解析和报错都复用父类的方法，和 DOM 方式完全一致
+ */
+public class StaxXmlBeanDefinitionReader extends XmlBeanDefinitionReader {
+
+    private final XMLInputFactory inputFactory;
+
+    public StaxXmlBeanDefinitionReader(BeanDefinitionRegistry registry) {
+        super(registry);
+        this.inputFactory = createXmlInputFactory();
+    }
+
+    /**
+     * 创建 StAX 工厂：BD 配置用不到 DTD 和外部实体，全部关闭，避免解析时去加载外部资源
+     * @return 配置好的工厂
+     */
+    protected XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    @Override
+    protected AbstractBeanDefinitionReader createStagingReader(BeanDefinitionRegistry stagingRegistry) {
+        StaxXmlBeanDefinitionReader stagingReader = new StaxXmlBeanDefinitionReader(stagingRegistry);
+        initStagingReader(stagingReader);
+        return stagingReader;
+    }
+
+    @Override
+    public int loadBeanDefinitions(Resource resource) throws BeanDefinitionStoreException {
+        try (InputStream is = resource.getInputStream()) {
+            return doLoadBeanDefinition(is);
+        } catch (IOException e) {
+            throw new BeanDefinitionStoreException("读取 XML 配置(" + resource + ")失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 流式解析 XML，边读边注册 BD
+     * @param xmlInputStream xml 输入流
+     * @return 加载的 BD 个数
+     */
+    @Override
+    public int doLoadBeanDefinition(InputStream xmlInputStream) {
+        int countBefore = getRegistry().getBeanDefinitionCount();
+        XMLStreamReader reader = null;
+        try {
+            reader = this.inputFactory.createXMLStreamReader(xmlInputStream);
+            doRegisterBeanDefinitions(reader);
+        } catch (XMLStreamException e) {
+            throw new BeanDefinitionStoreException("解析 XML 失败" + describe(e.getLocation()) + ": " + e.getMessage());
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // 关闭失败不影响已经注册的 BD
+                }
+            }
+        }
+        return getRegistry().getBeanDefinitionCount() - countBefore;
+    }
+
+    /**
+     * 解析 <beans>，只处理其直接子元素中的 <bean> 和 <component-scan>，和 DOM 方式一致
+     * @param reader 位于文档开始处的 reader
+     * @throws XMLStreamException XML 格式错误
+     */
+    protected void doRegisterBeanDefinitions(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        boolean defaultLazyInit = false;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == 1) {
+                    // root 元素 其实就是 <beans> 标签，解析 <beans default-lazy-init=XXX>
+                    defaultLazyInit = parseBooleanValue(reader.getLocalName(), DEFAULT_LAZY_INIT_ATTRIBUTE,
+                            attributeValue(reader, DEFAULT_LAZY_INIT_ATTRIBUTE), false);
+                } else if (depth == 2 && BEAN_ELEMENT.equals(reader.getLocalName())) {
+                    // parseBeanElement 会一直读到 </bean>
+                    parseBeanElement(reader, defaultLazyInit);
+                    depth--;
+                } else if (depth == 2 && COMPONENT_SCAN_ELEMENT.equals(reader.getLocalName())) {
+                    // 解析 <component-scan base-package=XXX>
+                    scanComponents(reader.getLocalName(), attributeValue(reader, BASE_PACKAGE_ATTRIBUTE), defaultLazyInit);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * 解析一个 <bean>，读到对应的 </bean> 时立刻注册
+     * @param reader 位于 <bean> 开始处的 reader，返回时位于 </bean>
+     * @param defaultLazyInit <beans default-lazy-init=XXX>
+     * @throws XMLStreamException XML 格式错误
+     */
+    private void parseBeanElement(XMLStreamReader reader, boolean defaultLazyInit) throws XMLStreamException {
+        String beanName = attributeValue(reader, NAME_ATTRIBUTE);
+        String beanId = attributeValue(reader, ID_ATTRIBUTE);
+        String beanClass = attributeValue(reader, CLASS_ATTRIBUTE);
+        BeanDefinition bd = createBeanDefinition(beanId, beanName, beanClass);
+        parseBeanAttributes(bd, reader.getLocalName(), name -> attributeValue(reader, name), defaultLazyInit);
+
+        MutablePropertyValues pvs = null;
+        // 相对于 <bean> 的深度，只解析直接子元素
+        int depth = 0;
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth != 1) {
+                    continue;
+                }
+                String elementName = reader.getLocalName();
+                if (PROPERTY_ELEMENT.equals(elementName)) {
+                    if (pvs == null) {
+                        pvs = new MutablePropertyValues();
+                        bd.setPropertyValues(pvs);
+                    }
+                    pvs.addPropertyValue(createPropertyValue(beanId, beanName,
+                            attributeValue(reader, NAME_ATTRIBUTE),
+                            attributeValue(reader, VALUE_ATTRIBUTE),
+                            attributeValue(reader, REF_ATTRIBUTE)));
+                } else if (LOOKUP_METHOD_ELEMENT.equals(elementName)) {
+                    bd.getMethodOverrides().addOverride(createLookupOverride(beanId, beanName,
+                            attributeValue(reader, NAME_ATTRIBUTE),
+                            attributeValue(reader, BEAN_REF_ATTRIBUTE)));
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
+        }
+
+        registerParsedBeanDefinition(beanId, beanName, bd);
+    }
+
+    /**
+     * 和 dom4j 的 Element#attributeValue 一样，按不带命名空间的属性名取值，没有该属性时返回 null
+     */
+    private static String attributeValue(XMLStreamReader reader, String attributeName) {
+        return reader.getAttributeValue(null, attributeName);
+    }
+
+    private static String describe(Location location) {
+        if (location == null) {
+            return "";
+        }
+        return " (行 " + location.getLineNumber() + ", 列 " + location.getColumnNumber() + ")";
+    }
+}
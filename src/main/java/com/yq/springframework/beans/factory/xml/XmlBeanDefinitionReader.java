@@ -4,11 +4,14 @@ import cn.hutool.core.util.StrUtil;
 import com.yq.springframework.beans.MutablePropertyValues;
 import com.yq.springframework.beans.PropertyValue;
 import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.annotation.ClassPathScanningCandidateComponentProvider;
 import com.yq.springframework.beans.factory.config.BeanDefinition;
 import com.yq.springframework.beans.factory.config.BeanReference;
 import com.yq.springframework.beans.factory.support.AbstractBeanDefinitionReader;
 import com.yq.springframework.beans.factory.support.BeanDefinitionRegistry;
+import com.yq.springframework.beans.factory.support.LookupOverride;
 import com.yq.springframework.core.io.Resource;
+import com.yq.springframework.util.ClassUtils;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.dom4j.Element;
@@ -16,7 +19,13 @@ import org.dom4j.io.SAXReader;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 
 
 /**
@@ -43,12 +52,64 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
     public static final String SCOPE_ATTRIBUTE = "scope";
     public static final String BASE_PACKAGE_ATTRIBUTE = "base-package";
     public static final String COMPONENT_SCAN_ELEMENT = "component-scan";
+    public static final String LOOKUP_METHOD_ELEMENT = "lookup-method";
+    public static final String BEAN_REF_ATTRIBUTE = "bean";
+    public static final String LAZY_INIT_ATTRIBUTE = "lazy-init";
+    public static final String DEFAULT_LAZY_INIT_ATTRIBUTE = "default-lazy-init";
+    public static final String TRUE_VALUE = "true";
+    public static final String FALSE_VALUE = "false";
+    public static final String DEFAULT_VALUE = "default";
+
+    /**
+     * base-package 中多个包之间的分隔符：逗号、分号、空白
+     */
+    private static final String BASE_PACKAGE_DELIMITERS = "[,;\\s]+";
+
+
+    /**
+     * 是否推迟加载 <bean class=XXX>，为 true 时 BD 中只记录类名
+     */
+    private boolean deferClassResolution = false;
+
+    /**
+     * 解析 <component-scan> 时使用，第一次用到时创建
+     */
+    private ClassPathScanningCandidateComponentProvider componentProvider;
+
+    /**
+     * <component-scan> 扫描过的包，并行加载时和暂存 reader 共用
+     */
+    private Set<String> scannedBasePackages = Collections.synchronizedSortedSet(new TreeSet<>());
 
 
     public XmlBeanDefinitionReader(BeanDefinitionRegistry registry) {
         super(registry);
     }
 
+    /**
+     * 设置是否推迟加载 bean class
+     * 开启后解析时不再同步调用 Class.forName，BD 中只记录类名，
+     * 由 BF 在第一次使用时加载，或者通过 DefaultListableBeanFactory#resolveBeanClasses 批量并行加载；
+     * 类名写错不再在解析时报错，而是在加载时报错
+     * @param deferClassResolution 是否推迟
+     */
+    public void setDeferClassResolution(boolean deferClassResolution) {
+        this.deferClassResolution = deferClassResolution;
+    }
+
+    public boolean isDeferClassResolution() {
+        return this.deferClassResolution;
+    }
+
+    /**
+     * @return 加载过程中 <component-scan> 扫描过的包，按包名排序；BD 快照用它记录扫描结果
+     */
+    public Set<String> getScannedBasePackages() {
+        synchronized (this.scannedBasePackages) {
+            return new TreeSet<>(this.scannedBasePackages);
+        }
+    }
+
 
     /**
      * 在 spring 源码实现中，这个地方调用之后，会委托另一个重载方法来完成功能
@@ -104,85 +165,283 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
         // root 元素 其实就是 <beans> 标签
         Element root = doc.getRootElement();
-        // 开始解析 <beans> 标签中的 <bean>
-        List<Element> beanElements = root.elements(BEAN_ELEMENT);
+        // 解析 <beans default-lazy-init=XXX>，作为其中每个 <bean> 的默认值
+        boolean defaultLazyInit = parseBooleanValue(root.getName(), DEFAULT_LAZY_INIT_ATTRIBUTE,
+                root.attributeValue(DEFAULT_LAZY_INIT_ATTRIBUTE), false);
+        // 按文档顺序解析 <beans> 标签中的 <bean> 和 <component-scan>
+        for (Element element : root.elements()) {
+            if (BEAN_ELEMENT.equals(element.getName())) {
+                parseBeanElement(element, defaultLazyInit);
+            } else if (COMPONENT_SCAN_ELEMENT.equals(element.getName())) {
+                // 解析 <component-scan base-package=XXX>
+                scanComponents(element.getName(), element.attributeValue(BASE_PACKAGE_ATTRIBUTE), defaultLazyInit);
+            }
+        }
+    }
+
+    /**
+     * 解析一个 <bean> 并注册
+     * @param beanElement <bean>
+     * @param defaultLazyInit <beans default-lazy-init=XXX>
+     */
+    private void parseBeanElement(Element beanElement, boolean defaultLazyInit) {
+        // 解析 <bean name=XXX>
+        String beanName = beanElement.attributeValue(NAME_ATTRIBUTE);
+        // 解析 <bean id=XXX>
+        String beanId = beanElement.attributeValue(ID_ATTRIBUTE);
+        // 解析 <bean class=XXX>
+        String beanClass = beanElement.attributeValue(CLASS_ATTRIBUTE);
+
+
+        // 将解析出来的元信息放入到 BeanDefinition 中， 并进行封装
+        BeanDefinition bd = createBeanDefinition(beanId, beanName, beanClass);
+
+        // 解析 <bean lazy-init=XXX> <bean init-method=XXX> <bean destroy-method=XXX>
+        parseBeanAttributes(bd, beanElement.getName(), beanElement::attributeValue, defaultLazyInit);
 
         //======================================
-        // 对每个 <bean> 进行解析
+        // 对 <bean> 中每个 <property> 进行解析
         //======================================
-        for (Element beanElement : beanElements) {
-            // 解析 <bean name=XXX>
-            String beanName = beanElement.attributeValue(NAME_ATTRIBUTE);
-            // 解析 <bean id=XXX>
-            String beanId = beanElement.attributeValue(ID_ATTRIBUTE);
-            // 解析 <bean class=XXX>
-            String beanClass = beanElement.attributeValue(CLASS_ATTRIBUTE);
-            Class<?> clazz;
-            try {
-                clazz = Class.forName(beanClass);
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-                throw new BeanDefinitionStoreException(
-                        "解析 XML BeanDefinition(id=" + beanId  + ", name=" + beanName + ") 时, " +
-                                "加载 class(" + beanClass + ") 失败: "
-                                + e.getMessage());
+        List<Element> pvElements = beanElement.elements(PROPERTY_ELEMENT);
+        // 将解析出来的 <property> 元信息封装到 PropertyValues 中
+        MutablePropertyValues pvs = new MutablePropertyValues();
+        for (Element pvElement : pvElements) {
+            // 解析 <property name=XXX>
+            String pvName = pvElement.attributeValue(NAME_ATTRIBUTE);
+            // 解析 <property value=XXX>
+            String pvValue = pvElement.attributeValue(VALUE_ATTRIBUTE);
+            // 解析 <property ref=XXX>
+            String pvRef = pvElement.attributeValue(REF_ATTRIBUTE);
 
-            }
+            pvs.addPropertyValue(createPropertyValue(beanId, beanName, pvName, pvValue, pvRef));
 
+            // 将属性放入
+            bd.setPropertyValues(pvs);
+        }
 
-            // 将解析出来的元信息放入到 BeanDefinition 中， 并进行封装
-            BeanDefinition bd = new BeanDefinition(clazz);
-
-            //======================================
-            // 对 <bean> 中每个 <property> 进行解析
-            //======================================
-            List<Element> pvElements = beanElement.elements(PROPERTY_ELEMENT);
-            // 将解析出来的 <property> 元信息封装到 PropertyValues 中
-            MutablePropertyValues pvs = new MutablePropertyValues();
-            for (Element pvElement : pvElements) {
-                // 解析 <property name=XXX>
-                String pvName = pvElement.attributeValue(NAME_ATTRIBUTE);
-                // 校验该 bean 的属性配置中，name 是否为空 (value可以为空, name不可以, name是bean中的字段)
-                if (StrUtil.isBlank(pvName))
-                    throw new BeanDefinitionStoreException(
-                            "XML BeanDefinition(id=" + beanId  + ", name=" + beanName + "), " +
-                                    "其属性配置中, name 不能为空!"
-                    );
-
-                // 解析 <property value=XXX>
-                String pvValue = pvElement.attributeValue(VALUE_ATTRIBUTE);
-                // 解析 <property ref=XXX>
-                String pvRef = pvElement.attributeValue(REF_ATTRIBUTE);
-
-                // 如果没配置 ref 属性，那么直接将 p v 添加进去
-                if (StrUtil.isBlank(pvRef))
-                    pvs.addPropertyValue(new PropertyValue(pvName,pvValue));
-                // 设置了 ref， 则应该将 p BeanReference 添加进去
-                else{
-                    BeanReference beanReference = new BeanReference(pvRef);
-                    pvs.addPropertyValue(new PropertyValue(pvName,beanReference));
-                }
-
-                // 将属性放入
-                bd.setPropertyValues(pvs);
-            }
+
+        //======================================
+        // 对 <bean> 中每个 <lookup-method> 进行解析
+        //======================================
+        for (Element lookupElement : beanElement.elements(LOOKUP_METHOD_ELEMENT)) {
+            String methodName = lookupElement.attributeValue(NAME_ATTRIBUTE);
+            String lookupBeanName = lookupElement.attributeValue(BEAN_REF_ATTRIBUTE);
+            bd.getMethodOverrides().addOverride(createLookupOverride(beanId, beanName, methodName, lookupBeanName));
+        }
 
 
-            // 将 bd 放入 BeanDefinitionRegistry
-            BeanDefinitionRegistry registry = getRegistry();
-            // 设置 beanName
-            String finalBeanName;
-            // id 优先级高于 name
-            if (StrUtil.isNotBlank(beanId))
-                finalBeanName = beanId;
-            else if (StrUtil.isNotBlank(beanName))
-                finalBeanName = beanName;
-            // 二者都为空，默认类名首字母小写
-            else
-                finalBeanName = StrUtil.lowerFirst(clazz.getSimpleName());
-            if (registry.containsBeanDefinition(finalBeanName))
-                throw new BeanDefinitionStoreException("已存在该名称[" + finalBeanName +"]的 bean 元信息! bean 名称不允许重复!");
-            registry.registerBeanDefinition(finalBeanName,bd);
+        // 将 bd 放入 BeanDefinitionRegistry
+        registerParsedBeanDefinition(beanId, beanName, bd);
+    }
+
+    //======================================
+    // 以下方法是 DOM 解析和 StAX 流式解析共用的，保证两种方式的语义完全一致
+    //======================================
+
+    /**
+     * 根据 <bean class=XXX> 创建 BD
+     * 推迟加载 class 时只记录类名，否则立即加载
+     * @param beanId <bean id=XXX>
+     * @param beanName <bean name=XXX>
+     * @param beanClass 类名
+     * @return BD
+     * @throws BeanDefinitionStoreException 没有配置类名，或者加载失败
+     */
+    protected BeanDefinition createBeanDefinition(String beanId, String beanName, String beanClass) {
+        if (!this.deferClassResolution) {
+            return new BeanDefinition(loadBeanClass(beanId, beanName, beanClass));
+        }
+        if (StrUtil.isBlank(beanClass))
+            throw new BeanDefinitionStoreException(
+                    "XML BeanDefinition(id=" + beanId  + ", name=" + beanName + "), class 不能为空!");
+        BeanDefinition bd = new BeanDefinition();
+        bd.setBeanClassName(beanClass.trim());
+        return bd;
+    }
+
+    /**
+     * 加载 <bean class=XXX> 对应的 class
+     * @param beanId <bean id=XXX>
+     * @param beanName <bean name=XXX>
+     * @param beanClass 类名
+     * @return class
+     * @throws BeanDefinitionStoreException 加载失败
+     */
+    protected Class<?> loadBeanClass(String beanId, String beanName, String beanClass) {
+        try {
+            return Class.forName(beanClass);
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+            throw new BeanDefinitionStoreException(
+                    "解析 XML BeanDefinition(id=" + beanId  + ", name=" + beanName + ") 时, " +
+                            "加载 class(" + beanClass + ") 失败: "
+                            + e.getMessage());
+
+        }
+    }
+
+    /**
+     * 解析 <bean> 上的 lazy-init、init-method、destroy-method
+     * @param bd 解析结果放入该 BD
+     * @param elementName 元素名，用于报错
+     * @param attributes 按属性名取值
+     * @param defaultLazyInit <beans default-lazy-init=XXX>
+     */
+    protected void parseBeanAttributes(BeanDefinition bd, String elementName,
+                                       Function<String, String> attributes, boolean defaultLazyInit) {
+        // 解析 <bean lazy-init=XXX>，没配置或者配置为 default 时使用 <beans> 上的默认值
+        bd.setLazyInit(parseBooleanValue(elementName, LAZY_INIT_ATTRIBUTE,
+                attributes.apply(LAZY_INIT_ATTRIBUTE), defaultLazyInit));
+
+        // 解析 <bean init-method=XXX>，属性注入完成之后调用
+        String initMethodName = attributes.apply(INIT_METHOD_ATTRIBUTE);
+        if (StrUtil.isNotBlank(initMethodName)) {
+            bd.setInitMethodName(initMethodName.trim());
+        }
+
+        // 解析 <bean destroy-method=XXX>，容器关闭时调用
+        String destroyMethodName = attributes.apply(DESTROY_METHOD_ATTRIBUTE);
+        if (StrUtil.isNotBlank(destroyMethodName)) {
+            bd.setDestroyMethodName(destroyMethodName.trim());
+        }
+    }
+
+    /**
+     * 根据 <property name=XXX value=XXX ref=XXX> 创建 pv
+     * @return 配置了 ref 时值为 BeanReference，否则为 value 字符串
+     * @throws BeanDefinitionStoreException name 为空
+     */
+    protected PropertyValue createPropertyValue(String beanId, String beanName, String pvName, String pvValue, String pvRef) {
+        // 校验该 bean 的属性配置中，name 是否为空 (value可以为空, name不可以, name是bean中的字段)
+        if (StrUtil.isBlank(pvName))
+            throw new BeanDefinitionStoreException(
+                    "XML BeanDefinition(id=" + beanId  + ", name=" + beanName + "), " +
+                            "其属性配置中, name 不能为空!"
+            );
+
+        // 如果没配置 ref 属性，那么直接将 p v 添加进去
+        if (StrUtil.isBlank(pvRef))
+            return new PropertyValue(pvName,pvValue);
+        // 设置了 ref， 则应该将 p BeanReference 添加进去
+        return new PropertyValue(pvName,new BeanReference(pvRef));
+    }
+
+    /**
+     * 根据 <lookup-method name=XXX bean=XXX> 创建方法注入描述
+     * @throws BeanDefinitionStoreException name 或 bean 为空
+     */
+    protected LookupOverride createLookupOverride(String beanId, String beanName, String methodName, String lookupBeanName) {
+        if (StrUtil.isBlank(methodName) || StrUtil.isBlank(lookupBeanName))
+            throw new BeanDefinitionStoreException(
+                    "XML BeanDefinition(id=" + beanId  + ", name=" + beanName + "), " +
+                            "其 lookup-method 配置中, name 和 bean 都不能为空!"
+            );
+        return new LookupOverride(methodName, lookupBeanName);
+    }
+
+    /**
+     * 解析 <component-scan base-package=XXX>：扫描这些包 (包括子包) 中的组件并注册
+     * 多个包之间用逗号、分号或空白分隔；扫描出来的 BD 只记录类名，不加载类，
+     * 和 <bean> 一样使用 <beans default-lazy-init=XXX>，名称同样不允许重复
+     * @param elementName 元素名，用于报错
+     * @param basePackage <component-scan base-package=XXX>
+     * @param defaultLazyInit <beans default-lazy-init=XXX>
+     * @throws BeanDefinitionStoreException 没有配置包名，扫描失败，或者名称重复
+     */
+    protected void scanComponents(String elementName, String basePackage, boolean defaultLazyInit) {
+        if (StrUtil.isBlank(basePackage))
+            throw new BeanDefinitionStoreException(
+                    "XML 元素 <" + elementName + "> 的 " + BASE_PACKAGE_ATTRIBUTE + " 属性不能为空!");
+        String[] basePackages = basePackage.trim().split(BASE_PACKAGE_DELIMITERS);
+        this.scannedBasePackages.addAll(Arrays.asList(basePackages));
+        for (Map.Entry<String, BeanDefinition> entry : getComponentProvider().findCandidateComponents(basePackages).entrySet()) {
+            BeanDefinition bd = entry.getValue();
+            bd.setLazyInit(defaultLazyInit);
+            registerUniqueBeanDefinition(getRegistry(), entry.getKey(), bd);
+        }
+    }
+
+    /**
+     * 同一个 reader 加载的多个 XML 共用一个 provider，组件索引和注解的判断结果只需要读一次
+     */
+    private ClassPathScanningCandidateComponentProvider getComponentProvider() {
+        if (this.componentProvider == null) {
+            this.componentProvider = new ClassPathScanningCandidateComponentProvider();
+        }
+        return this.componentProvider;
+    }
+
+    /**
+     * 确定 beanName 并注册 BD：id 优先级高于 name，二者都为空时默认类名首字母小写
+     * @throws BeanDefinitionStoreException 名称重复
+     */
+    protected void registerParsedBeanDefinition(String beanId, String beanName, BeanDefinition bd) {
+        BeanDefinitionRegistry registry = getRegistry();
+        // 设置 beanName
+        String finalBeanName;
+        // id 优先级高于 name
+        if (StrUtil.isNotBlank(beanId))
+            finalBeanName = beanId;
+        else if (StrUtil.isNotBlank(beanName))
+            finalBeanName = beanName;
+        // 二者都为空，默认类名首字母小写
+        else
+            finalBeanName = StrUtil.lowerFirst(ClassUtils.getShortName(bd.getBeanClassName()));
+        registerUniqueBeanDefinition(registry, finalBeanName, bd);
+    }
+
+    /**
+     * 并行加载时每个配置文件由一个新的 reader 加载到暂存 registry
+     */
+    @Override
+    protected AbstractBeanDefinitionReader createStagingReader(BeanDefinitionRegistry stagingRegistry) {
+        XmlBeanDefinitionReader stagingReader = new XmlBeanDefinitionReader(stagingRegistry);
+        initStagingReader(stagingReader);
+        return stagingReader;
+    }
+
+    /**
+     * 暂存 reader 沿用当前 reader 的配置，并且共用扫描过的包
+     */
+    protected void initStagingReader(XmlBeanDefinitionReader stagingReader) {
+        stagingReader.setDeferClassResolution(this.deferClassResolution);
+        stagingReader.scannedBasePackages = this.scannedBasePackages;
+    }
+
+    /**
+     * 合并暂存的 BD 时，和串行加载一样不允许名称重复
+     */
+    @Override
+    protected void registerStagedBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+        registerUniqueBeanDefinition(getRegistry(), beanName, beanDefinition);
+    }
+
+    private static void registerUniqueBeanDefinition(BeanDefinitionRegistry registry, String beanName, BeanDefinition bd) {
+        if (registry.containsBeanDefinition(beanName))
+            throw new BeanDefinitionStoreException("已存在该名称[" + beanName +"]的 bean 元信息! bean 名称不允许重复!");
+        registry.registerBeanDefinition(beanName,bd);
+    }
+
+    /**
+     * 解析 true / false / default 形式的属性
+     * @param elementName 元素名
+     * @param attributeName 属性名
+     * @param value 属性值
+     * @param defaultValue 没配置或者配置为 default 时的值
+     * @return 解析结果
+     */
+    protected static boolean parseBooleanValue(String elementName, String attributeName, String value, boolean defaultValue) {
+        if (StrUtil.isBlank(value) || DEFAULT_VALUE.equals(value.trim())) {
+            return defaultValue;
+        }
+        value = value.trim();
+        if (TRUE_VALUE.equals(value)) {
+            return true;
+        }
+        if (FALSE_VALUE.equals(value)) {
+            return false;
         }
+        throw new BeanDefinitionStoreException(
+                "XML 元素 <" + elementName + "> 的 " + attributeName + " 属性只能是 true、false 或 default, 实际为: " + value);
     }
 }
@@ -2,6 +2,9 @@ package com.yq.springframework.context;
 
 import com.yq.springframework.beans.BeansException;
 import com.yq.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import com.yq.springframework.core.metrics.ApplicationStartup;
+
+import java.io.Closeable;
 
 /**
  * 可配置化的 ApplicationContext，首次声明了极具重量级的行为 —— refresh方法
@@ -12,9 +15,9 @@ import com.yq.springframework.beans.factory.config.BeanFactoryPostProcessor;
  * - add Application Listener
  * - add resource protocol resolver
  *
- * 声明了 refresh 行为
+ * 声明了 refresh 行为，以及与之对应的 close 行为
  */
-public interface ConfigurableApplicationContext extends ApplicationContext{
+public interface ConfigurableApplicationContext extends ApplicationContext, Closeable {
 
     /**
      * 刷新 spring 上下文
@@ -37,4 +40,36 @@ public interface ConfigurableApplicationContext extends ApplicationContext{
      * @param parent parent context
      */
     void setParent(ApplicationContext parent);
+
+    /**
+     * 设置启动过程的埋点，refresh 之前设置才能记录到 refresh 的各个阶段
+     * 该埋点也会传给 BF，记录每个 bean 的创建过程
+     * @param applicationStartup 启动埋点
+     */
+    void setApplicationStartup(ApplicationStartup applicationStartup);
+
+    /**
+     * 获取启动过程的埋点
+     * @return 启动埋点
+     */
+    ApplicationStartup getApplicationStartup();
+
+    /**
+     * 关闭 spring 上下文：按依赖关系的逆序销毁所有单例，释放 BF
+     * 重复调用没有副作用；如果注册了 JVM 关闭钩子，会一并移除
+     */
+    @Override
+    void close();
+
+    /**
+     * 向 JVM 注册关闭钩子，JVM 退出时 (比如收到 SIGTERM) 自动 close
+     * 重复调用只会注册一次
+     */
+    void registerShutdownHook();
+
+    /**
+     * 上下文是否处于活动状态：refresh 成功之后、close 之前
+     * @return 是否活动
+     */
+    boolean isActive();
 }
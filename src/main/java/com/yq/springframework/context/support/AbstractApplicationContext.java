@@ -9,8 +9,11 @@ import com.yq.springframework.beans.factory.config.ConfigurableListableBeanFacto
 import com.yq.springframework.context.ApplicationContext;
 import com.yq.springframework.context.ConfigurableApplicationContext;
 import com.yq.springframework.core.io.DefaultResourceLoader;
+import com.yq.springframework.core.metrics.ApplicationStartup;
+import com.yq.springframework.core.metrics.StartupStep;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -36,6 +39,36 @@ public abstract class AbstractApplicationContext
      */
     private final List<BeanFactoryPostProcessor> beanFactoryPostProcessors = new ArrayList<>();
 
+    /**
+     * 启动过程的埋点，默认什么都不记录
+     */
+    private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+    /**
+     * 关闭钩子的线程名
+     */
+    public static final String SHUTDOWN_HOOK_THREAD_NAME = "SpringContextShutdownHook";
+
+    /**
+     * 上下文是否处于活动状态
+     */
+    private final AtomicBoolean active = new AtomicBoolean();
+
+    /**
+     * 上下文是否已经关闭
+     */
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * refresh 和 close 互斥
+     */
+    private final Object startupShutdownMonitor = new Object();
+
+    /**
+     * 注册到 JVM 的关闭钩子，没有注册时为 null
+     */
+    private Thread shutdownHook;
+
     public AbstractApplicationContext() {
     }
 
@@ -64,19 +97,88 @@ public abstract class AbstractApplicationContext
      */
     @Override
     public void refresh() throws BeansException {
-        // 1. 创建、配置 BF
-        ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
+        synchronized (this.startupShutdownMonitor) {
+            this.closed.set(false);
+            this.active.set(true);
+            try {
+                doRefresh();
+            } catch (RuntimeException | Error ex) {
+                cancelRefresh(ex);
+                // 启动失败，已经创建出来的单例也要销毁，避免资源泄漏
+                destroyBeans();
+                this.active.set(false);
+                throw ex;
+            }
+        }
+    }
 
-        // 2. 调用 BeanFactoryPostProcessor
-        // 注意，bean 就在此时扫描出来的 (springboot 启动类也会在此时被扫描，同时项目中的注解 Bean 也会在此时被注册)
-        invokeBeanFactoryPostProcessors(beanFactory);
+    private void doRefresh() {
+        // 每个阶段都记录为 "spring.context.refresh" 的子步骤
+        StartupStep refreshStep = this.applicationStartup.start("spring.context.refresh");
+        try {
+            // 0. 刷新前的准备工作
+            prepareRefresh();
+
+            // 1. 创建、配置 BF
+            StartupStep step = this.applicationStartup.start("spring.context.obtain-fresh-bean-factory");
+            ConfigurableListableBeanFactory beanFactory;
+            try {
+                beanFactory = obtainFreshBeanFactory();
+            } finally {
+                step.end();
+            }
+
+            // 2. 调用 BeanFactoryPostProcessor
+            // 注意，bean 就在此时扫描出来的 (springboot 启动类也会在此时被扫描，同时项目中的注解 Bean 也会在此时被注册)
+            step = this.applicationStartup.start("spring.context.invoke-bean-factory-post-processors");
+            try {
+                invokeBeanFactoryPostProcessors(beanFactory);
+            } finally {
+                step.end();
+            }
+
+            // 3. 注册所有的 BeanPostProcessor
+            step = this.applicationStartup.start("spring.context.register-bean-post-processors");
+            try {
+                registerBeanPostProcessors(beanFactory);
+            } finally {
+                step.end();
+            }
+
+            // 4. 对所有非 lazy-init 的 bean 进行 getBean
+            step = this.applicationStartup.start("spring.context.finish-bean-factory-initialization");
+            try {
+                finishBeanFactoryInitialization(beanFactory);
+            } finally {
+                step.end();
+            }
+
+            // 5. 刷新完成
+            finishRefresh();
+        } finally {
+            refreshStep.end();
+        }
+    }
 
-        // 3. 注册所有的 BeanPostProcessor
-        registerBeanPostProcessors(beanFactory);
+    /**
+     * 刷新前的准备工作，在创建 BF 之前调用
+     * spring 源码中这里会记录启动时间、初始化 Environment 中的属性源、校验必需的属性
+     */
+    protected void prepareRefresh() {
+    }
 
-        // 4. 对所有非 lazy-init 的 bean 进行 getBean
-        finishBeanFactoryInitialization(beanFactory);
+    /**
+     * 刷新完成之后调用，此时所有非 lazy-init 的单例都已经创建好
+     * spring 源码中这里会初始化 LifecycleProcessor 并发布 ContextRefreshedEvent
+     */
+    protected void finishRefresh() {
+    }
 
+    /**
+     * 刷新失败时调用，在销毁已创建的单例之前
+     * @param ex 导致刷新失败的异常
+     */
+    protected void cancelRefresh(Throwable ex) {
     }
 
 
@@ -146,9 +248,8 @@ public abstract class AbstractApplicationContext
      */
     protected void registerBeanPostProcessors(ConfigurableListableBeanFactory beanFactory) {
         Map<String, BeanPostProcessor> processors = beanFactory.getBeansOfType(BeanPostProcessor.class);
-        processors.forEach(
-                (processName,processor) -> beanFactory.addBeanPostProcessor(processor)
-        );
+        // 一次性批量注册，只发布一次新的处理器快照
+        beanFactory.addBeanPostProcessors(processors.values());
     }
 
 
@@ -166,6 +267,84 @@ public abstract class AbstractApplicationContext
     }
 
 
+    //==================================
+    // close
+    //==================================
+
+    /**
+     * 关闭上下文，见 {@link #doClose()}
+     * 从关闭钩子之外的地方关闭时，顺便把关闭钩子移除，避免 JVM 退出时再关闭一次
+     */
+    @Override
+    public void close() {
+        synchronized (this.startupShutdownMonitor) {
+            doClose();
+            if (this.shutdownHook != null) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+                } catch (IllegalStateException ex) {
+                    // JVM 正在退出，关闭钩子已经在执行了
+                }
+                this.shutdownHook = null;
+            }
+        }
+    }
+
+    @Override
+    public void registerShutdownHook() {
+        synchronized (this.startupShutdownMonitor) {
+            if (this.shutdownHook == null) {
+                this.shutdownHook = new Thread(SHUTDOWN_HOOK_THREAD_NAME) {
+                    @Override
+                    public void run() {
+                        synchronized (startupShutdownMonitor) {
+                            doClose();
+                        }
+                    }
+                };
+                Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+            }
+        }
+    }
+
+    /**
+     * 真正关闭上下文的方法：销毁所有单例 -> 释放 BF
+     * 只有处于活动状态的上下文才需要关闭，重复关闭直接返回
+     */
+    protected void doClose() {
+        if (this.active.get() && this.closed.compareAndSet(false, true)) {
+            destroyBeans();
+            closeBeanFactory();
+            this.active.set(false);
+        }
+    }
+
+    /**
+     * 销毁 BF 中的所有单例
+     * 单例按依赖关系的逆序销毁，可以并行，有超时时间，具体由 BF 的配置决定
+     */
+    protected void destroyBeans() {
+        ConfigurableListableBeanFactory beanFactory;
+        try {
+            beanFactory = getBeanFactory();
+        } catch (IllegalStateException ex) {
+            // BF 还没创建出来，没有需要销毁的 bean
+            return;
+        }
+        beanFactory.destroySingletons();
+    }
+
+    /**
+     * 释放上下文持有的 BF，由持有 BF 的子类实现
+     */
+    protected abstract void closeBeanFactory();
+
+    @Override
+    public boolean isActive() {
+        return this.active.get();
+    }
+
+
     //=========================================================================
     // implements ConfigurableApplicationContext
     //=========================================================================
@@ -181,6 +360,17 @@ public abstract class AbstractApplicationContext
         this.beanFactoryPostProcessors.add(postProcessor);
     }
 
+    @Override
+    public void setApplicationStartup(ApplicationStartup applicationStartup) {
+        Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    public ApplicationStartup getApplicationStartup() {
+        return this.applicationStartup;
+    }
+
     /**
      * 获取当前上下文持有的 BFPP
      *
@@ -1,12 +1,20 @@
 package com.yq.springframework.context.support;
 
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
 import com.yq.springframework.beans.BeansException;
 import com.yq.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import com.yq.springframework.beans.factory.support.BeanCreationMetrics;
 import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
 import com.yq.springframework.context.ApplicationContext;
 import com.yq.springframework.context.ApplicationContextException;
+import com.yq.springframework.util.ClassUtils;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
 
 /**
  *
@@ -21,10 +29,62 @@ import java.io.IOException;
  */
 public abstract class AbstractRefreshableApplicationContext extends AbstractApplicationContext{
 
+    /**
+     * 类预加载 profile 路径的系统属性，构造时就刷新的上下文 (比如 ClassPathXmlApplicationContext) 来不及调用 setter，可以用它配置
+     */
+    public static final String CLASS_PRELOAD_PROFILE_PROPERTY = "yq.spring.classPreloadProfile";
+
+    private static final Log log = LogFactory.get();
+
     /**
      * 首次在 spring 上下文中持有 BF !
      */
-    private DefaultListableBeanFactory beanFactory;
+    private volatile DefaultListableBeanFactory beanFactory;
+
+    /**
+     * 预实例化单例时的并行度，为 null 时使用 BF 的默认值 (串行)
+     */
+    private Integer preInstantiationParallelism;
+
+    /**
+     * 引用 lazy-init bean 时是否注入延迟解析的代理，为 null 时使用 BF 的默认值 (不开启)
+     */
+    private Boolean lazyResolutionProxies;
+
+    /**
+     * 批量加载 BD class 时的并行度，为 null 时使用 BF 的默认值 (串行)
+     */
+    private Integer beanClassResolutionParallelism;
+
+    /**
+     * 每个 bean 创建过程的内存分配、CPU 时间统计，为 null 时不统计
+     */
+    private BeanCreationMetrics beanCreationMetrics;
+
+    /**
+     * 销毁单例时的并行度，为 null 时使用 BF 的默认值 (串行)
+     */
+    private Integer destructionParallelism;
+
+    /**
+     * 类预加载 profile 的路径，为 null 时不预加载、不记录
+     */
+    private Path classPreloadProfile = initialClassPreloadProfile();
+
+    /**
+     * 类预加载的线程数
+     */
+    private int classPreloadParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    /**
+     * 本次 refresh 的类预加载器，没有在预加载时为 null
+     */
+    private ClassPreloader classPreloader;
+
+    /**
+     * 销毁所有单例的超时时间，为 null 时使用 BF 的默认值
+     */
+    private Duration destructionTimeout;
 
     public AbstractRefreshableApplicationContext() {
     }
@@ -40,11 +100,18 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
      */
     @Override
     protected final void refreshBeanFactory() throws BeansException {
+        // 反复刷新时，先销毁旧 BF 中的单例、释放旧 BF，否则旧的单例及其持有的资源会一直泄漏
+        if (hasBeanFactory()) {
+            destroyBeans();
+            closeBeanFactory();
+        }
         try {
             DefaultListableBeanFactory beanFactory = createBeanFactory();
-            // 目前定制化只有2个地方能配置：
+            // 定制化 BF，spring 源码中只有2个地方能配置：
             // - 是否开启 bean 的覆盖
             // - 是否开启 循环依赖
+            // 这里可以配置预实例化单例时的并行度、是否注入 lazy-init bean 的延迟解析代理、bean 创建开销统计、单例销毁方式
+            customizeBeanFactory(beanFactory);
             // 加载 BD ，这个地方包括了创建 BDReader、 BDScanner
             loadBeanDefinitions(beanFactory);
             this.beanFactory = beanFactory;
@@ -62,6 +129,158 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
         return new DefaultListableBeanFactory();
     }
 
+    /**
+     * 设置预实例化单例时的并行度，大于 1 时并行创建互不依赖的单例
+     * @param preInstantiationParallelism 并行度
+     */
+    public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+        this.preInstantiationParallelism = preInstantiationParallelism;
+    }
+
+    /**
+     * 设置批量加载 BD class 时的并行度，大于 1 时并发加载只记录了类名的 BD 的 class
+     * @param beanClassResolutionParallelism 并行度
+     */
+    public void setBeanClassResolutionParallelism(int beanClassResolutionParallelism) {
+        this.beanClassResolutionParallelism = beanClassResolutionParallelism;
+    }
+
+    /**
+     * 设置引用 lazy-init bean 时，是否注入延迟解析的代理
+     * @param lazyResolutionProxies 是否开启
+     */
+    public void setLazyResolutionProxies(boolean lazyResolutionProxies) {
+        this.lazyResolutionProxies = lazyResolutionProxies;
+    }
+
+    /**
+     * 设置 bean 创建过程的内存分配、CPU 时间统计，refresh 之后可以通过它查询每个 bean 的开销
+     * @param beanCreationMetrics 统计器
+     */
+    public void setBeanCreationMetrics(BeanCreationMetrics beanCreationMetrics) {
+        this.beanCreationMetrics = beanCreationMetrics;
+    }
+
+    /**
+     * 设置关闭上下文时销毁单例的并行度，大于 1 时互不依赖的单例并行销毁
+     * @param destructionParallelism 并行度
+     */
+    public void setDestructionParallelism(int destructionParallelism) {
+        this.destructionParallelism = destructionParallelism;
+    }
+
+    /**
+     * 设置关闭上下文时销毁所有单例的超时时间，应该比部署平台给的优雅停机时间短
+     * @param destructionTimeout 超时时间
+     */
+    public void setDestructionTimeout(Duration destructionTimeout) {
+        this.destructionTimeout = destructionTimeout;
+    }
+
+    /**
+     * 设置类预加载 profile 的路径
+     * 设置之后每次 refresh 一开始就在后台线程中按 profile 预加载类，和 BD 加载、BFPP 执行重叠起来；
+     * refresh 成功后把这次容器加载过的类重新写回 profile，供下次启动使用
+     * @param profilePath profile 文件路径 (文件系统)，为 null 时关闭
+     * @see ClassPreloadProfile
+     */
+    public void setClassPreloadProfile(String profilePath) {
+        this.classPreloadProfile = (profilePath != null ? Paths.get(profilePath) : null);
+    }
+
+    /**
+     * 设置类预加载的线程数
+     * @param classPreloadParallelism 线程数
+     */
+    public void setClassPreloadParallelism(int classPreloadParallelism) {
+        this.classPreloadParallelism = classPreloadParallelism;
+    }
+
+    private static Path initialClassPreloadProfile() {
+        String profilePath = System.getProperty(CLASS_PRELOAD_PROFILE_PROPERTY);
+        return (profilePath != null && !profilePath.trim().isEmpty() ? Paths.get(profilePath.trim()) : null);
+    }
+
+    /**
+     * 按 profile 开始在后台预加载类
+     * profile 只是一个优化，读取失败只记录日志
+     */
+    @Override
+    protected void prepareRefresh() {
+        super.prepareRefresh();
+        if (this.classPreloadProfile == null) {
+            return;
+        }
+        try {
+            List<String> classNames = ClassPreloadProfile.read(this.classPreloadProfile);
+            if (!classNames.isEmpty()) {
+                this.classPreloader = ClassPreloader.start(classNames, ClassUtils.getDefaultClassLoader(),
+                        this.classPreloadParallelism);
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn(ex, "Failed to read class preload profile {}", this.classPreloadProfile);
+        }
+    }
+
+    /**
+     * 停止预加载，并记录这次 refresh 加载过的类
+     */
+    @Override
+    protected void finishRefresh() {
+        super.finishRefresh();
+        stopClassPreloading();
+        if (this.classPreloadProfile == null) {
+            return;
+        }
+        try {
+            ClassPreloadProfile.write(this.classPreloadProfile, ClassPreloadProfile.collect(this.beanFactory));
+        } catch (IOException | RuntimeException ex) {
+            log.warn(ex, "Failed to write class preload profile {}", this.classPreloadProfile);
+        }
+    }
+
+    /**
+     * refresh 失败时停止预加载，不写 profile，保留上一次成功启动的记录
+     */
+    @Override
+    protected void cancelRefresh(Throwable ex) {
+        stopClassPreloading();
+        super.cancelRefresh(ex);
+    }
+
+    private void stopClassPreloading() {
+        if (this.classPreloader != null) {
+            this.classPreloader.stop();
+            this.classPreloader = null;
+        }
+    }
+
+    /**
+     * 定制化 BF，将上下文中的配置同步给新创建的 BF
+     * @param beanFactory 新创建的 BF
+     */
+    protected void customizeBeanFactory(DefaultListableBeanFactory beanFactory) {
+        beanFactory.setApplicationStartup(getApplicationStartup());
+        if (this.preInstantiationParallelism != null) {
+            beanFactory.setPreInstantiationParallelism(this.preInstantiationParallelism);
+        }
+        if (this.beanClassResolutionParallelism != null) {
+            beanFactory.setBeanClassResolutionParallelism(this.beanClassResolutionParallelism);
+        }
+        if (this.lazyResolutionProxies != null) {
+            beanFactory.setLazyResolutionProxies(this.lazyResolutionProxies);
+        }
+        if (this.beanCreationMetrics != null) {
+            beanFactory.setBeanCreationMetrics(this.beanCreationMetrics);
+        }
+        if (this.destructionParallelism != null) {
+            beanFactory.setDestructionParallelism(this.destructionParallelism);
+        }
+        if (this.destructionTimeout != null) {
+            beanFactory.setDestructionTimeout(this.destructionTimeout);
+        }
+    }
+
     /**
      * 模板流程 2 —— 加载 BD 资源!
      *
@@ -77,6 +296,19 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
 
 
 
+    /**
+     * 当前是否持有 BF (refresh 之后、close 之前)
+     * @return 是否持有
+     */
+    protected final boolean hasBeanFactory() {
+        return (this.beanFactory != null);
+    }
+
+    @Override
+    protected final void closeBeanFactory() {
+        this.beanFactory = null;
+    }
+
     public final ConfigurableListableBeanFactory getBeanFactory() {
         DefaultListableBeanFactory beanFactory = this.beanFactory;
         if (beanFactory == null) {
@@ -1,19 +1,51 @@
 package com.yq.springframework.context.support;
 
 
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
 import com.yq.springframework.beans.BeansException;
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.snapshot.BeanDefinitionSnapshot;
+import com.yq.springframework.beans.factory.snapshot.BeanDefinitionSnapshotWriter;
+import com.yq.springframework.beans.factory.snapshot.SnapshotBeanDefinitionReader;
 import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.beans.factory.xml.StaxXmlBeanDefinitionReader;
 import com.yq.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 import com.yq.springframework.context.ApplicationContext;
+import com.yq.springframework.core.io.FileSystemResource;
 import com.yq.springframework.core.io.Resource;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
 
 /**
  * XML 方式配置出来的 ApplicationContext
  */
 public abstract class AbstractXmlApplicationContext extends AbstractRefreshableConfigApplicationContext{
 
+    private static final Log log = LogFactory.get();
+
+    /**
+     * BD 快照文件的路径，为 null 时不使用快照，每次都解析 XML
+     */
+    private Path beanDefinitionSnapshot;
+
+    /**
+     * 是否用 StAX 流式解析 XML，默认用 dom4j 解析成 Document
+     */
+    private boolean streamingXmlParsing = false;
+
+    /**
+     * 加载多个配置文件时的并行度，小于等于 1 时逐个串行加载
+     */
+    private int configLoadingParallelism = 1;
+
+    /**
+     * 是否推迟加载 <bean class=XXX>
+     */
+    private boolean deferClassResolution = false;
 
     public AbstractXmlApplicationContext() {
     }
@@ -23,6 +55,44 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableC
     }
 
 
+    /**
+     * 设置 BD 快照文件的路径
+     * 快照有效时直接从快照加载 BD，跳过 XML 解析；快照不存在或者配置文件变了，解析 XML 之后重新生成快照
+     * @param snapshotPath 快照文件路径 (文件系统)
+     */
+    public void setBeanDefinitionSnapshot(String snapshotPath) {
+        this.beanDefinitionSnapshot = (snapshotPath != null ? Paths.get(snapshotPath) : null);
+    }
+
+    /**
+     * 设置是否流式解析 XML
+     * 开启后边读边注册 BD，不再构建整个 Document，适合包含大量 <bean> 的配置文件
+     * @param streamingXmlParsing 是否流式解析
+     * @see StaxXmlBeanDefinitionReader
+     */
+    public void setStreamingXmlParsing(boolean streamingXmlParsing) {
+        this.streamingXmlParsing = streamingXmlParsing;
+    }
+
+    /**
+     * 设置加载多个配置文件时的并行度
+     * 大于 1 时并发读取、解析各个配置文件，再按声明顺序合并，重复检测的结果和串行加载一致
+     * @param configLoadingParallelism 并行度
+     */
+    public void setConfigLoadingParallelism(int configLoadingParallelism) {
+        this.configLoadingParallelism = configLoadingParallelism;
+    }
+
+    /**
+     * 设置是否推迟加载 bean class
+     * 开启后解析 XML 时只记录类名，class 在 refresh 中第一次按类型查找 bean 时批量加载，
+     * 并行度见 {@link #setBeanClassResolutionParallelism}
+     * @param deferClassResolution 是否推迟
+     */
+    public void setDeferClassResolution(boolean deferClassResolution) {
+        this.deferClassResolution = deferClassResolution;
+    }
+
     /**
      * 读取 XML 配置
      *
@@ -37,8 +107,11 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableC
         // 为什么这个地方不用 成员变量的形式来依赖 XmlBeanDefinitionReader? 这个地方是有学问的
         // 因为在源码设计中，上层的设计 AbstractRefreshableAC 是支持多次 refresh 的。而 BDReader 本身并非一个工具对象，而是一个有状态(bdr、env、loader属性)的对象
         // 应该在每次 loadBD 时，创建一个新的 BDReader 来使用！
-        XmlBeanDefinitionReader xmlBdReader = new XmlBeanDefinitionReader(beanFactory);
+        XmlBeanDefinitionReader xmlBdReader = (this.streamingXmlParsing ?
+                new StaxXmlBeanDefinitionReader(beanFactory) : new XmlBeanDefinitionReader(beanFactory));
         xmlBdReader.setResourceLoader(this);
+        xmlBdReader.setLoadingParallelism(this.configLoadingParallelism);
+        xmlBdReader.setDeferClassResolution(this.deferClassResolution);
 
 
         /*// 加载不同路径下的资源
@@ -49,7 +122,39 @@ public abstract class AbstractXmlApplicationContext extends AbstractRefreshableC
         // 加载配置好的路径下的文件
         String[] configLocations = getConfigLocations();
         if (configLocations != null) {
-            xmlBdReader.loadBeanDefinitions(configLocations);
+            if (this.beanDefinitionSnapshot == null) {
+                xmlBdReader.loadBeanDefinitions(configLocations);
+            } else {
+                loadBeanDefinitionsWithSnapshot(beanFactory, xmlBdReader, configLocations);
+            }
+        }
+    }
+
+    /**
+     * 优先从快照加载 BD
+     * 快照只是缓存：读取失败就退回到解析 XML，生成失败也只记录日志，都不影响启动
+     */
+    private void loadBeanDefinitionsWithSnapshot(DefaultListableBeanFactory beanFactory,
+                                                 XmlBeanDefinitionReader xmlBdReader, String[] configLocations) {
+        Map<String, Long> checksums = BeanDefinitionSnapshot.computeSourceChecksums(this, configLocations);
+        Resource snapshot = new FileSystemResource(this.beanDefinitionSnapshot);
+        SnapshotBeanDefinitionReader snapshotReader = new SnapshotBeanDefinitionReader(beanFactory);
+        if (snapshotReader.isUpToDate(snapshot, checksums)) {
+            try {
+                snapshotReader.loadBeanDefinitions(snapshot);
+                return;
+            } catch (BeanDefinitionStoreException ex) {
+                log.warn(ex, "Failed to load bean definition snapshot {}, falling back to XML", this.beanDefinitionSnapshot);
+            }
+        }
+
+        xmlBdReader.loadBeanDefinitions(configLocations);
+        try {
+            // 扫描出来的组件不在 XML 里，扫描结果的指纹也要记进快照
+            BeanDefinitionSnapshot.addComponentScanChecksum(checksums, xmlBdReader.getScannedBasePackages());
+            new BeanDefinitionSnapshotWriter().write(this.beanDefinitionSnapshot, beanFactory, checksums);
+        } catch (IOException | BeanDefinitionStoreException ex) {
+            log.warn(ex, "Failed to write bean definition snapshot {}", this.beanDefinitionSnapshot);
         }
     }
 
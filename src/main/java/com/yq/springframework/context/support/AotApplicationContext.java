@@ -0,0 +1,49 @@
+package com.yq.springframework.context.support;
+
+import cn.hutool.core.lang.Assert;
+import com.yq.springframework.beans.BeansException;
+import com.yq.springframework.beans.factory.aot.BeanFactoryInitializer;
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.context.ApplicationContext;
+
+/**
+ * 使用构建时生成的 BeanFactoryInitializer 注册 BD 的 spring 上下文
+ *
+ * 和 ClassPathXmlApplicationContext 相比，refresh 时不读取、不解析任何配置文件，
+ * 生成的 BD 直接 new 出 bean、直接调用 setter 注入属性，是启动最快的方式
+ *
+ * @see com.yq.springframework.beans.factory.aot.BeanFactoryInitializerGenerator
+ */
+public class AotApplicationContext extends AbstractRefreshableApplicationContext {
+
+    private final BeanFactoryInitializer initializer;
+
+    public AotApplicationContext(BeanFactoryInitializer initializer) throws BeansException {
+        this(initializer, true, null);
+    }
+
+    public AotApplicationContext(BeanFactoryInitializer initializer, boolean refresh) throws BeansException {
+        this(initializer, refresh, null);
+    }
+
+    /**
+     * @param initializer 构建时生成的初始化器
+     * @param refresh 是否立刻刷新上下文
+     * @param parent 父 context
+     * @throws BeansException 创建上下文失败则抛出
+     */
+    public AotApplicationContext(BeanFactoryInitializer initializer, boolean refresh, ApplicationContext parent)
+            throws BeansException {
+        super(parent);
+        Assert.notNull(initializer, "BeanFactoryInitializer must not be null");
+        this.initializer = initializer;
+        if (refresh) {
+            refresh();
+        }
+    }
+
+    @Override
+    protected void loadBeanDefinitions(DefaultListableBeanFactory beanFactory) throws BeansException {
+        this.initializer.initialize(beanFactory);
+    }
+}
@@ -0,0 +1,144 @@
+package com.yq.springframework.context.support;
+
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.util.ClassUtils;
+import com.yq.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 类预加载的 profile：上一次成功 refresh 时容器加载过的类，按加载顺序排列
+ *
+ * 下一次启动时由 ClassPreloader 在后台线程中按顺序重放，和 XML 解析、BFPP 执行重叠起来；
+ * 同一份列表还可以导出成 AppCDS 的 class list (-XX:SharedClassListFile)，在 JVM 层面进一步节省启动时间
+ *
+ * 文件格式：UTF-8 文本，每行一个类名 (Class#getName)，# 开头的行是注释
+ *
+ * 记录的是容器能看到的类：每个 BD 的 bean class 和每个单例的实际类型，以及它们的父类、接口 (父类型在前)；
+ * bean 在构造器、初始化方法中自己用到的类容器看不到，需要 JVM 层面的 -XX:DumpLoadedClassList
+ */
+public final class ClassPreloadProfile {
+
+    private static final String COMMENT_PREFIX = "#";
+
+    private static final String HEADER = COMMENT_PREFIX + " yq-spring class preload profile";
+
+    private ClassPreloadProfile() {
+    }
+
+    /**
+     * 收集 refresh 过程中容器加载过的类
+     * 只设置了类名、一直没有加载的 BD 不算，说明这次启动用不到它
+     * @param beanFactory refresh 完成的 BF
+     * @return 类名，父类型在前
+     */
+    public static List<String> collect(DefaultListableBeanFactory beanFactory) {
+        Set<String> classNames = new LinkedHashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition bd = beanFactory.getBeanDefinition(beanName);
+            if (bd.hasBeanClass()) {
+                addWithSupertypes(classNames, bd.getBeanClass());
+            }
+            Object singleton = beanFactory.getSingleton(beanName);
+            if (singleton != null) {
+                addWithSupertypes(classNames, ClassUtils.getUserClass(singleton.getClass()));
+            }
+        }
+        return new ArrayList<>(classNames);
+    }
+
+    /**
+     * 父类型先于子类加载，按 Object -> 接口 -> 父类 -> 自身 的顺序加入
+     */
+    private static void addWithSupertypes(Set<String> classNames, Class<?> clazz) {
+        List<Class<?>> types = new ArrayList<>(ClassUtils.getAllAssignableTypes(clazz));
+        Collections.reverse(types);
+        for (Class<?> type : types) {
+            if (isPreloadable(type)) {
+                classNames.add(type.getName());
+            }
+        }
+    }
+
+    /**
+     * 运行时生成的类 (cglib 子类、lambda 等) 下次启动时不存在，不能按类名加载
+     */
+    private static boolean isPreloadable(Class<?> type) {
+        String name = type.getName();
+        return !type.isPrimitive() && !type.isArray() && !type.isSynthetic()
+                && !name.contains(ClassUtils.CGLIB_CLASS_SEPARATOR) && name.indexOf('/') < 0;
+    }
+
+    /**
+     * 读取 profile
+     * @param profile profile 文件
+     * @return 类名，文件不存在时为空
+     * @throws IOException 读取失败
+     */
+    public static List<String> read(Path profile) throws IOException {
+        if (!Files.isRegularFile(profile)) {
+            return Collections.emptyList();
+        }
+        List<String> classNames = new ArrayList<>();
+        for (String line : Files.readAllLines(profile, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith(COMMENT_PREFIX)) {
+                classNames.add(line);
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * 写入 profile，先写临时文件再替换，并发启动的进程不会读到写了一半的文件
+     * @param profile profile 文件
+     * @param classNames 类名
+     * @throws IOException 写入失败
+     */
+    public static void write(Path profile, Collection<String> classNames) throws IOException {
+        List<String> lines = new ArrayList<>(classNames.size() + 1);
+        lines.add(HEADER);
+        lines.addAll(classNames);
+        FileSystemUtils.writeAtomically(profile, lines);
+    }
+
+    /**
+     * 导出为 AppCDS 的 class list：每行一个内部类名 (. 换成 /)
+     * 用法：java -Xshare:dump -XX:SharedClassListFile=classes.lst -XX:SharedArchiveFile=app.jsa -cp ...
+     * 只有应用类加载器能加载到的类才会被归档，其他类加载器的类在 dump 时会被 JVM 跳过
+     * @param profile profile 文件
+     * @param classList 导出的 class list 文件
+     * @throws IOException 读写失败
+     */
+    public static void exportAppCdsClassList(Path profile, Path classList) throws IOException {
+        List<String> classNames = read(profile);
+        List<String> lines = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            lines.add(className.replace('.', '/'));
+        }
+        FileSystemUtils.writeAtomically(classList, lines);
+    }
+
+    /**
+     * 构建时导出 AppCDS class list
+     * 用法：ClassPreloadProfile &lt;profile&gt; &lt;classList&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ClassPreloadProfile <profile> <classList>");
+            System.exit(1);
+        }
+        exportAppCdsClassList(Paths.get(args[0]), Paths.get(args[1]));
+    }
+}
@@ -0,0 +1,103 @@
+package com.yq.springframework.context.support;
+
+import com.yq.springframework.util.NamedDaemonThreadFactory;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在后台线程中按 profile 重放类加载
+ *
+ * 多个工作线程共用一个下标，按 profile 中的顺序依次取类名加载，父类型总是先被取走；
+ * 只加载不初始化 (Class.forName(name, false, cl))，类的静态初始化仍然在第一次使用时由使用方的线程执行，
+ * 不会改变 bean 的初始化顺序，也不会出现多个线程互相等待对方初始化的情况
+ *
+ * 加载失败 (类已经删除、改名) 直接跳过，profile 只是一个提示
+ * 工作线程是守护线程，refresh 结束时还没加载完的部分直接放弃
+ *
+ * @see ClassPreloadProfile
+ */
+class ClassPreloader {
+
+    private final List<String> classNames;
+
+    private final ClassLoader classLoader;
+
+    private final ExecutorService executor;
+
+    /**
+     * 下一个要加载的类名的下标
+     */
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    private final AtomicInteger loadedCount = new AtomicInteger();
+
+    private final AtomicInteger failedCount = new AtomicInteger();
+
+    private ClassPreloader(List<String> classNames, ClassLoader classLoader, int parallelism) {
+        this.classNames = classNames;
+        this.classLoader = classLoader;
+        this.executor = NamedDaemonThreadFactory.newFixedThreadPool(parallelism, "class-preloader");
+    }
+
+    /**
+     * 开始在后台预加载
+     * @param classNames 类名，按加载顺序排列
+     * @param classLoader 类加载器
+     * @param parallelism 线程数
+     * @return 预加载器
+     */
+    static ClassPreloader start(List<String> classNames, ClassLoader classLoader, int parallelism) {
+        int threads = Math.max(1, Math.min(parallelism, classNames.size()));
+        ClassPreloader preloader = new ClassPreloader(classNames, classLoader, threads);
+        for (int i = 0; i < threads; i++) {
+            preloader.executor.execute(preloader::preload);
+        }
+        preloader.executor.shutdown();
+        return preloader;
+    }
+
+    private void preload() {
+        int index;
+        while ((index = this.nextIndex.getAndIncrement()) < this.classNames.size()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                Class.forName(this.classNames.get(index), false, this.classLoader);
+                this.loadedCount.incrementAndGet();
+            } catch (ClassNotFoundException | LinkageError ex) {
+                this.failedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 放弃还没加载的类，正在加载的类会加载完
+     */
+    void stop() {
+        this.nextIndex.set(this.classNames.size());
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * 等待预加载结束
+     * @param timeout 超时时间
+     * @param unit 单位
+     * @return 是否在超时前结束
+     * @throws InterruptedException 等待时被中断
+     */
+    boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.executor.awaitTermination(timeout, unit);
+    }
+
+    int getLoadedCount() {
+        return this.loadedCount.get();
+    }
+
+    int getFailedCount() {
+        return this.failedCount.get();
+    }
+}
@@ -0,0 +1,26 @@
+package com.yq.springframework.core.convert;
+
+/**
+ * 类型转换失败时抛出的异常
+ */
+public class ConversionFailedException extends RuntimeException {
+
+    private final Class<?> targetType;
+
+    private final Object value;
+
+    public ConversionFailedException(Object value, Class<?> targetType, Throwable cause) {
+        super("Failed to convert value '" + value + "' to required type [" + targetType.getName() + "]" +
+                (cause != null ? ": " + cause.getMessage() : ""), cause);
+        this.targetType = targetType;
+        this.value = value;
+    }
+
+    public Class<?> getTargetType() {
+        return this.targetType;
+    }
+
+    public Object getValue() {
+        return this.value;
+    }
+}
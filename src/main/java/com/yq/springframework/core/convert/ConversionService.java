@@ -0,0 +1,28 @@
+package com.yq.springframework.core.convert;
+
+/**
+ * 类型转换服务
+ *
+ * spring 源码中 ConversionService 的转换是基于 TypeDescriptor 的，可以处理泛型、集合元素类型等
+ * 这里只支持 Class 级别的转换
+ */
+public interface ConversionService {
+
+    /**
+     * 是否可以将 sourceType 类型的对象转换为 targetType 类型
+     * @param sourceType 源类型
+     * @param targetType 目标类型
+     * @return bool
+     */
+    boolean canConvert(Class<?> sourceType, Class<?> targetType);
+
+    /**
+     * 将 source 转换为 targetType 类型
+     * @param source 源对象
+     * @param targetType 目标类型 (可以是基本类型，此时返回其包装类型的对象)
+     * @param <T> 目标类型
+     * @return 转换结果
+     * @throws ConversionFailedException 转换失败
+     */
+    <T> T convert(Object source, Class<T> targetType) throws ConversionFailedException;
+}
@@ -0,0 +1,19 @@
+package com.yq.springframework.core.convert.converter;
+
+/**
+ * 类型转换器，将 S 类型的对象转换为 T 类型
+ *
+ * @param <S> 源类型
+ * @param <T> 目标类型
+ */
+@FunctionalInterface
+public interface Converter<S, T> {
+
+    /**
+     * 转换
+     * @param source 源对象，不为 null
+     * @return 转换结果，可以为 null
+     * @throws IllegalArgumentException 源对象无法转换为目标类型
+     */
+    T convert(S source);
+}
@@ -0,0 +1,381 @@
+package com.yq.springframework.core.convert.support;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.convert.ConverterRegistry;
+import com.yq.springframework.core.convert.ConversionFailedException;
+import com.yq.springframework.core.convert.ConversionService;
+import com.yq.springframework.core.convert.converter.Converter;
+import com.yq.springframework.util.ClassUtils;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 默认的类型转换服务，主要负责把 xml 中配置的 String 值转换为属性的实际类型
+ *
+ * 支持的目标类型：
+ * - 基本类型及其包装类型、BigDecimal、BigInteger
+ * - 枚举 (按常量名)
+ * - Duration (ISO-8601 格式如 PT10S，或者简单格式如 500ms、10s、2m、1h、3d，不带单位时为毫秒)
+ * - Class (按全限定类名，使用默认类加载器)
+ * - File (按路径)
+ * - 兜底交给 hutool 的 Convert：Date、Locale、URL、Charset、TimeZone、java.time 的日期时间、集合 (逗号分隔) 等，
+ *   和以前 BeanUtil.setProperty 能转换的类型一致
+ * - 以上类型的数组 (逗号分隔)
+ *
+ * 每个目标类型对应的转换器只解析一次并缓存，枚举、数组、hutool 兜底这类需要按具体类型生成的转换器也是如此
+ */
+public class DefaultConversionService implements ConversionService {
+
+    private static final Pattern SIMPLE_DURATION_PATTERN = Pattern.compile("^([+-]?\\d+)([a-zA-Z]{0,2})$");
+
+    /**
+     * 找不到转换器时缓存的占位符，避免对同一个不支持的类型反复解析
+     */
+    private static final Converter<String, Object> NO_MATCH = source -> null;
+
+    /**
+     * 基本类型名 ==> 基本类型，Class.forName 无法加载基本类型
+     */
+    private static final Map<String, Class<?>> primitiveTypeNameMap = new HashMap<>(16);
+
+    static {
+        for (Class<?> primitiveType : new Class<?>[] {boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class, void.class}) {
+            primitiveTypeNameMap.put(primitiveType.getName(), primitiveType);
+        }
+    }
+
+    private static volatile DefaultConversionService sharedInstance;
+
+    /**
+     * 注册的转换器：目标类型 ==> String 到该类型的转换器
+     */
+    private final Map<Class<?>, Converter<String, ?>> converters = new ConcurrentHashMap<>(32);
+
+    /**
+     * 已解析的转换器缓存：目标类型 ==> 转换器 (包括按需生成的枚举、数组转换器)
+     */
+    private final Map<Class<?>, Converter<String, ?>> converterCache = new ConcurrentHashMap<>(64);
+
+
+    public DefaultConversionService() {
+        addDefaultConverters();
+    }
+
+    /**
+     * 获取共享的实例，需要做类型转换、又没有自定义转换器的地方直接用它即可
+     * @return 共享的 DefaultConversionService
+     */
+    public static ConversionService getSharedInstance() {
+        DefaultConversionService cs = sharedInstance;
+        if (cs == null) {
+            synchronized (DefaultConversionService.class) {
+                cs = sharedInstance;
+                if (cs == null) {
+                    cs = new DefaultConversionService();
+                    sharedInstance = cs;
+                }
+            }
+        }
+        return cs;
+    }
+
+    /**
+     * 注册 String 到 targetType 的转换器，会覆盖同类型已有的转换器
+     * @param targetType 目标类型
+     * @param converter 转换器
+     * @param <T> 目标类型
+     */
+    public <T> void addConverter(Class<T> targetType, Converter<String, ? extends T> converter) {
+        this.converters.put(targetType, converter);
+        this.converterCache.clear();
+    }
+
+    @Override
+    public boolean canConvert(Class<?> sourceType, Class<?> targetType) {
+        if (sourceType == null || ClassUtils.resolvePrimitiveIfNecessary(targetType).isAssignableFrom(sourceType)) {
+            return true;
+        }
+        return (sourceType == String.class && getConverter(targetType) != null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T convert(Object source, Class<T> targetType) throws ConversionFailedException {
+        if (source == null) {
+            if (targetType.isPrimitive()) {
+                throw new ConversionFailedException(null, targetType, null);
+            }
+            return null;
+        }
+        Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(targetType);
+        if (wrapperType.isInstance(source)) {
+            return (T) source;
+        }
+        Converter<String, ?> converter = (source instanceof String ? getConverter(targetType) : null);
+        if (converter == null) {
+            throw new ConversionFailedException(source, targetType,
+                    new IllegalArgumentException("No converter found from [" + source.getClass().getName() + "]"));
+        }
+        Object result;
+        try {
+            result = convertString(converter, (String) source);
+        } catch (ConversionFailedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ConversionFailedException(source, targetType, e);
+        }
+        if (result == null && targetType.isPrimitive()) {
+            throw new ConversionFailedException(source, targetType, null);
+        }
+        return (T) result;
+    }
+
+    /**
+     * 获取 String 到 targetType 的转换器
+     * @param targetType 目标类型
+     * @return 转换器，不支持该类型时返回 null
+     */
+    protected Converter<String, ?> getConverter(Class<?> targetType) {
+        Converter<String, ?> converter = this.converterCache.get(targetType);
+        if (converter == null) {
+            // 数组的转换器需要递归获取元素类型的转换器，不能在 computeIfAbsent 中解析
+            converter = resolveConverter(targetType);
+            Converter<String, ?> existing = this.converterCache.putIfAbsent(targetType, converter);
+            if (existing != null) {
+                converter = existing;
+            }
+        }
+        return (converter != NO_MATCH ? converter : null);
+    }
+
+    private Converter<String, ?> resolveConverter(Class<?> targetType) {
+        Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(targetType);
+        Converter<String, ?> converter = this.converters.get(wrapperType);
+        if (converter != null) {
+            return converter;
+        }
+        Class<?> enumType = getEnumType(targetType);
+        if (enumType != null) {
+            return new StringToEnumConverter(enumType);
+        }
+        if (targetType.isArray()) {
+            Converter<String, ?> elementConverter = getConverter(targetType.getComponentType());
+            if (elementConverter == null && targetType.getComponentType() != String.class) {
+                return NO_MATCH;
+            }
+            return new StringToArrayConverter(targetType.getComponentType(), elementConverter);
+        }
+        if (HutoolFallbackConverter.supports(targetType)) {
+            return new HutoolFallbackConverter(targetType);
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * 带常量体的枚举常量，其 class 是枚举类的匿名子类
+     */
+    private static Class<?> getEnumType(Class<?> targetType) {
+        Class<?> enumType = targetType;
+        while (enumType != null && !enumType.isEnum()) {
+            enumType = enumType.getSuperclass();
+        }
+        return enumType;
+    }
+
+    /**
+     * 空串(trim 之后)对于非 String 类型来说就是没有值
+     */
+    private static Object convertString(Converter<String, ?> converter, String source) {
+        String value = source.trim();
+        return (value.isEmpty() ? null : converter.convert(value));
+    }
+
+    private void addDefaultConverters() {
+        addConverter(Boolean.class, DefaultConversionService::parseBoolean);
+        addConverter(Character.class, source -> {
+            if (source.length() != 1) {
+                throw new IllegalArgumentException("Can only convert a [String] with length of 1 to a [Character]");
+            }
+            return source.charAt(0);
+        });
+        addConverter(Byte.class, source -> (isHex(source) ? Byte.decode(source) : Byte.valueOf(source)));
+        addConverter(Short.class, source -> (isHex(source) ? Short.decode(source) : Short.valueOf(source)));
+        addConverter(Integer.class, source -> (isHex(source) ? Integer.decode(source) : Integer.valueOf(source)));
+        addConverter(Long.class, source -> (isHex(source) ? Long.decode(source) : Long.valueOf(source)));
+        addConverter(Float.class, Float::valueOf);
+        addConverter(Double.class, Double::valueOf);
+        addConverter(BigInteger.class, BigInteger::new);
+        addConverter(BigDecimal.class, BigDecimal::new);
+        addConverter(Duration.class, DefaultConversionService::parseDuration);
+        addConverter(Class.class, DefaultConversionService::parseClass);
+        addConverter(File.class, File::new);
+    }
+
+    private static boolean isHex(String value) {
+        int index = (value.startsWith("-") || value.startsWith("+") ? 1 : 0);
+        return value.startsWith("0x", index) || value.startsWith("0X", index) || value.startsWith("#", index);
+    }
+
+    private static Boolean parseBoolean(String source) {
+        switch (source.toLowerCase(Locale.ENGLISH)) {
+            case "true":
+            case "on":
+            case "yes":
+            case "1":
+                return Boolean.TRUE;
+            case "false":
+            case "off":
+            case "no":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                throw new IllegalArgumentException("Invalid boolean value '" + source + "'");
+        }
+    }
+
+    private static Duration parseDuration(String source) {
+        if (source.startsWith("P") || source.startsWith("-P") || source.startsWith("+P")) {
+            return Duration.parse(source);
+        }
+        Matcher matcher = SIMPLE_DURATION_PATTERN.matcher(source);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("'" + source + "' is not a valid duration");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return Duration.of(amount, durationUnit(matcher.group(2)));
+    }
+
+    private static ChronoUnit durationUnit(String suffix) {
+        switch (suffix.toLowerCase(Locale.ENGLISH)) {
+            case "ns":
+                return ChronoUnit.NANOS;
+            case "us":
+                return ChronoUnit.MICROS;
+            case "":
+            case "ms":
+                return ChronoUnit.MILLIS;
+            case "s":
+                return ChronoUnit.SECONDS;
+            case "m":
+                return ChronoUnit.MINUTES;
+            case "h":
+                return ChronoUnit.HOURS;
+            case "d":
+                return ChronoUnit.DAYS;
+            default:
+                throw new IllegalArgumentException("Unknown duration unit '" + suffix + "'");
+        }
+    }
+
+    private static Class<?> parseClass(String source) {
+        Class<?> primitiveType = primitiveTypeNameMap.get(source);
+        if (primitiveType != null) {
+            return primitiveType;
+        }
+        try {
+            return Class.forName(source, false, ClassUtils.getDefaultClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Class [" + source + "] not found", e);
+        }
+    }
+
+
+    /**
+     * String ==> 枚举，按常量名匹配
+     */
+    private static final class StringToEnumConverter implements Converter<String, Object> {
+
+        private final Map<String, Object> constants;
+
+        StringToEnumConverter(Class<?> enumType) {
+            Object[] enumConstants = enumType.getEnumConstants();
+            this.constants = new HashMap<>(enumConstants.length * 2);
+            for (Object constant : enumConstants) {
+                this.constants.put(((Enum<?>) constant).name(), constant);
+            }
+        }
+
+        @Override
+        public Object convert(String source) {
+            Object constant = this.constants.get(source);
+            if (constant == null) {
+                throw new IllegalArgumentException("No enum constant '" + source + "'");
+            }
+            return constant;
+        }
+    }
+
+    /**
+     * String ==> 数组，逗号分隔，每个元素用元素类型的转换器转换
+     */
+    private static final class StringToArrayConverter implements Converter<String, Object> {
+
+        private final Class<?> componentType;
+
+        /**
+         * 元素类型为 String 时为 null
+         */
+        private final Converter<String, ?> elementConverter;
+
+        StringToArrayConverter(Class<?> componentType, Converter<String, ?> elementConverter) {
+            this.componentType = componentType;
+            this.elementConverter = elementConverter;
+        }
+
+        @Override
+        public Object convert(String source) {
+            String[] elements = source.split(",");
+            Object array = Array.newInstance(this.componentType, elements.length);
+            for (int i = 0; i < elements.length; i++) {
+                String element = elements[i].trim();
+                Object value = (this.elementConverter != null ? convertString(this.elementConverter, element) : element);
+                if (value == null && this.componentType.isPrimitive()) {
+                    throw new IllegalArgumentException("Empty element at index " + i);
+                }
+                Array.set(array, i, value);
+            }
+            return array;
+        }
+    }
+
+    /**
+     * String ==> hutool 能转换的类型，没有注册转换器时兜底
+     * 只接 hutool 有默认转换器的类型和集合，其他类型 (普通 bean 等) hutool 也转换不了，仍然算不支持
+     */
+    private static final class HutoolFallbackConverter implements Converter<String, Object> {
+
+        private final Class<?> targetType;
+
+        HutoolFallbackConverter(Class<?> targetType) {
+            this.targetType = targetType;
+        }
+
+        static boolean supports(Class<?> targetType) {
+            return Collection.class.isAssignableFrom(targetType)
+                    || ConverterRegistry.getInstance().getDefaultConverter(targetType) != null;
+        }
+
+        @Override
+        public Object convert(String source) {
+            // 有些 hutool 转换器 (例如日期) 解析失败时返回 null 而不是抛异常，非空的值转换出 null 就是失败
+            Object result = Convert.convertWithCheck(this.targetType, source, null, false);
+            if (result == null) {
+                throw new IllegalArgumentException("Cannot convert '" + source + "' to [" + this.targetType.getName() + "]");
+            }
+            return result;
+        }
+    }
+}
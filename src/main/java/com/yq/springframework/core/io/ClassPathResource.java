@@ -6,6 +6,8 @@ import com.yq.springframework.util.ClassUtils;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
 
 // 读取 classpath 下的文件，一般 spring 项目打出来的 fat jar，配置文件大都在 classpath 下面
 // 真正 spring 在查找配置文件时，默认会查以下几个位置：
@@ -75,4 +77,29 @@ public class ClassPathResource implements Resource{
         return is;
     }
 
+    /**
+     * 位于目录中的 classpath 资源按文件处理，大文件同样内存映射；位于 jar 中的读入堆内存
+     */
+    @Override
+    public ByteBuffer getByteBuffer() throws IOException {
+        return new UrlResource(resolveURL()).getByteBuffer();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return new UrlResource(resolveURL()).contentLength();
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return new UrlResource(resolveURL()).lastModified();
+    }
+
+    private URL resolveURL() throws FileNotFoundException {
+        URL url = (this.classLoader != null ? this.classLoader.getResource(this.path)
+                : ClassLoader.getSystemResource(this.path));
+        if (url == null)
+            throw new FileNotFoundException("[" +  this.path + "] cannot be opened because it does not exist");
+        return url;
+    }
 }
@@ -1,11 +1,13 @@
 package com.yq.springframework.core.io;
 
 import cn.hutool.core.lang.Assert;
+import com.yq.springframework.util.StreamUtils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
@@ -18,6 +20,12 @@ import java.nio.file.StandardOpenOption;
  */
 public class FileSystemResource implements Resource {
 
+    /**
+     * 不小于这个大小的文件，getByteBuffer 时使用内存映射
+     * 小文件映射的开销 (建立映射、缺页) 比直接读一次还大，直接读入堆内存
+     */
+    public static final long MEMORY_MAP_THRESHOLD = 1024 * 1024;
+
     private final String path;
 
     private final File file;
@@ -74,4 +82,48 @@ public class FileSystemResource implements Resource {
             throw new FileNotFoundException(ex.getMessage());
         }
     }
+
+    /**
+     * 大文件内存映射，内容由操作系统按需从 page cache 换入，不占用堆，也不需要从内核拷贝到用户空间；
+     * 小文件直接读入堆内存
+     * 映射在 channel 关闭之后依然有效，直到 buffer 被回收
+     * @return 只读的映射 buffer，或者堆内存 buffer
+     * @throws IOException 读取失败，或者文件超过 2GB
+     */
+    @Override
+    public ByteBuffer getByteBuffer() throws IOException {
+        try (FileChannel channel = FileChannel.open(this.filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("文件 [" + this.path + "] 超过 2GB, 无法放入一个 ByteBuffer");
+            }
+            if (size >= MEMORY_MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            return StreamUtils.copyToByteBuffer(channel, size);
+        }
+        catch (NoSuchFileException ex) {
+            throw new FileNotFoundException(ex.getMessage());
+        }
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        try {
+            return Files.size(this.filePath);
+        }
+        catch (NoSuchFileException ex) {
+            throw new FileNotFoundException(ex.getMessage());
+        }
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        try {
+            return Files.getLastModifiedTime(this.filePath).toMillis();
+        }
+        catch (NoSuchFileException ex) {
+            throw new FileNotFoundException(ex.getMessage());
+        }
+    }
 }
@@ -1,7 +1,11 @@
 package com.yq.springframework.core.io;
 
+import com.yq.springframework.util.StreamUtils;
+
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 
@@ -32,5 +36,46 @@ public interface Resource {
         return Channels.newChannel(getInputStream());
     }
 
-    // 当然，在 spring 源码中，还有别的方法，比如 contentLength、 getFilename、 getURI、 isOpen等
+    /**
+     * 以 ByteBuffer 的形式一次性获取全部内容，适合能直接解析 buffer 的读取方 (比如 BD 快照)，不需要再经过流拷贝
+     * 默认读入堆内存；FileSystemResource 对大文件使用内存映射，内容不进入堆
+     * 每次调用返回一个新的 buffer，position 为 0，limit 为内容长度
+     * @return buffer
+     * @throws IOException 读取失败
+     */
+    default ByteBuffer getByteBuffer() throws IOException {
+        try (ReadableByteChannel channel = readableChannel()) {
+            return StreamUtils.copyToByteBuffer(channel, -1);
+        }
+    }
+
+    /**
+     * 内容长度
+     * 默认把内容完整读一遍来计算，能直接拿到长度的资源 (文件、URL) 会覆盖这个方法
+     * @return 字节数
+     * @throws IOException 读取失败
+     */
+    default long contentLength() throws IOException {
+        long length = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(StreamUtils.BUFFER_SIZE);
+        try (ReadableByteChannel channel = readableChannel()) {
+            int read;
+            while ((read = channel.read(buffer)) >= 0) {
+                length += read;
+                buffer.clear();
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 最后修改时间
+     * @return 毫秒时间戳
+     * @throws IOException 资源无法确定最后修改时间
+     */
+    default long lastModified() throws IOException {
+        throw new FileNotFoundException(this + " cannot be resolved for checking its last-modified timestamp");
+    }
+
+    // 当然，在 spring 源码中，还有别的方法，比如 getFilename、 getURI、 isOpen等
 }
@@ -5,6 +5,8 @@ import cn.hutool.core.lang.Assert;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 
 /**
  * URL 资源
@@ -55,4 +57,70 @@ public class UrlResource implements Resource{
             throw ex;
         }
     }
+
+    /**
+     * file: 协议的 URL 按文件系统资源处理，大文件同样内存映射
+     */
+    @Override
+    public ByteBuffer getByteBuffer() throws IOException {
+        FileSystemResource fileResource = getFileResource();
+        return (fileResource != null ? fileResource.getByteBuffer() : Resource.super.getByteBuffer());
+    }
+
+    /**
+     * file: 协议直接取文件大小，其他协议取 Content-Length (http 用 HEAD 请求，不下载内容)
+     */
+    @Override
+    public long contentLength() throws IOException {
+        FileSystemResource fileResource = getFileResource();
+        if (fileResource != null) {
+            return fileResource.contentLength();
+        }
+        URLConnection con = openHeaderConnection();
+        try {
+            long length = con.getContentLengthLong();
+            return (length >= 0 ? length : Resource.super.contentLength());
+        } finally {
+            closeConnection(con);
+        }
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        FileSystemResource fileResource = getFileResource();
+        if (fileResource != null) {
+            return fileResource.lastModified();
+        }
+        URLConnection con = openHeaderConnection();
+        try {
+            return con.getLastModified();
+        } finally {
+            closeConnection(con);
+        }
+    }
+
+    private FileSystemResource getFileResource() throws IOException {
+        if (!"file".equals(this.url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new FileSystemResource(Paths.get(this.uri != null ? this.uri : this.url.toURI()));
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            throw new IOException("无法把 URL [" + this.url + "] 转换为文件路径: " + ex.getMessage(), ex);
+        }
+    }
+
+    private URLConnection openHeaderConnection() throws IOException {
+        URLConnection con = this.url.openConnection();
+        if (con instanceof HttpURLConnection) {
+            ((HttpURLConnection) con).setRequestMethod("HEAD");
+        }
+        return con;
+    }
+
+    private static void closeConnection(URLConnection con) {
+        if (con instanceof HttpURLConnection) {
+            ((HttpURLConnection) con).disconnect();
+        }
+    }
 }
@@ -0,0 +1,33 @@
+package com.yq.springframework.core.metrics;
+
+/**
+ * 启动过程的埋点：记录 refresh 各个阶段、每个 bean 创建的各个步骤的耗时
+ *
+ * 用法：
+ * <pre>
+ * StartupStep step = applicationStartup.start("spring.beans.instantiate").tag("beanName", beanName);
+ * try {
+ *     ...
+ * } finally {
+ *     step.end();
+ * }
+ * </pre>
+ * 同一个线程中，在一个 step 结束之前开始的 step 是它的子步骤
+ *
+ * 默认实现 {@link #DEFAULT} 什么都不记录，开销几乎为 0；
+ * 需要分析启动耗时时，换成 {@link BufferingApplicationStartup} 或者 {@link com.yq.springframework.core.metrics.jfr.FlightRecorderApplicationStartup}
+ */
+public interface ApplicationStartup {
+
+    /**
+     * 默认实现，不做任何记录
+     */
+    ApplicationStartup DEFAULT = new DefaultApplicationStartup();
+
+    /**
+     * 开始一个步骤
+     * @param name 步骤名称，比如 spring.beans.instantiate
+     * @return 步骤，结束时必须调用 {@link StartupStep#end()}
+     */
+    StartupStep start(String name);
+}
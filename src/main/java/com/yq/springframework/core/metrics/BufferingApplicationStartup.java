@@ -0,0 +1,351 @@
+package com.yq.springframework.core.metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 把所有结束的步骤记录在内存中的 ApplicationStartup
+ * refresh 结束后可以通过 {@link #getSteps()} 拿到时间线，或者输出按耗时排序的报告 {@link #report()}、JSON {@link #toJson()}
+ *
+ * 父子关系按线程维护：同一个线程中，一个步骤结束之前开始的步骤是它的子步骤
+ * 并行预实例化时，工作线程中的步骤没有父步骤
+ *
+ * 为了避免无限占用内存，可以指定最多记录多少个步骤，超出的步骤直接丢弃，只计数
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+    private final int capacity;
+
+    private final AtomicLong idSeq = new AtomicLong();
+
+    private final AtomicInteger recordedCount = new AtomicInteger();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * 已经结束的步骤，按结束顺序排列
+     */
+    private final ConcurrentLinkedQueue<BufferedStartupStep> steps = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 每个线程当前未结束的步骤
+     */
+    private final ThreadLocal<Deque<BufferedStartupStep>> currentSteps = ThreadLocal.withInitial(ArrayDeque::new);
+
+
+    public BufferingApplicationStartup() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param capacity 最多记录多少个步骤
+     */
+    public BufferingApplicationStartup(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public StartupStep start(String name) {
+        Deque<BufferedStartupStep> stack = this.currentSteps.get();
+        BufferedStartupStep parent = stack.peek();
+        BufferedStartupStep step = new BufferedStartupStep(this.idSeq.incrementAndGet(),
+                (parent != null ? parent.getId() : null), name);
+        stack.push(step);
+        return step;
+    }
+
+    private void record(BufferedStartupStep step) {
+        Deque<BufferedStartupStep> stack = this.currentSteps.get();
+        // 正常情况下结束的就是栈顶的步骤；子步骤忘了 end 时，一并出栈，不影响后续步骤的父子关系
+        if (stack.contains(step)) {
+            BufferedStartupStep popped;
+            do {
+                popped = stack.pop();
+            } while (popped != step);
+        }
+        if (stack.isEmpty()) {
+            this.currentSteps.remove();
+        }
+        if (this.recordedCount.incrementAndGet() <= this.capacity) {
+            this.steps.add(step);
+        } else {
+            this.droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取所有已经结束的步骤，按开始时间排列
+     * @return steps
+     */
+    public List<TimedStep> getSteps() {
+        List<TimedStep> result = new ArrayList<>(this.steps);
+        result.sort(Comparator.comparingLong(TimedStep::getStartNanos).thenComparingLong(TimedStep::getId));
+        return result;
+    }
+
+    /**
+     * 因为超出容量而丢弃的步骤个数
+     * @return 丢弃的个数
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * 清空已经记录的步骤
+     */
+    public void clear() {
+        this.steps.clear();
+        this.recordedCount.set(0);
+        this.droppedCount.set(0);
+    }
+
+    /**
+     * 按耗时从大到小排列的报告，每行一个步骤
+     * @return 报告
+     */
+    public String report() {
+        List<TimedStep> sorted = getSteps();
+        sorted.sort(Comparator.comparingLong(TimedStep::getDurationNanos).reversed().thenComparingLong(TimedStep::getId));
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%12s  %6s  %6s  %s%n", "duration(ms)", "id", "parent", "step"));
+        for (TimedStep step : sorted) {
+            sb.append(String.format(Locale.ROOT, "%12.3f  %6d  %6s  %s",
+                    step.getDurationNanos() / 1_000_000.0, step.getId(),
+                    (step.getParentId() != null ? step.getParentId().toString() : "-"), step.getName()));
+            boolean first = true;
+            for (StartupStep.Tag tag : step.getTags()) {
+                sb.append(first ? "  " : ", ").append(tag.getKey()).append('=').append(tag.getValue());
+                first = false;
+            }
+            sb.append(System.lineSeparator());
+        }
+        if (getDroppedCount() > 0) {
+            sb.append(getDroppedCount()).append(" steps dropped (capacity ").append(this.capacity).append(')')
+                    .append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 所有步骤的 JSON 数组，按开始时间排列
+     * 时间都是相对于第一个步骤开始时间的纳秒数
+     * @return JSON
+     */
+    public String toJson() {
+        List<TimedStep> sorted = getSteps();
+        long origin = (sorted.isEmpty() ? 0L : sorted.get(0).getStartNanos());
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < sorted.size(); i++) {
+            TimedStep step = sorted.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(step.getId())
+                    .append(",\"parentId\":").append(step.getParentId())
+                    .append(",\"name\":");
+            appendJsonString(sb, step.getName());
+            sb.append(",\"thread\":");
+            appendJsonString(sb, step.getThreadName());
+            sb.append(",\"startNanos\":").append(step.getStartNanos() - origin)
+                    .append(",\"durationNanos\":").append(step.getDurationNanos())
+                    .append(",\"tags\":{");
+            boolean first = true;
+            for (StartupStep.Tag tag : step.getTags()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                appendJsonString(sb, tag.getKey());
+                sb.append(':');
+                appendJsonString(sb, tag.getValue());
+                first = false;
+            }
+            sb.append("}}");
+        }
+        return sb.append(']').toString();
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+
+    /**
+     * 已经结束的步骤
+     */
+    public interface TimedStep extends StartupStep {
+
+        /**
+         * 开始时间 (System.nanoTime)
+         * @return nanos
+         */
+        long getStartNanos();
+
+        /**
+         * 耗时
+         * @return nanos
+         */
+        long getDurationNanos();
+
+        /**
+         * 执行该步骤的线程名
+         * @return thread name
+         */
+        String getThreadName();
+    }
+
+
+    private final class BufferedStartupStep implements TimedStep {
+
+        private final long id;
+
+        private final Long parentId;
+
+        private final String name;
+
+        private final String threadName;
+
+        private final long startNanos;
+
+        private final List<Tag> tags = new ArrayList<>(2);
+
+        private long durationNanos = -1;
+
+        BufferedStartupStep(long id, Long parentId, String name) {
+            this.id = id;
+            this.parentId = parentId;
+            this.name = name;
+            this.threadName = Thread.currentThread().getName();
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public long getId() {
+            return this.id;
+        }
+
+        @Override
+        public Long getParentId() {
+            return this.parentId;
+        }
+
+        @Override
+        public StartupStep tag(String key, String value) {
+            if (this.durationNanos >= 0) {
+                throw new IllegalStateException("StartupStep has already ended");
+            }
+            this.tags.add(new DefaultTag(key, value));
+            return this;
+        }
+
+        @Override
+        public StartupStep tag(String key, Supplier<String> value) {
+            return tag(key, value.get());
+        }
+
+        @Override
+        public Iterable<Tag> getTags() {
+            return Collections.unmodifiableList(this.tags);
+        }
+
+        @Override
+        public void end() {
+            if (this.durationNanos >= 0) {
+                return;
+            }
+            this.durationNanos = System.nanoTime() - this.startNanos;
+            record(this);
+        }
+
+        @Override
+        public long getStartNanos() {
+            return this.startNanos;
+        }
+
+        @Override
+        public long getDurationNanos() {
+            return this.durationNanos;
+        }
+
+        @Override
+        public String getThreadName() {
+            return this.threadName;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + "#" + this.id;
+        }
+    }
+
+
+    private static final class DefaultTag implements StartupStep.Tag {
+
+        private final String key;
+
+        private final String value;
+
+        DefaultTag(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+
+        @Override
+        public String getValue() {
+            return this.value;
+        }
+    }
+}
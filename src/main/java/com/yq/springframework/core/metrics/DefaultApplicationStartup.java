@@ -0,0 +1,56 @@
+package com.yq.springframework.core.metrics;
+
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * 默认的 ApplicationStartup，什么都不记录
+ * 所有的 start 调用都返回同一个空步骤，不产生任何对象分配
+ */
+class DefaultApplicationStartup implements ApplicationStartup {
+
+    private static final DefaultStartupStep DEFAULT_STARTUP_STEP = new DefaultStartupStep();
+
+    @Override
+    public StartupStep start(String name) {
+        return DEFAULT_STARTUP_STEP;
+    }
+
+
+    static class DefaultStartupStep implements StartupStep {
+
+        @Override
+        public String getName() {
+            return "default";
+        }
+
+        @Override
+        public long getId() {
+            return 0L;
+        }
+
+        @Override
+        public Long getParentId() {
+            return null;
+        }
+
+        @Override
+        public StartupStep tag(String key, String value) {
+            return this;
+        }
+
+        @Override
+        public StartupStep tag(String key, Supplier<String> value) {
+            return this;
+        }
+
+        @Override
+        public Iterable<Tag> getTags() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+}
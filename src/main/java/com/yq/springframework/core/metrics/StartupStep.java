@@ -0,0 +1,65 @@
+package com.yq.springframework.core.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * 启动过程中的一个步骤，记录开始、结束的时间，以及一些 tag (比如 beanName)
+ */
+public interface StartupStep {
+
+    /**
+     * 步骤名称
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 步骤 id，同一个 ApplicationStartup 中唯一
+     * @return id
+     */
+    long getId();
+
+    /**
+     * 父步骤的 id
+     * @return 父步骤 id，没有父步骤时返回 null
+     */
+    Long getParentId();
+
+    /**
+     * 添加 tag
+     * @param key key
+     * @param value value
+     * @return this
+     */
+    StartupStep tag(String key, String value);
+
+    /**
+     * 添加 tag，value 只在需要记录的时候才会计算
+     * @param key key
+     * @param value value supplier
+     * @return this
+     */
+    StartupStep tag(String key, Supplier<String> value);
+
+    /**
+     * 获取所有 tag
+     * @return tags
+     */
+    Iterable<Tag> getTags();
+
+    /**
+     * 结束该步骤
+     */
+    void end();
+
+
+    /**
+     * 步骤上的一个 key-value
+     */
+    interface Tag {
+
+        String getKey();
+
+        String getValue();
+    }
+}
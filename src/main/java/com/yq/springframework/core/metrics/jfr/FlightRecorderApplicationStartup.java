@@ -0,0 +1,134 @@
+package com.yq.springframework.core.metrics.jfr;
+
+import com.yq.springframework.core.metrics.ApplicationStartup;
+import com.yq.springframework.core.metrics.StartupStep;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 把每个启动步骤导出为 JFR 事件的 ApplicationStartup
+ * 开启 JFR 录制 (比如 -XX:StartFlightRecording) 后，可以在 JMC 中按事件 com.yq.springframework.StartupStep 查看
+ *
+ * 需要运行在带有 jdk.jfr 模块的 JDK 上 (JDK 11+，或者 8u262+)
+ */
+public class FlightRecorderApplicationStartup implements ApplicationStartup {
+
+    private final AtomicLong idSeq = new AtomicLong();
+
+    /**
+     * 每个线程当前未结束的步骤，用来确定父步骤
+     */
+    private final ThreadLocal<Deque<FlightRecorderStartupStep>> currentSteps = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public StartupStep start(String name) {
+        Deque<FlightRecorderStartupStep> stack = this.currentSteps.get();
+        FlightRecorderStartupStep parent = stack.peek();
+        FlightRecorderStartupStep step = new FlightRecorderStartupStep(this.idSeq.incrementAndGet(),
+                (parent != null ? parent.getId() : null), name);
+        stack.push(step);
+        return step;
+    }
+
+    private void ended(FlightRecorderStartupStep step) {
+        Deque<FlightRecorderStartupStep> stack = this.currentSteps.get();
+        if (stack.contains(step)) {
+            FlightRecorderStartupStep popped;
+            do {
+                popped = stack.pop();
+            } while (popped != step);
+        }
+        if (stack.isEmpty()) {
+            this.currentSteps.remove();
+        }
+    }
+
+
+    private final class FlightRecorderStartupStep implements StartupStep {
+
+        private final FlightRecorderStartupEvent event = new FlightRecorderStartupEvent();
+
+        private final Long parentId;
+
+        private final List<Tag> tags = new ArrayList<>(2);
+
+        private boolean ended;
+
+        FlightRecorderStartupStep(long id, Long parentId, String name) {
+            this.parentId = parentId;
+            this.event.eventId = id;
+            this.event.parentId = (parentId != null ? parentId : -1L);
+            this.event.name = name;
+            this.event.begin();
+        }
+
+        @Override
+        public String getName() {
+            return this.event.name;
+        }
+
+        @Override
+        public long getId() {
+            return this.event.eventId;
+        }
+
+        @Override
+        public Long getParentId() {
+            return this.parentId;
+        }
+
+        @Override
+        public StartupStep tag(String key, String value) {
+            this.tags.add(new Tag() {
+                @Override
+                public String getKey() {
+                    return key;
+                }
+
+                @Override
+                public String getValue() {
+                    return value;
+                }
+            });
+            return this;
+        }
+
+        @Override
+        public StartupStep tag(String key, Supplier<String> value) {
+            // 没有开启录制时，不需要计算 tag 的值
+            return (this.event.isEnabled() ? tag(key, value.get()) : this);
+        }
+
+        @Override
+        public Iterable<Tag> getTags() {
+            return Collections.unmodifiableList(this.tags);
+        }
+
+        @Override
+        public void end() {
+            if (this.ended) {
+                return;
+            }
+            this.ended = true;
+            this.event.end();
+            if (this.event.shouldCommit()) {
+                StringBuilder sb = new StringBuilder();
+                for (Tag tag : this.tags) {
+                    if (sb.length() > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(tag.getKey()).append('=').append(tag.getValue());
+                }
+                this.event.tags = sb.toString();
+                this.event.commit();
+            }
+            ended(this);
+        }
+    }
+}
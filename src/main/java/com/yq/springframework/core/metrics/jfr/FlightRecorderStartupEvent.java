@@ -0,0 +1,29 @@
+package com.yq.springframework.core.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 启动步骤对应的 JFR 事件
+ */
+@Name("com.yq.springframework.StartupStep")
+@Label("Startup Step")
+@Description("yq-spring ApplicationStartup step")
+@Category("yq-spring")
+class FlightRecorderStartupEvent extends Event {
+
+    @Label("Event Id")
+    long eventId;
+
+    @Label("Parent Id")
+    long parentId;
+
+    @Label("Name")
+    String name;
+
+    @Label("Tags")
+    String tags;
+}
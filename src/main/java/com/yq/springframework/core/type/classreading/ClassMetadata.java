@@ -0,0 +1,104 @@
+package com.yq.springframework.core.type.classreading;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 直接从 class 文件中读出来的类元信息，不需要加载类
+ *
+ * 只包含组件扫描需要的内容：类名、父类、接口、访问标志、是否独立 (顶级类或者静态内部类)、类上的注解
+ * 类名都是 Class#getName 形式 (. 分隔，内部类用 $)
+ *
+ * @see ClassMetadataReader
+ */
+public final class ClassMetadata {
+
+    private final String className;
+
+    private final String superClassName;
+
+    private final List<String> interfaceNames;
+
+    private final int accessFlags;
+
+    private final boolean independent;
+
+    /**
+     * 注解类型名 ==> 注解中值为字符串的属性 (按声明顺序)
+     */
+    private final Map<String, Map<String, String>> annotations;
+
+    ClassMetadata(String className, String superClassName, List<String> interfaceNames, int accessFlags,
+                  boolean independent, Map<String, Map<String, String>> annotations) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+        this.accessFlags = accessFlags;
+        this.independent = independent;
+        this.annotations = Collections.unmodifiableMap(annotations);
+    }
+
+    public String getClassName() {
+        return this.className;
+    }
+
+    /**
+     * @return 父类名，java.lang.Object 和接口没有父类时为 null
+     */
+    public String getSuperClassName() {
+        return this.superClassName;
+    }
+
+    public List<String> getInterfaceNames() {
+        return this.interfaceNames;
+    }
+
+    public boolean isInterface() {
+        return (this.accessFlags & ClassMetadataReader.ACC_INTERFACE) != 0;
+    }
+
+    public boolean isAnnotation() {
+        return (this.accessFlags & ClassMetadataReader.ACC_ANNOTATION) != 0;
+    }
+
+    public boolean isAbstract() {
+        return (this.accessFlags & ClassMetadataReader.ACC_ABSTRACT) != 0;
+    }
+
+    /**
+     * 是否是可以直接实例化的具体类
+     */
+    public boolean isConcrete() {
+        return !isInterface() && !isAbstract();
+    }
+
+    /**
+     * 是否独立：顶级类或者静态内部类，可以不依赖外部类实例单独创建
+     */
+    public boolean isIndependent() {
+        return this.independent;
+    }
+
+    /**
+     * @return 类上 (RetentionPolicy.RUNTIME) 的注解类型名，按声明顺序
+     */
+    public Set<String> getAnnotationTypes() {
+        return this.annotations.keySet();
+    }
+
+    public boolean hasAnnotation(String annotationType) {
+        return this.annotations.containsKey(annotationType);
+    }
+
+    /**
+     * 获取注解中值为字符串的属性
+     * @param annotationType 注解类型名
+     * @return 属性名 ==> 值，没有该注解时为空
+     */
+    public Map<String, String> getAnnotationAttributes(String annotationType) {
+        Map<String, String> attributes = this.annotations.get(annotationType);
+        return (attributes != null ? attributes : Collections.emptyMap());
+    }
+}
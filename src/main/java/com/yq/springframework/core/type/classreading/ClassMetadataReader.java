@@ -0,0 +1,339 @@
+package com.yq.springframework.core.type.classreading;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 直接解析 class 文件的字节码，读出类元信息，不加载类，也不会触发类的静态初始化
+ *
+ * 只解析需要的部分：常量池只记录每一项的偏移，用到的字符串才解码；
+ * 字段、方法按长度整段跳过；类的属性里只看 InnerClasses 和 RuntimeVisibleAnnotations
+ *
+ * 格式参考 JVMS 第 4 章 (The class File Format)
+ *
+ * @see ClassMetadata
+ */
+public final class ClassMetadataReader {
+
+    static final int ACC_STATIC = 0x0008;
+
+    static final int ACC_INTERFACE = 0x0200;
+
+    static final int ACC_ABSTRACT = 0x0400;
+
+    static final int ACC_ANNOTATION = 0x2000;
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final String INNER_CLASSES = "InnerClasses";
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private final byte[] b;
+
+    /**
+     * 常量池每一项 tag 之后的偏移
+     */
+    private final int[] cpOffsets;
+
+    /**
+     * 已经解码过的 CONSTANT_Utf8
+     */
+    private final String[] utf8Cache;
+
+    /**
+     * 当前读取位置
+     */
+    private int pos;
+
+    private ClassMetadataReader(byte[] b) {
+        this.b = b;
+        if (readInt(0) != MAGIC) {
+            throw new IllegalArgumentException("不是合法的 class 文件");
+        }
+        int cpCount = readUnsignedShort(8);
+        this.cpOffsets = new int[cpCount];
+        this.utf8Cache = new String[cpCount];
+        int offset = 10;
+        for (int i = 1; i < cpCount; i++) {
+            int tag = b[offset] & 0xFF;
+            this.cpOffsets[i] = offset + 1;
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    offset += 3 + readUnsignedShort(offset + 1);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    offset += 5;
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    // 占两个槽位
+                    offset += 9;
+                    i++;
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    offset += 3;
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    offset += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的常量池类型: " + tag);
+            }
+        }
+        this.pos = offset;
+    }
+
+    /**
+     * 读取类元信息，读完后关闭输入流
+     * @param inputStream class 文件内容
+     * @return 类元信息
+     * @throws IOException 读取失败
+     * @throws IllegalArgumentException 不是合法的 class 文件
+     */
+    public static ClassMetadata read(InputStream inputStream) throws IOException {
+        try (InputStream in = inputStream) {
+            return read(readAllBytes(in));
+        }
+    }
+
+    /**
+     * 读取类元信息
+     * @param classFile class 文件内容
+     * @return 类元信息
+     * @throws IllegalArgumentException 不是合法的 class 文件
+     */
+    public static ClassMetadata read(byte[] classFile) {
+        try {
+            return new ClassMetadataReader(classFile).readClass();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("class 文件不完整", e);
+        }
+    }
+
+    private ClassMetadata readClass() {
+        int accessFlags = nextUnsignedShort();
+        int thisClass = nextUnsignedShort();
+        String className = readClassName(thisClass);
+        int superClass = nextUnsignedShort();
+        String superClassName = (superClass != 0 ? readClassName(superClass) : null);
+        int interfaceCount = nextUnsignedShort();
+        List<String> interfaceNames = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames.add(readClassName(nextUnsignedShort()));
+        }
+        // fields、methods 的结构相同：access_flags, name_index, descriptor_index, attributes
+        for (int member = 0; member < 2; member++) {
+            int memberCount = nextUnsignedShort();
+            for (int i = 0; i < memberCount; i++) {
+                this.pos += 6;
+                skipAttributes();
+            }
+        }
+
+        boolean independent = true;
+        Map<String, Map<String, String>> annotations = Collections.emptyMap();
+        int attributeCount = nextUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = readUtf8(nextUnsignedShort());
+            int length = nextInt();
+            int end = this.pos + length;
+            if (INNER_CLASSES.equals(attributeName)) {
+                independent = readIndependent(thisClass);
+            } else if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                annotations = readAnnotations();
+            }
+            this.pos = end;
+        }
+        return new ClassMetadata(className, superClassName, interfaceNames, accessFlags, independent, annotations);
+    }
+
+    /**
+     * InnerClasses 中有当前类自己的记录，说明它是内部类：只有静态成员类是独立的，
+     * 非静态内部类、局部类、匿名类都依赖外部类实例
+     */
+    private boolean readIndependent(int thisClass) {
+        int count = nextUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            int innerClass = nextUnsignedShort();
+            int outerClass = nextUnsignedShort();
+            int innerName = nextUnsignedShort();
+            int innerAccessFlags = nextUnsignedShort();
+            if (innerClass == thisClass) {
+                return outerClass != 0 && innerName != 0 && (innerAccessFlags & ACC_STATIC) != 0;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, Map<String, String>> readAnnotations() {
+        int count = nextUnsignedShort();
+        Map<String, Map<String, String>> annotations = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            String type = descriptorToClassName(readUtf8(nextUnsignedShort()));
+            annotations.put(type, readAnnotationAttributes());
+        }
+        return annotations;
+    }
+
+    /**
+     * 读取一个注解的属性，只保留值是字符串的属性，其他的跳过
+     */
+    private Map<String, String> readAnnotationAttributes() {
+        int pairCount = nextUnsignedShort();
+        Map<String, String> attributes = (pairCount == 0 ? Collections.emptyMap() : new LinkedHashMap<>());
+        for (int i = 0; i < pairCount; i++) {
+            String name = readUtf8(nextUnsignedShort());
+            if (this.b[this.pos] == 's') {
+                this.pos++;
+                attributes.put(name, readUtf8(nextUnsignedShort()));
+            } else {
+                skipElementValue();
+            }
+        }
+        return attributes;
+    }
+
+    private void skipElementValue() {
+        int tag = this.b[this.pos++];
+        switch (tag) {
+            case 'e':
+                this.pos += 4;
+                break;
+            case '@':
+                this.pos += 2;
+                int pairCount = nextUnsignedShort();
+                for (int i = 0; i < pairCount; i++) {
+                    this.pos += 2;
+                    skipElementValue();
+                }
+                break;
+            case '[':
+                int valueCount = nextUnsignedShort();
+                for (int i = 0; i < valueCount; i++) {
+                    skipElementValue();
+                }
+                break;
+            default:
+                // B C D F I J S Z s c
+                this.pos += 2;
+        }
+    }
+
+    private void skipAttributes() {
+        int attributeCount = nextUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            this.pos += 2;
+            int length = nextInt();
+            this.pos += length;
+        }
+    }
+
+    private String readClassName(int classIndex) {
+        return readUtf8(readUnsignedShort(this.cpOffsets[classIndex])).replace('/', '.');
+    }
+
+    private String readUtf8(int utf8Index) {
+        String value = this.utf8Cache[utf8Index];
+        if (value == null) {
+            int offset = this.cpOffsets[utf8Index];
+            value = decodeModifiedUtf8(offset + 2, readUnsignedShort(offset));
+            this.utf8Cache[utf8Index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * class 文件中的字符串是 modified UTF-8：\u0000 用两个字节表示，增补字符拆成两个代理字符分别编码
+     */
+    private String decodeModifiedUtf8(int offset, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int end = offset + length;
+        while (offset < end) {
+            int c = this.b[offset++] & 0xFF;
+            if (c < 0x80) {
+                chars[count++] = (char) c;
+            } else if ((c & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((c & 0x1F) << 6) | (this.b[offset++] & 0x3F));
+            } else {
+                chars[count++] = (char) (((c & 0x0F) << 12) | ((this.b[offset++] & 0x3F) << 6)
+                        | (this.b[offset++] & 0x3F));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Lcom/example/Foo; ==> com.example.Foo
+     */
+    private static String descriptorToClassName(String descriptor) {
+        return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+    }
+
+    private int nextUnsignedShort() {
+        int value = readUnsignedShort(this.pos);
+        this.pos += 2;
+        return value;
+    }
+
+    private int nextInt() {
+        int value = readInt(this.pos);
+        this.pos += 4;
+        return value;
+    }
+
+    private int readUnsignedShort(int offset) {
+        return ((this.b[offset] & 0xFF) << 8) | (this.b[offset + 1] & 0xFF);
+    }
+
+    private int readInt(int offset) {
+        return ((this.b[offset] & 0xFF) << 24) | ((this.b[offset + 1] & 0xFF) << 16)
+                | ((this.b[offset + 2] & 0xFF) << 8) | (this.b[offset + 3] & 0xFF);
+    }
+
+    private static byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 1024));
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
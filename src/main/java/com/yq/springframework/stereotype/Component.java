@@ -0,0 +1,25 @@
+package com.yq.springframework.stereotype;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记一个类是组件，<component-scan> 扫描到之后自动注册成 bean
+ *
+ * 也可以作为元注解使用：标注了 @Component 的注解 (比如自定义的 @Service)，同样会被识别为组件
+ *
+ * @see com.yq.springframework.beans.factory.annotation.ClassPathBeanDefinitionScanner
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Component {
+
+    /**
+     * bean 名称，为空时使用类名首字母小写
+     */
+    String value() default "";
+}
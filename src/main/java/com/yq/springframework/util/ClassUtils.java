@@ -1,7 +1,34 @@
 package com.yq.springframework.util;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 final public class ClassUtils {
 
+    /**
+     * cglib 生成的子类的类名分隔符
+     */
+    public static final String CGLIB_CLASS_SEPARATOR = "$$";
+
+    /**
+     * 基本类型 ==> 包装类型
+     */
+    private static final Map<Class<?>, Class<?>> primitiveTypeToWrapperMap = new HashMap<>(16);
+
+    static {
+        primitiveTypeToWrapperMap.put(boolean.class, Boolean.class);
+        primitiveTypeToWrapperMap.put(byte.class, Byte.class);
+        primitiveTypeToWrapperMap.put(char.class, Character.class);
+        primitiveTypeToWrapperMap.put(short.class, Short.class);
+        primitiveTypeToWrapperMap.put(int.class, Integer.class);
+        primitiveTypeToWrapperMap.put(long.class, Long.class);
+        primitiveTypeToWrapperMap.put(float.class, Float.class);
+        primitiveTypeToWrapperMap.put(double.class, Double.class);
+        primitiveTypeToWrapperMap.put(void.class, Void.class);
+    }
+
 
     /**
      * 默认获取 TCCL，一般结果肯定是 System Classloader
@@ -37,4 +64,66 @@ final public class ClassUtils {
         }
         return cl;
     }
+
+    /**
+     * 获取 clazz 可以赋值给的所有类型: 自身、所有父类、所有(直接或间接)实现的接口
+     * 即对于返回结果中的每个 type，都满足 type.isAssignableFrom(clazz)
+     *
+     * @param clazz 类型
+     * @return 所有可赋值的类型，顺序为 自身 -> 父类 -> 接口
+     */
+    public static Set<Class<?>> getAllAssignableTypes(Class<?> clazz) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+            types.add(current);
+        }
+        for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+            collectInterfaces(current, types);
+        }
+        // 接口本身没有父类，但是接口类型的变量可以赋值给 Object
+        types.add(Object.class);
+        return types;
+    }
+
+    private static void collectInterfaces(Class<?> clazz, Set<Class<?>> types) {
+        for (Class<?> ifc : clazz.getInterfaces()) {
+            if (types.add(ifc)) {
+                collectInterfaces(ifc, types);
+            }
+        }
+    }
+
+    /**
+     * 根据类名取不带包名的短类名，不会加载类；内部类只取 $ 之后的部分，和 Class#getSimpleName 一致
+     * @param className 全限定类名
+     * @return 短类名
+     */
+    public static String getShortName(String className) {
+        int start = Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1;
+        return className.substring(start);
+    }
+
+    /**
+     * 基本类型转换为对应的包装类型，其他类型原样返回
+     * @param clazz 类型
+     * @return 包装类型 or 原类型
+     */
+    public static Class<?> resolvePrimitiveIfNecessary(Class<?> clazz) {
+        return (clazz.isPrimitive() ? primitiveTypeToWrapperMap.get(clazz) : clazz);
+    }
+
+    /**
+     * 获取用户定义的原始类型：如果是 cglib 生成的子类，返回其父类
+     * @param clazz 类型
+     * @return 用户定义的类型
+     */
+    public static Class<?> getUserClass(Class<?> clazz) {
+        if (clazz.getName().contains(CGLIB_CLASS_SEPARATOR)) {
+            Class<?> superclass = clazz.getSuperclass();
+            if (superclass != null && superclass != Object.class) {
+                return superclass;
+            }
+        }
+        return clazz;
+    }
 }
@@ -0,0 +1,60 @@
+package com.yq.springframework.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 文件系统相关的工具方法
+ */
+public final class FileSystemUtils {
+
+    private FileSystemUtils() {
+    }
+
+    /**
+     * 整体替换文件内容：先写到同目录下的临时文件，再替换目标文件，读文件的一方不会读到写了一半的内容
+     * 文件系统不支持原子替换时退化为普通替换
+     * @param target 目标文件，所在目录不存在时自动创建
+     * @param content 文件内容
+     * @throws IOException 写入失败
+     */
+    public static void writeAtomically(Path target, byte[] content) throws IOException {
+        writeAtomically(target, tempFile -> Files.write(tempFile, content));
+    }
+
+    /**
+     * 同 {@link #writeAtomically(Path, byte[])}，按 UTF-8 逐行写入，每行以系统换行符结尾
+     * @param target 目标文件，所在目录不存在时自动创建
+     * @param lines 文件内容
+     * @throws IOException 写入失败
+     */
+    public static void writeAtomically(Path target, Iterable<? extends CharSequence> lines) throws IOException {
+        writeAtomically(target, tempFile -> Files.write(tempFile, lines, StandardCharsets.UTF_8));
+    }
+
+    private static void writeAtomically(Path target, ContentWriter contentWriter) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            contentWriter.write(tempFile);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+
+        void write(Path tempFile) throws IOException;
+    }
+}
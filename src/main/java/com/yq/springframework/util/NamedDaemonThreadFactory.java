@@ -0,0 +1,44 @@
+package com.yq.springframework.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 框架内部后台线程池使用的 ThreadFactory
+ * 线程名为 前缀-编号，方便排查问题时在线程栈中找到；都是守护线程，卡住的任务不会阻止 JVM 退出
+ */
+public class NamedDaemonThreadFactory implements ThreadFactory {
+
+    private final String threadNamePrefix;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    /**
+     * @param threadNamePrefix 线程名前缀，不包括编号前的 "-"
+     */
+    public NamedDaemonThreadFactory(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, this.threadNamePrefix + "-" + this.threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 创建固定大小、队列无界的线程池，线程由 NamedDaemonThreadFactory 创建
+     * @param threads 线程数
+     * @param threadNamePrefix 线程名前缀
+     * @return 线程池，用完后需要调用方 shutdown
+     */
+    public static ExecutorService newFixedThreadPool(int threads, String threadNamePrefix) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new NamedDaemonThreadFactory(threadNamePrefix));
+    }
+}
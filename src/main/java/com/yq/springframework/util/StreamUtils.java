@@ -0,0 +1,42 @@
+package com.yq.springframework.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * 流、通道相关的工具方法
+ */
+public final class StreamUtils {
+
+    public static final int BUFFER_SIZE = 8192;
+
+    private StreamUtils() {
+    }
+
+    /**
+     * 把通道中剩余的内容全部读入一个堆内存 ByteBuffer，不关闭通道
+     * @param channel 通道
+     * @param expectedSize 预计的长度，不知道时传 -1，用来减少扩容
+     * @return position 为 0、limit 为内容长度的 buffer
+     * @throws IOException 读取失败
+     */
+    public static ByteBuffer copyToByteBuffer(ReadableByteChannel channel, long expectedSize) throws IOException {
+        // 多留一个字节，读满预计长度之后不用扩容就能读到 EOF
+        ByteBuffer buffer = ByteBuffer.allocate(expectedSize >= 0 && expectedSize < Integer.MAX_VALUE
+                ? (int) expectedSize + 1 : BUFFER_SIZE);
+        while (channel.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                if (buffer.capacity() == Integer.MAX_VALUE) {
+                    throw new IOException("内容超过 2GB, 无法放入一个 ByteBuffer");
+                }
+                ByteBuffer larger = ByteBuffer.allocate((int) Math.min(buffer.capacity() * 2L, Integer.MAX_VALUE));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
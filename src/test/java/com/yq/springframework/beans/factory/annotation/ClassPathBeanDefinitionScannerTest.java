@@ -0,0 +1,139 @@
+package com.yq.springframework.beans.factory.annotation;
+
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.beans.factory.xml.StaxXmlBeanDefinitionReader;
+import com.yq.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import com.yq.springframework.test.Sample.components.OuterComponent;
+import com.yq.springframework.test.Sample.components.SampleComponent;
+import com.yq.springframework.test.Sample.components.sub.SubPackageComponent;
+import com.yq.springframework.test.Sample.cyclic.a.CycleAComponent;
+import com.yq.springframework.test.Sample.cyclic.b.CycleBComponent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ClassPathBeanDefinitionScannerTest {
+
+    private static final String BASE_PACKAGE = "com.yq.springframework.test.Sample.components";
+
+    /**
+     * 按类名排序：抽象类、接口、非静态内部类、没有标注的类都被跳过
+     */
+    private static final List<String> EXPECTED_NAMES = Arrays.asList("defaultNamedService", "named",
+            "nestedComponent", "sampleComponent", "sampleSvc", "subPackageComponent");
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 扫描得到的 BD 只记录类名，bean 名称取自 @Component 或者元注解 (@Service) 的 value，没有时类名首字母小写
+     */
+    @Test
+    public void scan_registersComponents() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(lbf);
+        Assertions.assertEquals(EXPECTED_NAMES.size(), scanner.scan(BASE_PACKAGE));
+
+        Assertions.assertEquals(EXPECTED_NAMES, Arrays.asList(lbf.getBeanDefinitionNames()));
+        BeanDefinition bd = lbf.getBeanDefinition("nestedComponent");
+        Assertions.assertFalse(bd.hasBeanClass());
+        Assertions.assertEquals(OuterComponent.NestedComponent.class.getName(), bd.getBeanClassName());
+        Assertions.assertEquals("hello", ((SampleComponent) lbf.getBean("sampleComponent")).hello());
+        Assertions.assertArrayEquals(new String[]{"sampleComponent"}, lbf.getBeanNamesForType(SampleComponent.class));
+
+        // 包有重叠时同一个类只注册一次；再次注册同名组件报错
+        Assertions.assertEquals(1, new ClassPathBeanDefinitionScanner(new DefaultListableBeanFactory())
+                .scan(SubPackageComponent.class.getPackage().getName(), BASE_PACKAGE + ".sub"));
+        Assertions.assertThrows(BeanDefinitionStoreException.class, () -> scanner.scan(BASE_PACKAGE));
+    }
+
+    /**
+     * 注解之间互相标注：先判断 @CycleA 时 @CycleB 被提前截断，这个中间结果不能缓存，只标注了 @CycleB 的类也是组件
+     */
+    @Test
+    public void findCandidateComponents_mutuallyMetaAnnotated() {
+        ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider();
+        Assertions.assertEquals(Collections.singleton("cycleAComponent"),
+                provider.findCandidateComponents(CycleAComponent.class.getPackage().getName()).keySet());
+        Assertions.assertEquals(Collections.singleton("cycleBComponent"),
+                provider.findCandidateComponents(CycleBComponent.class.getPackage().getName()).keySet());
+    }
+
+    /**
+     * XML 中的 <component-scan>，DOM 和 StAX 两种方式结果一致，使用 <beans default-lazy-init=XXX>
+     */
+    @Test
+    public void loadBeanDefinitions_componentScan() {
+        DefaultListableBeanFactory domLbf = new DefaultListableBeanFactory();
+        new XmlBeanDefinitionReader(domLbf).loadBeanDefinitions("classpath:spring-context-scan.xml");
+        DefaultListableBeanFactory staxLbf = new DefaultListableBeanFactory();
+        new StaxXmlBeanDefinitionReader(staxLbf).loadBeanDefinitions("classpath:spring-context-scan.xml");
+
+        List<String> expected = Stream.concat(Stream.of("tb"), EXPECTED_NAMES.stream()).collect(Collectors.toList());
+        Assertions.assertEquals(expected, Arrays.asList(domLbf.getBeanDefinitionNames()));
+        Assertions.assertEquals(expected, Arrays.asList(staxLbf.getBeanDefinitionNames()));
+        Assertions.assertTrue(domLbf.getBeanDefinition("named").isLazyInit());
+        Assertions.assertTrue(staxLbf.getBeanDefinition("named").isLazyInit());
+        Assertions.assertEquals("hello", ((SampleComponent) staxLbf.getBean("sampleComponent")).hello());
+
+        String xml = "<beans><component-scan base-package=\" \"/></beans>";
+        Assertions.assertThrows(BeanDefinitionStoreException.class, () -> new XmlBeanDefinitionReader(
+                new DefaultListableBeanFactory()).doLoadBeanDefinition(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * 构建时生成的索引和扫描结果一致；classpath 上有索引时只查索引，不再遍历
+     */
+    @Test
+    public void componentIndex() throws Exception {
+        Path testClasses = Paths.get(SampleComponent.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path packageDir = testClasses.resolve(BASE_PACKAGE.replace('.', '/'));
+        Path classesDir = this.tempDir.resolve("classes");
+        try (Stream<Path> files = Files.walk(packageDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path target = classesDir.resolve(testClasses.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(file, target);
+                }
+            }
+        }
+
+        Assertions.assertEquals(EXPECTED_NAMES.size(), CandidateComponentsIndex.generate(classesDir));
+        Path indexFile = classesDir.resolve(CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION);
+        Files.write(indexFile, Collections.singletonList(BASE_PACKAGE + ".IndexOnly=indexOnly"),
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classesDir.toUri().toURL()},
+                getClass().getClassLoader())) {
+            ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider();
+            provider.setClassLoader(classLoader);
+            Map<String, BeanDefinition> candidates = provider.findCandidateComponents(BASE_PACKAGE);
+            Assertions.assertEquals(BASE_PACKAGE + ".IndexOnly", candidates.get("indexOnly").getBeanClassName());
+            candidates.remove("indexOnly");
+            Assertions.assertEquals(EXPECTED_NAMES, candidates.keySet().stream().sorted().collect(Collectors.toList()));
+
+            provider.setUseComponentIndex(false);
+            Assertions.assertFalse(provider.findCandidateComponents(BASE_PACKAGE).containsKey("indexOnly"));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.yq.springframework.beans.factory.aot;
+
+import com.yq.springframework.beans.MutablePropertyValues;
+import com.yq.springframework.beans.factory.BeanFactory;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.beans.factory.support.LookupOverride;
+import com.yq.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import com.yq.springframework.context.support.AotApplicationContext;
+import com.yq.springframework.test.Sample.beans.DisposableTestBean;
+import com.yq.springframework.test.Sample.beans.TestBean;
+import com.yq.springframework.test.Sample.beans.TestBeanPlus;
+import com.yq.springframework.test.Sample.beans.TestConvertBean;
+import com.yq.springframework.test.Sample.beans.TestFieldBean;
+import com.yq.springframework.test.Sample.beans.TestLookupBean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class BeanFactoryInitializerGeneratorTest {
+
+    private static final String CLASS_NAME = "com.yq.springframework.test.generated.TestBeanFactoryInitializer";
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 生成的代码直接 new 出 bean、直接调用 setter，lookup-method 由匿名子类实现；
+     * 没有 public setter 的 bean 退回到反射创建
+     */
+    @Test
+    public void generate_compileAndRefresh() throws Exception {
+        String[] locations = {"classpath:spring-context.xml", "classpath:spring-context-destroy.xml"};
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        new XmlBeanDefinitionReader(lbf).loadBeanDefinitions(locations);
+
+        BeanDefinition lookup = new BeanDefinition(TestLookupBean.class);
+        lookup.getMethodOverrides().addOverride(new LookupOverride("getTestBean", "tb"));
+        lbf.registerBeanDefinition("lookup", lookup);
+
+        MutablePropertyValues convertPvs = new MutablePropertyValues();
+        convertPvs.addPropertyValue("port", "8080");
+        convertPvs.addPropertyValue("unit", "SECONDS");
+        convertPvs.addPropertyValue("timeout", "30s");
+        convertPvs.addPropertyValue("intervals", "1,2,3");
+        lbf.registerBeanDefinition("convert", new BeanDefinition(TestConvertBean.class, convertPvs));
+
+        MutablePropertyValues fieldPvs = new MutablePropertyValues();
+        fieldPvs.addPropertyValue("timeout", "5000");
+        fieldPvs.addPropertyValue("label", "x");
+        lbf.registerBeanDefinition("field", new BeanDefinition(TestFieldBean.class, fieldPvs));
+
+        Path sourceFile = new BeanFactoryInitializerGenerator(CLASS_NAME).writeTo(this.tempDir.resolve("src"), lbf, locations);
+        String source = new String(Files.readAllBytes(sourceFile), StandardCharsets.UTF_8);
+        Assertions.assertTrue(source.contains("target.setId(1000);"));
+        Assertions.assertTrue(source.contains("target.setUnit(java.util.concurrent.TimeUnit.SECONDS);"));
+        Assertions.assertTrue(source.contains("// Instantiated reflectively at runtime: property 'timeout' has no public setter"));
+
+        BeanFactoryInitializer initializer = compile(sourceFile);
+        AotApplicationContext context = new AotApplicationContext(initializer);
+
+        DefaultListableBeanFactory beanFactory = (DefaultListableBeanFactory) context.getBeanFactory();
+        Assertions.assertNotNull(beanFactory.getBeanDefinition("tb").getInstanceSupplier());
+        Assertions.assertNull(beanFactory.getBeanDefinition("field").getInstanceSupplier());
+        Assertions.assertEquals(Arrays.asList(lbf.getBeanDefinitionNames()), Arrays.asList(context.getBeanDefinitionNames()));
+
+        TestBeanPlus tbp = (TestBeanPlus) context.getBean("tbp");
+        Assertions.assertSame(context.getBean("tb"), tbp.getTestBean());
+        Assertions.assertEquals("1000ZDK", tbp.getInfo());
+        Assertions.assertSame(TestBean.class, context.getBean("tb").getClass());
+
+        TestLookupBean lookupBean = (TestLookupBean) context.getBean("lookup");
+        Assertions.assertFalse(lookupBean.getClass().getName().contains("$$"));
+        Assertions.assertSame(context.getBean("tb"), lookupBean.getTestBean());
+
+        TestConvertBean convertBean = (TestConvertBean) context.getBean("convert");
+        Assertions.assertEquals(8080, convertBean.getPort());
+        Assertions.assertEquals(TimeUnit.SECONDS, convertBean.getUnit());
+        Assertions.assertEquals(Duration.ofSeconds(30), convertBean.getTimeout());
+        Assertions.assertArrayEquals(new long[] {1, 2, 3}, convertBean.getIntervals());
+
+        TestFieldBean fieldBean = (TestFieldBean) context.getBean("field");
+        Assertions.assertEquals(5000L, fieldBean.getTimeout());
+        Assertions.assertEquals("label:x", fieldBean.getLabel());
+
+        // 生命周期和依赖关系与 XML 方式一致
+        Assertions.assertTrue(((DisposableTestBean) context.getBean("dataSource")).isOpened());
+        DisposableTestBean.DESTROYED.clear();
+        context.close();
+        Assertions.assertEquals(Arrays.asList("service", "repository", "dataSource", "dataSource:close"),
+                DisposableTestBean.DESTROYED);
+    }
+
+    private BeanFactoryInitializer compile(Path sourceFile) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assertions.assertNotNull(compiler, "tests must run on a JDK");
+        Path classes = Files.createDirectories(this.tempDir.resolve("classes"));
+        String classpath = location(BeanFactory.class) + File.pathSeparator + location(TestBean.class);
+        int result = compiler.run(null, null, null, "-proc:none", "-d", classes.toString(),
+                "-classpath", classpath, sourceFile.toString());
+        Assertions.assertEquals(0, result, "generated source does not compile");
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader());
+        return (BeanFactoryInitializer) classLoader.loadClass(CLASS_NAME).getDeclaredConstructor().newInstance();
+    }
+
+    private static String location(Class<?> clazz) throws Exception {
+        return Paths.get(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+}
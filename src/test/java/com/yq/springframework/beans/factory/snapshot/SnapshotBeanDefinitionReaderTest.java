@@ -0,0 +1,131 @@
+package com.yq.springframework.beans.factory.snapshot;
+
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import com.yq.springframework.core.io.DefaultResourceLoader;
+import com.yq.springframework.core.io.FileSystemResource;
+import com.yq.springframework.test.ComponentCompiler;
+import com.yq.springframework.test.Sample.beans.DisposableTestBean;
+import com.yq.springframework.test.Sample.beans.TestLookupBean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+public class SnapshotBeanDefinitionReaderTest {
+
+    private static final String[] LOCATIONS = {"classpath:spring-context-lookup.xml", "classpath:spring-context-destroy.xml"};
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * XML 解析出来的 BD 写入快照，再从快照读回来：注册顺序、各项配置都和 XML 一致
+     */
+    @Test
+    public void loadBeanDefinitions_roundTrip() throws IOException {
+        DefaultListableBeanFactory xmlLbf = new DefaultListableBeanFactory();
+        new XmlBeanDefinitionReader(xmlLbf).loadBeanDefinitions(LOCATIONS);
+        Map<String, Long> checksums = BeanDefinitionSnapshot.computeSourceChecksums(new DefaultResourceLoader(), LOCATIONS);
+        Path snapshotPath = this.tempDir.resolve("beans.snapshot");
+        new BeanDefinitionSnapshotWriter().write(snapshotPath, xmlLbf, checksums);
+
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        SnapshotBeanDefinitionReader reader = new SnapshotBeanDefinitionReader(lbf);
+        FileSystemResource snapshot = new FileSystemResource(snapshotPath);
+        Assertions.assertTrue(reader.isUpToDate(snapshot, checksums));
+        Assertions.assertEquals(xmlLbf.getBeanDefinitionCount(), reader.loadBeanDefinitions(snapshot));
+        Assertions.assertEquals(Arrays.asList(xmlLbf.getBeanDefinitionNames()), Arrays.asList(lbf.getBeanDefinitionNames()));
+
+        BeanDefinition dataSource = lbf.getBeanDefinition("dataSource");
+        Assertions.assertEquals("open", dataSource.getInitMethodName());
+        Assertions.assertEquals("close", dataSource.getDestroyMethodName());
+        Assertions.assertNull(lbf.getBeanDefinition("repository").getInitMethodName());
+
+        Assertions.assertSame(lbf.getBean("repository"), ((DisposableTestBean) lbf.getBean("service")).getDependency());
+        TestLookupBean lookupBean = (TestLookupBean) lbf.getBean("lookup");
+        Assertions.assertSame(lbf.getBean("tb"), lookupBean.getTestBean());
+        Assertions.assertEquals("1000ZDK", lookupBean.lookupInfo());
+    }
+
+    /**
+     * 配置文件的内容、列表变了，或者快照不存在、损坏，快照都不能再用
+     */
+    @Test
+    public void isUpToDate_sourcesChanged() throws IOException {
+        DefaultListableBeanFactory xmlLbf = new DefaultListableBeanFactory();
+        new XmlBeanDefinitionReader(xmlLbf).loadBeanDefinitions(LOCATIONS[0]);
+        Map<String, Long> checksums = BeanDefinitionSnapshot.computeSourceChecksums(new DefaultResourceLoader(), LOCATIONS[0]);
+        Path snapshotPath = this.tempDir.resolve("beans.snapshot");
+        new BeanDefinitionSnapshotWriter().write(snapshotPath, xmlLbf, checksums);
+
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        SnapshotBeanDefinitionReader reader = new SnapshotBeanDefinitionReader(lbf);
+        FileSystemResource snapshot = new FileSystemResource(snapshotPath);
+        Assertions.assertTrue(reader.isUpToDate(snapshot, checksums));
+        Assertions.assertFalse(reader.isUpToDate(snapshot,
+                Collections.singletonMap(LOCATIONS[0], checksums.get(LOCATIONS[0]) + 1)));
+        Assertions.assertFalse(reader.isUpToDate(snapshot,
+                BeanDefinitionSnapshot.computeSourceChecksums(new DefaultResourceLoader(), LOCATIONS)));
+        Assertions.assertFalse(reader.isUpToDate(new FileSystemResource(this.tempDir.resolve("missing.snapshot")), checksums));
+
+        // 只用流读取头部，不映射整个文件
+        FileSystemResource headerOnly = new FileSystemResource(snapshotPath) {
+            @Override
+            public ByteBuffer getByteBuffer() {
+                throw new AssertionError("isUpToDate 不应该映射整个快照文件");
+            }
+        };
+        Assertions.assertTrue(reader.isUpToDate(headerOnly, checksums));
+
+        // 截断的快照：头部还在，所以 isUpToDate 为 true，但加载时报错，并且不会注册任何 BD
+        byte[] content = Files.readAllBytes(snapshotPath);
+        Path truncated = this.tempDir.resolve("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(content, content.length - 8));
+        Assertions.assertThrows(BeanDefinitionStoreException.class,
+                () -> reader.loadBeanDefinitions(new FileSystemResource(truncated)));
+        Assertions.assertEquals(0, lbf.getBeanDefinitionCount());
+    }
+
+    /**
+     * 构建时生成的快照也记录了组件扫描的指纹：扫描的包中新增了组件，快照作废
+     */
+    @Test
+    public void generate_componentScanChanged() throws Exception {
+        Path classesDir = this.tempDir.resolve("classes");
+        ComponentCompiler.compileComponent(this.tempDir.resolve("src"), classesDir, "FirstComponent");
+        Files.write(classesDir.resolve("spring-context-scan-snapshot.xml"),
+                ("<beans><component-scan base-package=\"" + ComponentCompiler.COMPONENT_PACKAGE + "\"/></beans>")
+                        .getBytes(StandardCharsets.UTF_8));
+        String[] locations = {"classpath:spring-context-scan-snapshot.xml"};
+        Path snapshotPath = this.tempDir.resolve("beans.snapshot");
+
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classesDir.toUri().toURL()}, original)) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            Assertions.assertEquals(1, BeanDefinitionSnapshotWriter.generate(snapshotPath, locations));
+
+            SnapshotBeanDefinitionReader reader = new SnapshotBeanDefinitionReader(new DefaultListableBeanFactory());
+            FileSystemResource snapshot = new FileSystemResource(snapshotPath);
+            Map<String, Long> checksums = BeanDefinitionSnapshot.computeSourceChecksums(new DefaultResourceLoader(), locations);
+            Assertions.assertTrue(reader.isUpToDate(snapshot, checksums));
+
+            ComponentCompiler.compileComponent(this.tempDir.resolve("src"), classesDir, "SecondComponent");
+            Assertions.assertFalse(reader.isUpToDate(snapshot, checksums));
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+}
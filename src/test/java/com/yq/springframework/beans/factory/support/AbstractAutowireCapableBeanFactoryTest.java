@@ -7,6 +7,25 @@ import com.yq.springframework.beans.factory.config.BeanDefinition;
 import com.yq.springframework.beans.factory.config.BeanReference;
 import com.yq.springframework.test.Sample.beans.TestBean;
 import com.yq.springframework.test.Sample.beans.TestBeanPlus;
+import com.yq.springframework.test.Sample.beans.TestConvertBean;
+import com.yq.springframework.test.Sample.beans.TestFieldBean;
+import com.yq.springframework.beans.PropertyValue;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import cn.hutool.core.date.DateUtil;
+import com.yq.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import com.yq.springframework.test.Sample.beans.TestLookupBean;
+import com.yq.springframework.beans.factory.BeanInitializationException;
+import com.yq.springframework.beans.factory.BeanCurrentlyInCreationException;
+import com.yq.springframework.beans.factory.config.BeanPostProcessor;
+import com.yq.springframework.test.Sample.beans.CircularBeanA;
+import com.yq.springframework.test.Sample.beans.CircularBeanB;
+import com.yq.springframework.test.Sample.beans.LifecycleTestBean;
+import com.yq.springframework.beans.factory.BeanCreationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -56,6 +75,33 @@ public class AbstractAutowireCapableBeanFactoryTest {
         });
     }
 
+    /**
+     * 同一个 BD 按相同的参数类型创建 bean 时，复用第一次解析出来的构造器
+     */
+    @Test
+    public void createBeanInstance_constructorCached() throws Exception {
+        BeanDefinition bd = new BeanDefinition(TestBean.class);
+        Class<?>[] argTypes = new Class<?>[] {Integer.class, String.class};
+        Assertions.assertNull(bd.getResolvedConstructor(argTypes));
+
+        TestBean bean1 = (TestBean) abstractAutowireCapableBF.createBean("tb1", bd, new Object[] {1001, "Zhang San"});
+        Assertions.assertEquals(TestBean.class.getDeclaredConstructor(Integer.class, String.class),
+                bd.getResolvedConstructor(argTypes));
+
+        TestBean bean2 = (TestBean) abstractAutowireCapableBF.createBean("tb2", bd, new Object[] {1002, "Li Si"});
+        Assertions.assertEquals("1001Zhang San", bean1.info());
+        Assertions.assertEquals("1002Li Si", bean2.info());
+
+        // 参数类型不同，单独解析、单独缓存
+        Assertions.assertThrows(BeanInstantiationException.class,
+                () -> abstractAutowireCapableBF.createBean("tb3", bd, new Object[] {"1003", "Wang Wu"}));
+        Assertions.assertNull(bd.getResolvedConstructor(new Class<?>[] {String.class, String.class}));
+
+        // 更换 class 后缓存失效
+        bd.setBeanClass(TestBean.class);
+        Assertions.assertNull(bd.getResolvedConstructor(argTypes));
+    }
+
     /**
      * Bean 实例创建 并且没有配置参数
      */
@@ -116,4 +162,238 @@ public class AbstractAutowireCapableBeanFactoryTest {
         //Assert.assertEquals("1001Zhangsan",boss.getInfo());
 
     }
-}
\ No newline at end of file
+
+    /**
+     * 属性注入：String 值转换为属性类型、setter 优先、没有 setter 时注入字段、cglib 子类按父类解析
+     */
+    @Test
+    public void test_populate_injectors() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+
+        BeanDefinition fieldBd = new BeanDefinition(TestFieldBean.class);
+        fieldBd.getPropertyValues().addPropertyValue("timeout", "3000");
+        fieldBd.getPropertyValues().addPropertyValue("label", "yq");
+        lbf.registerBeanDefinition("fieldBean", fieldBd);
+
+        TestFieldBean fieldBean = (TestFieldBean) lbf.getBean("fieldBean");
+        Assertions.assertEquals(3000L, fieldBean.getTimeout());
+        Assertions.assertEquals("label:yq", fieldBean.getLabel());
+
+        BeanDefinition tbBd = new BeanDefinition(TestBean.class);
+        tbBd.getPropertyValues().addPropertyValue("id", "1000");
+        tbBd.getPropertyValues().addPropertyValue("name", "ZDK");
+        lbf.registerBeanDefinition("tb", tbBd);
+
+        BeanDefinition lookupBd = new BeanDefinition(TestLookupBean.class);
+        lookupBd.getMethodOverrides().addOverride(new LookupOverride("getTestBean", "tb"));
+        lbf.registerBeanDefinition("lookup", lookupBd);
+        Assertions.assertEquals("1000ZDK", ((TestLookupBean) lbf.getBean("lookup")).lookupInfo());
+
+        BeanDefinition badBd = new BeanDefinition(TestBean.class);
+        badBd.getPropertyValues().addPropertyValue("notExists", "1");
+        lbf.registerBeanDefinition("bad", badBd);
+        Assertions.assertThrows(BeanInitializationException.class, () -> lbf.getBean("bad"));
+    }
+
+    /**
+     * xml 中的 String 属性值在第一次创建 bean 时转换为属性类型，转换结果缓存在 BD 中
+     */
+    @Test
+    public void test_populate_convertedOnce() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        BeanDefinition bd = new BeanDefinition(TestConvertBean.class);
+        bd.getPropertyValues().addPropertyValue("port", "8080");
+        bd.getPropertyValues().addPropertyValue("unit", "SECONDS");
+        bd.getPropertyValues().addPropertyValue("timeout", "30s");
+        bd.getPropertyValues().addPropertyValue("type", "java.lang.String");
+        bd.getPropertyValues().addPropertyValue("intervals", "1,2,3");
+        lbf.registerBeanDefinition("convertBean", bd);
+
+        TestConvertBean bean = (TestConvertBean) lbf.getBean("convertBean");
+        Assertions.assertEquals(8080, bean.getPort());
+        Assertions.assertEquals(TimeUnit.SECONDS, bean.getUnit());
+        Assertions.assertEquals(Duration.ofSeconds(30), bean.getTimeout());
+        Assertions.assertEquals(String.class, bean.getType());
+        Assertions.assertArrayEquals(new long[] {1, 2, 3}, bean.getIntervals());
+
+        Assertions.assertTrue(bd.getPropertyValues().isConverted());
+        PropertyValue timeoutPv = bd.getPropertyValues().getPropertyValue("timeout");
+        Assertions.assertTrue(timeoutPv.isConverted());
+        Assertions.assertSame(bean.getTimeout(), timeoutPv.getConvertedValue());
+
+        // 转换失败包装为 BeanInitializationException
+        BeanDefinition badBd = new BeanDefinition(TestConvertBean.class);
+        badBd.getPropertyValues().addPropertyValue("unit", "WEEKS");
+        lbf.registerBeanDefinition("badConvertBean", badBd);
+        Assertions.assertThrows(BeanInitializationException.class, () -> lbf.getBean("badConvertBean"));
+    }
+
+    /**
+     * 没有注册转换器的类型 (Locale、Date、List 等) 交给 hutool 兜底，和以前 BeanUtil.setProperty 一样能从 xml 注入
+     */
+    @Test
+    public void test_populate_hutoolFallbackFromXml() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        new XmlBeanDefinitionReader(lbf).loadBeanDefinitions("classpath:spring-context-convert.xml");
+
+        TestConvertBean bean = (TestConvertBean) lbf.getBean("convertBean");
+        Assertions.assertEquals(8080, bean.getPort());
+        Assertions.assertEquals(Locale.SIMPLIFIED_CHINESE, bean.getLocale());
+        Assertions.assertEquals(DateUtil.parse("2024-01-02 03:04:05"), bean.getStartDate());
+        Assertions.assertEquals(Arrays.asList("a", "b"), bean.getTags());
+    }
+
+    /**
+     * BeanPostProcessor：按 bean 类型过滤处理器链、可以替换 bean、返回 null 时不再调用后续处理器
+     */
+    @Test
+    public void test_beanPostProcessors() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        List<String> processed = new ArrayList<>();
+        lbf.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public boolean supportsBeanType(Class<?> beanType) {
+                return TestBean.class.isAssignableFrom(beanType);
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                processed.add("testBean:" + beanName);
+                return bean;
+            }
+        });
+        lbf.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                processed.add("before:" + beanName);
+                return ("stop".equals(beanName) ? null : bean);
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                processed.add("after:" + beanName);
+                return ("replaced".equals(beanName) ? new TestBean(2002, "replaced") : bean);
+            }
+        });
+
+        lbf.registerBeanDefinition("tb", new BeanDefinition(TestBean.class));
+        lbf.registerBeanDefinition("replaced", new BeanDefinition(TestBean.class));
+        lbf.registerBeanDefinition("stop", new BeanDefinition(TestFieldBean.class));
+        lbf.registerBeanDefinition("fieldBean", new BeanDefinition(TestFieldBean.class));
+
+        lbf.getBean("tb");
+        Assertions.assertEquals("2002replaced", ((TestBean) lbf.getBean("replaced")).info());
+        lbf.getBean("stop");
+        lbf.getBean("fieldBean");
+
+        List<String> expected = new ArrayList<>();
+        expected.add("before:tb");
+        expected.add("testBean:tb");
+        expected.add("after:tb");
+        expected.add("before:replaced");
+        expected.add("testBean:replaced");
+        expected.add("after:replaced");
+        // 返回 null 时后面的初始化前处理器不再执行，初始化后处理照常执行
+        expected.add("before:stop");
+        expected.add("after:stop");
+        // 只处理 TestBean 的处理器不会被调用
+        expected.add("before:fieldBean");
+        expected.add("after:fieldBean");
+        Assertions.assertEquals(expected, processed);
+
+        // 按类型缓存的处理器链
+        Assertions.assertEquals(2, lbf.getBeanPostProcessorChain(TestBean.class).length);
+        Assertions.assertEquals(1, lbf.getBeanPostProcessorChain(TestFieldBean.class).length);
+        lbf.addBeanPostProcessor(new BeanPostProcessor() {
+        });
+        Assertions.assertEquals(2, lbf.getBeanPostProcessorChain(TestFieldBean.class).length);
+    }
+
+    /**
+     * 循环依赖时提前暴露的是原始对象，BeanPostProcessor 再把它替换掉就会导致依赖方持有的引用过期，直接失败
+     */
+    @Test
+    public void test_beanPostProcessors_wrapEarlyReference() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        lbf.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return (bean instanceof CircularBeanA ? new CircularBeanA() : bean);
+            }
+        });
+        MutablePropertyValues aPvs = new MutablePropertyValues();
+        aPvs.addPropertyValue("beanB", new BeanReference("b"));
+        lbf.registerBeanDefinition("a", new BeanDefinition(CircularBeanA.class, aPvs));
+        MutablePropertyValues bPvs = new MutablePropertyValues();
+        bPvs.addPropertyValue("beanA", new BeanReference("a"));
+        lbf.registerBeanDefinition("b", new BeanDefinition(CircularBeanB.class, bPvs));
+
+        Assertions.assertThrows(BeanCurrentlyInCreationException.class, () -> lbf.getBean("a"));
+    }
+
+    /**
+     * BeanPostProcessor 列表的快照：批量添加/移除，重复添加的移到末尾，拿到的列表不会被后续注册修改
+     */
+    @Test
+    public void test_beanPostProcessors_snapshot() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        BeanPostProcessor p1 = new BeanPostProcessor() {
+        };
+        BeanPostProcessor p2 = new BeanPostProcessor() {
+        };
+        BeanPostProcessor p3 = new BeanPostProcessor() {
+        };
+
+        lbf.addBeanPostProcessors(Arrays.asList(p1, p2, p1));
+        List<BeanPostProcessor> snapshot = lbf.getBeanPostProcessors();
+        Assertions.assertEquals(Arrays.asList(p1, p2), snapshot);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.add(p3));
+
+        lbf.addBeanPostProcessors(Arrays.asList(p3, p1));
+        Assertions.assertEquals(Arrays.asList(p2, p3, p1), lbf.getBeanPostProcessors());
+        Assertions.assertEquals(Arrays.asList(p1, p2), snapshot);
+        Assertions.assertEquals(3, lbf.getBeanPostProcessorChain(TestBean.class).length);
+
+        Assertions.assertTrue(lbf.removeBeanPostProcessors(Arrays.asList(p2, p1)));
+        Assertions.assertFalse(lbf.removeBeanPostProcessor(p1));
+        Assertions.assertEquals(1, lbf.getBeanPostProcessorCount());
+        Assertions.assertArrayEquals(new BeanPostProcessor[] {p3}, lbf.getBeanPostProcessorChain(TestBean.class));
+    }
+
+    /**
+     * 初始化方法：属性注入 -> afterPropertiesSet -> init-method (可以是私有方法)
+     */
+    @Test
+    public void test_initMethods() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        for (String beanName : new String[] {"lifecycle1", "lifecycle2"}) {
+            BeanDefinition bd = new BeanDefinition(LifecycleTestBean.class);
+            bd.getPropertyValues().addPropertyValue("name", beanName);
+            bd.setInitMethodName("init");
+            lbf.registerBeanDefinition(beanName, bd);
+        }
+
+        Assertions.assertEquals(Arrays.asList("setName", "afterPropertiesSet", "init:lifecycle1"),
+                ((LifecycleTestBean) lbf.getBean("lifecycle1")).getEvents());
+        Assertions.assertEquals(Arrays.asList("setName", "afterPropertiesSet", "init:lifecycle2"),
+                ((LifecycleTestBean) lbf.getBean("lifecycle2")).getEvents());
+
+        // init-method 和 afterPropertiesSet 是同一个方法时只调用一次
+        BeanDefinition sameBd = new BeanDefinition(LifecycleTestBean.class);
+        sameBd.setInitMethodName("afterPropertiesSet");
+        lbf.registerBeanDefinition("same", sameBd);
+        Assertions.assertEquals(Arrays.asList("afterPropertiesSet"), ((LifecycleTestBean) lbf.getBean("same")).getEvents());
+
+        BeanDefinition missingBd = new BeanDefinition(LifecycleTestBean.class);
+        missingBd.setInitMethodName("notExists");
+        lbf.registerBeanDefinition("missing", missingBd);
+        Assertions.assertThrows(BeanCreationException.class, () -> lbf.getBean("missing"));
+
+        BeanDefinition failingBd = new BeanDefinition(LifecycleTestBean.class);
+        failingBd.setInitMethodName("fail");
+        lbf.registerBeanDefinition("failing", failingBd);
+        BeanCreationException ex = Assertions.assertThrows(BeanCreationException.class, () -> lbf.getBean("failing"));
+        Assertions.assertTrue(ex.getCause() instanceof IllegalStateException);
+        Assertions.assertFalse(lbf.containsSingleton("failing"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.xml.StaxXmlBeanDefinitionReader;
+import com.yq.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import com.yq.springframework.core.io.ClassPathResource;
+import com.yq.springframework.core.io.Resource;
+import com.yq.springframework.test.Sample.beans.TestBeanPlus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AbstractBeanDefinitionReaderTest {
+
+    /**
+     * 并行加载的注册顺序和串行加载一致
+     */
+    @Test
+    public void loadBeanDefinitions_parallelKeepsDeclarationOrder() {
+        String[] locations = {"classpath:spring-context.xml", "classpath:spring-context-destroy.xml"};
+        DefaultListableBeanFactory serialLbf = new DefaultListableBeanFactory();
+        new XmlBeanDefinitionReader(serialLbf).loadBeanDefinitions(locations);
+
+        for (XmlBeanDefinitionReader reader : new XmlBeanDefinitionReader[] {
+                new XmlBeanDefinitionReader(new DefaultListableBeanFactory()),
+                new StaxXmlBeanDefinitionReader(new DefaultListableBeanFactory())}) {
+            reader.setLoadingParallelism(4);
+            int count = reader.loadBeanDefinitions(locations);
+            DefaultListableBeanFactory lbf = (DefaultListableBeanFactory) reader.getRegistry();
+
+            Assertions.assertEquals(serialLbf.getBeanDefinitionCount(), count);
+            Assertions.assertEquals(Arrays.asList(serialLbf.getBeanDefinitionNames()),
+                    Arrays.asList(lbf.getBeanDefinitionNames()));
+            Assertions.assertEquals("1000ZDK", ((TestBeanPlus) lbf.getBean("tbp")).getInfo());
+        }
+    }
+
+    /**
+     * 不同文件中的同名 bean：和串行加载一样，在声明靠后的那个文件处报错，之前的文件都已注册
+     */
+    @Test
+    public void loadBeanDefinitions_parallelDuplicated() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(lbf);
+        reader.setLoadingParallelism(4);
+
+        BeanDefinitionStoreException ex = Assertions.assertThrows(BeanDefinitionStoreException.class,
+                () -> reader.loadBeanDefinitions("classpath:spring-context.xml", "classpath:spring-context-lookup.xml"));
+        Assertions.assertEquals("已存在该名称[tb]的 bean 元信息! bean 名称不允许重复!", ex.getMessage());
+        Assertions.assertEquals(Arrays.asList("tb", "tbp"), Arrays.asList(lbf.getBeanDefinitionNames()));
+    }
+
+    /**
+     * 慢的 resource 不阻塞其他 resource 的读取，但仍按声明顺序合并
+     */
+    @Test
+    public void loadBeanDefinitions_slowResourceOverlaps() {
+        CountDownLatch fastRead = new CountDownLatch(1);
+        Resource slow = () -> {
+            try {
+                // 只有后面的 resource 被并发读取了，这里才能继续
+                Assertions.assertTrue(fastRead.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return new ClassPathResource("spring-context.xml").getInputStream();
+        };
+        Resource fast = () -> {
+            InputStream is = new ClassPathResource("spring-context-destroy.xml").getInputStream();
+            fastRead.countDown();
+            return is;
+        };
+
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(lbf);
+        reader.setLoadingParallelism(2);
+        reader.loadBeanDefinitions(slow, fast);
+
+        Assertions.assertEquals("tb", lbf.getBeanDefinitionNames()[0]);
+        Assertions.assertEquals("tbp", lbf.getBeanDefinitionNames()[1]);
+    }
+}
@@ -0,0 +1,64 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.MutablePropertyValues;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.config.BeanReference;
+import com.yq.springframework.test.Sample.beans.AllocatingBean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class BeanCreationMetricsTest {
+
+    private static final int MB = 1024 * 1024;
+
+    /**
+     * 嵌套创建的 bean 的内存分配不算在外层 bean 头上
+     */
+    @Test
+    public void exclusiveAllocation() {
+        BeanCreationMetrics metrics = new BeanCreationMetrics();
+        Assumptions.assumeTrue(metrics.isAllocationSupported());
+
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        lbf.setBeanCreationMetrics(metrics);
+
+        MutablePropertyValues innerPvs = new MutablePropertyValues();
+        innerPvs.addPropertyValue("size", "1048576");
+        lbf.registerBeanDefinition("inner", new BeanDefinition(AllocatingBean.class, innerPvs));
+
+        MutablePropertyValues outerPvs = new MutablePropertyValues();
+        outerPvs.addPropertyValue("size", "4194304");
+        outerPvs.addPropertyValue("dependency", new BeanReference("inner"));
+        lbf.registerBeanDefinition("outer", new BeanDefinition(AllocatingBean.class, outerPvs));
+
+        // outer 先创建，属性注入时嵌套创建 inner
+        lbf.getBean("outer");
+
+        BeanCreationMetrics.BeanMetrics inner = metrics.getBeanMetrics("inner");
+        BeanCreationMetrics.BeanMetrics outer = metrics.getBeanMetrics("outer");
+        Assertions.assertEquals(1, outer.getCreationCount());
+        Assertions.assertTrue(inner.getAllocatedBytes() >= MB);
+        Assertions.assertTrue(outer.getAllocatedBytes() >= 4L * MB);
+        Assertions.assertTrue(outer.getAllocatedBytes() < 5L * MB, outer.toString());
+        Assertions.assertTrue(outer.getTotalAllocatedBytes() >= 5L * MB);
+        Assertions.assertEquals(outer.getTotalAllocatedBytes(), outer.getAllocatedBytes() + inner.getTotalAllocatedBytes());
+
+        List<BeanCreationMetrics.BeanMetrics> all = metrics.getAllBeanMetrics();
+        Assertions.assertEquals("outer", all.get(0).getBeanName());
+        Assertions.assertTrue(metrics.report().contains("inner"));
+    }
+
+    /**
+     * 没有开启统计时不记录
+     */
+    @Test
+    public void disabledByDefault() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        Assertions.assertNull(lbf.getBeanCreationMetrics());
+        lbf.registerBeanDefinition("bean", new BeanDefinition(AllocatingBean.class));
+        Assertions.assertNotNull(lbf.getBean("bean"));
+    }
+}
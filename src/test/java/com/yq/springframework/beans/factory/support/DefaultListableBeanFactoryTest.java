@@ -1,11 +1,33 @@
 package com.yq.springframework.beans.factory.support;
 
+import com.yq.springframework.beans.MutablePropertyValues;
+import com.yq.springframework.beans.factory.CannotLoadBeanClassException;
 import com.yq.springframework.beans.factory.NoSuchBeanDefinitionException;
 import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.config.BeanReference;
+import com.yq.springframework.test.Sample.beans.CircularBeanA;
+import com.yq.springframework.test.Sample.beans.CircularBeanB;
+import com.yq.springframework.test.Sample.beans.DisposableTestBean;
+import com.yq.springframework.test.Sample.beans.SlowInitBean;
 import com.yq.springframework.test.Sample.beans.TestBean;
+import com.yq.springframework.test.Sample.beans.TestBeanPlus;
+import com.yq.springframework.test.Sample.beans.TestLookupBean;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 
 public class DefaultListableBeanFactoryTest {
 
@@ -52,4 +74,362 @@ public class DefaultListableBeanFactoryTest {
 
         Assertions.assertEquals("TestBean I am",tb.speakSelf());
     }
-}
\ No newline at end of file
+
+    /**
+     * 只有存在方法注入的 bean 才生成 cglib 子类，且同一个 bean class 只生成一次
+     */
+    @Test
+    public void testEnhancedSubclassReuse() {
+        lbf.registerBeanDefinition("tb", new BeanDefinition(TestBean.class));
+        for (int i = 0; i < 3; i++) {
+            BeanDefinition bd = new BeanDefinition(TestLookupBean.class);
+            bd.getMethodOverrides().addOverride(new LookupOverride("getTestBean", "tb"));
+            lbf.registerBeanDefinition("lookup" + i, bd);
+        }
+
+        TestLookupBean lookup0 = (TestLookupBean) lbf.getBean("lookup0");
+        TestLookupBean lookup1 = (TestLookupBean) lbf.getBean("lookup1");
+        TestLookupBean lookup2 = (TestLookupBean) lbf.getBean("lookup2");
+
+        Assertions.assertSame(TestBean.class, lbf.getBean("tb").getClass());
+        Assertions.assertSame(lbf.getBean("tb"), lookup0.getTestBean());
+        Assertions.assertSame(lookup0.getClass(), lookup1.getClass());
+        Assertions.assertSame(lookup0.getClass(), lookup2.getClass());
+
+        CglibSubclassingInstantiationStrategy strategy = (CglibSubclassingInstantiationStrategy) lbf.getInstantiationStrategy();
+        Assertions.assertEquals(1, strategy.getEnhancedSubclassCount());
+        Assertions.assertEquals(2, strategy.getEnhancedSubclassCacheHits());
+    }
+
+    /**
+     * 按类型查询 beanNames：父类、接口均可查到，结果按注册顺序；
+     * 查询过之后再注册新的 BD (比如 BDRPP 在后处理阶段注册)，缓存要能正确失效
+     */
+    @Test
+    public void testGetBeanNamesForType() {
+        lbf.registerBeanDefinition("tb", new BeanDefinition(TestBean.class));
+        lbf.registerBeanDefinition("tbp", new BeanDefinition(TestBeanPlus.class));
+
+        Assertions.assertArrayEquals(new String[]{"tb"}, lbf.getBeanNamesForType(TestBean.class));
+        Assertions.assertArrayEquals(new String[]{"tb", "tbp"}, lbf.getBeanNamesForType(Object.class));
+        Assertions.assertArrayEquals(new String[0], lbf.getBeanNamesForType(Runnable.class));
+
+        // 查询之后新增 BD
+        lbf.registerBeanDefinition("tb2", new BeanDefinition(TestBean.class));
+        lbf.registerBeanDefinition("task", new BeanDefinition(Thread.class));
+        Assertions.assertArrayEquals(new String[]{"tb", "tb2"}, lbf.getBeanNamesForType(TestBean.class));
+        Assertions.assertArrayEquals(new String[]{"task"}, lbf.getBeanNamesForType(Runnable.class));
+
+        // 同名 BD 覆盖为其他类型
+        lbf.registerBeanDefinition("tb2", new BeanDefinition(TestBeanPlus.class));
+        Assertions.assertArrayEquals(new String[]{"tb"}, lbf.getBeanNamesForType(TestBean.class));
+        Assertions.assertArrayEquals(new String[]{"tbp", "tb2"}, lbf.getBeanNamesForType(TestBeanPlus.class));
+
+        // 修改返回的数组不能影响缓存
+        lbf.getBeanNamesForType(TestBean.class)[0] = "polluted";
+        Assertions.assertArrayEquals(new String[]{"tb"}, lbf.getBeanNamesForType(TestBean.class));
+    }
+
+    /**
+     * 循环依赖 A->B->A：B 注入的是 A 提前暴露的引用
+     */
+    @Test
+    public void testCircularReference() {
+        registerCircularBeans(lbf);
+
+        CircularBeanA a = (CircularBeanA) lbf.getBean("a");
+        CircularBeanB b = (CircularBeanB) lbf.getBean("b");
+
+        Assertions.assertSame(b, a.getBeanB());
+        Assertions.assertSame(a, b.getBeanA());
+    }
+
+    /**
+     * 两个线程同时分别从 A、B 开始创建，互相依赖时不能死锁
+     */
+    @Test
+    public void testCircularReferenceAcrossThreads() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+            registerCircularBeans(factory);
+
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> fa = pool.submit(() -> { start.await(); return factory.getBean("a"); });
+                Future<?> fb = pool.submit(() -> { start.await(); return factory.getBean("b"); });
+                start.countDown();
+
+                CircularBeanA a = (CircularBeanA) fa.get(10, TimeUnit.SECONDS);
+                CircularBeanB b = (CircularBeanB) fb.get(10, TimeUnit.SECONDS);
+                Assertions.assertSame(b, a.getBeanB());
+                Assertions.assertSame(a, b.getBeanA());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static void registerCircularBeans(DefaultListableBeanFactory factory) {
+        MutablePropertyValues aPvs = new MutablePropertyValues();
+        aPvs.addPropertyValue("beanB", new BeanReference("b"));
+        factory.registerBeanDefinition("a", new BeanDefinition(CircularBeanA.class, aPvs));
+
+        MutablePropertyValues bPvs = new MutablePropertyValues();
+        bPvs.addPropertyValue("beanA", new BeanReference("a"));
+        factory.registerBeanDefinition("b", new BeanDefinition(CircularBeanB.class, bPvs));
+    }
+
+    /**
+     * 并发 getBean：64 个线程同时 getBean，每个 beanName 只能有一个实例
+     * - cold: bean 尚未创建，所有线程同时去抢着创建
+     * - warm: bean 已经在单例池中，走无锁读取
+     * 耗时见 yq-spring-benchmark 中的 GetBeanBenchmark
+     */
+    @Test
+    public void testConcurrentGetBean() throws Exception {
+        int threads = 64;
+        int beanCount = 32;
+        int rounds = 200;
+        for (int i = 0; i < beanCount; i++) {
+            lbf.registerBeanDefinition("tb" + i, new BeanDefinition(TestBean.class));
+        }
+
+        // beanName ==> 各线程拿到的实例(按引用去重)
+        ConcurrentHashMap<String, Set<Object>> instances = new ConcurrentHashMap<>();
+        for (int i = 0; i < beanCount; i++) {
+            instances.put("tb" + i, Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>())));
+        }
+
+        runConcurrently(threads, () -> {
+            for (int i = 0; i < beanCount; i++) {
+                instances.get("tb" + i).add(lbf.getBean("tb" + i));
+            }
+        });
+        instances.forEach((beanName, created) ->
+                Assertions.assertEquals(1, created.size(), "bean[" + beanName + "] 被创建了多次"));
+
+        runConcurrently(threads, () -> {
+            for (int r = 0; r < rounds; r++) {
+                for (int i = 0; i < beanCount; i++) {
+                    instances.get("tb" + i).add(lbf.getBean("tb" + i));
+                }
+            }
+        });
+        instances.forEach((beanName, created) ->
+                Assertions.assertEquals(1, created.size(), "bean[" + beanName + "] 被创建了多次"));
+    }
+
+    /**
+     * 所有线程就绪后同时开始执行 task，等待全部执行完
+     */
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch ready = new CountDownLatch(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            ready.await();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 并行预实例化：互不依赖的 bean 并行创建，被依赖的 bean 完整创建好之后才会注入给依赖方
+     * 循环依赖的 bean 在并行阶段之后串行创建
+     */
+    @Test
+    public void testParallelPreInstantiateSingletons() {
+        SlowInitBean.CREATION_THREADS.clear();
+        lbf.setPreInstantiationParallelism(4);
+        // root <- mid-i <- leaf-i，以及 8 个独立的 bean
+        registerSlowBean("root", null);
+        for (int i = 0; i < 4; i++) {
+            registerSlowBean("leaf-" + i, "mid-" + i);
+            registerSlowBean("mid-" + i, "root");
+        }
+        for (int i = 0; i < 8; i++) {
+            registerSlowBean("independent-" + i, null);
+        }
+        registerCircularBeans(lbf);
+
+        lbf.preInstantiateSingletons();
+
+        for (int i = 0; i < 4; i++) {
+            SlowInitBean leaf = (SlowInitBean) lbf.getSingleton("leaf-" + i);
+            Assertions.assertSame(lbf.getSingleton("mid-" + i), leaf.getDependency());
+            Assertions.assertSame(lbf.getSingleton("root"), leaf.getDependency().getDependency());
+        }
+        for (int i = 0; i < 8; i++) {
+            Assertions.assertTrue(lbf.containsSingleton("independent-" + i));
+        }
+        CircularBeanA a = (CircularBeanA) lbf.getSingleton("a");
+        Assertions.assertSame(a, a.getBeanB().getBeanA());
+
+        Assertions.assertTrue(SlowInitBean.CREATION_THREADS.stream().allMatch(name -> name.startsWith("singleton-preinstantiation-")));
+        Assertions.assertTrue(SlowInitBean.CREATION_THREADS.size() > 1);
+    }
+
+    /**
+     * 并行预实例化失败时，抛出注册顺序最靠前的失败 bean 的异常，依赖它的 bean 不会被创建
+     */
+    @Test
+    public void testParallelPreInstantiateSingletonsFailure() {
+        lbf.setPreInstantiationParallelism(4);
+        registerSlowBean("ok", null);
+        BeanDefinition broken = new BeanDefinition(SlowInitBean.class);
+        broken.getPropertyValues().addPropertyValue("unknownProperty", "value");
+        lbf.registerBeanDefinition("broken", broken);
+        registerSlowBean("dependsOnBroken", "broken");
+
+        RuntimeException ex = Assertions.assertThrows(RuntimeException.class, lbf::preInstantiateSingletons);
+        Assertions.assertTrue(ex.getMessage().contains("broken"));
+        Assertions.assertFalse(lbf.containsSingleton("dependsOnBroken"));
+    }
+
+    private void registerSlowBean(String beanName, String dependency) {
+        MutablePropertyValues pvs = new MutablePropertyValues();
+        pvs.addPropertyValue("name", beanName);
+        if (dependency != null) {
+            pvs.addPropertyValue("dependency", new BeanReference(dependency));
+        }
+        lbf.registerBeanDefinition(beanName, new BeanDefinition(SlowInitBean.class, pvs));
+    }
+
+    /**
+     * 销毁单例：依赖方先于被依赖方销毁，互不依赖的分支并行销毁，销毁后单例池清空
+     */
+    @Test
+    public void testDestroySingletonsInDependencyOrder() {
+        DisposableTestBean.DESTROYED.clear();
+        lbf.setDestructionParallelism(4);
+        for (int branch = 0; branch < 4; branch++) {
+            String previous = null;
+            for (int depth = 0; depth < 3; depth++) {
+                String beanName = "b" + branch + "_" + depth;
+                registerDisposableBean(beanName, previous, 0);
+                previous = beanName;
+            }
+        }
+        // 没有被任何 bean 依赖、自己也不需要销毁的 bean
+        lbf.registerBeanDefinition("plain", new BeanDefinition(TestBean.class));
+        lbf.preInstantiateSingletons();
+
+        lbf.destroySingletons();
+
+        List<String> destroyed = DisposableTestBean.DESTROYED;
+        Assertions.assertEquals(12, destroyed.size(), destroyed::toString);
+        for (int branch = 0; branch < 4; branch++) {
+            Assertions.assertTrue(destroyed.indexOf("b" + branch + "_2") < destroyed.indexOf("b" + branch + "_1"));
+            Assertions.assertTrue(destroyed.indexOf("b" + branch + "_1") < destroyed.indexOf("b" + branch + "_0"));
+        }
+        Assertions.assertFalse(lbf.containsSingleton("b0_0"));
+        Assertions.assertFalse(lbf.containsSingleton("plain"));
+        Assertions.assertEquals(0, lbf.getDependentBeans("b0_0").length);
+
+        // BD 还在，可以重新创建
+        Assertions.assertNotNull(lbf.getBean("b0_1"));
+    }
+
+    /**
+     * 销毁超时：不再等待卡住的 bean，其他 bean 照常销毁
+     */
+    @Test
+    public void testDestroySingletonsTimeout() {
+        DisposableTestBean.DESTROYED.clear();
+        lbf.setDestructionParallelism(2);
+        lbf.setDestructionTimeout(Duration.ofMillis(200));
+        registerDisposableBean("stuck", null, 10_000);
+        registerDisposableBean("fast", null, 0);
+        lbf.preInstantiateSingletons();
+
+        long start = System.nanoTime();
+        lbf.destroySingletons();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assertions.assertTrue(elapsedMillis < 5_000, "took " + elapsedMillis + "ms");
+        Assertions.assertEquals(Collections.singletonList("fast"), DisposableTestBean.DESTROYED);
+        Assertions.assertFalse(lbf.containsSingleton("stuck"));
+    }
+
+    /**
+     * 只记录类名的 BD：注册时不加载 class，按类型查询时批量加载、按注册顺序重建索引
+     */
+    @Test
+    public void testDeferredBeanClassResolution() {
+        lbf.registerBeanDefinition("tb", new BeanDefinition(TestBean.class));
+        BeanDefinition deferred = new BeanDefinition();
+        deferred.setBeanClassName(TestBeanPlus.class.getName());
+        lbf.registerBeanDefinition("tbp", deferred);
+        lbf.registerBeanDefinition("tb2", new BeanDefinition(TestBean.class));
+        Assertions.assertFalse(deferred.hasBeanClass());
+
+        Assertions.assertArrayEquals(new String[]{"tb", "tbp", "tb2"}, lbf.getBeanNamesForType(Object.class));
+        Assertions.assertArrayEquals(new String[]{"tb", "tb2"}, lbf.getBeanNamesForType(TestBean.class));
+        Assertions.assertTrue(deferred.hasBeanClass());
+
+        // 查询之后再注册只记录类名的 BD，缓存要失效
+        BeanDefinition another = new BeanDefinition();
+        another.setBeanClassName(TestBean.class.getName());
+        lbf.registerBeanDefinition("tb3", another);
+        Assertions.assertArrayEquals(new String[]{"tb", "tb2", "tb3"}, lbf.getBeanNamesForType(TestBean.class));
+
+        // 没有查询过类型，getBean 时加载
+        BeanDefinition onDemand = new BeanDefinition();
+        onDemand.setBeanClassName(TestBean.class.getName());
+        lbf.registerBeanDefinition("onDemand", onDemand);
+        Assertions.assertTrue(lbf.getBean("onDemand") instanceof TestBean);
+    }
+
+    /**
+     * 批量并行加载：加载失败的 bean 不影响其他 bean，全部汇总到一个异常中
+     */
+    @Test
+    public void testResolveBeanClassesInParallel() {
+        lbf.setBeanClassResolutionParallelism(4);
+        String[] classNames = {TestBean.class.getName(), "com.example.Missing1", TestBeanPlus.class.getName(),
+                SlowInitBean.class.getName(), "com.example.Missing2", CircularBeanA.class.getName()};
+        for (int i = 0; i < classNames.length; i++) {
+            BeanDefinition bd = new BeanDefinition();
+            bd.setBeanClassName(classNames[i]);
+            lbf.registerBeanDefinition("bean" + i, bd);
+        }
+
+        CannotLoadBeanClassException ex = Assertions.assertThrows(CannotLoadBeanClassException.class,
+                () -> lbf.resolveBeanClasses());
+        Assertions.assertEquals(2, ex.getFailures().size());
+        Assertions.assertEquals("bean1", ex.getFailures().get(0).getBeanName());
+        Assertions.assertEquals("com.example.Missing2", ex.getFailures().get(1).getBeanClassName());
+        for (int i : new int[] {0, 2, 3, 5}) {
+            Assertions.assertTrue(lbf.getBeanDefinition("bean" + i).hasBeanClass());
+        }
+        Assertions.assertFalse(lbf.getBeanDefinition("bean4").hasBeanClass());
+
+        // 按类型查询同样汇总报错
+        Assertions.assertThrows(CannotLoadBeanClassException.class, () -> lbf.getBeanNamesForType(TestBean.class));
+        Assertions.assertThrows(CannotLoadBeanClassException.class, () -> lbf.getBean("bean1"));
+    }
+
+    private void registerDisposableBean(String beanName, String dependency, long destroyMillis) {
+        MutablePropertyValues pvs = new MutablePropertyValues();
+        pvs.addPropertyValue("name", beanName);
+        pvs.addPropertyValue("destroyMillis", destroyMillis);
+        if (dependency != null) {
+            pvs.addPropertyValue("dependency", new BeanReference(dependency));
+        }
+        lbf.registerBeanDefinition(beanName, new BeanDefinition(DisposableTestBean.class, pvs));
+    }
+}
@@ -1,6 +1,8 @@
 package com.yq.springframework.beans.factory.support;
 
 
+import com.yq.springframework.beans.factory.BeanCurrentlyInCreationException;
+import com.yq.springframework.beans.factory.ObjectFactory;
 import com.yq.springframework.test.Sample.beans.TestBean;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -22,4 +24,49 @@ public class DefaultSingletonBeanRegistryTest {
         Assertions.assertSame(testBean,singletonRegistry.getSingleton("tb"));
     }
 
-}
\ No newline at end of file
+    /**
+     * 单例池中不存在时，通过 singletonFactory 创建并放入单例池；已存在时不会再调用 singletonFactory
+     */
+    @Test
+    public void testGetSingletonWithFactory(){
+        TestBean testBean = new TestBean(1000,"someTestBean");
+
+        Assertions.assertSame(testBean, singletonRegistry.getSingleton("tb", () -> testBean));
+        Assertions.assertSame(testBean, singletonRegistry.getSingleton("tb", () -> {
+            throw new IllegalStateException("单例已存在, 不应该再次创建");
+        }));
+        Assertions.assertTrue(singletonRegistry.containsSingleton("tb"));
+    }
+
+    /**
+     * 创建过程中又要求创建自己，并且拿不到提前暴露的引用 —— 无法解决的循环依赖，应该直接失败而不是栈溢出
+     */
+    @Test
+    public void testUnresolvableCircularReference(){
+        Assertions.assertThrows(BeanCurrentlyInCreationException.class, () ->
+                singletonRegistry.getSingleton("tb", new ObjectFactory<Object>() {
+                    @Override
+                    public Object getObject() {
+                        return singletonRegistry.getSingleton("tb", this);
+                    }
+                }));
+        Assertions.assertFalse(singletonRegistry.isSingletonCurrentlyInCreation("tb"));
+        Assertions.assertNull(singletonRegistry.getSingleton("tb"));
+    }
+
+    /**
+     * 提前暴露的引用只对正在创建它的线程可见
+     */
+    @Test
+    public void testEarlyReference(){
+        TestBean testBean = new TestBean(1000,"someTestBean");
+
+        Object created = singletonRegistry.getSingleton("tb", () -> {
+            singletonRegistry.addSingletonFactory("tb", () -> testBean);
+            Assertions.assertSame(testBean, singletonRegistry.getSingleton("tb"));
+            return testBean;
+        });
+        Assertions.assertSame(testBean, created);
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.yq.springframework.beans.factory.support;
+
+import com.yq.springframework.beans.BeanInstantiationException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.test.Sample.beans.TestBean;
+import com.yq.springframework.test.Sample.beans.TestLookupBean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MethodHandleInstantiationStrategyTest {
+
+    private final MethodHandleInstantiationStrategy strategy = new MethodHandleInstantiationStrategy();
+
+    /**
+     * 无参构造器、有参构造器(含基本类型拆箱)都能创建实例，同一个构造器只解析一次
+     */
+    @Test
+    public void instantiate() throws Exception {
+        BeanDefinition bd = new BeanDefinition(TestBean.class);
+
+        TestBean noArg1 = (TestBean) strategy.instantiate(bd, "tb", null, null, null);
+        TestBean noArg2 = (TestBean) strategy.instantiate(bd, "tb", null, null, null);
+        Assertions.assertNotSame(noArg1, noArg2);
+        Assertions.assertEquals("9999999YOUR TEST WENT WRONG! PLEASE CHECK!", noArg1.info());
+
+        TestBean withArgs = (TestBean) strategy.instantiate(bd, "tb",
+                null, TestBean.class.getDeclaredConstructor(int.class, String.class), new Object[] {1001, "Zhang San"});
+        Assertions.assertEquals("1001Zhang San", withArgs.info());
+
+        Assertions.assertEquals(2, strategy.getInvokerCount());
+    }
+
+    /**
+     * 非 public 的类和构造器走 MethodHandle，构造器抛出的异常包装为 BeanInstantiationException
+     */
+    @Test
+    public void instantiate_nonPublic() {
+        BeanDefinition bd = new BeanDefinition(HiddenBean.class);
+        Assertions.assertEquals("hidden", ((HiddenBean) strategy.instantiate(bd, "hidden", null, null, null)).value);
+
+        BeanDefinition failingBd = new BeanDefinition(FailingBean.class);
+        Assertions.assertThrows(BeanInstantiationException.class,
+                () -> strategy.instantiate(failingBd, "failing", null, null, null));
+    }
+
+    /**
+     * 方法注入时仍然使用 cglib 子类
+     */
+    @Test
+    public void instantiate_withMethodInjection() {
+        DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+        lbf.setInstantiationStrategy(strategy);
+        lbf.registerBeanDefinition("tb", new BeanDefinition(TestBean.class));
+        BeanDefinition bd = new BeanDefinition(TestLookupBean.class);
+        bd.getMethodOverrides().addOverride(new LookupOverride("getTestBean", "tb"));
+        lbf.registerBeanDefinition("lookup", bd);
+
+        TestLookupBean lookupBean = (TestLookupBean) lbf.getBean("lookup");
+        Assertions.assertSame(lbf.getBean("tb"), lookupBean.getTestBean());
+    }
+
+    static class HiddenBean {
+        final String value;
+
+        private HiddenBean() {
+            this.value = "hidden";
+        }
+    }
+
+    public static class FailingBean {
+        public FailingBean() {
+            throw new IllegalStateException("constructor failed");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.yq.springframework.beans.factory.xml;
+
+import com.yq.springframework.beans.PropertyValue;
+import com.yq.springframework.beans.factory.BeanDefinitionStoreException;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.config.BeanReference;
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.test.Sample.beans.TestBeanPlus;
+import com.yq.springframework.test.Sample.beans.TestLookupBean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class StaxXmlBeanDefinitionReaderTest {
+
+    DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+    StaxXmlBeanDefinitionReader bdReader = new StaxXmlBeanDefinitionReader(lbf);
+
+    /**
+     * 流式解析的结果和 DOM 方式一致：bean 名称、注册顺序、各项元信息
+     */
+    @Test
+    public void loadBeanDefinitions_sameAsDom() {
+        for (String location : new String[] {"classpath:spring-context.xml", "classpath:spring-context-lazy.xml",
+                "classpath:spring-context-lookup.xml", "classpath:spring-context-destroy.xml"}) {
+            DefaultListableBeanFactory domLbf = new DefaultListableBeanFactory();
+            new XmlBeanDefinitionReader(domLbf).loadBeanDefinitions(location);
+            DefaultListableBeanFactory staxLbf = new DefaultListableBeanFactory();
+            new StaxXmlBeanDefinitionReader(staxLbf).loadBeanDefinitions(location);
+
+            Assertions.assertEquals(Arrays.asList(domLbf.getBeanDefinitionNames()),
+                    Arrays.asList(staxLbf.getBeanDefinitionNames()), location);
+            for (String name : domLbf.getBeanDefinitionNames()) {
+                assertSameDefinition(domLbf.getBeanDefinition(name), staxLbf.getBeanDefinition(name));
+            }
+        }
+
+        bdReader.loadBeanDefinitions("classpath:spring-context-lookup.xml");
+        TestLookupBean lookupBean = (TestLookupBean) lbf.getBean("lookup");
+        Assertions.assertSame(lbf.getBean("tb"), lookupBean.getTestBean());
+    }
+
+    /**
+     * 重复名称的报错和 DOM 方式一致，在重复的 <bean> 处立即失败
+     */
+    @Test
+    public void loadBeanDefinitions_duplicated() {
+        BeanDefinitionStoreException ex = Assertions.assertThrows(BeanDefinitionStoreException.class,
+                () -> bdReader.loadBeanDefinitions("classpath:spring-context-duplicatedBean.xml"));
+        Assertions.assertEquals("已存在该名称[tbp]的 bean 元信息! bean 名称不允许重复!", ex.getMessage());
+    }
+
+    /**
+     * 命名规则：id 优先，其次 name，都没有时用类名首字母小写；非 <beans> 直接子元素的 <bean> 不解析
+     */
+    @Test
+    public void doLoadBeanDefinition_namingAndNesting() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<beans xmlns=\"http://www.springframework.org/schema/beans\">\n"
+                + "  <bean id=\"a\" name=\"ignored\" class=\"com.yq.springframework.test.Sample.beans.TestBean\"/>\n"
+                + "  <bean name=\"b\" class=\"com.yq.springframework.test.Sample.beans.TestBean\">\n"
+                + "    <description><bean id=\"nested\" class=\"com.yq.springframework.test.Sample.beans.TestBean\"/></description>\n"
+                + "    <property name=\"name\" value=\"b\"/>\n"
+                + "  </bean>\n"
+                + "  <bean class=\"com.yq.springframework.test.Sample.beans.TestBeanPlus\">\n"
+                + "    <property name=\"testBean\" ref=\"b\"/>\n"
+                + "  </bean>\n"
+                + "</beans>";
+        int count = bdReader.doLoadBeanDefinition(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(3, count);
+        Assertions.assertEquals(Arrays.asList("a", "b", "testBeanPlus"), Arrays.asList(lbf.getBeanDefinitionNames()));
+        Assertions.assertEquals(1, lbf.getBeanDefinition("b").getPropertyValues().getPropertyValues().length);
+        Assertions.assertSame(lbf.getBean("b"), ((TestBeanPlus) lbf.getBean("testBeanPlus")).getTestBean());
+    }
+
+    @Test
+    public void doLoadBeanDefinition_malformed() {
+        String xml = "<beans><bean id=\"a\" class=\"com.yq.springframework.test.Sample.beans.TestBean\"></beans>";
+        BeanDefinitionStoreException ex = Assertions.assertThrows(BeanDefinitionStoreException.class,
+                () -> bdReader.doLoadBeanDefinition(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertTrue(ex.getMessage().startsWith("解析 XML 失败 (行 1"), ex.getMessage());
+    }
+
+    private static void assertSameDefinition(BeanDefinition expected, BeanDefinition actual) {
+        Assertions.assertSame(expected.getBeanClass(), actual.getBeanClass());
+        Assertions.assertEquals(expected.isLazyInit(), actual.isLazyInit());
+        Assertions.assertEquals(expected.getInitMethodName(), actual.getInitMethodName());
+        Assertions.assertEquals(expected.getDestroyMethodName(), actual.getDestroyMethodName());
+        Assertions.assertEquals(expected.getMethodOverrides().isEmpty(), actual.getMethodOverrides().isEmpty());
+
+        PropertyValue[] expectedPvs = expected.getPropertyValues().getPropertyValues();
+        PropertyValue[] actualPvs = actual.getPropertyValues().getPropertyValues();
+        Assertions.assertEquals(expectedPvs.length, actualPvs.length);
+        for (int i = 0; i < expectedPvs.length; i++) {
+            Assertions.assertEquals(expectedPvs[i].getName(), actualPvs[i].getName());
+            Object expectedValue = expectedPvs[i].getValue();
+            Object actualValue = actualPvs[i].getValue();
+            if (expectedValue instanceof BeanReference) {
+                Assertions.assertEquals(((BeanReference) expectedValue).getBeanName(),
+                        ((BeanReference) actualValue).getBeanName());
+            } else {
+                Assertions.assertEquals(expectedValue, actualValue);
+            }
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.yq.springframework.beans.factory.xml;
 
+import com.yq.springframework.beans.factory.CannotLoadBeanClassException;
 import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.test.Sample.beans.TestBean;
 import com.yq.springframework.test.Sample.beans.TestBeanPlus;
+import com.yq.springframework.test.Sample.beans.TestLookupBean;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
 public class XmlBeanDefinitionReaderTest {
 
     DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
@@ -51,4 +57,66 @@ public class XmlBeanDefinitionReaderTest {
                     e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 测试 lookup-method 方法注入
+     */
+    @Test
+    public void loadBeanDefinitions_lookupMethod() {
+        bdReader.loadBeanDefinitions("classpath:spring-context-lookup.xml");
+
+        TestLookupBean lookupBean = (TestLookupBean) lbf.getBean("lookup");
+
+        Assertions.assertSame(lbf.getBean("tb"), lookupBean.getTestBean());
+        Assertions.assertEquals("1000ZDK", lookupBean.lookupInfo());
+        // 没有方法注入的 bean 不再生成 cglib 子类
+        Assertions.assertSame(TestBean.class, lbf.getBean("tb").getClass());
+    }
+
+    /**
+     * 测试 lazy-init、default-lazy-init：
+     * - 预实例化时跳过 lazy-init 的 bean，但被非 lazy-init 的 bean 引用时，会在属性注入时被创建
+     * - 开启延迟解析代理后，注入的是代理，第一次调用时才创建
+     */
+    @Test
+    public void loadBeanDefinitions_lazyInit() {
+        bdReader.loadBeanDefinitions("classpath:spring-context-lazy.xml");
+        Assertions.assertTrue(lbf.getBeanDefinition("tb").isLazyInit());
+        Assertions.assertTrue(lbf.getBeanDefinition("unused").isLazyInit());
+        Assertions.assertFalse(lbf.getBeanDefinition("plus").isLazyInit());
+
+        lbf.preInstantiateSingletons();
+        Assertions.assertTrue(lbf.containsSingleton("plus"));
+        Assertions.assertTrue(lbf.containsSingleton("tb"));
+        Assertions.assertFalse(lbf.containsSingleton("unused"));
+
+        DefaultListableBeanFactory proxyLbf = new DefaultListableBeanFactory();
+        proxyLbf.setLazyResolutionProxies(true);
+        new XmlBeanDefinitionReader(proxyLbf).loadBeanDefinitions("classpath:spring-context-lazy.xml");
+        proxyLbf.preInstantiateSingletons();
+        Assertions.assertTrue(proxyLbf.containsSingleton("plus"));
+        Assertions.assertFalse(proxyLbf.containsSingleton("tb"));
+
+        TestBeanPlus plus = (TestBeanPlus) proxyLbf.getBean("plus");
+        Assertions.assertEquals("1000ZDK", plus.getInfo());
+        Assertions.assertTrue(proxyLbf.containsSingleton("tb"));
+    }
+
+    /**
+     * 推迟加载 class：解析时只记录类名，名称规则不变，getBean 时才加载
+     */
+    @Test
+    public void loadBeanDefinitions_deferClassResolution() {
+        bdReader.setDeferClassResolution(true);
+        bdReader.loadBeanDefinitions("classpath:spring-context-lazy.xml");
+        String xml = "<beans><bean class=\"com.example.DoesNotExist\"/></beans>";
+        bdReader.doLoadBeanDefinition(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertFalse(lbf.getBeanDefinition("plus").hasBeanClass());
+        Assertions.assertEquals("com.example.DoesNotExist", lbf.getBeanDefinition("doesNotExist").getBeanClassName());
+
+        TestBeanPlus plus = (TestBeanPlus) lbf.getBean("plus");
+        Assertions.assertEquals("1000ZDK", plus.getInfo());
+        Assertions.assertThrows(CannotLoadBeanClassException.class, () -> lbf.getBean("doesNotExist"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.yq.springframework.beans.factory.xml.core.io;
+
+import cn.hutool.core.io.IoUtil;
+import com.yq.springframework.core.io.ClassPathResource;
+import com.yq.springframework.core.io.FileSystemResource;
+import com.yq.springframework.core.io.Resource;
+import com.yq.springframework.core.io.UrlResource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 测试 Resource 的 ByteBuffer 视图、contentLength、lastModified
+ */
+public class ResourceByteBufferTest {
+
+    @TempDir
+    Path tempDir;
+
+    // 小文件读入堆内存，大文件内存映射
+    @Test
+    public void fileSystemResource() throws IOException {
+        Path small = this.tempDir.resolve("small.xml");
+        Files.write(small, DefaultResourceLoaderTest.prepareContent().getBytes(StandardCharsets.UTF_8));
+        Resource resource = new FileSystemResource(small);
+        ByteBuffer buffer = resource.getByteBuffer();
+        Assertions.assertFalse(buffer.isDirect());
+        Assertions.assertArrayEquals(Files.readAllBytes(small), toBytes(buffer));
+        Assertions.assertEquals(Files.size(small), resource.contentLength());
+        Assertions.assertEquals(Files.getLastModifiedTime(small).toMillis(), resource.lastModified());
+
+        Path large = this.tempDir.resolve("large.bin");
+        byte[] content = new byte[(int) FileSystemResource.MEMORY_MAP_THRESHOLD + 17];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Files.write(large, content);
+        buffer = new FileSystemResource(large).getByteBuffer();
+        Assertions.assertTrue(buffer instanceof MappedByteBuffer);
+        Assertions.assertArrayEquals(content, toBytes(buffer));
+
+        Resource missing = new FileSystemResource(this.tempDir.resolve("missing.xml"));
+        Assertions.assertThrows(FileNotFoundException.class, missing::getByteBuffer);
+        Assertions.assertThrows(FileNotFoundException.class, missing::contentLength);
+        Assertions.assertThrows(FileNotFoundException.class, missing::lastModified);
+    }
+
+    // classpath、file: URL 资源和直接读流的结果一致
+    @Test
+    public void classPathAndUrlResource() throws IOException {
+        Resource classPathResource = new ClassPathResource("spring-context.xml");
+        byte[] content = IoUtil.readBytes(classPathResource.getInputStream());
+        Assertions.assertArrayEquals(content, toBytes(classPathResource.getByteBuffer()));
+        Assertions.assertEquals(content.length, classPathResource.contentLength());
+        Assertions.assertTrue(classPathResource.lastModified() > 0);
+        Assertions.assertThrows(FileNotFoundException.class, new ClassPathResource("missing.xml")::contentLength);
+
+        Resource urlResource = new UrlResource(getClass().getClassLoader().getResource("spring-context.xml"));
+        Assertions.assertArrayEquals(content, toBytes(urlResource.getByteBuffer()));
+        Assertions.assertEquals(content.length, urlResource.contentLength());
+        Assertions.assertEquals(classPathResource.lastModified(), urlResource.lastModified());
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -9,13 +9,26 @@ import com.yq.springframework.beans.factory.support.BeanDefinitionRegistry;
 import com.yq.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
 import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
 import com.yq.springframework.context.support.AbstractApplicationContext;
+import com.yq.springframework.context.support.ClassPathXmlApplicationContext;
+import com.yq.springframework.test.ComponentCompiler;
+import com.yq.springframework.test.Sample.beans.DisposableTestBean;
 import com.yq.springframework.test.Sample.beans.TestBean;
+import com.yq.springframework.test.Sample.beans.TestBeanPlus;
 import com.yq.springframework.test.Sample.context.refreshorder.TestBeanDefRegistryPP;
 import com.yq.springframework.test.Sample.context.refreshorder.TestBeanDefRegistryPPGeneratorPP;
 import com.yq.springframework.test.Sample.context.refreshstep1.TestBdrPP1;
 import com.yq.springframework.test.Sample.context.refreshstep1.TestBdrPP2;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 public class AbstractApplicationContextTest {
 
@@ -33,6 +46,11 @@ public class AbstractApplicationContextTest {
         public ConfigurableListableBeanFactory getBeanFactory() throws IllegalStateException {
             return this.bf;
         }
+
+        @Override
+        protected void closeBeanFactory() {
+            this.bf = null;
+        }
     };
 
 
@@ -154,5 +172,97 @@ public class AbstractApplicationContextTest {
     public void t6() {
     }
 
+    /**
+     * close: 按依赖关系的逆序销毁单例 (DisposableBean + destroy-method)，释放 BF
+     */
+    @Test
+    public void close_destroySingletons() {
+        DisposableTestBean.DESTROYED.clear();
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("classpath:spring-context-destroy.xml");
+        Assertions.assertTrue(context.isActive());
+        Assertions.assertTrue(((DisposableTestBean) context.getBean("dataSource")).isOpened());
+
+        context.close();
+        Assertions.assertEquals(Arrays.asList("service", "repository", "dataSource", "dataSource:close"),
+                DisposableTestBean.DESTROYED);
+        Assertions.assertFalse(context.isActive());
+        Assertions.assertThrows(IllegalStateException.class, () -> context.getBean("service"));
+
+        // 重复关闭没有副作用
+        context.close();
+        Assertions.assertEquals(4, DisposableTestBean.DESTROYED.size());
+    }
 
-}
\ No newline at end of file
+    /**
+     * 再次 refresh 时，旧 BF 中的单例要先销毁
+     */
+    @Test
+    public void refresh_destroyPreviousSingletons() {
+        DisposableTestBean.DESTROYED.clear();
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("classpath:spring-context-destroy.xml");
+        Object service = context.getBean("service");
+
+        context.refresh();
+        Assertions.assertEquals(4, DisposableTestBean.DESTROYED.size());
+        Assertions.assertNotSame(service, context.getBean("service"));
+        context.close();
+    }
+
+    /**
+     * 配置了 BD 快照：第一次 refresh 解析 XML 并生成快照，之后的 refresh 直接读快照
+     */
+    @Test
+    public void refresh_beanDefinitionSnapshot(@TempDir Path tempDir) throws IOException {
+        Path snapshot = tempDir.resolve("beans.snapshot");
+        ClassPathXmlApplicationContext context =
+                new ClassPathXmlApplicationContext(new String[]{"classpath:spring-context.xml"}, false);
+        context.setBeanDefinitionSnapshot(snapshot.toString());
+        context.refresh();
+        Assertions.assertTrue(Files.exists(snapshot));
+        long lastModified = Files.getLastModifiedTime(snapshot).toMillis();
+
+        context.refresh();
+        Assertions.assertEquals(lastModified, Files.getLastModifiedTime(snapshot).toMillis());
+        Assertions.assertEquals("1000ZDK", ((TestBeanPlus) context.getBean("tbp")).getTestBean().info());
+        context.close();
+    }
+
+    /**
+     * 配置了 BD 快照，XML 中有 <component-scan>：快照生成之后扫描的包中新增了组件，快照作废，重新解析 XML 并扫描
+     */
+    @Test
+    public void refresh_beanDefinitionSnapshotWithComponentScan(@TempDir Path tempDir) throws Exception {
+        Path classesDir = tempDir.resolve("classes");
+        ComponentCompiler.compileComponent(tempDir.resolve("src"), classesDir, "FirstComponent");
+        Files.write(classesDir.resolve("spring-context-scan-snapshot.xml"),
+                ("<beans><component-scan base-package=\"" + ComponentCompiler.COMPONENT_PACKAGE + "\"/></beans>")
+                        .getBytes(StandardCharsets.UTF_8));
+        Path snapshot = tempDir.resolve("beans.snapshot");
+
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classesDir.toUri().toURL()}, original)) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(
+                    new String[]{"classpath:spring-context-scan-snapshot.xml"}, false);
+            context.setBeanDefinitionSnapshot(snapshot.toString());
+            context.refresh();
+            Assertions.assertTrue(Files.exists(snapshot));
+            Assertions.assertEquals(Arrays.asList("firstComponent"), Arrays.asList(context.getBeanDefinitionNames()));
+
+            // 组件没变，直接读快照
+            long lastModified = Files.getLastModifiedTime(snapshot).toMillis();
+            context.refresh();
+            Assertions.assertEquals(lastModified, Files.getLastModifiedTime(snapshot).toMillis());
+
+            ComponentCompiler.compileComponent(tempDir.resolve("src"), classesDir, "SecondComponent");
+            context.refresh();
+            Assertions.assertEquals(Arrays.asList("firstComponent", "secondComponent"),
+                    Arrays.asList(context.getBeanDefinitionNames()));
+            Assertions.assertEquals(ComponentCompiler.COMPONENT_PACKAGE + ".SecondComponent",
+                    context.getBean("secondComponent").getClass().getName());
+            context.close();
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+}
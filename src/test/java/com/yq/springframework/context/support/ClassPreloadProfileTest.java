@@ -0,0 +1,68 @@
+package com.yq.springframework.context.support;
+
+import com.yq.springframework.test.Sample.beans.TestBean;
+import com.yq.springframework.test.Sample.beans.TestBeanPlus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ClassPreloadProfileTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * refresh 成功后记录加载过的类 (父类型在前)，下次 refresh 时按它预加载，并可以导出成 AppCDS class list
+     */
+    @Test
+    public void refresh_recordsProfile() throws Exception {
+        Path profile = this.tempDir.resolve("classes.profile");
+        refreshWithProfile(profile);
+
+        List<String> classNames = ClassPreloadProfile.read(profile);
+        Assertions.assertTrue(classNames.contains(TestBean.class.getName()));
+        Assertions.assertTrue(classNames.contains(TestBeanPlus.class.getName()));
+        Assertions.assertTrue(classNames.indexOf(Object.class.getName()) < classNames.indexOf(TestBean.class.getName()));
+        Assertions.assertFalse(classNames.stream().anyMatch(name -> name.contains("$$")));
+
+        // 第二次启动按 profile 预加载，profile 被重新写入
+        Files.write(profile, Arrays.asList("# stale", "com.example.Removed"), StandardCharsets.UTF_8);
+        refreshWithProfile(profile);
+        Assertions.assertEquals(classNames, ClassPreloadProfile.read(profile));
+
+        Path classList = this.tempDir.resolve("classes.lst");
+        ClassPreloadProfile.exportAppCdsClassList(profile, classList);
+        List<String> lines = Files.readAllLines(classList, StandardCharsets.UTF_8);
+        Assertions.assertEquals(classNames.size(), lines.size());
+        Assertions.assertTrue(lines.contains(TestBean.class.getName().replace('.', '/')));
+    }
+
+    /**
+     * 预加载时类不存在直接跳过
+     */
+    @Test
+    public void preload_skipsMissingClasses() throws Exception {
+        ClassPreloader preloader = ClassPreloader.start(
+                Arrays.asList(TestBean.class.getName(), "com.example.Missing", TestBeanPlus.class.getName()),
+                getClass().getClassLoader(), 2);
+        Assertions.assertTrue(preloader.awaitCompletion(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, preloader.getLoadedCount());
+        Assertions.assertEquals(1, preloader.getFailedCount());
+    }
+
+    private static void refreshWithProfile(Path profile) {
+        ClassPathXmlApplicationContext context =
+                new ClassPathXmlApplicationContext(new String[]{"classpath:spring-context.xml"}, false);
+        context.setClassPreloadProfile(profile.toString());
+        context.refresh();
+        Assertions.assertEquals("1000ZDK", ((TestBeanPlus) context.getBean("tbp")).getTestBean().info());
+        context.close();
+    }
+}
@@ -0,0 +1,97 @@
+package com.yq.springframework.core.convert.support;
+
+import com.yq.springframework.core.convert.ConversionFailedException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class DefaultConversionServiceTest {
+
+    private final DefaultConversionService conversionService = new DefaultConversionService();
+
+    /**
+     * 基本类型、包装类型
+     */
+    @Test
+    public void convert_primitives() {
+        Assertions.assertEquals(1000, conversionService.convert("1000", int.class));
+        Assertions.assertEquals(255, conversionService.convert("0xFF", Integer.class));
+        Assertions.assertEquals(-5L, conversionService.convert(" -5 ", long.class));
+        Assertions.assertEquals(1.5d, conversionService.convert("1.5", double.class));
+        Assertions.assertEquals(Boolean.TRUE, conversionService.convert("yes", boolean.class));
+        Assertions.assertEquals('x', conversionService.convert("x", char.class));
+        Assertions.assertEquals(new BigDecimal("3.14"), conversionService.convert("3.14", BigDecimal.class));
+
+        // 空串对包装类型来说就是 null，对基本类型则无法转换
+        Assertions.assertNull(conversionService.convert("", Integer.class));
+        Assertions.assertThrows(ConversionFailedException.class, () -> conversionService.convert("", int.class));
+        Assertions.assertThrows(ConversionFailedException.class, () -> conversionService.convert("abc", int.class));
+    }
+
+    /**
+     * 枚举、Duration、Class、数组
+     */
+    @Test
+    public void convert_derivedTypes() {
+        Assertions.assertEquals(TimeUnit.SECONDS, conversionService.convert("SECONDS", TimeUnit.class));
+        Assertions.assertThrows(ConversionFailedException.class, () -> conversionService.convert("WEEKS", TimeUnit.class));
+
+        Assertions.assertEquals(Duration.ofSeconds(10), conversionService.convert("PT10S", Duration.class));
+        Assertions.assertEquals(Duration.ofMillis(500), conversionService.convert("500ms", Duration.class));
+        Assertions.assertEquals(Duration.ofMinutes(2), conversionService.convert("2m", Duration.class));
+        Assertions.assertEquals(Duration.ofMillis(300), conversionService.convert("300", Duration.class));
+
+        Assertions.assertEquals(String.class, conversionService.convert("java.lang.String", Class.class));
+        Assertions.assertEquals(int.class, conversionService.convert("int", Class.class));
+
+        Assertions.assertArrayEquals(new int[] {1, 2, 3}, conversionService.convert("1, 2,3", int[].class));
+        Assertions.assertArrayEquals(new String[] {"a", "b"}, conversionService.convert("a,b", String[].class));
+        Assertions.assertArrayEquals(new TimeUnit[] {TimeUnit.DAYS, TimeUnit.HOURS},
+                conversionService.convert("DAYS,HOURS", TimeUnit[].class));
+    }
+
+    /**
+     * File，以及没有注册转换器、交给 hutool 兜底的类型
+     */
+    @Test
+    public void convert_hutoolFallback() {
+        Assertions.assertEquals(new File("/tmp/app.log"), conversionService.convert("/tmp/app.log", File.class));
+        Assertions.assertEquals(Locale.US, conversionService.convert("en_US", Locale.class));
+        Assertions.assertEquals(StandardCharsets.UTF_8, conversionService.convert("UTF-8", Charset.class));
+        Assertions.assertEquals(Arrays.asList("a", "b"), conversionService.convert("a, b", List.class));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("a", "b")), conversionService.convert("a,b", Set.class));
+        Assertions.assertArrayEquals(new Locale[] {Locale.US, Locale.UK},
+                conversionService.convert("en_US,en_GB", Locale[].class));
+        Assertions.assertTrue(conversionService.canConvert(String.class, Date.class));
+        Assertions.assertThrows(ConversionFailedException.class, () -> conversionService.convert("not a date", Date.class));
+    }
+
+    /**
+     * 已经是目标类型的对象直接返回，不支持的类型返回 false / 抛异常
+     */
+    @Test
+    public void canConvert() {
+        Object value = new Object();
+        Assertions.assertSame(value, conversionService.convert(value, Object.class));
+        Assertions.assertTrue(conversionService.canConvert(String.class, Duration.class));
+        Assertions.assertTrue(conversionService.canConvert(Integer.class, int.class));
+        Assertions.assertFalse(conversionService.canConvert(String.class, Thread.class));
+        Assertions.assertFalse(conversionService.canConvert(String.class, Thread[].class));
+        Assertions.assertThrows(ConversionFailedException.class, () -> conversionService.convert("t", Thread.class));
+
+        conversionService.addConverter(Thread.class, Thread::new);
+        Assertions.assertEquals("t", conversionService.convert("t", Thread.class).getName());
+    }
+}
@@ -0,0 +1,109 @@
+package com.yq.springframework.core.metrics;
+
+import com.yq.springframework.context.support.ClassPathXmlApplicationContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class BufferingApplicationStartupTest {
+
+    /**
+     * 嵌套的步骤记录父步骤 id，结束的步骤按开始时间排列
+     */
+    @Test
+    public void nestedSteps() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup();
+        StartupStep outer = startup.start("outer").tag("key", "value");
+        StartupStep inner = startup.start("inner").tag("lazy", () -> "computed");
+        inner.end();
+        outer.end();
+        StartupStep next = startup.start("next");
+        next.end();
+
+        List<BufferingApplicationStartup.TimedStep> steps = startup.getSteps();
+        Assertions.assertEquals(3, steps.size());
+        Assertions.assertEquals("outer", steps.get(0).getName());
+        Assertions.assertNull(steps.get(0).getParentId());
+        Assertions.assertEquals(outer.getId(), steps.get(1).getParentId());
+        Assertions.assertEquals("computed", steps.get(1).getTags().iterator().next().getValue());
+        Assertions.assertNull(steps.get(2).getParentId());
+        Assertions.assertTrue(steps.get(0).getDurationNanos() >= steps.get(1).getDurationNanos());
+
+        String json = startup.toJson();
+        Assertions.assertTrue(json.startsWith("[{\"id\":" + outer.getId() + ",\"parentId\":null,\"name\":\"outer\""));
+        Assertions.assertTrue(json.contains("\"tags\":{\"key\":\"value\"}"));
+        Assertions.assertTrue(startup.report().contains("key=value"));
+    }
+
+    /**
+     * 超出容量的步骤被丢弃
+     */
+    @Test
+    public void capacity() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(2);
+        for (int i = 0; i < 5; i++) {
+            startup.start("step-" + i).end();
+        }
+        Assertions.assertEquals(2, startup.getSteps().size());
+        Assertions.assertEquals(3, startup.getDroppedCount());
+        Assertions.assertTrue(startup.report().contains("3 steps dropped"));
+    }
+
+    /**
+     * refresh 的各个阶段、每个 bean 的创建过程都被记录下来
+     */
+    @Test
+    public void refreshSteps() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup();
+        ClassPathXmlApplicationContext context =
+                new ClassPathXmlApplicationContext(new String[] {"classpath:spring-context.xml"}, false);
+        context.setApplicationStartup(startup);
+        context.refresh();
+
+        List<BufferingApplicationStartup.TimedStep> steps = startup.getSteps();
+        Map<Long, BufferingApplicationStartup.TimedStep> byId = steps.stream()
+                .collect(Collectors.toMap(StartupStep::getId, Function.identity()));
+
+        BufferingApplicationStartup.TimedStep refresh = steps.get(0);
+        Assertions.assertEquals("spring.context.refresh", refresh.getName());
+        List<String> phases = steps.stream()
+                .filter(step -> refresh.getId() == (step.getParentId() != null ? step.getParentId() : -1))
+                .map(StartupStep::getName)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(4, phases.size());
+        Assertions.assertEquals("spring.context.obtain-fresh-bean-factory", phases.get(0));
+        Assertions.assertEquals("spring.context.finish-bean-factory-initialization", phases.get(3));
+
+        // 按注册顺序创建：tb 先创建，tbp 注入 tb 时直接从单例池中拿
+        BufferingApplicationStartup.TimedStep tbCreate = findCreateStep(steps, "tb");
+        Assertions.assertTrue(hasTag(tbCreate, "beanClass", "class com.yq.springframework.test.Sample.beans.TestBean"));
+        Assertions.assertEquals("spring.context.finish-bean-factory-initialization", byId.get(tbCreate.getParentId()).getName());
+
+        BufferingApplicationStartup.TimedStep tbpCreate = findCreateStep(steps, "tbp");
+        List<String> beanSteps = steps.stream()
+                .filter(step -> step.getParentId() != null && step.getParentId() == tbpCreate.getId())
+                .map(StartupStep::getName)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(Arrays.asList("spring.beans.instantiate", "spring.beans.populate", "spring.beans.post-process"), beanSteps);
+    }
+
+    private static BufferingApplicationStartup.TimedStep findCreateStep(List<BufferingApplicationStartup.TimedStep> steps, String beanName) {
+        return steps.stream()
+                .filter(step -> step.getName().equals("spring.beans.create") && hasTag(step, "beanName", beanName))
+                .findFirst().orElseThrow(AssertionError::new);
+    }
+
+    private static boolean hasTag(StartupStep step, String key, String value) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals(key) && tag.getValue().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,47 @@
+package com.yq.springframework.test;
+
+import com.yq.springframework.stereotype.Component;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 测试中运行时编译组件类：用于模拟 "扫描的包中新增了组件"
+ * 编译结果放在测试自己的目录中，通过 URLClassLoader (设置为 TCCL) 加到 classpath 上
+ */
+public final class ComponentCompiler {
+
+    /**
+     * 编译出的组件所在的包，不在测试自己的 classpath 上
+     */
+    public static final String COMPONENT_PACKAGE = "com.yq.springframework.test.runtimecomponents";
+
+    private ComponentCompiler() {
+    }
+
+    /**
+     * 编译一个标注了 @Component 的空类
+     * @param sourceDir 源文件目录
+     * @param classesDir class 文件输出目录
+     * @param simpleName 类名
+     */
+    public static void compileComponent(Path sourceDir, Path classesDir, String simpleName) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assumptions.assumeTrue(compiler != null, "需要在 JDK 上运行");
+        Path source = sourceDir.resolve(simpleName + ".java");
+        Files.createDirectories(sourceDir);
+        Files.createDirectories(classesDir);
+        Files.write(source, ("package " + COMPONENT_PACKAGE + ";\n"
+                + "@" + Component.class.getName() + "\n"
+                + "public class " + simpleName + " {}\n").getBytes(StandardCharsets.UTF_8));
+        String classpath = Paths.get(Component.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        Assertions.assertEquals(0, compiler.run(null, null, null,
+                "-classpath", classpath, "-d", classesDir.toString(), source.toString()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.yq.springframework.test.Sample.beans;
+
+/**
+ * 属性注入时分配指定大小内存的 bean
+ */
+public class AllocatingBean {
+
+    private byte[] buffer;
+
+    private AllocatingBean dependency;
+
+    public void setSize(int size) {
+        this.buffer = new byte[size];
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public AllocatingBean getDependency() {
+        return dependency;
+    }
+
+    public void setDependency(AllocatingBean dependency) {
+        this.dependency = dependency;
+    }
+}
@@ -0,0 +1,13 @@
+package com.yq.springframework.test.Sample.beans;
+
+public class CircularBeanA {
+    private CircularBeanB beanB;
+
+    public CircularBeanB getBeanB() {
+        return beanB;
+    }
+
+    public void setBeanB(CircularBeanB beanB) {
+        this.beanB = beanB;
+    }
+}
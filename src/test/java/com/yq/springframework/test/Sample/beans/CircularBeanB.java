@@ -0,0 +1,13 @@
+package com.yq.springframework.test.Sample.beans;
+
+public class CircularBeanB {
+    private CircularBeanA beanA;
+
+    public CircularBeanA getBeanA() {
+        return beanA;
+    }
+
+    public void setBeanA(CircularBeanA beanA) {
+        this.beanA = beanA;
+    }
+}
@@ -0,0 +1,76 @@
+package com.yq.springframework.test.Sample.beans;
+
+import com.yq.springframework.beans.factory.DisposableBean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 需要销毁的 bean：既实现了 DisposableBean，也可以配置 init-method="open"、destroy-method="close"
+ * 销毁时检查依赖的 bean 还没有被销毁
+ */
+public class DisposableTestBean implements DisposableBean {
+
+    /**
+     * 销毁记录，按销毁的先后顺序排列
+     */
+    public static final List<String> DESTROYED = new CopyOnWriteArrayList<>();
+
+    private String name;
+
+    private DisposableTestBean dependency;
+
+    private long destroyMillis;
+
+    private boolean opened;
+
+    private volatile boolean destroyed;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public DisposableTestBean getDependency() {
+        return dependency;
+    }
+
+    public void setDependency(DisposableTestBean dependency) {
+        this.dependency = dependency;
+    }
+
+    public void setDestroyMillis(long destroyMillis) {
+        this.destroyMillis = destroyMillis;
+    }
+
+    public boolean isOpened() {
+        return opened;
+    }
+
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (this.dependency != null && this.dependency.isDestroyed()) {
+            throw new IllegalStateException(this.name + " destroyed after its dependency " + this.dependency.getName());
+        }
+        if (this.destroyMillis > 0) {
+            Thread.sleep(this.destroyMillis);
+        }
+        DESTROYED.add(this.name);
+        this.destroyed = true;
+    }
+
+    public void open() {
+        this.opened = true;
+    }
+
+    public void close() {
+        DESTROYED.add(this.name + ":close");
+    }
+}
@@ -0,0 +1,38 @@
+package com.yq.springframework.test.Sample.beans;
+
+import com.yq.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 记录生命周期回调的 bean：InitializingBean + 私有的 init-method
+ */
+public class LifecycleTestBean implements InitializingBean {
+
+    private final List<String> events = new ArrayList<>();
+
+    private String name;
+
+    public List<String> getEvents() {
+        return events;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        this.events.add("setName");
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        this.events.add("afterPropertiesSet");
+    }
+
+    private void init() {
+        this.events.add("init:" + this.name);
+    }
+
+    public void fail() {
+        throw new IllegalStateException("init failed");
+    }
+}
@@ -0,0 +1,44 @@
+package com.yq.springframework.test.Sample.beans;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 初始化比较慢的 bean，模拟连接池、缓存加载之类的 bean
+ * 注入依赖时检查依赖是否已经完整创建 (属性已经注入完)
+ */
+public class SlowInitBean {
+
+    /**
+     * 创建过 SlowInitBean 的线程名
+     */
+    public static final Set<String> CREATION_THREADS = ConcurrentHashMap.newKeySet();
+
+    private String name;
+
+    private SlowInitBean dependency;
+
+    public SlowInitBean() throws InterruptedException {
+        CREATION_THREADS.add(Thread.currentThread().getName());
+        Thread.sleep(20);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public SlowInitBean getDependency() {
+        return dependency;
+    }
+
+    public void setDependency(SlowInitBean dependency) {
+        if (dependency.getName() == null) {
+            throw new IllegalStateException("dependency is not fully initialized");
+        }
+        this.dependency = dependency;
+    }
+}
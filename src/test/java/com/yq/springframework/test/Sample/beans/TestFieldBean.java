@@ -0,0 +1,23 @@
+package com.yq.springframework.test.Sample.beans;
+
+public class TestFieldBean {
+
+    /**
+     * 没有 setter，只能通过字段注入
+     */
+    private long timeout;
+
+    private String label;
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = "label:" + label;
+    }
+}
@@ -0,0 +1,13 @@
+package com.yq.springframework.test.Sample.beans;
+
+public abstract class TestLookupBean {
+
+    /**
+     * 由 lookup-method 注入
+     */
+    public abstract TestBean getTestBean();
+
+    public String lookupInfo() {
+        return getTestBean().info();
+    }
+}
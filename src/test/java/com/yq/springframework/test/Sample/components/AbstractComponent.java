@@ -0,0 +1,10 @@
+package com.yq.springframework.test.Sample.components;
+
+import com.yq.springframework.stereotype.Component;
+
+/**
+ * 抽象类不能成为组件
+ */
+@Component
+public abstract class AbstractComponent {
+}
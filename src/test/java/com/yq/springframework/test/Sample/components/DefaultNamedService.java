@@ -0,0 +1,5 @@
+package com.yq.springframework.test.Sample.components;
+
+@Service
+public class DefaultNamedService {
+}
@@ -0,0 +1,7 @@
+package com.yq.springframework.test.Sample.components;
+
+import com.yq.springframework.stereotype.Component;
+
+@Component("named")
+public class NamedComponent {
+}
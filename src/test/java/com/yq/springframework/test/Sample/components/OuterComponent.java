@@ -0,0 +1,17 @@
+package com.yq.springframework.test.Sample.components;
+
+import com.yq.springframework.stereotype.Component;
+
+/**
+ * 静态内部类可以成为组件，非静态内部类不行；外部类本身没有标注，不是组件
+ */
+public class OuterComponent {
+
+    @Component
+    public static class NestedComponent {
+    }
+
+    @Component
+    public class InnerComponent {
+    }
+}
@@ -0,0 +1,7 @@
+package com.yq.springframework.test.Sample.components;
+
+/**
+ * 没有标注 @Component，不是组件
+ */
+public class PlainBean {
+}
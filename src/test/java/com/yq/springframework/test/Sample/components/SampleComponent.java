@@ -0,0 +1,11 @@
+package com.yq.springframework.test.Sample.components;
+
+import com.yq.springframework.stereotype.Component;
+
+@Component
+public class SampleComponent {
+
+    public String hello() {
+        return "hello";
+    }
+}
@@ -0,0 +1,7 @@
+package com.yq.springframework.test.Sample.components.sub;
+
+import com.yq.springframework.stereotype.Component;
+
+@Component
+public class SubPackageComponent {
+}
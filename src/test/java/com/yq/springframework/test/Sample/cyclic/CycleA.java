@@ -0,0 +1,18 @@
+package com.yq.springframework.test.Sample.cyclic;
+
+import com.yq.springframework.stereotype.Component;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 和 @CycleB 互相标注，同时以 @Component 为元注解；@CycleB 要写在 @Component 前面，先判断 @CycleB
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@CycleB
+@Component
+public @interface CycleA {
+}
@@ -0,0 +1,15 @@
+package com.yq.springframework.test.Sample.cyclic;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 只标注了 @CycleA，通过 @CycleA 间接以 @Component 为元注解
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@CycleA
+public @interface CycleB {
+}
@@ -0,0 +1,7 @@
+package com.yq.springframework.test.Sample.cyclic.a;
+
+import com.yq.springframework.test.Sample.cyclic.CycleA;
+
+@CycleA
+public class CycleAComponent {
+}
@@ -0,0 +1,7 @@
+package com.yq.springframework.test.Sample.cyclic.b;
+
+import com.yq.springframework.test.Sample.cyclic.CycleB;
+
+@CycleB
+public class CycleBComponent {
+}
@@ -0,0 +1,134 @@
+package com.yq.springframework.benchmark;
+
+import com.yq.springframework.beans.MutablePropertyValues;
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.config.BeanReference;
+import com.yq.springframework.beans.factory.support.BeanDefinitionRegistry;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * 生成性能测试用的 BD，同样的参数每次生成的内容完全一致，方便对比不同版本的结果
+ *
+ * 第 i 个 bean：
+ * - 名称为 bean{i}
+ * - 每 {@link #SERVICE_RATIO} 个 bean 中有一个是 {@link BenchmarkServiceBean}，其余为 {@link BenchmarkBean}
+ * - 属性 id、name、version 为 String 值 (和 xml 中配置的一样，需要类型转换)
+ * - 一半的 bean 通过 dependency 属性引用一个在它之前的 bean，依赖图是 DAG，平均深度为 O(log n)
+ */
+public final class BeanDefinitionGenerator {
+
+    public static final int SERVICE_RATIO = 100;
+
+    private final int count;
+
+    private final long seed;
+
+    public BeanDefinitionGenerator(int count) {
+        this(count, 42L);
+    }
+
+    public BeanDefinitionGenerator(int count, long seed) {
+        this.count = count;
+        this.seed = seed;
+    }
+
+    public static String beanName(int index) {
+        return "bean" + index;
+    }
+
+    /**
+     * 第 index 个 bean 的类型
+     */
+    public static Class<?> beanClass(int index) {
+        return (index % SERVICE_RATIO == 0 ? BenchmarkServiceBean.class : BenchmarkBean.class);
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * 生成的 BD 中有多少个 {@link BenchmarkService}
+     */
+    public int getServiceCount() {
+        return (this.count + SERVICE_RATIO - 1) / SERVICE_RATIO;
+    }
+
+    /**
+     * 将所有 BD 注册到 registry 中
+     * @param registry BD 注册中心
+     */
+    public void registerTo(BeanDefinitionRegistry registry) {
+        Random random = new Random(this.seed);
+        for (int i = 0; i < this.count; i++) {
+            MutablePropertyValues pvs = new MutablePropertyValues();
+            pvs.addPropertyValue("id", String.valueOf(i));
+            pvs.addPropertyValue("name", beanName(i));
+            pvs.addPropertyValue("version", String.valueOf(i * 31L));
+            int dependency = nextDependency(random, i);
+            if (dependency >= 0) {
+                pvs.addPropertyValue("dependency", new BeanReference(beanName(dependency)));
+            }
+            registry.registerBeanDefinition(beanName(i), new BeanDefinition(beanClass(i), pvs));
+        }
+    }
+
+    /**
+     * 生成和 {@link #registerTo} 内容一致的 xml
+     * @return xml 内容
+     */
+    public String toXml() {
+        StringWriter writer = new StringWriter(this.count * 256);
+        try {
+            writeXml(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * 边生成边写出，用于生成很大的 xml 文件，不需要把整个内容放在内存中
+     * @param writer 输出
+     * @throws IOException 写入失败
+     */
+    public void writeXml(Writer writer) throws IOException {
+        Random random = new Random(this.seed);
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<beans xmlns=\"http://www.springframework.org/schema/beans\">\n");
+        StringBuilder sb = new StringBuilder(512);
+        for (int i = 0; i < this.count; i++) {
+            sb.setLength(0);
+            sb.append("    <bean id=\"").append(beanName(i)).append("\" class=\"").append(beanClass(i).getName()).append("\">\n");
+            sb.append("        <property name=\"id\" value=\"").append(i).append("\" />\n");
+            sb.append("        <property name=\"name\" value=\"").append(beanName(i)).append("\" />\n");
+            sb.append("        <property name=\"version\" value=\"").append(i * 31L).append("\" />\n");
+            int dependency = nextDependency(random, i);
+            if (dependency >= 0) {
+                sb.append("        <property name=\"dependency\" ref=\"").append(beanName(dependency)).append("\" />\n");
+            }
+            sb.append("    </bean>\n");
+            writer.append(sb);
+        }
+        writer.write("</beans>\n");
+    }
+
+    public byte[] toXmlBytes() {
+        return toXml().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 第 index 个 bean 依赖的 bean，没有依赖返回 -1
+     * 两种生成方式必须以同样的顺序消费随机数
+     */
+    private static int nextDependency(Random random, int index) {
+        boolean hasDependency = random.nextBoolean();
+        return (index > 0 && hasDependency ? random.nextInt(index) : -1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.yq.springframework.benchmark;
+
+/**
+ * 性能测试用的 bean，同时提供无参和多参构造器
+ */
+public class BenchmarkBean {
+
+    private int id;
+    private String name;
+    private long version;
+    private BenchmarkBean dependency;
+
+    public BenchmarkBean() {
+    }
+
+    public BenchmarkBean(int id, String name, long version) {
+        this.id = id;
+        this.name = name;
+        this.version = version;
+    }
+
+    /**
+     * 用于 lookup-method 方法注入
+     */
+    public BenchmarkBean lookupDependency() {
+        return null;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public BenchmarkBean getDependency() {
+        return dependency;
+    }
+
+    public void setDependency(BenchmarkBean dependency) {
+        this.dependency = dependency;
+    }
+}
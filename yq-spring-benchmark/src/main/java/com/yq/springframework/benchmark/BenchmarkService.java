@@ -0,0 +1,9 @@
+package com.yq.springframework.benchmark;
+
+/**
+ * 类型查找性能测试用的接口，只有一小部分 bean 实现它
+ */
+public interface BenchmarkService {
+
+    String serviceName();
+}
@@ -0,0 +1,19 @@
+package com.yq.springframework.benchmark;
+
+/**
+ * 实现了 {@link BenchmarkService} 的 bean
+ */
+public class BenchmarkServiceBean extends BenchmarkBean implements BenchmarkService {
+
+    public BenchmarkServiceBean() {
+    }
+
+    public BenchmarkServiceBean(int id, String name, long version) {
+        super(id, name, version);
+    }
+
+    @Override
+    public String serviceName() {
+        return getName();
+    }
+}
@@ -0,0 +1,134 @@
+package com.yq.springframework.benchmark;
+
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getBean 的性能：
+ * - getBeanByName: 单例已经创建好，按名称从单例池获取
+ * - getBeanByName64Threads: 同上，64 个线程并发获取
+ * - getBeanCold64Threads: 单例还没有创建，64 个线程同时 getBean 全部 bean，抢着创建单例
+ * - createBeanWithArgs: 带构造器参数创建 bean (构造器解析 + 实例化 + 属性注入)
+ *   目前只有单例，getBean(name, args) 只有第一次调用会创建 bean，所以这里直接测 createBean
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetBeanBenchmark {
+
+    private static final int BEAN_COUNT = 1024;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    private ArgsBeanFactory argsBeanFactory;
+
+    private String[] beanNames;
+
+    private BeanDefinition argsBeanDefinition;
+
+    private final Object[] constructorArgs = new Object[] {1001, "benchmark", 42L};
+
+    @Setup
+    public void setUp() {
+        this.beanFactory = new DefaultListableBeanFactory();
+        new BeanDefinitionGenerator(BEAN_COUNT).registerTo(this.beanFactory);
+        this.beanFactory.preInstantiateSingletons();
+        this.beanNames = new String[BEAN_COUNT];
+        for (int i = 0; i < BEAN_COUNT; i++) {
+            this.beanNames[i] = BeanDefinitionGenerator.beanName(i);
+        }
+
+        this.argsBeanFactory = new ArgsBeanFactory();
+        this.argsBeanDefinition = new BeanDefinition(BenchmarkBean.class);
+        this.argsBeanDefinition.getPropertyValues().addPropertyValue("dependency", null);
+    }
+
+    /**
+     * 每个线程各自轮询 beanNames
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        int next() {
+            return (this.index++) & (BEAN_COUNT - 1);
+        }
+    }
+
+    @Benchmark
+    public Object getBeanByName(Cursor cursor) {
+        return this.beanFactory.getBean(this.beanNames[cursor.next()]);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object getBeanByName64Threads(Cursor cursor) {
+        return this.beanFactory.getBean(this.beanNames[cursor.next()]);
+    }
+
+    /**
+     * 每轮迭代换一个还没有创建任何单例的 BF
+     */
+    @State(Scope.Benchmark)
+    public static class ColdBeanFactory {
+
+        private DefaultListableBeanFactory beanFactory;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            this.beanFactory = new DefaultListableBeanFactory();
+            new BeanDefinitionGenerator(BEAN_COUNT).registerTo(this.beanFactory);
+        }
+    }
+
+    /**
+     * 每个线程每轮只执行一次：第一次 getBean 才会创建，之后就变成 warm 了，所以测单次耗时
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 50)
+    @Threads(64)
+    public void getBeanCold64Threads(ColdBeanFactory cold, Blackhole blackhole) {
+        for (String beanName : this.beanNames) {
+            blackhole.consume(cold.beanFactory.getBean(beanName));
+        }
+    }
+
+    @Benchmark
+    public Object createBeanWithArgs() {
+        return this.argsBeanFactory.createBean("argsBean", this.argsBeanDefinition, this.constructorArgs);
+    }
+
+
+    /**
+     * 暴露 createBean，每次调用都会创建一个新的 bean
+     */
+    static final class ArgsBeanFactory extends DefaultListableBeanFactory {
+
+        @Override
+        public Object createBean(String beanName, BeanDefinition beanDefinition, Object[] args) {
+            return super.createBean(beanName, beanDefinition, args);
+        }
+    }
+}
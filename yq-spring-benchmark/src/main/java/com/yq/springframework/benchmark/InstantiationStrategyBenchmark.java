@@ -0,0 +1,78 @@
+package com.yq.springframework.benchmark;
+
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.support.CglibSubclassingInstantiationStrategy;
+import com.yq.springframework.beans.factory.support.InstantiationStrategy;
+import com.yq.springframework.beans.factory.support.LookupOverride;
+import com.yq.springframework.beans.factory.support.MethodHandleInstantiationStrategy;
+import com.yq.springframework.beans.factory.support.SimpleInstantiationStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三种实例化策略的对比：
+ * - simple: 反射 Constructor#newInstance
+ * - cglib: 生成子类后实例化 (bean 带 lookup-method，强制走子类)
+ * - methodHandle: 缓存的 LambdaMetafactory Supplier / MethodHandle
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstantiationStrategyBenchmark {
+
+    @Param({"simple", "cglib", "methodHandle"})
+    public String strategy;
+
+    private InstantiationStrategy instantiationStrategy;
+
+    private BeanDefinition bd;
+
+    private Constructor<?> multiArgCtor;
+
+    private final Object[] multiArgs = new Object[] {1001, "benchmark", 42L};
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        this.bd = new BeanDefinition(BenchmarkBean.class);
+        switch (strategy) {
+            case "simple":
+                this.instantiationStrategy = new SimpleInstantiationStrategy();
+                break;
+            case "cglib":
+                this.instantiationStrategy = new CglibSubclassingInstantiationStrategy();
+                this.bd.getMethodOverrides().addOverride(new LookupOverride("lookupDependency", "dependency"));
+                break;
+            case "methodHandle":
+                this.instantiationStrategy = new MethodHandleInstantiationStrategy();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+        this.multiArgCtor = BenchmarkBean.class.getDeclaredConstructor(int.class, String.class, long.class);
+    }
+
+    @Benchmark
+    public Object noArgConstructor() {
+        return instantiationStrategy.instantiate(bd, "bean", null, null, null);
+    }
+
+    @Benchmark
+    public Object multiArgConstructor() {
+        return instantiationStrategy.instantiate(bd, "bean", null, multiArgCtor, multiArgs);
+    }
+}
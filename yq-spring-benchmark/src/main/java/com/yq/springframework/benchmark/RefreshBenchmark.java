@@ -0,0 +1,78 @@
+package com.yq.springframework.benchmark;
+
+import com.yq.springframework.context.support.ClassPathXmlApplicationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassPathXmlApplicationContext 完整 refresh 的性能：读文件 + 解析 xml + 创建所有单例
+ * parallelism 为预实例化单例时的并行度，1 表示串行
+ * 每次调用之后关闭 context (不计入耗时)，单例、销毁回调不会在迭代之间堆积，影响之后的 GC
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RefreshBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int definitionCount;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private File configFile;
+
+    private ClassPathXmlApplicationContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.configFile = File.createTempFile("yq-spring-benchmark-", ".xml");
+        Files.write(this.configFile.toPath(), new BeanDefinitionGenerator(this.definitionCount).toXmlBytes());
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (!this.configFile.delete()) {
+            this.configFile.deleteOnExit();
+        }
+    }
+
+    /**
+     * refresh 是毫秒级的，Level.Invocation 的额外开销可以忽略
+     */
+    @TearDown(Level.Invocation)
+    public void closeContext() {
+        if (this.context != null) {
+            this.context.close();
+            this.context = null;
+        }
+    }
+
+    @Benchmark
+    public Object refresh() {
+        this.context =
+                new ClassPathXmlApplicationContext(new String[] {"file:" + this.configFile.getAbsolutePath()}, false);
+        this.context.setPreInstantiationParallelism(this.parallelism);
+        this.context.refresh();
+        return this.context;
+    }
+}
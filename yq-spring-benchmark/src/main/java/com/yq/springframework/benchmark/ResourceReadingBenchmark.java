@@ -0,0 +1,135 @@
+package com.yq.springframework.benchmark;
+
+import com.yq.springframework.beans.factory.config.BeanDefinition;
+import com.yq.springframework.beans.factory.snapshot.BeanDefinitionSnapshot;
+import com.yq.springframework.beans.factory.support.BeanDefinitionRegistry;
+import com.yq.springframework.beans.factory.xml.StaxXmlBeanDefinitionReader;
+import com.yq.springframework.core.io.FileSystemResource;
+import com.yq.springframework.core.io.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 读取很大的 BD 配置文件 (默认 200 MB) 的性能：
+ * - streamChecksum: 改动之前的做法，8KB 缓冲区逐段从流中拷贝出来再计算 crc32
+ * - byteBufferChecksum: Resource#getByteBuffer，大文件内存映射，直接对映射的内存计算
+ * - staxParse: StaxXmlBeanDefinitionReader 流式解析，推迟加载 bean class，只计数不保存 BD
+ * 文件在 setup 中生成到临时目录，第一次读取之后基本都在页缓存中
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResourceReadingBenchmark {
+
+    @Param({"200"})
+    public int fileSizeMb;
+
+    private Path xmlFile;
+
+    private Resource resource;
+
+    private int definitionCount;
+
+    @Setup
+    public void setUp() throws IOException {
+        // 按小样本估算每个 BD 的字节数，生成大约 fileSizeMb 大小的文件
+        int sampleCount = 1000;
+        long bytesPerDefinition = new BeanDefinitionGenerator(sampleCount).toXmlBytes().length / sampleCount;
+        this.definitionCount = (int) (this.fileSizeMb * 1024L * 1024L / bytesPerDefinition);
+        this.xmlFile = Files.createTempFile("yq-spring-benchmark", ".xml");
+        try (Writer writer = Files.newBufferedWriter(this.xmlFile, StandardCharsets.UTF_8)) {
+            new BeanDefinitionGenerator(this.definitionCount).writeXml(writer);
+        }
+        this.resource = new FileSystemResource(this.xmlFile);
+
+        if (streamChecksum() != byteBufferChecksum()) {
+            throw new IllegalStateException("两种方式计算出的 crc32 不一致");
+        }
+        if (staxParse() != this.definitionCount) {
+            throw new IllegalStateException("解析出的 BD 个数不对");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.xmlFile);
+    }
+
+    @Benchmark
+    public long streamChecksum() throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        try (InputStream is = this.resource.getInputStream()) {
+            int read;
+            while ((read = is.read(buffer)) >= 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    @Benchmark
+    public long byteBufferChecksum() throws IOException {
+        return BeanDefinitionSnapshot.checksum(this.resource);
+    }
+
+    @Benchmark
+    public int staxParse() {
+        CountingRegistry registry = new CountingRegistry();
+        StaxXmlBeanDefinitionReader reader = new StaxXmlBeanDefinitionReader(registry);
+        reader.setDeferClassResolution(true);
+        reader.loadBeanDefinitions(this.resource);
+        return registry.getBeanDefinitionCount();
+    }
+
+
+    /**
+     * 只计数、不保存 BD，这里只关心读取和解析
+     */
+    static final class CountingRegistry implements BeanDefinitionRegistry {
+
+        private int count;
+
+        @Override
+        public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+            this.count++;
+        }
+
+        @Override
+        public int getBeanDefinitionCount() {
+            return this.count;
+        }
+
+        @Override
+        public BeanDefinition getBeanDefinition(String beanName) {
+            return null;
+        }
+
+        @Override
+        public boolean containsBeanDefinition(String beanName) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.yq.springframework.benchmark;
+
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按类型查找 bean 的性能，BD 个数分别为 1k、10k、100k
+ * - 只有 1% 的 bean 实现了 BenchmarkService，查 BenchmarkService 是 "少量命中"
+ * - 查 BenchmarkBean 是 "全部命中"
+ * getBeansOfType 查的 bean 在 setup 中已经创建好，测的是查找 + 从单例池获取
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeLookupBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int definitionCount;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @Setup
+    public void setUp() {
+        this.beanFactory = new DefaultListableBeanFactory();
+        BeanDefinitionGenerator generator = new BeanDefinitionGenerator(this.definitionCount);
+        generator.registerTo(this.beanFactory);
+        Map<String, BenchmarkService> services = this.beanFactory.getBeansOfType(BenchmarkService.class);
+        if (services.size() != generator.getServiceCount()) {
+            throw new IllegalStateException("Expected " + generator.getServiceCount() + " services but got " + services.size());
+        }
+    }
+
+    @Benchmark
+    public String[] getBeanNamesForTypeFewMatches() {
+        return this.beanFactory.getBeanNamesForType(BenchmarkService.class);
+    }
+
+    @Benchmark
+    public String[] getBeanNamesForTypeAllMatch() {
+        return this.beanFactory.getBeanNamesForType(BenchmarkBean.class);
+    }
+
+    @Benchmark
+    public Map<String, BenchmarkService> getBeansOfTypeFewMatches() {
+        return this.beanFactory.getBeansOfType(BenchmarkService.class);
+    }
+}
@@ -0,0 +1,47 @@
+package com.yq.springframework.benchmark;
+
+import com.yq.springframework.beans.factory.support.DefaultListableBeanFactory;
+import com.yq.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XmlBeanDefinitionReader 解析 xml 并注册 BD 的性能，不创建 bean
+ * xml 内容在 setup 中生成好，放在内存中，不包含读文件的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlParsingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int definitionCount;
+
+    private byte[] xml;
+
+    @Setup
+    public void setUp() {
+        this.xml = new BeanDefinitionGenerator(this.definitionCount).toXmlBytes();
+    }
+
+    @Benchmark
+    public int parse() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        return new XmlBeanDefinitionReader(beanFactory).doLoadBeanDefinition(new ByteArrayInputStream(this.xml));
+    }
+}